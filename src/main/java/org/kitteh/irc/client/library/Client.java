@@ -41,6 +41,7 @@ import org.kitteh.irc.client.library.defaults.feature.DefaultEventManager;
 import org.kitteh.irc.client.library.defaults.feature.DefaultISupportManager;
 import org.kitteh.irc.client.library.defaults.feature.DefaultMessageTagManager;
 import org.kitteh.irc.client.library.defaults.feature.DefaultServerInfo;
+import org.kitteh.irc.client.library.defaults.feature.DirectEventManager;
 import org.kitteh.irc.client.library.element.Channel;
 import org.kitteh.irc.client.library.element.MessageReceiver;
 import org.kitteh.irc.client.library.element.User;
@@ -53,14 +54,21 @@ import org.kitteh.irc.client.library.event.user.PrivateCtcpQueryEvent;
 import org.kitteh.irc.client.library.feature.ActorTracker;
 import org.kitteh.irc.client.library.feature.AuthManager;
 import org.kitteh.irc.client.library.feature.CapabilityManager;
+import org.kitteh.irc.client.library.feature.CaseMapping;
 import org.kitteh.irc.client.library.feature.EventManager;
 import org.kitteh.irc.client.library.feature.ISupportManager;
 import org.kitteh.irc.client.library.feature.MessageTagManager;
 import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.kitteh.irc.client.library.feature.defaultmessage.DefaultMessageMap;
 import org.kitteh.irc.client.library.feature.defaultmessage.DefaultMessageType;
+import org.kitteh.irc.client.library.feature.query.QueryTracker;
+import org.kitteh.irc.client.library.feature.sending.AdaptiveRateSender;
+import org.kitteh.irc.client.library.feature.sending.DeliveryTracker;
+import org.kitteh.irc.client.library.feature.sending.JoinPipeline;
 import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.kitteh.irc.client.library.feature.sending.SingleDelaySender;
+import org.kitteh.irc.client.library.feature.sending.TimerSender;
+import org.kitteh.irc.client.library.feature.sending.TokenBucketSender;
 import org.kitteh.irc.client.library.feature.sts.StsMachine;
 import org.kitteh.irc.client.library.feature.sts.StsStorageManager;
 import org.kitteh.irc.client.library.util.Cutter;
@@ -79,6 +87,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * An individual IRC connection, see {@link #builder()} to create one.
@@ -165,7 +174,8 @@ public interface Client {
         /**
          * Sets the supplier of the event manager.
          * <p>
-         * By default, the {@link DefaultEventManager} is used.
+         * By default, the {@link DefaultEventManager} is used. For cheaper
+         * dispatch without MBassador, see {@link DirectEventManager}.
          *
          * @param supplier supplier
          * @return this builder
@@ -215,7 +225,11 @@ public interface Client {
          * rate at which messages are sent by the Client to the server.
          * <p>
          * By default, the {@link SingleDelaySender} is used with a delay set
-         * to {@link SingleDelaySender#DEFAULT_MESSAGE_DELAY}.
+         * to {@link SingleDelaySender#DEFAULT_MESSAGE_DELAY}. To use the burst
+         * allowance most servers grant, see {@link TokenBucketSender}. When
+         * running many clients, {@link TimerSender} paces them all from one
+         * shared timer thread. To adjust to a server's throttling instead of
+         * fixing a rate, see {@link AdaptiveRateSender}.
          *
          * @param supplier supplier
          * @return this builder
@@ -575,6 +589,14 @@ public interface Client {
         @Nonnull
         Set<String> getIntendedChannels();
 
+        /**
+         * Gets the pipeline batching and pacing channel joins.
+         *
+         * @return join pipeline
+         */
+        @Nonnull
+        JoinPipeline getJoinPipeline();
+
         /**
          * Gets the currently set output listener.
          *
@@ -854,6 +876,14 @@ public interface Client {
     @Nonnull
     DefaultMessageMap getDefaultMessageMap();
 
+    /**
+     * Gets the tracker sending messages and confirming their delivery.
+     *
+     * @return delivery tracker
+     */
+    @Nonnull
+    DeliveryTracker getDeliveryTracker();
+
     /**
      * Gets the client's event manager.
      *
@@ -899,7 +929,9 @@ public interface Client {
     ISupportManager getISupportManager();
 
     /**
-     * Gets the current message cutter for multi-line messages.
+     * Gets the current message cutter for multi-line messages. The size
+     * given to the cutter is the number of UTF-8 bytes available, so the
+     * default is a {@link Cutter.Utf8WordCutter}.
      *
      * @return message cutter
      */
@@ -941,6 +973,14 @@ public interface Client {
     @Nonnull
     String getNick();
 
+    /**
+     * Gets the tracker sending queries and correlating their replies.
+     *
+     * @return query tracker
+     */
+    @Nonnull
+    QueryTracker getQueryTracker();
+
     /**
      * Gets information about the server to which the client is currently
      * connected. As long as the client remains connected the information
@@ -1020,6 +1060,29 @@ public interface Client {
      */
     void removeChannel(@Nonnull String channel, @Nullable String reason);
 
+    /**
+     * Removes lines not yet sent from the message sending queue. Lines sent
+     * immediately are not affected.
+     *
+     * @param filter filter returning true for lines to remove
+     * @return number of lines removed
+     * @throws IllegalArgumentException if filter is null
+     * @see MessageSendingQueue#removeIf(Predicate)
+     */
+    int removeQueuedLines(@Nonnull Predicate<String> filter);
+
+    /**
+     * Removes PRIVMSG and NOTICE lines not yet sent to a given target from
+     * the message sending queue. This is done automatically for a channel
+     * the client leaves.
+     *
+     * @param target target whose messages are removed
+     * @return number of lines removed
+     * @throws IllegalArgumentException if target is null
+     * @see MessageSendingQueue#removeTarget(String, CaseMapping)
+     */
+    int removeQueuedMessages(@Nonnull String target);
+
     /**
      * Sends a CTCP message to a target user or channel. Automagically adds
      * the CTCP delimiter around the message and escapes the characters that
@@ -1099,6 +1162,19 @@ public interface Client {
         this.sendMessage(target.getMessagingName(), message);
     }
 
+    /**
+     * Sends a message to several users or channels, naming as many targets
+     * in each line as the server's TARGMAX and the line length allow. If
+     * the server does not advertise a PRIVMSG target limit, one line is
+     * sent per target.
+     *
+     * @param targets the destinations of the message
+     * @param message the message to send
+     * @throws IllegalArgumentException for null parameters
+     * @see ServerInfo#getTargetLimit(String)
+     */
+    void sendMessage(@Nonnull Collection<? extends MessageReceiver> targets, @Nonnull String message);
+
     /**
      * Sends a notice to a target user or channel.
      *
@@ -1120,6 +1196,19 @@ public interface Client {
         this.sendNotice(target.getMessagingName(), message);
     }
 
+    /**
+     * Sends a notice to several users or channels, naming as many targets
+     * in each line as the server's TARGMAX and the line length allow. If
+     * the server does not advertise a NOTICE target limit, one line is
+     * sent per target.
+     *
+     * @param targets the destinations of the notice
+     * @param message the message to send
+     * @throws IllegalArgumentException for null parameters
+     * @see ServerInfo#getTargetLimit(String)
+     */
+    void sendNotice(@Nonnull Collection<? extends MessageReceiver> targets, @Nonnull String message);
+
     /**
      * Sends a potentially multi-line message to a target user or channel
      * using the client's current {@link Cutter}.
@@ -1250,6 +1339,17 @@ public interface Client {
      */
     void sendRawLine(@Nonnull String message);
 
+    /**
+     * Sends a raw IRC message with a given priority. The message is still
+     * subject to the message sending queue's delays.
+     *
+     * @param message message to send
+     * @param priority priority of the message
+     * @throws IllegalArgumentException if message or priority is null
+     * @see MessageSendingQueue.Priority
+     */
+    void sendRawLine(@Nonnull String message, @Nonnull MessageSendingQueue.Priority priority);
+
     /**
      * Sends a raw IRC message, unless the exact same message is already in
      * the queue of messages not yet sent.
@@ -1259,6 +1359,17 @@ public interface Client {
      */
     void sendRawLineAvoidingDuplication(@Nonnull String message);
 
+    /**
+     * Sends a raw IRC message with a given priority, unless the exact same
+     * message is already in the queue of messages not yet sent.
+     *
+     * @param message message to send
+     * @param priority priority of the message
+     * @throws IllegalArgumentException if message or priority is null
+     * @see MessageSendingQueue.Priority
+     */
+    void sendRawLineAvoidingDuplication(@Nonnull String message, @Nonnull MessageSendingQueue.Priority priority);
+
     /**
      * Sends a raw IRC message, disregarding message delays and all sanity.
      * Live life on the wild side with this method designed to ensure you
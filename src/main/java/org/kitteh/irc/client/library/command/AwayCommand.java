@@ -78,7 +78,7 @@ public class AwayCommand extends Command {
         if (this.message != null) {
             exec += " :" + this.message;
         }
-        this.getClient().sendRawLine(exec);
+        this.sendCommandLine(exec);
     }
 
     @Nonnull
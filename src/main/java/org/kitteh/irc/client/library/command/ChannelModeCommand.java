@@ -24,26 +24,53 @@
 package org.kitteh.irc.client.library.command;
 
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.Channel;
 import org.kitteh.irc.client.library.element.ISupportParameter;
 import org.kitteh.irc.client.library.element.User;
 import org.kitteh.irc.client.library.element.mode.ChannelMode;
 import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+import org.kitteh.irc.client.library.element.mode.ModeInfo;
 import org.kitteh.irc.client.library.element.mode.ModeStatus;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
+import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
+import org.kitteh.irc.client.library.feature.query.QueryTracker;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.StringUtil;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 /**
  * Commands a la MODE.
  */
 public class ChannelModeCommand extends ChannelCommand {
     private static final int PARAMETER_MODES_PER_LINE = 3;
+    private static final List<Integer> ERRORS = Arrays.asList(401, 403, 442, 482);
+    private static final List<Integer> MODE_ENDS = Arrays.asList(324, 401, 403, 442, 482);
+    private static final Map<Character, List<Integer>> LIST_REPLIES = new HashMap<>();
+    private static final Map<Character, List<Integer>> LIST_ENDS = new HashMap<>();
+
+    static {
+        LIST_REPLIES.put('b', Collections.singletonList(367));
+        LIST_REPLIES.put('e', Collections.singletonList(348));
+        LIST_REPLIES.put('I', Collections.singletonList(346));
+        LIST_REPLIES.put('q', Arrays.asList(344, 728));
+        LIST_ENDS.put('b', Collections.singletonList(368));
+        LIST_ENDS.put('e', Collections.singletonList(349));
+        LIST_ENDS.put('I', Collections.singletonList(347));
+        LIST_ENDS.put('q', Arrays.asList(345, 729));
+    }
 
     private final List<ModeStatus<ChannelMode>> changes = new ArrayList<>();
 
@@ -119,7 +146,7 @@ public class ChannelModeCommand extends ChannelCommand {
     @Override
     public synchronized void execute() {
         if (this.changes.isEmpty()) {
-            this.getClient().sendRawLine("MODE " + this.getChannel());
+            this.sendCommandLine("MODE " + this.getChannel());
             return;
         }
         int parameterModesPerLine = -1;
@@ -146,11 +173,98 @@ public class ChannelModeCommand extends ChannelCommand {
         }
     }
 
+    /**
+     * Requests the channel's current modes, completing the future once
+     * the reply has arrived. Any mode changes added are not sent.
+     *
+     * @return future completed with the channel's modes, or empty if the
+     * server refused the request
+     * @see QueryTracker
+     */
+    @Nonnull
+    public CompletableFuture<Optional<ModeStatusList<ChannelMode>>> query() {
+        String channel = this.getChannel();
+        return this.getClient().getQueryTracker().query("MODE " + channel, Collections.singletonList(324), MODE_ENDS).thenApply(replies -> {
+            for (ClientReceiveServerMessageEvent reply : this.getReplies(channel, replies)) {
+                if ("324".equals(reply.getCommand()) && (reply.getParameters().size() > 2)) {
+                    return Optional.of(ModeStatusList.fromChannel(this.getClient(), StringUtil.combineSplit(reply.getParameters().toArray(new String[reply.getParameters().size()]), 2)));
+                }
+            }
+            return Optional.empty();
+        });
+    }
+
+    /**
+     * Requests the entries of a list mode, such as the ban list, completing
+     * the future once the whole list has arrived. Any mode changes added
+     * are not sent.
+     * <p>
+     * Supports the ban (b), ban exception (e), invite exception (I) and
+     * quiet (q) lists of a channel the client is in.
+     *
+     * @param mode list mode to request
+     * @return future completed with the entries, or empty if the server
+     * refused the request
+     * @throws IllegalArgumentException if mode is null, from a different
+     * client or not a supported list mode
+     * @throws IllegalStateException if the channel isn't tracked
+     * @see QueryTracker
+     */
+    @Nonnull
+    public CompletableFuture<Optional<List<ModeInfo>>> queryList(@Nonnull ChannelMode mode) {
+        Sanity.nullCheck(mode, "Mode cannot be null");
+        Sanity.truthiness(mode.getClient() == this.getClient(), "Mode comes from a different Client");
+        Sanity.truthiness(LIST_REPLIES.containsKey(mode.getChar()), "Mode cannot be listed");
+        Channel channel = this.getClient().getChannel(this.getChannel()).orElseThrow(() -> new IllegalStateException("Channel not tracked"));
+        List<Integer> ends = new ArrayList<>(LIST_ENDS.get(mode.getChar()));
+        ends.addAll(ERRORS);
+        return this.getClient().getQueryTracker().query("MODE " + this.getChannel() + ' ' + mode.getChar(), LIST_REPLIES.get(mode.getChar()), ends).thenApply(replies -> {
+            List<ModeInfo> infos = new ArrayList<>();
+            for (ClientReceiveServerMessageEvent reply : this.getReplies(this.getChannel(), replies)) {
+                if (this.isAny(reply, ERRORS)) {
+                    return Optional.empty();
+                }
+                if (this.isAny(reply, LIST_REPLIES.get(mode.getChar()))) {
+                    try {
+                        infos.add(ModeInfo.DefaultModeInfo.fromReply(this.getClient(), channel, mode, reply.getParameters(), "728".equals(reply.getCommand()) ? 1 : 0));
+                    } catch (IllegalArgumentException ignored) {
+                        // Skip the broken line, keeping the rest
+                    }
+                }
+            }
+            return Optional.of(infos);
+        });
+    }
+
+    @Nonnull
+    private List<ClientReceiveServerMessageEvent> getReplies(@Nonnull String channel, @Nonnull List<ClientReceiveServerMessageEvent> replies) {
+        // Without labels, replies about other channels may have been collected too
+        return replies.stream()
+                .filter(reply -> (reply.getParameters().size() > 1) && this.getClient().getServerInfo().getCaseMapping().areEqualIgnoringCase(channel, reply.getParameters().get(1)))
+                .collect(Collectors.toList());
+    }
+
+    private boolean isAny(@Nonnull ClientReceiveServerMessageEvent reply, @Nonnull List<Integer> numerics) {
+        return numerics.stream().map(String::valueOf).anyMatch(reply.getCommand()::equals);
+    }
+
     private void send(@Nonnull List<ModeStatus<ChannelMode>> queue) {
-        this.getClient().sendRawLine("MODE " + this.getChannel() + ' ' + ModeStatusList.of(new ArrayList<>(queue)).getStatusString());
+        this.sendCommandLine("MODE " + this.getChannel() + ' ' + ModeStatusList.of(new ArrayList<>(queue)).getStatusString());
         queue.clear();
     }
 
+    /**
+     * Gets the default priority, {@link
+     * MessageSendingQueue.Priority#MODERATION} for mode changes.
+     *
+     * @return moderation priority
+     */
+    @Nonnull
+    @Override
+    protected MessageSendingQueue.Priority getDefaultPriority() {
+        return MessageSendingQueue.Priority.MODERATION;
+    }
+
     @Nonnull
     @Override
     protected ToStringer toStringer() {
@@ -25,16 +25,26 @@ package org.kitteh.irc.client.library.command;
 
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.element.ClientLinked;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a command which is executable on the server by the client.
  */
 public abstract class Command implements ClientLinked {
     private final Client client;
+    private final List<WeakReference<String>> sentLines = new ArrayList<>();
+    private MessageSendingQueue.Priority priority;
 
     /**
      * Constructs the command.
@@ -57,6 +67,75 @@ public abstract class Command implements ClientLinked {
         return this.client;
     }
 
+    /**
+     * Sets the priority with which this command is queued for sending.
+     * Returns this command, so it is best set just before execution.
+     *
+     * @param priority priority, or null for the command's default
+     * @return this command
+     */
+    @Nonnull
+    public Command priority(@Nullable MessageSendingQueue.Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Gets the priority with which this command is queued for sending.
+     *
+     * @return the set priority, or the command's default if not set
+     */
+    @Nonnull
+    public MessageSendingQueue.Priority getPriority() {
+        return (this.priority == null) ? this.getDefaultPriority() : this.priority;
+    }
+
+    /**
+     * Gets the priority used when none has been set.
+     *
+     * @return default priority
+     */
+    @Nonnull
+    protected MessageSendingQueue.Priority getDefaultPriority() {
+        return MessageSendingQueue.Priority.INTERACTIVE;
+    }
+
+    /**
+     * Sends a line of this command at the command's priority.
+     *
+     * @param line line to send
+     */
+    protected void sendCommandLine(@Nonnull String line) {
+        this.getClient().sendRawLine(line, this.getPriority());
+        synchronized (this.sentLines) {
+            // Lines no longer referenced have left the queue
+            this.sentLines.removeIf(reference -> reference.get() == null);
+            this.sentLines.add(new WeakReference<>(line));
+        }
+    }
+
+    /**
+     * Cancels the lines sent by this command which are still waiting in the
+     * message sending queue. Lines are matched by identity rather than by
+     * content, so equal lines queued by other means are left alone.
+     *
+     * @return number of lines cancelled
+     * @see Client#removeQueuedLines(java.util.function.Predicate)
+     */
+    public int cancel() {
+        Set<String> lines = Collections.newSetFromMap(new IdentityHashMap<>());
+        synchronized (this.sentLines) {
+            for (WeakReference<String> reference : this.sentLines) {
+                String line = reference.get();
+                if (line != null) {
+                    lines.add(line);
+                }
+            }
+            this.sentLines.clear();
+        }
+        return lines.isEmpty() ? 0 : this.getClient().removeQueuedLines(lines::contains);
+    }
+
     /**
      * Executes the command.
      */
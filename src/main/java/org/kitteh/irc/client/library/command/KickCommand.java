@@ -27,6 +27,7 @@ import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.element.Channel;
 import org.kitteh.irc.client.library.element.User;
 import org.kitteh.irc.client.library.feature.defaultmessage.DefaultMessageType;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
@@ -106,7 +107,19 @@ public class KickCommand extends ChannelCommand {
         if (this.target == null) {
             throw new IllegalStateException("Target not defined");
         }
-        this.getClient().sendRawLine("KICK " + this.getChannel() + ' ' + this.target + (this.reason != null ? (" :" + this.reason) : ""));
+        this.sendCommandLine("KICK " + this.getChannel() + ' ' + this.target + (this.reason != null ? (" :" + this.reason) : ""));
+    }
+
+    /**
+     * Gets the default priority, {@link
+     * MessageSendingQueue.Priority#MODERATION} for kicks.
+     *
+     * @return moderation priority
+     */
+    @Nonnull
+    @Override
+    protected MessageSendingQueue.Priority getDefaultPriority() {
+        return MessageSendingQueue.Priority.MODERATION;
     }
 
     @Nonnull
@@ -167,11 +167,11 @@ public class MonitorCommand extends Command {
     }
 
     private void monitorCommand(@Nonnull Action action) {
-        this.getClient().sendRawLine("MONITOR " + action.getCharacter());
+        this.sendCommandLine("MONITOR " + action.getCharacter());
     }
 
     private void monitorCommand(@Nonnull Action action, @Nonnull String targets) {
-        this.getClient().sendRawLine("MONITOR " + action.getCharacter() + ' ' + targets);
+        this.sendCommandLine("MONITOR " + action.getCharacter() + ' ' + targets);
     }
 
     @Nonnull
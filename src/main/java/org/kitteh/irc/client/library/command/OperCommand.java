@@ -79,7 +79,7 @@ public class OperCommand extends Command {
         if (this.password == null) {
             throw new IllegalStateException("Password not defined");
         }
-        this.getClient().sendRawLine("OPER " + this.user + ' ' + this.password);
+        this.sendCommandLine("OPER " + this.user + ' ' + this.password);
     }
 
     @Nonnull
@@ -74,7 +74,7 @@ public class TopicCommand extends ChannelCommand {
 
     @Override
     public synchronized void execute() {
-        this.getClient().sendRawLine("TOPIC " + this.getChannel() + (this.topic == null ? "" : (" :" + this.topic)));
+        this.sendCommandLine("TOPIC " + this.getChannel() + (this.topic == null ? "" : (" :" + this.topic)));
     }
 
     @Nonnull
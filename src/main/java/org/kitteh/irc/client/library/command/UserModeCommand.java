@@ -95,10 +95,10 @@ public class UserModeCommand extends Command {
     @Override
     public synchronized void execute() {
         if (this.changes.isEmpty()) {
-            this.getClient().sendRawLine("MODE " + this.getClient().getNick());
+            this.sendCommandLine("MODE " + this.getClient().getNick());
             return;
         }
-        this.getClient().sendRawLine("MODE " + this.getClient().getNick() + ' ' + ModeStatusList.of(new ArrayList<>(this.changes)).getStatusString());
+        this.sendCommandLine("MODE " + this.getClient().getNick() + ' ' + ModeStatusList.of(new ArrayList<>(this.changes)).getStatusString());
     }
 
     @Nonnull
@@ -24,16 +24,28 @@
 package org.kitteh.irc.client.library.command;
 
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.defaults.element.DefaultWhoisData;
+import org.kitteh.irc.client.library.element.WhoisData;
+import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
+import org.kitteh.irc.client.library.feature.query.QueryTracker;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 /**
  * Sends a WHOIS request to the server.
  */
 public class WhoisCommand extends Command {
+    private static final List<Integer> REPLIES = Arrays.asList(276, 301, 307, 311, 312, 313, 317, 319, 320, 330, 338, 378, 401, 671);
+    private static final List<Integer> ENDS = Arrays.asList(318, 402, 431);
+
     @Nullable
     private String server;
     @Nullable
@@ -80,6 +92,53 @@ public class WhoisCommand extends Command {
 
     @Override
     public void execute() {
+        this.sendCommandLine(this.getLine());
+    }
+
+    /**
+     * Sends the request, completing the future once the whole reply has
+     * arrived. Many requests can be waiting at once if the server supports
+     * labeled responses.
+     *
+     * @return future completed with the user's information, or empty if
+     * there is no such user
+     * @throws IllegalStateException if target not defined
+     * @see QueryTracker
+     */
+    @Nonnull
+    public CompletableFuture<Optional<WhoisData>> query() {
+        String line = this.getLine();
+        String nick = this.target;
+        return this.getClient().getQueryTracker().query(line, REPLIES, ENDS).thenApply(replies -> this.build(nick, replies));
+    }
+
+    @Nonnull
+    private Optional<WhoisData> build(@Nonnull String nick, @Nonnull List<ClientReceiveServerMessageEvent> allReplies) {
+        // Without labels, replies to someone else's WHOIS may have been collected too
+        List<ClientReceiveServerMessageEvent> replies = allReplies.stream()
+                .filter(reply -> (reply.getParameters().size() > 1) && this.getClient().getServerInfo().getCaseMapping().areEqualIgnoringCase(nick, reply.getParameters().get(1)))
+                .collect(Collectors.toList());
+        DefaultWhoisData.Builder builder = null;
+        for (ClientReceiveServerMessageEvent reply : replies) {
+            if ("311".equals(reply.getCommand())) {
+                builder = new DefaultWhoisData.Builder(this.getClient(), reply.getParameters().get(1));
+            }
+        }
+        if (builder == null) {
+            return Optional.empty();
+        }
+        for (ClientReceiveServerMessageEvent reply : replies) {
+            try {
+                builder.addReply(Integer.parseInt(reply.getCommand()), reply.getParameters());
+            } catch (IllegalArgumentException ignored) {
+                // Skip the broken line, keeping the rest
+            }
+        }
+        return Optional.of(builder.build());
+    }
+
+    @Nonnull
+    private String getLine() {
         if (this.target == null) {
             throw new IllegalStateException("Target not defined");
         }
@@ -89,7 +148,7 @@ public class WhoisCommand extends Command {
             builder.append(this.server).append(' ');
         }
         builder.append(this.target);
-        this.getClient().sendRawLine(builder.toString());
+        return builder.toString();
     }
 
     @Override
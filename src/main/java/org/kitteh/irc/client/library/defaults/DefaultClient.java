@@ -36,11 +36,13 @@ import org.kitteh.irc.client.library.command.WhoisCommand;
 import org.kitteh.irc.client.library.defaults.element.DefaultServerMessage;
 import org.kitteh.irc.client.library.element.Actor;
 import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.element.MessageReceiver;
 import org.kitteh.irc.client.library.element.MessageTag;
 import org.kitteh.irc.client.library.element.User;
 import org.kitteh.irc.client.library.element.mode.ModeStatus;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.element.mode.UserMode;
+import org.kitteh.irc.client.library.event.abstractbase.ClientReceiveServerMessageEventBase;
 import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
 import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
 import org.kitteh.irc.client.library.exception.KittehNagException;
@@ -56,6 +58,9 @@ import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.kitteh.irc.client.library.feature.defaultmessage.DefaultMessageMap;
 import org.kitteh.irc.client.library.feature.defaultmessage.DefaultMessageType;
 import org.kitteh.irc.client.library.feature.defaultmessage.SimpleDefaultMessageMap;
+import org.kitteh.irc.client.library.feature.query.QueryTracker;
+import org.kitteh.irc.client.library.feature.sending.DeliveryTracker;
+import org.kitteh.irc.client.library.feature.sending.JoinPipeline;
 import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.kitteh.irc.client.library.feature.sending.QueueProcessingThreadSender;
 import org.kitteh.irc.client.library.feature.sts.MemoryStsMachine;
@@ -69,6 +74,7 @@ import org.kitteh.irc.client.library.util.Listener;
 import org.kitteh.irc.client.library.util.Pair;
 import org.kitteh.irc.client.library.util.QueueProcessingThread;
 import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.StringUtil;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
@@ -78,6 +84,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -88,6 +95,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -183,10 +191,13 @@ public class DefaultClient implements Client.WithManagement {
     private String requestedNick;
 
     private final Set<String> channelsIntended = new CISet(this);
+    private final JoinPipeline joinPipeline = new JoinPipeline(this);
+    private final QueryTracker queryTracker = new QueryTracker(this);
+    private final DeliveryTracker deliveryTracker = new DeliveryTracker(this);
 
     private NettyManager.ClientConnection connection;
 
-    private Cutter messageCutter = new Cutter.DefaultWordCutter();
+    private Cutter messageCutter = new Cutter.Utf8WordCutter();
 
     private AuthManager authManager;
     private CapabilityManager.WithManagement capabilityManager;
@@ -309,10 +320,12 @@ public class DefaultClient implements Client.WithManagement {
         for (String channelName : channels) {
             Sanity.truthiness(this.serverInfo.isValidChannel(channelName), "Invalid channel name " + channelName);
         }
+        List<Pair<String, String>> joins = new ArrayList<>(channels.length);
         for (String channelName : channels) {
             this.channelsIntended.add(channelName);
-            this.sendRawLine("JOIN " + channelName);
+            joins.add(Pair.of(channelName, null));
         }
+        this.joinPipeline.join(joins);
     }
 
     @Override
@@ -321,7 +334,7 @@ public class DefaultClient implements Client.WithManagement {
         Sanity.nullCheck(key, "Key cannot be null");
         Sanity.truthiness(this.serverInfo.isValidChannel(channel), "Invalid channel name " + channel);
         this.channelsIntended.add(channel);
-        this.sendRawLine("JOIN " + channel + ' ' + key);
+        this.joinPipeline.join(channel, key);
     }
 
     @Override
@@ -335,8 +348,8 @@ public class DefaultClient implements Client.WithManagement {
         }
         for (Pair<String, String> channelAndKey : channelsAndKeys) {
             this.channelsIntended.add(channelAndKey.getLeft());
-            this.sendRawLine("JOIN " + channelAndKey.getLeft() + (channelAndKey.getRight() == null ? "" : (' ' + channelAndKey.getRight())));
         }
+        this.joinPipeline.join(Arrays.asList(channelsAndKeys));
     }
 
     @Override
@@ -385,6 +398,12 @@ public class DefaultClient implements Client.WithManagement {
         return this.defaultMessageMap;
     }
 
+    @Nonnull
+    @Override
+    public DeliveryTracker getDeliveryTracker() {
+        return this.deliveryTracker;
+    }
+
     @Nonnull
     @Override
     public EventManager getEventManager() {
@@ -445,6 +464,12 @@ public class DefaultClient implements Client.WithManagement {
         return this.currentNick;
     }
 
+    @Nonnull
+    @Override
+    public QueryTracker getQueryTracker() {
+        return this.queryTracker;
+    }
+
     @Nonnull
     @Override
     public ServerInfo.WithManagement getServerInfo() {
@@ -484,9 +509,26 @@ public class DefaultClient implements Client.WithManagement {
             Sanity.safeMessageCheck(reason, "Part reason");
         }
         this.channelsIntended.remove(channelName);
+        this.joinPipeline.cancel(channelName);
         this.sendRawLine("PART " + channelName + (reason != null ? (" :" + reason) : ""));
     }
 
+    @Override
+    public int removeQueuedLines(@Nonnull Predicate<String> filter) {
+        Sanity.nullCheck(filter, "Filter cannot be null");
+        synchronized (this.messageSendingLock) {
+            return this.messageSendingScheduled.removeIf(filter);
+        }
+    }
+
+    @Override
+    public int removeQueuedMessages(@Nonnull String target) {
+        Sanity.nullCheck(target, "Target cannot be null");
+        synchronized (this.messageSendingLock) {
+            return this.messageSendingScheduled.removeTarget(target, this.getServerInfo().getCaseMapping());
+        }
+    }
+
     @Override
     public void sendCtcpMessage(@Nonnull String target, @Nonnull String message) {
         Sanity.safeMessageCheck(target, "Target");
@@ -505,10 +547,19 @@ public class DefaultClient implements Client.WithManagement {
 
     @Override
     public void sendMessage(@Nonnull String target, @Nonnull String message) {
+        this.sendMessage(target, message, MessageSendingQueue.Priority.INTERACTIVE);
+    }
+
+    private void sendMessage(@Nonnull String target, @Nonnull String message, @Nonnull MessageSendingQueue.Priority priority) {
         Sanity.safeMessageCheck(target, "Target");
         Sanity.safeMessageCheck(message);
         Sanity.truthiness(target.indexOf(' ') == -1, "Target cannot have spaces");
-        this.sendRawLine("PRIVMSG " + target + " :" + message);
+        this.sendRawLine("PRIVMSG " + target + " :" + message, priority);
+    }
+
+    @Override
+    public void sendMessage(@Nonnull Collection<? extends MessageReceiver> targets, @Nonnull String message) {
+        this.sendToTargets("PRIVMSG", targets, message);
     }
 
     @Override
@@ -516,7 +567,7 @@ public class DefaultClient implements Client.WithManagement {
         Sanity.nullCheck(target, "Target cannot be null");
         Sanity.nullCheck(message, "Message cannot be null");
         Sanity.nullCheck(cutter, "Cutter cannot be null");
-        cutter.split(message, this.getRemainingLength("PRIVMSG", target)).forEach(line -> this.sendMessage(target, line));
+        cutter.split(message, this.getRemainingLength("PRIVMSG", target)).forEach(line -> this.sendMessage(target, line, MessageSendingQueue.Priority.BULK));
     }
 
     @Override
@@ -524,18 +575,55 @@ public class DefaultClient implements Client.WithManagement {
         Sanity.nullCheck(target, "Target cannot be null");
         Sanity.nullCheck(message, "Message cannot be null");
         Sanity.nullCheck(cutter, "Cutter cannot be null");
-        cutter.split(message, this.getRemainingLength("NOTICE", target)).forEach(line -> this.sendNotice(target, line));
+        cutter.split(message, this.getRemainingLength("NOTICE", target)).forEach(line -> this.sendNotice(target, line, MessageSendingQueue.Priority.BULK));
     }
 
     private int getRemainingLength(@Nonnull String type, @Nonnull String target) {
         // :nick!name@host PRIVMSG/NOTICE TARGET :MESSAGE\r\n
-        // So that's two colons, three spaces, CR, and LF. 7 chars.
+        // So that's two colons, three spaces, CR, and LF. 7 bytes.
         // 512 - 7 = 505
         // Then, drop the user's full name (nick!name@host) and target
         // If self name is unknown, let's just do 100 for now
         // This will only happen for messages prior to getting a self WHOIS
         // Lastly drop the PRIVMSG or NOTICE length
-        return 505 - this.getUser().map(user -> user.getName().length()).orElse(100) - target.length() - type.length();
+        // All in bytes of UTF-8, as the limit is 512 bytes
+        return this.getRemainingLength(type, StringUtil.getUtf8Length(target));
+    }
+
+    private int getRemainingLength(@Nonnull String type, int targetLength) {
+        return 505 - this.getUser().map(user -> StringUtil.getUtf8Length(user.getName())).orElse(100) - targetLength - type.length();
+    }
+
+    private void sendToTargets(@Nonnull String type, @Nonnull Collection<? extends MessageReceiver> targets, @Nonnull String message) {
+        Sanity.nullCheck(targets, "Targets cannot be null");
+        Sanity.safeMessageCheck(message);
+        int limit = this.serverInfo.getTargetLimit(type);
+        int messageLength = StringUtil.getUtf8Length(message);
+        StringBuilder joined = new StringBuilder();
+        int joinedLength = 0;
+        int count = 0;
+        for (MessageReceiver receiver : targets) {
+            String target = Sanity.nullCheck(receiver, "Targets cannot contain null").getMessagingName();
+            Sanity.safeMessageCheck(target, "Target");
+            Sanity.truthiness(target.indexOf(' ') == -1, "Target cannot have spaces");
+            int targetLength = StringUtil.getUtf8Length(target);
+            if ((count > 0) && ((count >= limit) || (messageLength > this.getRemainingLength(type, joinedLength + 1 + targetLength)))) {
+                this.sendRawLine(type + ' ' + joined + " :" + message);
+                joined.setLength(0);
+                joinedLength = 0;
+                count = 0;
+            }
+            if (count > 0) {
+                joined.append(',');
+                joinedLength++;
+            }
+            joined.append(target);
+            joinedLength += targetLength;
+            count++;
+        }
+        if (count > 0) {
+            this.sendRawLine(type + ' ' + joined + " :" + message);
+        }
     }
 
     @Nullable
@@ -570,37 +658,64 @@ public class DefaultClient implements Client.WithManagement {
 
     @Override
     public void sendNotice(@Nonnull String target, @Nonnull String message) {
+        this.sendNotice(target, message, MessageSendingQueue.Priority.INTERACTIVE);
+    }
+
+    private void sendNotice(@Nonnull String target, @Nonnull String message, @Nonnull MessageSendingQueue.Priority priority) {
         Sanity.safeMessageCheck(target, "Target");
         Sanity.safeMessageCheck(message);
         Sanity.truthiness(target.indexOf(' ') == -1, "Target cannot have spaces");
-        this.sendRawLine("NOTICE " + target + " :" + message);
+        this.sendRawLine("NOTICE " + target + " :" + message, priority);
+    }
+
+    @Override
+    public void sendNotice(@Nonnull Collection<? extends MessageReceiver> targets, @Nonnull String message) {
+        this.sendToTargets("NOTICE", targets, message);
     }
 
     @Override
     public void sendRawLine(@Nonnull String message) {
-        this.sendRawLine(message, false, false);
+        this.sendRawLine(message, MessageSendingQueue.Priority.INTERACTIVE);
+    }
+
+    @Override
+    public void sendRawLine(@Nonnull String message, @Nonnull MessageSendingQueue.Priority priority) {
+        this.sendRawLine(message, false, false, priority);
     }
 
     @Override
     public void sendRawLineAvoidingDuplication(@Nonnull String message) {
-        this.sendRawLine(message, false, true);
+        this.sendRawLineAvoidingDuplication(message, MessageSendingQueue.Priority.INTERACTIVE);
+    }
+
+    @Override
+    public void sendRawLineAvoidingDuplication(@Nonnull String message, @Nonnull MessageSendingQueue.Priority priority) {
+        this.sendRawLine(message, false, true, priority);
     }
 
     @Override
     public void sendRawLineImmediately(@Nonnull String message) {
-        this.sendRawLine(message, true, false);
+        this.sendRawLine(message, true, false, MessageSendingQueue.Priority.CONTROL);
     }
 
-    private void sendRawLine(@Nonnull String message, boolean priority, boolean avoidDuplicates) {
+    private void sendRawLine(@Nonnull String message, boolean immediate, boolean avoidDuplicates, @Nonnull MessageSendingQueue.Priority priority) {
         Sanity.safeMessageCheck(message);
-        if (!message.isEmpty() && (message.length() > ((message.charAt(0) == '@') ? 1022 : 510))) {
-            throw new IllegalArgumentException("Message too long: " + message.length());
+        Sanity.nullCheck(priority, "Priority cannot be null");
+        if (!message.isEmpty()) {
+            int limit = (message.charAt(0) == '@') ? 1022 : 510;
+            // No char encodes to more than three bytes, so only measure what might be too long
+            if (message.length() > (limit / 3)) {
+                int length = StringUtil.getUtf8Length(message);
+                if (length > limit) {
+                    throw new IllegalArgumentException("Message too long: " + length + " bytes");
+                }
+            }
         }
         synchronized (this.messageSendingLock) {
-            if (priority) {
+            if (immediate) {
                 this.messageSendingImmediate.queue(message);
             } else if (!avoidDuplicates || !this.messageSendingScheduled.contains(message)) {
-                this.messageSendingScheduled.queue(message);
+                this.messageSendingScheduled.queue(message, priority);
             }
         }
     }
@@ -639,7 +754,7 @@ public class DefaultClient implements Client.WithManagement {
         this.messageSendingQueueSupplier = Sanity.nullCheck(supplier, "Supplier cannot be null");
         synchronized (this.messageSendingLock) {
             MessageSendingQueue newQueue = this.getMessageSendingQueueSupplier().apply(this);
-            this.messageSendingScheduled.shutdown().forEach(newQueue::queue);
+            this.messageSendingScheduled.shutdownByPriority().forEach((priority, messages) -> messages.forEach(message -> newQueue.queue(message, priority)));
             Optional<Consumer<String>> consumer = this.messageSendingScheduled.getConsumer();
             this.messageSendingScheduled = newQueue;
             consumer.ifPresent(con -> this.messageSendingScheduled.beginSending(con));
@@ -729,6 +844,12 @@ public class DefaultClient implements Client.WithManagement {
         return this.channelsIntended;
     }
 
+    @Nonnull
+    @Override
+    public JoinPipeline getJoinPipeline() {
+        return this.joinPipeline;
+    }
+
     @Nonnull
     @Override
     public Listener<String> getOutputListener() {
@@ -785,7 +906,7 @@ public class DefaultClient implements Client.WithManagement {
 
     @Override
     public void ping() {
-        this.sendRawLine("PING " + this.pingPurr[this.pingPurrCount++ % this.pingPurr.length]); // Connection's asleep, post cat sounds
+        this.sendRawLine("PING " + this.pingPurr[this.pingPurrCount++ % this.pingPurr.length], MessageSendingQueue.Priority.CONTROL); // Connection's asleep, post cat sounds
     }
 
     @Override
@@ -813,7 +934,10 @@ public class DefaultClient implements Client.WithManagement {
     public void startSending() {
         this.connection.startPing();
         synchronized (this.messageSendingLock) {
-            this.messageSendingScheduled.beginSending(this.messageSendingImmediate::queue);
+            this.messageSendingScheduled.beginSending(line -> {
+                this.deliveryTracker.sent(line);
+                this.messageSendingImmediate.queue(line);
+            });
         }
     }
 
@@ -850,6 +974,9 @@ public class DefaultClient implements Client.WithManagement {
         if (line.isEmpty()) {
             this.actorTracker.reset();
             this.capabilityManager.reset();
+            this.queryTracker.reset();
+            this.deliveryTracker.reset();
+            this.joinPipeline.reset();
             this.serverInfo = this.serverInfoSupplier.apply(this);
             return;
         }
@@ -920,12 +1047,16 @@ public class DefaultClient implements Client.WithManagement {
             throw new KittehServerMessageException(new DefaultServerMessage(line, tags), "Server sent a message without a command");
         }
 
+        ClientReceiveServerMessageEventBase event;
         try {
             int numeric = Integer.parseInt(commandString);
-            this.eventManager.callEvent(new ClientReceiveNumericEvent(this, new DefaultServerMessage.NumericCommand(numeric, line, tags), actor, commandString, numeric, args));
+            event = new ClientReceiveNumericEvent(this, new DefaultServerMessage.NumericCommand(numeric, line, tags), actor, commandString, numeric, args);
         } catch (NumberFormatException exception) {
-            this.eventManager.callEvent(new ClientReceiveCommandEvent(this, new DefaultServerMessage.StringCommand(commandString, line, tags), actor, commandString, args));
+            event = new ClientReceiveCommandEvent(this, new DefaultServerMessage.StringCommand(commandString, line, tags), actor, commandString, args);
         }
+        this.eventManager.callEvent(event);
+        this.queryTracker.handle(event);
+        this.deliveryTracker.handle(event);
     }
 
     @Nonnull
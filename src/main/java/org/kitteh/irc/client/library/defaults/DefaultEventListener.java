@@ -30,6 +30,7 @@ import org.kitteh.irc.client.library.command.CapabilityRequestCommand;
 import org.kitteh.irc.client.library.defaults.element.DefaultCapabilityState;
 import org.kitteh.irc.client.library.defaults.element.DefaultWhoisData;
 import org.kitteh.irc.client.library.defaults.element.mode.DefaultUserMode;
+import org.kitteh.irc.client.library.element.Actor;
 import org.kitteh.irc.client.library.element.CapabilityState;
 import org.kitteh.irc.client.library.element.Channel;
 import org.kitteh.irc.client.library.element.Server;
@@ -106,15 +107,15 @@ import org.kitteh.irc.client.library.util.StringUtil;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
-import java.time.DateTimeException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -139,6 +140,7 @@ public class DefaultEventListener {
     @NumericFilter(1)
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void welcome(ClientReceiveNumericEvent event) {
+        this.whoisBuilders.clear(); // Replies cut off by a lost connection never end
         if (!event.getParameters().isEmpty()) {
             this.client.setCurrentNick(event.getParameters().get(0));
         } else {
@@ -213,124 +215,41 @@ public class DefaultEventListener {
         this.fire(new ClientAwayStatusChangeEvent(this.client, event.getOriginalMessages(), event.getNumeric() == 306));
     }
 
-    @Nullable
-    private DefaultWhoisData.Builder whoisBuilder;
-
-    private DefaultWhoisData.Builder getWhoisBuilder(String nick) {
-        if ((this.whoisBuilder == null) || !this.client.getServerInfo().getCaseMapping().areEqualIgnoringCase(this.whoisBuilder.getNick(), nick)) {
-            this.whoisBuilder = new DefaultWhoisData.Builder(this.client, nick);
-        }
-        return this.whoisBuilder;
-    }
+    // Keyed by nick, as replies for pipelined WHOIS queries may interleave
+    private final Map<String, DefaultWhoisData.Builder> whoisBuilders = new HashMap<>();
 
     @NumericFilter(301) // WHOISAWAY
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisAway(ClientReceiveNumericEvent event) {
-        if (event.getParameters().size() < 3) {
-            this.trackException(event, "WHOIS AWAY response too short");
-            return;
-        }
-        this.getWhoisBuilder(event.getParameters().get(1)).setAway(event.getParameters().get((event.getParameters().size() == 3) ? 2 : 3));
-    }
-
     @NumericFilter(311) // WHOISUSER
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisUser(ClientReceiveNumericEvent event) {
-        if (event.getParameters().size() < 2) {
-            this.trackException(event, "WHOIS USER response too short");
-            return;
-        }
-        DefaultWhoisData.Builder whoisBuilder = this.getWhoisBuilder(event.getParameters().get(1));
-        switch (event.getParameters().size()) {
-            case 6:
-                whoisBuilder.setRealName(event.getParameters().get(5));
-            case 4:
-                whoisBuilder.setHost(event.getParameters().get(3));
-            case 3:
-                whoisBuilder.setUserString(event.getParameters().get(2));
-        }
-    }
-
     @NumericFilter(312) // WHOISSERVER
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisServer(ClientReceiveNumericEvent event) {
-        if (event.getParameters().size() < 3) {
-            this.trackException(event, "WHOIS SERVER response too short");
-            return;
-        }
-        DefaultWhoisData.Builder whoisBuilder = this.getWhoisBuilder(event.getParameters().get(1));
-        whoisBuilder.setServer(event.getParameters().get(2));
-        if (event.getParameters().size() > 3) {
-            whoisBuilder.setServerDescription(event.getParameters().get(3));
-        }
-    }
-
     @NumericFilter(313) // WHOISOPERATOR
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisOperator(ClientReceiveNumericEvent event) {
-        if (event.getParameters().size() < 3) {
-            this.trackException(event, "WHOIS OPERATOR response too short");
-            return;
-        }
-        this.getWhoisBuilder(event.getParameters().get(1)).setOperatorInformation(event.getParameters().get(2));
-    }
-
     @NumericFilter(317) // WHOISIDLE
+    @NumericFilter(319) // WHOISCHANNELS
+    @NumericFilter(330) // WHOISACCOUNT
+    @NumericFilter(671) // WHOISSECURE
     @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisIdle(ClientReceiveNumericEvent event) {
-        if (event.getParameters().size() < 4) {
-            this.trackException(event, "WHOIS IDLE response too short");
-            return;
-        }
-        DefaultWhoisData.Builder whoisBuilder = this.getWhoisBuilder(event.getParameters().get(1));
-        long idleTime;
-        try {
-            idleTime = Long.parseLong(event.getParameters().get(2));
-        } catch (NumberFormatException e) {
-            this.trackException(event, "WHOIS IDLE idle time not a number");
+    public void whois(ClientReceiveNumericEvent event) {
+        if (event.getParameters().size() < 2) {
+            this.trackException(event, "WHOIS response too short");
             return;
         }
-        whoisBuilder.setIdleTime(idleTime);
-        if (event.getParameters().size() > 4) {
-            long signOnTime;
-            try {
-                signOnTime = Long.parseLong(event.getParameters().get(3));
-            } catch (NumberFormatException e) {
-                this.trackException(event, "WHOIS IDLE sign on time not a number");
+        String nick = event.getParameters().get(1);
+        String key = this.client.getServerInfo().getCaseMapping().toLowerCase(nick);
+        DefaultWhoisData.Builder whoisBuilder;
+        if (event.getNumeric() == 311) {
+            // WHOISUSER opens a reply, so RPL_AWAY to a message or a WHOWAS reply never creates a builder
+            whoisBuilder = new DefaultWhoisData.Builder(this.client, nick);
+            this.whoisBuilders.put(key, whoisBuilder);
+        } else {
+            whoisBuilder = this.whoisBuilders.get(key);
+            if (whoisBuilder == null) {
                 return;
             }
-            whoisBuilder.setSignOnTime(signOnTime);
-        }
-    }
-
-    @NumericFilter(330) // WHOISACCOUNT
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisAccount(ClientReceiveNumericEvent event) {
-        if (event.getParameters().size() < 3) {
-            this.trackException(event, "WHOIS ACCOUNT response too short");
-            return;
         }
-        this.getWhoisBuilder(event.getParameters().get(1)).setAccount(event.getParameters().get(2));
-    }
-
-    @NumericFilter(319) // WHOISCHANNELS
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisChannels(ClientReceiveNumericEvent event) {
-        if (event.getParameters().size() < 3) {
-            this.trackException(event, "WHOIS CHANNELS response too short");
-            return;
-        }
-        this.getWhoisBuilder(event.getParameters().get(1)).addChannels(event.getParameters().get(2));
-    }
-
-    @NumericFilter(671) // WHOISSECURE
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisSecure(ClientReceiveNumericEvent event) {
-        if (event.getParameters().size() < 2) {
-            this.trackException(event, "WHOIS SECURE response too short");
-            return;
+        try {
+            whoisBuilder.addReply(event.getNumeric(), event.getParameters());
+        } catch (IllegalArgumentException e) {
+            this.trackException(event, e.getMessage());
         }
-        this.getWhoisBuilder(event.getParameters().get(1)).setSecure();
     }
 
     @NumericFilter(318) // ENDOFWHOIS
@@ -340,12 +259,12 @@ public class DefaultEventListener {
             this.trackException(event, "WHOIS END response too short");
             return;
         }
-        WhoisData whois = this.getWhoisBuilder(event.getParameters().get(1)).build();
+        DefaultWhoisData.Builder whoisBuilder = this.whoisBuilders.remove(this.client.getServerInfo().getCaseMapping().toLowerCase(event.getParameters().get(1)));
+        WhoisData whois = ((whoisBuilder == null) ? new DefaultWhoisData.Builder(this.client, event.getParameters().get(1)) : whoisBuilder).build();
         if (this.client.getServerInfo().getCaseMapping().areEqualIgnoringCase(whois.getNick(), this.client.getNick()) && (!this.getTracker().getTrackedUser(whois.getNick()).isPresent())) {
             this.getTracker().trackUser(whois);
         }
         this.fire(new WhoisEvent(this.client, whois));
-        this.whoisBuilder = null;
     }
 
     private final List<ServerMessage> whoMessages = new ArrayList<>();
@@ -414,7 +333,9 @@ public class DefaultEventListener {
         whoChannel.ifPresent(channel -> {
             this.getTracker().setChannelListReceived(channel.getName());
             this.whoMessages.add(event.getServerMessage());
-            this.fire(new ChannelUsersUpdatedEvent(this.client, this.whoMessages, channel));
+            if (this.isSubscribed(ChannelUsersUpdatedEvent.class)) {
+                this.fire(new ChannelUsersUpdatedEvent(this.client, this.whoMessages, channel));
+            }
             this.whoMessages.clear();
         }); // No else, server might send other WHO information about non-channels.
     }
@@ -513,73 +434,69 @@ public class DefaultEventListener {
         Optional<Channel> channel = this.getTracker().getTrackedChannel(event.getParameters().get(1));
         if (channel.isPresent()) {
             this.namesMessages.add(event.getServerMessage());
-            this.fire(new ChannelNamesUpdatedEvent(this.client, this.namesMessages, channel.get()));
+            if (this.isSubscribed(ChannelNamesUpdatedEvent.class)) {
+                this.fire(new ChannelNamesUpdatedEvent(this.client, this.namesMessages, channel.get()));
+            }
             this.namesMessages.clear();
         } else {
             this.trackException(event, "NAMES response sent for invalid channel name");
         }
     }
 
-    private final List<ServerMessage> banMessages = new ArrayList<>();
-    private final List<ModeInfo> bans = new ArrayList<>();
-
-    private final List<ServerMessage> inviteMessages = new ArrayList<>();
-    private final List<ModeInfo> invites = new ArrayList<>();
+    private static final class ModeInfoList {
+        private final List<ServerMessage> messages = new ArrayList<>();
+        private final List<ModeInfo> infos = new ArrayList<>();
+    }
 
-    private final List<ServerMessage> exceptMessages = new ArrayList<>();
-    private final List<ModeInfo> excepts = new ArrayList<>();
+    // Keyed by mode and channel, as replies for pipelined list queries may interleave
+    private final Map<String, ModeInfoList> modeInfoLists = new HashMap<>();
 
-    private final List<ServerMessage> quietMessages = new ArrayList<>();
-    private final List<ModeInfo> quiets = new ArrayList<>();
+    @Nonnull
+    private String getModeInfoListKey(@Nonnull Channel channel, char mode) {
+        return mode + this.client.getServerInfo().getCaseMapping().toLowerCase(channel.getName());
+    }
 
     @NumericFilter(367) // BANLIST
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void banList(ClientReceiveNumericEvent event) {
-        this.modeInfoList(event, "BANLIST", 'b', this.banMessages, this.bans);
+        this.modeInfoList(event, "BANLIST", 'b');
     }
 
     @NumericFilter(346) // INVITELIST
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void inviteList(ClientReceiveNumericEvent event) {
-        this.modeInfoList(event, "INVITELIST", 'I', this.inviteMessages, this.invites);
+        this.modeInfoList(event, "INVITELIST", 'I');
     }
 
     @NumericFilter(348) // EXCEPTLIST
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void exceptList(ClientReceiveNumericEvent event) {
-        this.modeInfoList(event, "EXCEPTLIST", 'e', this.exceptMessages, this.excepts);
+        this.modeInfoList(event, "EXCEPTLIST", 'e');
     }
 
     @NumericFilter(344) // QUIETLIST
     @NumericFilter(728) // QUIETLIST
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void quietList(ClientReceiveNumericEvent event) {
-        this.modeInfoList(event, "QUIETLIST", 'q', this.quietMessages, this.quiets, (event.getNumeric() == 344) ? 0 : 1);
+        this.modeInfoList(event, "QUIETLIST", 'q', (event.getNumeric() == 344) ? 0 : 1);
     }
 
-    private void modeInfoList(@Nonnull ClientReceiveNumericEvent event, @Nonnull String name, char mode, @Nonnull List<ServerMessage> messageList, @Nonnull List<ModeInfo> infoList) {
-        this.modeInfoList(event, name, mode, messageList, infoList, 0);
+    private void modeInfoList(@Nonnull ClientReceiveNumericEvent event, @Nonnull String name, char mode) {
+        this.modeInfoList(event, name, mode, 0);
     }
 
-    private void modeInfoList(@Nonnull ClientReceiveNumericEvent event, @Nonnull String name, char mode, @Nonnull List<ServerMessage> messageList, @Nonnull List<ModeInfo> infoList, int offset) {
+    private void modeInfoList(@Nonnull ClientReceiveNumericEvent event, @Nonnull String name, char mode, int offset) {
         if (event.getParameters().size() < (3 + offset)) {
             this.trackException(event, name + " response too short");
             return;
         }
         Optional<Channel> channel = this.getTracker().getTrackedChannel(event.getParameters().get(1));
         if (channel.isPresent()) {
-            messageList.add(event.getServerMessage());
-            String creator = (event.getParameters().size() > (3 + offset)) ? event.getParameters().get((3 + offset)) : null;
-            Instant creationTime = null;
-            if (event.getParameters().size() > (4 + offset)) {
-                try {
-                    creationTime = Instant.ofEpochSecond(Integer.parseInt(event.getParameters().get((4 + offset))));
-                } catch (NumberFormatException | DateTimeException ignored) {
-                }
-            }
+            ModeInfoList list = this.modeInfoLists.computeIfAbsent(this.getModeInfoListKey(channel.get(), mode), key -> new ModeInfoList());
+            list.messages.add(event.getServerMessage());
             Optional<ChannelMode> channelMode = this.client.getServerInfo().getChannelMode(mode);
             if (channelMode.isPresent()) {
-                infoList.add(new ModeInfo.DefaultModeInfo(this.client, channel.get(), channelMode.get(), event.getParameters().get((2 + offset)), creator, creationTime));
+                list.infos.add(ModeInfo.DefaultModeInfo.fromReply(this.client, channel.get(), channelMode.get(), event.getParameters(), offset));
             } else {
                 this.trackException(event, name + " can't list if there's no '" + mode + "' mode");
             }
@@ -591,46 +508,48 @@ public class DefaultEventListener {
     @NumericFilter(368) // End of ban list
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void banListEnd(ClientReceiveNumericEvent event) {
-        this.endModeInfoList(event, "BANLIST", 'b', this.banMessages, this.bans);
+        this.endModeInfoList(event, "BANLIST", 'b');
     }
 
     @NumericFilter(347) // End of invite list
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void inviteListEnd(ClientReceiveNumericEvent event) {
-        this.endModeInfoList(event, "INVITELIST", 'I', this.inviteMessages, this.invites);
+        this.endModeInfoList(event, "INVITELIST", 'I');
     }
 
     @NumericFilter(349) // End of except list
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void exceptListEnd(ClientReceiveNumericEvent event) {
-        this.endModeInfoList(event, "EXCEPTLIST", 'e', this.exceptMessages, this.excepts);
+        this.endModeInfoList(event, "EXCEPTLIST", 'e');
     }
 
     @NumericFilter(345) // End of quiet list
     @NumericFilter(729) // End of quiet list
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void quietListEnd(ClientReceiveNumericEvent event) {
-        this.endModeInfoList(event, "QUIETLIST", 'q', this.quietMessages, this.quiets);
+        this.endModeInfoList(event, "QUIETLIST", 'q');
     }
 
-    private void endModeInfoList(@Nonnull ClientReceiveNumericEvent event, @Nonnull String name, char mode, @Nonnull List<ServerMessage> messageList, @Nonnull List<ModeInfo> infoList) {
+    private void endModeInfoList(@Nonnull ClientReceiveNumericEvent event, @Nonnull String name, char mode) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, name + " response too short");
             return;
         }
         Optional<Channel> channel = this.getTracker().getTrackedChannel(event.getParameters().get(1));
         if (channel.isPresent()) {
-            messageList.add(event.getServerMessage());
+            ModeInfoList list = this.modeInfoLists.remove(this.getModeInfoListKey(channel.get(), mode));
+            if (list == null) {
+                list = new ModeInfoList();
+            }
+            list.messages.add(event.getServerMessage());
             Optional<ChannelMode> channelMode = this.client.getServerInfo().getChannelMode(mode);
             if (channelMode.isPresent()) {
-                List<ModeInfo> modeInfos = new ArrayList<>(infoList);
-                this.fire(new ChannelModeInfoListEvent(this.client, messageList, channel.get(), channelMode.get(), modeInfos));
+                List<ModeInfo> modeInfos = new ArrayList<>(list.infos);
+                this.fire(new ChannelModeInfoListEvent(this.client, list.messages, channel.get(), channelMode.get(), modeInfos));
                 this.getTracker().setChannelModeInfoList(channel.get().getName(), mode, modeInfos);
             } else {
                 this.trackException(event, name + " can't list if there's no '" + mode + "' mode");
             }
-            infoList.clear();
-            messageList.clear();
         } else {
             this.trackException(event, name + " response sent for invalid channel name");
         }
@@ -910,7 +829,9 @@ public class DefaultEventListener {
         }
         String accountParameter = event.getParameters().get(0);
         String accountName = "*".equals(accountParameter) ? null : accountParameter;
-        this.fire(new UserAccountStatusEvent(this.client, event.getOriginalMessages(), (User) event.getActor(), accountName));
+        if (this.isSubscribed(UserAccountStatusEvent.class)) {
+            this.fire(new UserAccountStatusEvent(this.client, event.getOriginalMessages(), (User) event.getActor(), accountName));
+        }
         this.getTracker().setUserAccount(((User) event.getActor()).getNick(), accountName);
     }
 
@@ -922,7 +843,9 @@ public class DefaultEventListener {
             return;
         }
         String awayMessage = event.getParameters().isEmpty() ? null : StringUtil.combineSplit(event.getParameters().toArray(new String[event.getParameters().size()]), 0);
-        this.fire(new UserAwayMessageEvent(this.client, event.getOriginalMessages(), (User) event.getActor(), awayMessage));
+        if (this.isSubscribed(UserAwayMessageEvent.class)) {
+            this.fire(new UserAwayMessageEvent(this.client, event.getOriginalMessages(), (User) event.getActor(), awayMessage));
+        }
         this.getTracker().setUserAway(((User) event.getActor()).getNick(), awayMessage);
     }
 
@@ -940,7 +863,9 @@ public class DefaultEventListener {
                     this.trackException(event, "Server sent a CTCP message and I panicked");
                     return;
                 }
-                this.fire(new ServerNoticeEvent(this.client, event.getOriginalMessages(), (Server) event.getActor(), message));
+                if (this.isSubscribed(ServerNoticeEvent.class)) {
+                    this.fire(new ServerNoticeEvent(this.client, event.getOriginalMessages(), (Server) event.getActor(), message));
+                }
             } else {
                 this.trackException(event, "Message from neither server nor user");
             }
@@ -950,6 +875,9 @@ public class DefaultEventListener {
             this.ctcp(event);
             return;
         }
+        if (!this.isSubscribed(PrivateNoticeEvent.class) && !this.isSubscribed(ChannelNoticeEvent.class) && !this.isSubscribed(ChannelTargetedNoticeEvent.class)) {
+            return; // Skip looking up the target
+        }
         User user = (User) event.getActor();
         MessageTargetInfo messageTargetInfo = this.getTypeByTarget(event.getParameters().get(0));
         if (messageTargetInfo instanceof MessageTargetInfo.Private) {
@@ -978,6 +906,9 @@ public class DefaultEventListener {
             this.ctcp(event);
             return;
         }
+        if (!this.isSubscribed(PrivateMessageEvent.class) && !this.isSubscribed(ChannelMessageEvent.class) && !this.isSubscribed(ChannelTargetedMessageEvent.class)) {
+            return; // Skip looking up the target
+        }
         User user = (User) event.getActor();
         MessageTargetInfo messageTargetInfo = this.getTypeByTarget(event.getParameters().get(0));
         if (messageTargetInfo instanceof MessageTargetInfo.Private) {
@@ -1091,8 +1022,10 @@ public class DefaultEventListener {
                 ChannelJoinEvent joinEvent = null;
                 if (user.getNick().equals(this.client.getNick())) {
                     if (this.client.getActorTracker().shouldQueryChannelInformation()) {
-                        this.client.sendRawLine("MODE " + channelName);
-                        this.client.sendRawLine("WHO " + channelName + (this.client.getServerInfo().hasWhoXSupport() ? " %cuhsnfar" : ""));
+                        this.client.getJoinPipeline().query("MODE " + channelName);
+                        if (this.getTracker().getTrackingLevel(channelName).isTrackingDetails()) {
+                            this.client.getJoinPipeline().query("WHO " + channelName + (this.client.getServerInfo().hasWhoXSupport() ? " %cuhsnfar" : ""));
+                        }
                     }
                     if (this.client.getIntendedChannels().contains(channelName)) {
                         joinEvent = new RequestedChannelJoinCompleteEvent(this.client, event.getOriginalMessages(), channel, user);
@@ -1135,6 +1068,9 @@ public class DefaultEventListener {
                 } else {
                     partEvent = new ChannelPartEvent(this.client, event.getOriginalMessages(), channel.get(), user, partReason);
                 }
+                if (isSelf) {
+                    this.client.removeQueuedMessages(channel.get().getName());
+                }
                 this.fire(partEvent);
                 this.getTracker().trackUserPart(channel.get().getName(), user.getNick());
                 if (isSelf) {
@@ -1152,7 +1088,9 @@ public class DefaultEventListener {
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void quit(ClientReceiveCommandEvent event) {
         if (event.getActor() instanceof User) {
-            this.fire(new UserQuitEvent(this.client, event.getOriginalMessages(), (User) event.getActor(), (event.getParameters().isEmpty()) ? "" : event.getParameters().get(0)));
+            if (this.isSubscribed(UserQuitEvent.class)) {
+                this.fire(new UserQuitEvent(this.client, event.getOriginalMessages(), (User) event.getActor(), (event.getParameters().isEmpty()) ? "" : event.getParameters().get(0)));
+            }
             this.getTracker().trackUserQuit(((User) event.getActor()).getNick());
         } else {
             this.trackException(event, "QUIT message sent for non-user");
@@ -1169,6 +1107,9 @@ public class DefaultEventListener {
         Optional<Channel> channel = this.getTracker().getTrackedChannel(event.getParameters().get(0));
         if (channel.isPresent()) {
             Optional<User> kickedUser = this.getTracker().getTrackedUser(event.getParameters().get(1));
+            if (!kickedUser.isPresent() && !this.getTracker().getTrackingLevel(channel.get().getName()).isTrackingUsers()) {
+                kickedUser = this.getUntrackedUser(event.getParameters().get(1) + "!*@*");
+            }
             if (kickedUser.isPresent()) {
                 boolean isSelf = event.getParameters().get(1).equals(this.client.getNick());
                 ClientEvent kickEvent;
@@ -1178,6 +1119,9 @@ public class DefaultEventListener {
                 } else {
                     kickEvent = new ChannelKickEvent(this.client, event.getOriginalMessages(), channel.get(), event.getActor(), kickedUser.get(), kickReason);
                 }
+                if (isSelf) {
+                    this.client.removeQueuedMessages(channel.get().getName());
+                }
                 this.fire(kickEvent);
                 this.getTracker().trackUserPart(channel.get().getName(), event.getParameters().get(1));
                 if (isSelf) {
@@ -1206,13 +1150,25 @@ public class DefaultEventListener {
                     this.client.setCurrentNick(event.getParameters().get(0));
                     return; // Don't fail if NICK changes while not in a channel!
                 }
+                if (this.isTrackingReduced()) {
+                    // The user may share only channels tracked without users
+                    User oldUser = (User) event.getActor();
+                    this.getTracker().trackUserNickChange(oldUser.getNick(), event.getParameters().get(0));
+                    Optional<User> newUser = this.getUntrackedUser(event.getParameters().get(0) + '!' + oldUser.getUserString() + '@' + oldUser.getHost());
+                    if (newUser.isPresent() && this.isSubscribed(UserNickChangeEvent.class)) {
+                        this.fire(new UserNickChangeEvent(this.client, event.getOriginalMessages(), oldUser, newUser.get()));
+                    }
+                    return;
+                }
                 this.trackException(event, "NICK message sent for user not in tracked channels");
                 return;
             }
             User oldUser = user.get();
             this.getTracker().trackUserNickChange(user.get().getNick(), event.getParameters().get(0));
             User newUser = user.get();
-            this.fire(new UserNickChangeEvent(this.client, event.getOriginalMessages(), oldUser, newUser));
+            if (this.isSubscribed(UserNickChangeEvent.class)) {
+                this.fire(new UserNickChangeEvent(this.client, event.getOriginalMessages(), oldUser, newUser));
+            }
             if (isSelf) {
                 this.client.setCurrentNick(event.getParameters().get(0));
             }
@@ -1230,8 +1186,8 @@ public class DefaultEventListener {
         }
         Optional<Channel> channel = this.getTracker().getTrackedChannel(event.getParameters().get(1));
         if (channel.isPresent()) {
-            if (this.client.getNick().equalsIgnoreCase(event.getParameters().get(0)) && this.client.getIntendedChannels().contains(channel.get().getName())) {
-                this.client.sendRawLine("JOIN " + channel.get().getName());
+            if (this.client.getServerInfo().getCaseMapping().areEqualIgnoringCase(this.client.getNick(), event.getParameters().get(0)) && this.client.getIntendedChannels().contains(channel.get().getName())) {
+                this.client.getJoinPipeline().join(channel.get().getName(), null);
             }
             this.fire(new ChannelInviteEvent(this.client, event.getOriginalMessages(), channel.get(), event.getActor(), event.getParameters().get(0)));
         } else {
@@ -1336,6 +1292,10 @@ public class DefaultEventListener {
         this.client.getEventManager().callEvent(event);
     }
 
+    protected boolean isSubscribed(Class<? extends ClientEvent> eventClass) {
+        return this.client.getEventManager().hasSubscribers(eventClass);
+    }
+
     @Nonnull
     protected MessageTargetInfo getTypeByTarget(@Nonnull String target) {
         Optional<Channel> channel = this.getTracker().getTrackedChannel(target);
@@ -1352,6 +1312,16 @@ public class DefaultEventListener {
         this.client.getExceptionListener().queue(new KittehServerMessageException(event.getServerMessage(), reason));
     }
 
+    @Nonnull
+    protected Optional<User> getUntrackedUser(@Nonnull String mask) {
+        Actor actor = this.getTracker().getActor(mask);
+        return (actor instanceof User) ? Optional.of((User) actor) : Optional.empty();
+    }
+
+    protected boolean isTrackingReduced() {
+        return !this.getTracker().getTrackingLevel().isTrackingUsers() || this.getTracker().getTrackedChannels().stream().anyMatch(channel -> !this.getTracker().getTrackingLevel(channel.getName()).isTrackingUsers());
+    }
+
     protected ActorTracker getTracker() {
         return this.client.getActorTracker();
     }
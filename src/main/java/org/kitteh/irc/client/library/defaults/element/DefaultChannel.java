@@ -33,6 +33,7 @@ import org.kitteh.irc.client.library.element.mode.ChannelMode;
 import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
 import org.kitteh.irc.client.library.element.mode.ModeInfo;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
+import org.kitteh.irc.client.library.util.MaskIndex;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
@@ -42,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.SortedSet;
+import java.util.function.Supplier;
 
 /**
  * Default Channel implementation.
@@ -86,10 +88,12 @@ public class DefaultChannel extends DefaultStaleable implements Channel {
 
     private final ModeStatusList<ChannelMode> channelModes;
     private final Map<Character, List<ModeInfo>> modeInfoLists;
+    private final Map<Character, Supplier<MaskIndex<ModeInfo>>> modeInfoIndexes;
     private final Map<String, SortedSet<ChannelUserMode>> modes;
     private final List<String> names;
     private final Map<String, User> nickMap;
     private final List<User> users;
+    private final int userCount;
     private final boolean complete;
     private final Topic topic;
     private final DefaultChannelCommands commands;
@@ -102,18 +106,21 @@ public class DefaultChannel extends DefaultStaleable implements Channel {
      * @param topic topic
      * @param channelModes channel modes
      * @param modeInfoLists modeinfolists
+     * @param modeInfoIndexes lazily built indexes of the modeinfolists
      * @param modes modes
      * @param names who is in the channel
      * @param nickMap map of nicks to Users
      * @param users users
+     * @param userCount number of users in the channel
      * @param complete true if WHO completed
      * @param commands commands object
      */
     public DefaultChannel(@Nonnull Client.WithManagement client, @Nonnull String name, @Nonnull Topic topic,
                           @Nonnull ModeStatusList<ChannelMode> channelModes,
                           @Nonnull Map<Character, List<ModeInfo>> modeInfoLists,
+                          @Nonnull Map<Character, Supplier<MaskIndex<ModeInfo>>> modeInfoIndexes,
                           @Nonnull Map<String, SortedSet<ChannelUserMode>> modes, @Nonnull List<String> names,
-                          @Nonnull Map<String, User> nickMap, @Nonnull List<User> users,
+                          @Nonnull Map<String, User> nickMap, @Nonnull List<User> users, int userCount,
                           boolean complete, @Nonnull DefaultChannelCommands commands) {
         super(client, name);
         this.complete = complete;
@@ -121,16 +128,18 @@ public class DefaultChannel extends DefaultStaleable implements Channel {
         this.topic = topic;
         this.commands = commands;
         this.modeInfoLists = modeInfoLists;
+        this.modeInfoIndexes = modeInfoIndexes;
         this.modes = Collections.unmodifiableMap(modes);
         this.names = Collections.unmodifiableList(names);
         this.nickMap = Collections.unmodifiableMap(nickMap);
         this.users = Collections.unmodifiableList(users);
+        this.userCount = userCount;
     }
 
     @Override
     public boolean equals(Object o) {
         // RFC 2812 section 1.3 'Channel names are case insensitive.'
-        return (o instanceof DefaultChannel) && (((DefaultChannel) o).getClient() == this.getClient()) && ((Channel) o).getLowerCaseName().equals(this.getLowerCaseName());
+        return (o instanceof DefaultChannel) && (((DefaultChannel) o).getClient() == this.getClient()) && this.getClient().getServerInfo().getCaseMapping().areEqualIgnoringCase(((DefaultChannel) o).getName(), this.getName());
     }
 
     @Nonnull
@@ -147,6 +156,16 @@ public class DefaultChannel extends DefaultStaleable implements Channel {
         return Optional.ofNullable(this.modeInfoLists.get(mode.getChar()));
     }
 
+    @Nonnull
+    @Override
+    public Optional<List<ModeInfo>> getModeInfoMatches(@Nonnull ChannelMode mode, @Nonnull String target) {
+        Sanity.nullCheck(mode, "Mode cannot be null");
+        Sanity.nullCheck(target, "Target cannot be null");
+        Sanity.truthiness(mode.getType() == ChannelMode.Type.A_MASK, "Mode type must be A, found " + mode.getType());
+        Supplier<MaskIndex<ModeInfo>> index = this.modeInfoIndexes.get(mode.getChar());
+        return (index == null) ? Optional.empty() : Optional.of(index.get().getMatches(target));
+    }
+
     @Override
     @Nonnull
     public ModeStatusList<ChannelMode> getModes() {
@@ -185,6 +204,11 @@ public class DefaultChannel extends DefaultStaleable implements Channel {
         return this.users;
     }
 
+    @Override
+    public int getUserCount() {
+        return this.userCount;
+    }
+
     @Override
     public boolean hasCompleteUserData() {
         return this.complete;
@@ -211,7 +235,7 @@ public class DefaultChannel extends DefaultStaleable implements Channel {
     @Override
     public int hashCode() {
         // RFC 2812 section 1.3 'Channel names are case insensitive.'
-        return (this.getLowerCaseName().hashCode() * 2) + this.getClient().hashCode();
+        return (this.getClient().getServerInfo().getCaseMapping().hashCodeIgnoringCase(this.getName()) * 2) + this.getClient().hashCode();
     }
 
     @Override
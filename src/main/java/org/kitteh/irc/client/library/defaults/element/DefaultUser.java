@@ -82,7 +82,7 @@ public class DefaultUser extends DefaultStaleable implements User {
 
     @Override
     public boolean equals(Object o) {
-        return (o instanceof DefaultUser) && (((DefaultUser) o).getClient() == this.getClient()) && ((DefaultUser) o).getLowerCaseName().equals(this.getLowerCaseName());
+        return (o instanceof DefaultUser) && (((DefaultUser) o).getClient() == this.getClient()) && this.getClient().getServerInfo().getCaseMapping().areEqualIgnoringCase(((DefaultUser) o).getName(), this.getName());
     }
 
     @Nonnull
@@ -147,7 +147,7 @@ public class DefaultUser extends DefaultStaleable implements User {
 
     @Override
     public int hashCode() {
-        return (this.getLowerCaseName().hashCode() * 2) + this.getClient().hashCode();
+        return (this.getClient().getServerInfo().getCaseMapping().hashCodeIgnoringCase(this.getName()) * 2) + this.getClient().hashCode();
     }
 
     @Override
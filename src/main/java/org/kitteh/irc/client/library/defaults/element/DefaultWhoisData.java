@@ -32,6 +32,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -185,6 +186,80 @@ public class DefaultWhoisData implements WhoisData {
             this.signOnTime = signOnTime;
         }
 
+        /**
+         * Applies one WHOIS reply numeric, ignoring numerics which carry no
+         * WHOIS information.
+         *
+         * @param numeric numeric of the reply
+         * @param parameters parameters of the reply, starting with the
+         * client's nick and then the target nick
+         * @throws IllegalArgumentException if the reply is malformed
+         */
+        public void addReply(int numeric, @Nonnull List<String> parameters) {
+            Sanity.nullCheck(parameters, "Parameters cannot be null");
+            switch (numeric) {
+                case 301: // WHOISAWAY
+                    this.checkLength(parameters, 3, "AWAY");
+                    this.setAway(parameters.get((parameters.size() == 3) ? 2 : 3));
+                    break;
+                case 311: // WHOISUSER
+                    this.checkLength(parameters, 2, "USER");
+                    switch (parameters.size()) {
+                        case 6:
+                            this.setRealName(parameters.get(5));
+                        case 4:
+                            this.setHost(parameters.get(3));
+                        case 3:
+                            this.setUserString(parameters.get(2));
+                    }
+                    break;
+                case 312: // WHOISSERVER
+                    this.checkLength(parameters, 3, "SERVER");
+                    this.setServer(parameters.get(2));
+                    if (parameters.size() > 3) {
+                        this.setServerDescription(parameters.get(3));
+                    }
+                    break;
+                case 313: // WHOISOPERATOR
+                    this.checkLength(parameters, 3, "OPERATOR");
+                    this.setOperatorInformation(parameters.get(2));
+                    break;
+                case 317: // WHOISIDLE
+                    this.checkLength(parameters, 4, "IDLE");
+                    this.setIdleTime(this.parseTime(parameters.get(2), "idle time"));
+                    if (parameters.size() > 4) {
+                        this.setSignOnTime(this.parseTime(parameters.get(3), "sign on time"));
+                    }
+                    break;
+                case 319: // WHOISCHANNELS
+                    this.checkLength(parameters, 3, "CHANNELS");
+                    this.addChannels(parameters.get(2));
+                    break;
+                case 330: // WHOISACCOUNT
+                    this.checkLength(parameters, 3, "ACCOUNT");
+                    this.setAccount(parameters.get(2));
+                    break;
+                case 671: // WHOISSECURE
+                    this.checkLength(parameters, 2, "SECURE");
+                    this.setSecure();
+                    break;
+            }
+        }
+
+        private void checkLength(@Nonnull List<String> parameters, int length, @Nonnull String name) {
+            if (parameters.size() < length) {
+                throw new IllegalArgumentException("WHOIS " + name + " response too short");
+            }
+        }
+
+        private long parseTime(@Nonnull String time, @Nonnull String name) {
+            try {
+                return Long.parseLong(time);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("WHOIS IDLE " + name + " not a number");
+            }
+        }
+
         /**
          * Builds a new {@link WhoisData} from the provided information.
          *
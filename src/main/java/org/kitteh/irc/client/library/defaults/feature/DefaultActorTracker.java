@@ -42,6 +42,9 @@ import org.kitteh.irc.client.library.element.mode.ModeStatus;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.feature.ActorTracker;
 import org.kitteh.irc.client.library.util.CIKeyMap;
+import org.kitteh.irc.client.library.util.MaskIndex;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.StringPool;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
@@ -52,7 +55,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -60,6 +63,11 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
@@ -68,10 +76,16 @@ import java.util.stream.Collectors;
 
 /**
  * Default implementation of {@link ActorTracker}.
+ * <p>
+ * All tracking methods are expected to be called from a single writer, the
+ * client's input thread. Snapshots may be requested from any thread without
+ * locking: each tracked actor keeps a modification count, incremented after
+ * every write, and a snapshot is only cached if no write happened while it
+ * was being built.
  */
 public class DefaultActorTracker implements ActorTracker {
     private class IrcActor {
-        private String name;
+        private volatile String name;
 
         private IrcActor(@Nonnull String name) {
             this.name = name;
@@ -99,124 +113,396 @@ public class DefaultActorTracker implements ActorTracker {
     }
 
     private class IrcStaleable<T extends Staleable> extends IrcActor {
+        private final class Stamped {
+            private final long modCount;
+            private final T value;
+
+            private Stamped(long modCount, @Nonnull T value) {
+                this.modCount = modCount;
+                this.value = value;
+            }
+        }
+
+        // Sequence lock: odd while a write is in progress, even otherwise
+        private final AtomicLong modCount = new AtomicLong();
+        private final ReentrantLock writeLock = new ReentrantLock();
         @Nullable
-        private T snapshot;
+        private volatile Stamped snapshot;
 
         IrcStaleable(@Nonnull String name) {
             super(name);
         }
 
         boolean isStale(@Nonnull Object potentiallyStale) {
-            return this.snapshot != potentiallyStale;
+            Stamped current = this.snapshot;
+            return (current == null) || (current.value != potentiallyStale) || (current.modCount != this.modCount.get());
+        }
+
+        /**
+         * Starts a write, making the count odd so no snapshot taken during
+         * it is trusted. Writes may nest, and must be finished with
+         * {@link #endWrite()} in a finally block.
+         */
+        void beginWrite() {
+            this.writeLock.lock();
+            if (this.writeLock.getHoldCount() == 1) {
+                this.modCount.incrementAndGet();
+            }
+        }
+
+        /**
+         * Finishes a write, making the count even again once the outermost
+         * write is done.
+         */
+        void endWrite() {
+            if (this.writeLock.getHoldCount() == 1) {
+                this.modCount.incrementAndGet();
+            }
+            this.writeLock.unlock();
         }
 
+        /**
+         * Invalidates the current snapshot without changing this object,
+         * for when something the snapshot includes changed elsewhere.
+         */
         void markStale() {
+            this.beginWrite();
+            this.endWrite();
+        }
+
+        @Nonnull
+        T snapshot(@Nonnull Supplier<T> supplier) {
+            long modCount = this.modCount.get();
+            Stamped current = this.snapshot;
+            if ((current != null) && (current.modCount == modCount)) {
+                return current.value;
+            }
+            for (int attempt = 0; attempt < MAX_SNAPSHOT_ATTEMPTS; attempt++) {
+                if ((modCount & 1) == 0) {
+                    T value = supplier.get();
+                    if (this.modCount.get() == modCount) {
+                        this.snapshot = new Stamped(modCount, value);
+                        return value;
+                    }
+                }
+                Thread.yield();
+                modCount = this.modCount.get();
+            }
+            // Writer is busy, so wait for it rather than risk a torn snapshot
+            this.writeLock.lock();
+            try {
+                T value = supplier.get();
+                modCount = this.modCount.get();
+                if ((modCount & 1) == 0) { // Odd if this thread is itself mid-write
+                    this.snapshot = new Stamped(modCount, value);
+                }
+                return value;
+            } finally {
+                this.writeLock.unlock();
+            }
+        }
+    }
+
+    private static final class IrcDelta implements Delta {
+        private final long version;
+        private final Type type;
+        private final String channel;
+        @Nullable
+        private final String nick;
+        @Nullable
+        private final String value;
+        @Nullable
+        private final ModeStatus<ChannelMode> mode;
+
+        private IrcDelta(long version, @Nonnull Type type, @Nonnull String channel, @Nullable String nick, @Nullable String value, @Nullable ModeStatus<ChannelMode> mode) {
+            this.version = version;
+            this.type = type;
+            this.channel = channel;
+            this.nick = nick;
+            this.value = value;
+            this.mode = mode;
+        }
+
+        @Override
+        public long getVersion() {
+            return this.version;
+        }
+
+        @Nonnull
+        @Override
+        public Type getType() {
+            return this.type;
+        }
+
+        @Nonnull
+        @Override
+        public String getChannel() {
+            return this.channel;
+        }
+
+        @Nonnull
+        @Override
+        public Optional<String> getNick() {
+            return Optional.ofNullable(this.nick);
+        }
+
+        @Nonnull
+        @Override
+        public Optional<String> getValue() {
+            return Optional.ofNullable(this.value);
+        }
+
+        @Nonnull
+        @Override
+        public Optional<ModeStatus<ChannelMode>> getMode() {
+            return Optional.ofNullable(this.mode);
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("version", this.version).add("type", this.type).add("channel", this.channel)
+                    .add("nick", this.nick).add("value", this.value).add("mode", this.mode).toString();
+        }
+    }
+
+    /**
+     * Mode info of a single type A mode, in the order received, indexed by
+     * case-mapped mask. The unmodifiable list handed to snapshots, and the
+     * mask index over it, are built once and shared until the next change.
+     */
+    private class IrcModeInfoList {
+        private final Map<String, ModeInfo> entries = new LinkedHashMap<>();
+        @Nullable
+        private List<ModeInfo> snapshot = Collections.emptyList();
+        @Nullable
+        private Supplier<MaskIndex<ModeInfo>> snapshotIndex;
+
+        synchronized void add(@Nonnull ModeInfo modeInfo) {
+            this.entries.put(this.getKey(modeInfo), modeInfo);
             this.snapshot = null;
         }
 
+        synchronized boolean remove(@Nonnull ModeInfo modeInfo) {
+            if (this.entries.remove(this.getKey(modeInfo)) == null) {
+                return false;
+            }
+            this.snapshot = null;
+            return true;
+        }
+
         @Nonnull
-        synchronized T snapshot(@Nonnull Supplier<T> supplier) {
-            if (this.snapshot != null) {
-                return this.snapshot;
+        synchronized List<ModeInfo> snapshot() {
+            if (this.snapshot == null) {
+                this.snapshot = Collections.unmodifiableList(new ArrayList<>(this.entries.values()));
+                this.snapshotIndex = null;
             }
-            return this.snapshot = supplier.get();
+            return this.snapshot;
+        }
+
+        @Nonnull
+        synchronized Supplier<MaskIndex<ModeInfo>> snapshotIndex() {
+            if (this.snapshotIndex == null) {
+                this.snapshotIndex = new IrcModeInfoIndex(this.snapshot());
+            }
+            return this.snapshotIndex;
+        }
+
+        @Nonnull
+        private String getKey(@Nonnull ModeInfo modeInfo) {
+            return DefaultActorTracker.this.client.getServerInfo().getCaseMapping().toLowerCase(modeInfo.getMask().asString());
+        }
+    }
+
+    /**
+     * Builds the mask index of a mode info list on first use.
+     */
+    private class IrcModeInfoIndex implements Supplier<MaskIndex<ModeInfo>> {
+        private final List<ModeInfo> list;
+        @Nullable
+        private MaskIndex<ModeInfo> index;
+
+        private IrcModeInfoIndex(@Nonnull List<ModeInfo> list) {
+            this.list = list;
+        }
+
+        @Nonnull
+        @Override
+        public synchronized MaskIndex<ModeInfo> get() {
+            if (this.index == null) {
+                MaskIndex<ModeInfo> index = new MaskIndex<>(DefaultActorTracker.this.client.getServerInfo().getCaseMapping());
+                this.list.forEach(modeInfo -> index.put(modeInfo.getMask(), modeInfo));
+                this.index = index;
+            }
+            return this.index;
         }
     }
 
     class IrcChannel extends IrcStaleable<DefaultChannel> {
-        private final Map<Character, ModeStatus<ChannelMode>> channelModes = new HashMap<>();
-        private final Map<Character, List<ModeInfo>> modeInfoLists = new HashMap<>();
-        private final Set<Character> trackedModes = new HashSet<>();
+        private volatile Map<Character, ModeStatus<ChannelMode>> channelModes = Collections.emptyMap();
+        private final Map<Character, IrcModeInfoList> modeInfoLists = new ConcurrentHashMap<>();
+        private volatile Set<Character> trackedModes = Collections.emptySet();
         private final Map<String, Set<ChannelUserMode>> modes;
         private final DefaultChannel.DefaultChannelCommands commands;
         private volatile boolean fullListReceived;
-        private long lastWho = System.currentTimeMillis();
-        private String topic;
-        @Nullable
-        private Actor topicSetter;
-        @Nullable
-        private Instant topicTime;
+        private final AtomicLong lastWho = new AtomicLong(System.currentTimeMillis());
+        private volatile TrackingLevel level;
+        private volatile DefaultChannelTopic topic = new DefaultChannelTopic(null, null, null);
         private volatile boolean tracked;
 
         private IrcChannel(@Nonnull String channel) {
             super(channel);
             this.modes = new CIKeyMap<>(DefaultActorTracker.this.client);
             this.commands = new DefaultChannel.DefaultChannelCommands(DefaultActorTracker.this.client, channel);
+            this.level = DefaultActorTracker.this.getTrackingLevel(channel);
             DefaultActorTracker.this.trackedChannels.put(channel, this);
         }
 
         void setListReceived() {
-            this.fullListReceived = true;
-            this.markStale();
+            this.beginWrite();
+            try {
+                this.fullListReceived = true;
+            } finally {
+                this.endWrite();
+            }
         }
 
         private void setTracked(boolean tracked) {
-            this.tracked = tracked;
+            this.beginWrite();
+            try {
+                this.tracked = tracked;
+            } finally {
+                this.endWrite();
+            }
             this.modes.keySet().forEach(DefaultActorTracker.this::staleUser);
-            this.markStale();
+            DefaultActorTracker.this.fireDelta(tracked ? Delta.Type.CHANNEL_TRACKED : Delta.Type.CHANNEL_UNTRACKED, this.getName(), null, null, null);
+        }
+
+        void setLevel(@Nonnull TrackingLevel level) {
+            Set<String> nicks;
+            this.beginWrite();
+            try {
+                this.level = level;
+                if (!level.isTrackingDetails()) {
+                    this.trackedModes = Collections.emptySet();
+                    this.modeInfoLists.clear();
+                    this.fullListReceived = false;
+                }
+                nicks = new HashSet<>(this.modes.keySet());
+                if (!level.isTrackingMembership()) {
+                    this.modes.clear();
+                } else if (!level.isTrackingUsers()) {
+                    nicks.forEach(nick -> this.modes.put(nick, Collections.emptySet()));
+                }
+            } finally {
+                this.endWrite();
+            }
+            nicks.forEach(DefaultActorTracker.this::checkUserForTracking);
+            nicks.forEach(DefaultActorTracker.this::staleUser);
         }
 
         void setTopic(@Nonnull String topic) {
-            this.topic = topic;
-            this.topicTime = null;
-            this.topicSetter = null;
-            this.markStale();
+            this.beginWrite();
+            try {
+                this.topic = new DefaultChannelTopic(null, topic, null);
+            } finally {
+                this.endWrite();
+            }
+            DefaultActorTracker.this.fireDelta(Delta.Type.TOPIC_SET, this.getName(), null, topic, null);
         }
 
         void setTopic(long time, @Nonnull Actor actor) {
-            this.topicTime = Instant.ofEpochMilli(time);
-            this.topicSetter = actor;
-            this.markStale();
+            this.beginWrite();
+            try {
+                this.topic = new DefaultChannelTopic(Instant.ofEpochMilli(time), this.topic.getValue().orElse(null), actor);
+            } finally {
+                this.endWrite();
+            }
+            DefaultActorTracker.this.fireDelta(Delta.Type.TOPIC_SET, this.getName(), null, this.topic.getValue().orElse(null), null);
         }
 
         @Override
         @Nonnull
         DefaultChannel snapshot() {
-            if (DefaultActorTracker.this.queryChannelInformation) {
-                synchronized (this.modes) {
-                    if (this.tracked && !this.fullListReceived) {
-                        long now = System.currentTimeMillis();
-                        if ((now - this.lastWho) > 5000) {
-                            this.lastWho = now;
-                            DefaultActorTracker.this.client.sendRawLineAvoidingDuplication("WHO " + this.getName() + (DefaultActorTracker.this.client.getServerInfo().hasWhoXSupport() ? " %cuhsnfar" : ""));
-                        }
-                    }
+            if (DefaultActorTracker.this.queryChannelInformation && this.level.isTrackingDetails() && this.tracked && !this.fullListReceived) {
+                long now = System.currentTimeMillis();
+                long last = this.lastWho.get();
+                if (((now - last) > 5000) && this.lastWho.compareAndSet(last, now)) {
+                    // Shares the join pipeline's query budget, merging with a WHO already waiting there
+                    DefaultActorTracker.this.client.getJoinPipeline().query("WHO " + this.getName() + (DefaultActorTracker.this.client.getServerInfo().hasWhoXSupport() ? " %cuhsnfar" : ""));
                 }
             }
+            return super.snapshot(this::createSnapshot);
+        }
+
+        @Nonnull
+        private DefaultChannel createSnapshot() {
             ModeStatusList<ChannelMode> channelModes = ModeStatusList.of(this.channelModes.values());
             Map<Character, List<ModeInfo>> modeInfoLists = new HashMap<>();
-            for (Map.Entry<Character, List<ModeInfo>> entry : this.modeInfoLists.entrySet()) {
-                modeInfoLists.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+            Map<Character, Supplier<MaskIndex<ModeInfo>>> modeInfoIndexes = new HashMap<>();
+            this.modeInfoLists.forEach((character, list) -> {
+                synchronized (list) {
+                    modeInfoLists.put(character, list.snapshot());
+                    modeInfoIndexes.put(character, list.snapshotIndex());
+                }
+            });
+            for (Character character : this.trackedModes) {
+                if (!modeInfoLists.containsKey(character)) {
+                    modeInfoLists.put(character, Collections.emptyList());
+                    modeInfoIndexes.put(character, new IrcModeInfoIndex(Collections.emptyList()));
+                }
             }
-            this.trackedModes.stream()
-                    .filter(character -> !modeInfoLists.containsKey(character))
-                    .forEach(character -> this.modeInfoLists.put(character, Collections.unmodifiableList(new ArrayList<>())));
             Map<String, SortedSet<ChannelUserMode>> newModes = new CIKeyMap<>(DefaultActorTracker.this.client);
-            Optional<ISupportParameter.Prefix> prefix = DefaultActorTracker.this.client.getServerInfo().getISupportParameter("PREFIX", ISupportParameter.Prefix.class);
-            Comparator<ChannelUserMode> comparator = prefix
-                    .<Comparator<ChannelUserMode>>map(prefix1 -> Comparator.comparingInt(prefix1.getModes()::indexOf))
-                    .orElseGet(() -> Comparator.comparing(ChannelUserMode::getChar));
-            for (Map.Entry<String, Set<ChannelUserMode>> entry : this.modes.entrySet()) {
-                SortedSet<ChannelUserMode> newSet = new TreeSet<>(comparator);
-                newSet.addAll(entry.getValue());
-                newModes.put(entry.getKey(), newSet);
-            }
-            Map<String, User> nickMap = this.modes.keySet().stream()
-                    .map(DefaultActorTracker.this.trackedUsers::get)
-                    .filter(Objects::nonNull)
-                    .map(IrcUser::snapshot)
-                    .collect(Collectors.toMap(User::getNick, Function.identity()));
-            return super.snapshot(() -> new DefaultChannel(DefaultActorTracker.this.client, this.getName(),
-                    new DefaultChannelTopic(IrcChannel.this.topicTime, IrcChannel.this.topic, IrcChannel.this.topicSetter),
-                    channelModes, modeInfoLists, newModes, new ArrayList<>(this.modes.keySet()),
-                    nickMap, new ArrayList<>(nickMap.values()), this.fullListReceived, this.commands));
+            Map<String, User> nickMap;
+            List<String> names;
+            if (this.level.isTrackingUsers()) {
+                Optional<ISupportParameter.Prefix> prefix = DefaultActorTracker.this.client.getServerInfo().getISupportParameter("PREFIX", ISupportParameter.Prefix.class);
+                Comparator<ChannelUserMode> comparator = prefix
+                        .<Comparator<ChannelUserMode>>map(prefix1 -> Comparator.comparingInt(prefix1.getModes()::indexOf))
+                        .orElseGet(() -> Comparator.comparing(ChannelUserMode::getChar));
+                for (Map.Entry<String, Set<ChannelUserMode>> entry : this.modes.entrySet()) {
+                    SortedSet<ChannelUserMode> newSet = new TreeSet<>(comparator);
+                    newSet.addAll(entry.getValue());
+                    newModes.put(entry.getKey(), newSet);
+                }
+                names = new ArrayList<>(this.modes.keySet());
+                // Merge rather than fail if a concurrent nick change briefly shows both nicks
+                nickMap = names.stream()
+                        .map(DefaultActorTracker.this.trackedUsers::get)
+                        .filter(Objects::nonNull)
+                        .map(IrcUser::snapshot)
+                        .collect(Collectors.toMap(User::getNick, Function.identity(), (one, two) -> one));
+            } else {
+                names = Collections.emptyList();
+                nickMap = Collections.emptyMap();
+            }
+            return new DefaultChannel(DefaultActorTracker.this.client, this.getName(), this.topic,
+                    channelModes, modeInfoLists, modeInfoIndexes, newModes, names,
+                    nickMap, new ArrayList<>(nickMap.values()), this.level.isTrackingUsers() ? names.size() : this.modes.size(), this.fullListReceived, this.commands);
         }
 
         void trackMode(@Nonnull ChannelMode mode, boolean track) {
-            if (track && this.trackedModes.add(mode.getChar())) {
+            if (track && !this.level.isTrackingDetails()) {
+                return;
+            }
+            boolean added = false;
+            this.beginWrite(); // Called from user threads as well as the input thread
+            try {
+                Set<Character> trackedModes = this.trackedModes;
+                if (track != trackedModes.contains(mode.getChar())) {
+                    Set<Character> newTrackedModes = new HashSet<>(trackedModes);
+                    if (track) {
+                        added = newTrackedModes.add(mode.getChar());
+                    } else {
+                        newTrackedModes.remove(mode.getChar());
+                    }
+                    this.trackedModes = Collections.unmodifiableSet(newTrackedModes);
+                }
+            } finally {
+                this.endWrite();
+            }
+            if (added) {
                 new ChannelModeCommand(DefaultActorTracker.this.client, this.getName()).add(true, mode).execute();
-            } else if (!track) {
-                this.trackedModes.remove(mode.getChar());
             }
         }
 
@@ -224,103 +510,207 @@ public class DefaultActorTracker implements ActorTracker {
             if (!this.trackedModes.contains(character)) {
                 return;
             }
-            this.modeInfoLists.put(character, modeInfoList);
-            this.markStale();
+            IrcModeInfoList list = new IrcModeInfoList();
+            modeInfoList.forEach(list::add);
+            this.beginWrite();
+            try {
+                this.modeInfoLists.put(character, list);
+            } finally {
+                this.endWrite();
+            }
+            Optional<ChannelMode> mode = DefaultActorTracker.this.client.getServerInfo().getChannelMode(character);
+            if (mode.isPresent()) {
+                DefaultActorTracker.this.fireDelta(Delta.Type.MODE_INFO_CHANGED, this.getName(), null, null, new ModeStatus<>(true, mode.get()));
+            }
         }
 
         void trackModeInfo(boolean add, @Nonnull ModeInfo modeInfo) {
-            if (!this.trackedModes.contains(modeInfo.getMode().getChar())) {
+            char character = modeInfo.getMode().getChar();
+            if (!this.trackedModes.contains(character)) {
                 return;
             }
-            if (add) {
-                this.modeInfoLists.get(modeInfo.getMode().getChar()).add(modeInfo);
-            } else {
-                Iterator<ModeInfo> iterator = this.modeInfoLists.get(modeInfo.getMode().getChar()).iterator();
-                while (iterator.hasNext()) {
-                    if (modeInfo.getMask().equals(iterator.next().getMask())) {
-                        iterator.remove();
-                        return;
-                    }
+            this.beginWrite();
+            try {
+                IrcModeInfoList list = this.modeInfoLists.computeIfAbsent(character, key -> new IrcModeInfoList());
+                if (add) {
+                    list.add(modeInfo);
+                } else if (!list.remove(modeInfo)) {
+                    return;
                 }
+            } finally {
+                this.endWrite();
             }
+            DefaultActorTracker.this.fireDelta(Delta.Type.MODE_INFO_CHANGED, this.getName(), null, null, new ModeStatus<>(add, modeInfo.getMode(), modeInfo.getMask().asString()));
         }
 
         void trackUser(@Nonnull User user, @Nonnull Set<ChannelUserMode> modes) {
-            DefaultActorTracker.this.trackUser(user);
-            this.setModes(user.getNick(), modes);
-            this.markStale();
+            if (this.level.isTrackingUsers() || DefaultActorTracker.this.isSelf(user.getNick())) {
+                DefaultActorTracker.this.trackUser(user);
+            }
+            if (this.level.isTrackingMembership()) {
+                boolean added;
+                this.beginWrite();
+                try {
+                    added = !this.modes.containsKey(user.getNick());
+                    this.setModes(user.getNick(), modes);
+                } finally {
+                    this.endWrite();
+                }
+                if (added) {
+                    this.fireMemberAdded(user.getNick());
+                }
+            }
             DefaultActorTracker.this.staleUser(user.getNick());
         }
 
         void trackNick(@Nonnull String nick, @Nonnull Set<ChannelUserMode> modes) {
+            if (!this.level.isTrackingMembership()) {
+                return;
+            }
             String nickname = nick;
             int index;
             if ((index = nick.indexOf('!')) >= 0) { // userhost-in-names
                 nickname = nick.substring(0, index);
-                if (!DefaultActorTracker.this.trackedUsers.containsKey(nickname)) {
+                if (this.level.isTrackingUsers() && !DefaultActorTracker.this.trackedUsers.containsKey(nickname)) {
                     IrcUser user = DefaultActorTracker.this.getUserByName(nick);
                     if (user != null) {
                         DefaultActorTracker.this.trackUser(user.snapshot());
                     }
                 }
             }
-            if (!this.modes.containsKey(nickname) || this.modes.get(nickname).isEmpty()) {
-                this.setModes(nickname, modes);
+            Set<ChannelUserMode> current;
+            this.beginWrite();
+            try {
+                current = this.modes.get(nickname);
+                if ((current == null) || current.isEmpty()) {
+                    this.setModes(nickname, modes);
+                }
+            } finally {
+                this.endWrite();
+            }
+            if (current == null) {
+                this.fireMemberAdded(nickname);
+            } else if (current.isEmpty()) {
+                this.firePrefixes(nickname);
             }
-            this.markStale();
         }
 
-        void trackUserModeAdd(@Nonnull String nick, @Nonnull ChannelUserMode mode) {
-            this.getModes(nick).add(mode);
-            this.markStale();
+        private void fireMemberAdded(@Nonnull String nick) {
+            DefaultActorTracker.this.fireDelta(Delta.Type.MEMBER_ADDED, this.getName(), nick, null, null);
+            this.firePrefixes(nick);
         }
 
-        void trackUserModeRemove(@Nonnull String nick, @Nonnull ChannelUserMode mode) {
-            this.getModes(nick).remove(mode);
-            this.markStale();
+        private void firePrefixes(@Nonnull String nick) {
+            if (DefaultActorTracker.this.changeListeners.isEmpty()) {
+                return;
+            }
+            for (ChannelUserMode mode : this.modes.getOrDefault(nick, Collections.emptySet())) {
+                DefaultActorTracker.this.fireDelta(Delta.Type.PREFIX_CHANGED, this.getName(), nick, null, new ModeStatus<ChannelMode>(true, mode, nick));
+            }
+        }
+
+        boolean trackUserModeAdd(@Nonnull String nick, @Nonnull ChannelUserMode mode) {
+            if (!this.level.isTrackingUsers()) {
+                return false;
+            }
+            this.beginWrite();
+            try {
+                Set<ChannelUserMode> current = this.modes.get(nick);
+                Set<ChannelUserMode> modes = (current == null) ? new HashSet<>() : new HashSet<>(current);
+                boolean changed = modes.add(mode);
+                this.modes.put(nick, Collections.unmodifiableSet(modes));
+                return changed;
+            } finally {
+                this.endWrite();
+            }
+        }
+
+        boolean trackUserModeRemove(@Nonnull String nick, @Nonnull ChannelUserMode mode) {
+            if (!this.level.isTrackingUsers()) {
+                return false;
+            }
+            this.beginWrite();
+            try {
+                Set<ChannelUserMode> current = this.modes.get(nick);
+                Set<ChannelUserMode> modes = (current == null) ? new HashSet<>() : new HashSet<>(current);
+                boolean changed = modes.remove(mode);
+                this.modes.put(nick, Collections.unmodifiableSet(modes));
+                return changed;
+            } finally {
+                this.endWrite();
+            }
         }
 
         private void trackUserNick(@Nonnull String oldNick, @Nonnull String newNick) {
-            Set<ChannelUserMode> modes = this.modes.remove(oldNick);
+            Set<ChannelUserMode> modes;
+            this.beginWrite();
+            try {
+                modes = this.modes.remove(oldNick);
+                if (modes != null) {
+                    this.setModes(newNick, modes);
+                }
+            } finally {
+                this.endWrite();
+            }
             if (modes != null) {
-                this.setModes(newNick, modes);
+                DefaultActorTracker.this.fireDelta(Delta.Type.MEMBER_NICK_CHANGED, this.getName(), oldNick, newNick, null);
             }
-            this.markStale();
         }
 
         void trackUserPart(@Nonnull String nick) {
-            this.modes.remove(nick);
+            boolean removed;
+            this.beginWrite();
+            try {
+                removed = this.modes.remove(nick) != null;
+            } finally {
+                this.endWrite();
+            }
+            if (removed) {
+                DefaultActorTracker.this.fireDelta(Delta.Type.MEMBER_REMOVED, this.getName(), nick, null, null);
+            }
             DefaultActorTracker.this.checkUserForTracking(nick);
             DefaultActorTracker.this.staleUser(nick);
-            this.markStale();
-        }
-
-        @Nonnull
-        private Set<ChannelUserMode> getModes(@Nonnull String nick) {
-            return this.modes.computeIfAbsent(nick, k -> new HashSet<>());
         }
 
         private void setModes(@Nonnull String nick, @Nonnull Set<ChannelUserMode> modes) {
-            this.modes.put(nick, new HashSet<>(modes));
-            this.markStale();
+            this.beginWrite();
+            try {
+                this.modes.put(nick, this.level.isTrackingUsers() ? Collections.unmodifiableSet(new HashSet<>(modes)) : Collections.emptySet());
+            } finally {
+                this.endWrite();
+            }
         }
 
         void updateChannelModes(ModeStatusList<ChannelMode> statusList) {
             statusList.getStatuses().stream().filter(status -> (status.getMode() instanceof ChannelUserMode) && (status.getParameter().isPresent())).forEach(status -> {
+                String nick = status.getParameter().get();
+                boolean changed;
                 if (status.isSetting()) {
-                    this.trackUserModeAdd(status.getParameter().get(), (ChannelUserMode) status.getMode());
+                    changed = this.trackUserModeAdd(nick, (ChannelUserMode) status.getMode());
                 } else {
-                    this.trackUserModeRemove(status.getParameter().get(), (ChannelUserMode) status.getMode());
+                    changed = this.trackUserModeRemove(nick, (ChannelUserMode) status.getMode());
+                }
+                if (changed) {
+                    DefaultActorTracker.this.fireDelta(Delta.Type.PREFIX_CHANGED, this.getName(), nick, null, status);
                 }
             });
+            Map<Character, ModeStatus<ChannelMode>> newChannelModes = new HashMap<>(this.channelModes);
+            List<ModeStatus<ChannelMode>> changes = new ArrayList<>();
             statusList.getStatuses().stream().filter(status -> !(status.getMode() instanceof ChannelUserMode) && (status.getMode().getType() != ChannelMode.Type.A_MASK)).forEach(status -> {
                 if (status.isSetting()) {
-                    this.channelModes.put(status.getMode().getChar(), status);
+                    newChannelModes.put(status.getMode().getChar(), status);
                 } else {
-                    this.channelModes.remove(status.getMode().getChar());
+                    newChannelModes.remove(status.getMode().getChar());
                 }
+                changes.add(status);
             });
-            this.markStale();
+            this.beginWrite();
+            try {
+                this.channelModes = Collections.unmodifiableMap(newChannelModes);
+            } finally {
+                this.endWrite();
+            }
+            changes.forEach(status -> DefaultActorTracker.this.fireDelta(Delta.Type.MODE_CHANGED, this.getName(), null, null, status));
         }
 
         @Nonnull
@@ -331,22 +721,22 @@ public class DefaultActorTracker implements ActorTracker {
     }
 
     class IrcUser extends IrcStaleable<DefaultUser> {
-        private String account;
+        private volatile String account;
         @Nullable
-        private String awayMessage;
-        private String host;
-        private String nick;
-        private String user;
-        private boolean isAway;
-        private String operString;
-        private String realName;
-        private String server;
+        private volatile String awayMessage;
+        private volatile String host;
+        private volatile String nick;
+        private volatile String user;
+        private volatile boolean isAway;
+        private volatile String operString;
+        private volatile String realName;
+        private volatile String server;
 
         private IrcUser(@Nonnull String mask, @Nonnull String nick, @Nonnull String user, @Nonnull String host) {
             super(mask);
             this.nick = nick;
-            this.user = user;
-            this.host = host;
+            this.user = DefaultActorTracker.this.stringPool.intern(user);
+            this.host = DefaultActorTracker.this.stringPool.intern(host);
         }
 
         @Nonnull
@@ -355,71 +745,121 @@ public class DefaultActorTracker implements ActorTracker {
         }
 
         private void setNick(@Nonnull String newNick) {
-            this.nick = newNick;
-            this.updateName();
+            this.beginWrite();
+            try {
+                this.nick = newNick;
+                this.updateName();
+            } finally {
+                this.endWrite();
+            }
         }
 
         void setAccount(@Nullable String account) {
-            this.account = account;
-            this.markStale();
+            this.beginWrite();
+            try {
+                this.account = account;
+            } finally {
+                this.endWrite();
+            }
         }
 
         void setAway(String awayMessage) {
-            this.awayMessage = awayMessage;
-            if (awayMessage != null) {
-                this.isAway = true;
+            this.beginWrite();
+            try {
+                if (awayMessage != null) {
+                    this.isAway = true;
+                }
+                this.awayMessage = awayMessage;
+            } finally {
+                this.endWrite();
             }
-            this.markStale();
         }
 
         void setAway(boolean isAway) {
-            this.isAway = isAway;
-            if (!isAway) {
-                this.awayMessage = null;
+            this.beginWrite();
+            try {
+                if (!isAway) {
+                    this.awayMessage = null;
+                }
+                this.isAway = isAway;
+            } finally {
+                this.endWrite();
             }
-            this.markStale();
         }
 
         void setOperString(@Nonnull String operString) {
-            this.operString = operString;
+            this.beginWrite();
+            try {
+                this.operString = operString;
+            } finally {
+                this.endWrite();
+            }
         }
 
         void setRealName(@Nonnull String realName) {
-            this.realName = realName;
-            this.markStale();
+            this.beginWrite();
+            try {
+                this.realName = DefaultActorTracker.this.stringPool.intern(realName);
+            } finally {
+                this.endWrite();
+            }
         }
 
         void setHost(@Nonnull String host) {
-            this.host = host;
-            this.updateName();
+            this.beginWrite();
+            try {
+                this.host = DefaultActorTracker.this.stringPool.intern(host);
+                this.updateName();
+            } finally {
+                this.endWrite();
+            }
         }
 
         void setUser(@Nonnull String user) {
-            this.user = user;
-            this.updateName();
+            this.beginWrite();
+            try {
+                this.user = DefaultActorTracker.this.stringPool.intern(user);
+                this.updateName();
+            } finally {
+                this.endWrite();
+            }
         }
 
         void setServer(@Nonnull String server) {
-            this.server = server;
-            this.markStale();
+            this.beginWrite();
+            try {
+                this.server = DefaultActorTracker.this.stringPool.intern(server);
+            } finally {
+                this.endWrite();
+            }
         }
 
         private void updateName() {
-            this.setName(this.nick + '!' + this.user + '@' + this.host);
-            this.markStale();
+            this.beginWrite();
+            try {
+                this.setName(this.nick + '!' + this.user + '@' + this.host);
+            } finally {
+                this.endWrite();
+            }
         }
 
         @Override
         @Nonnull
         DefaultUser snapshot() {
+            return super.snapshot(this::createSnapshot);
+        }
+
+        @Nonnull
+        private DefaultUser createSnapshot() {
+            String nick = this.nick;
             Set<String> chanSet = new HashSet<>();
             for (IrcChannel channel : DefaultActorTracker.this.trackedChannels.values()) {
-                if (channel.modes.containsKey(this.nick)) {
+                if (channel.modes.containsKey(nick)) {
                     chanSet.add(channel.getName());
                 }
             }
-            return super.snapshot(() -> new DefaultUser(DefaultActorTracker.this.client, this.getName(), this.account,
-                    this.awayMessage, this.nick, this.user, this.host, this.isAway, this.operString, this.realName, this.server, chanSet));
+            return new DefaultUser(DefaultActorTracker.this.client, this.getName(), this.account,
+                    this.awayMessage, nick, this.user, this.host, this.isAway, this.operString, this.realName, this.server, chanSet);
         }
 
         @Nonnull
@@ -448,14 +888,21 @@ public class DefaultActorTracker implements ActorTracker {
     // Let's just do it assuming no IRCD can handle following the rules.
     // New pattern: ([^!@]+)!([^!@]+)@([^!@]+)
     private static final Pattern NICK_PATTERN = Pattern.compile("([^!@]+)!([^!@]+)@([^!@]+)");
+    // Snapshot rebuilds raced by the writer before one is handed out uncached
+    private static final int MAX_SNAPSHOT_ATTEMPTS = 3;
     private static final Pattern SERVER_PATTERN = Pattern.compile("(?!-)(?:[a-zA-Z\\d\\-]{0,62}[a-zA-Z\\d]\\.){1,126}(?!\\d+)[a-zA-Z\\d]{1,63}");
 
     private final Client.WithManagement client;
+    private final StringPool stringPool;
 
     private final Map<String, IrcChannel> trackedChannels;
     private final Map<String, IrcUser> trackedUsers;
 
-    private boolean queryChannelInformation = true;
+    private final Map<String, TrackingLevel> channelTrackingLevels;
+    private final List<Consumer<Delta>> changeListeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean queryChannelInformation = true;
+    private volatile TrackingLevel trackingLevel = TrackingLevel.FULL;
 
     /**
      * Constructs the tracker.
@@ -463,9 +910,39 @@ public class DefaultActorTracker implements ActorTracker {
      * @param client client
      */
     public DefaultActorTracker(@Nonnull Client.WithManagement client) {
+        this(client, new StringPool());
+    }
+
+    /**
+     * Constructs the tracker, deduplicating user hosts, user strings, real
+     * names and servers through the given pool. Clients connected to the
+     * same network can share one pool, for example with {@code
+     * builder.actorTracker(client -> new DefaultActorTracker(client, pool))}.
+     *
+     * @param client client
+     * @param stringPool pool for repeated user details
+     */
+    public DefaultActorTracker(@Nonnull Client.WithManagement client, @Nonnull StringPool stringPool) {
         this.client = client;
+        this.stringPool = Sanity.nullCheck(stringPool, "String pool cannot be null");
         this.trackedChannels = new CIKeyMap<>(this.client);
         this.trackedUsers = new CIKeyMap<>(this.client);
+        this.channelTrackingLevels = new CIKeyMap<>(this.client);
+    }
+
+    @Override
+    public void addChangeListener(@Nonnull Consumer<Delta> listener) {
+        this.changeListeners.add(Sanity.nullCheck(listener, "Listener cannot be null"));
+    }
+
+    @Override
+    public void removeChangeListener(@Nonnull Consumer<Delta> listener) {
+        this.changeListeners.remove(Sanity.nullCheck(listener, "Listener cannot be null"));
+    }
+
+    @Override
+    public long getVersion() {
+        return this.version.get();
     }
 
     @Nonnull
@@ -520,6 +997,19 @@ public class DefaultActorTracker implements ActorTracker {
         return (u == null) ? Optional.empty() : Optional.of(u.snapshot());
     }
 
+    @Nonnull
+    @Override
+    public TrackingLevel getTrackingLevel() {
+        return this.trackingLevel;
+    }
+
+    @Nonnull
+    @Override
+    public TrackingLevel getTrackingLevel(@Nonnull String channel) {
+        TrackingLevel level = this.channelTrackingLevels.get(channel);
+        return (level == null) ? this.trackingLevel : level;
+    }
+
     @Override
     public boolean isStale(@Nonnull Staleable staleable) {
         if (staleable instanceof Channel) {
@@ -569,9 +1059,31 @@ public class DefaultActorTracker implements ActorTracker {
         this.queryChannelInformation = query;
     }
 
+    @Override
+    public void setTrackingLevel(@Nonnull TrackingLevel level) {
+        this.trackingLevel = Sanity.nullCheck(level, "Level cannot be null");
+        this.trackedChannels.values().stream()
+                .filter(channel -> !this.channelTrackingLevels.containsKey(channel.getName()))
+                .forEach(channel -> channel.setLevel(level));
+    }
+
+    @Override
+    public void setTrackingLevel(@Nonnull String channel, @Nullable TrackingLevel level) {
+        Sanity.nullCheck(channel, "Channel cannot be null");
+        if (level == null) {
+            this.channelTrackingLevels.remove(channel);
+        } else {
+            this.channelTrackingLevels.put(channel, level);
+        }
+        IrcChannel ch = this.trackedChannels.get(channel);
+        if (ch != null) {
+            ch.setLevel(this.getTrackingLevel(channel));
+        }
+    }
+
     @Override
     public void setUserAccount(@Nonnull String nick, @Nullable String account) {
-        IrcUser u = this.trackedUsers.get(nick);
+        IrcUser u = this.getDetailedUser(nick);
         if (u != null) {
             u.setAccount(account);
         }
@@ -579,7 +1091,7 @@ public class DefaultActorTracker implements ActorTracker {
 
     @Override
     public void setUserAway(@Nonnull String nick, @Nullable String message) {
-        IrcUser u = this.trackedUsers.get(nick);
+        IrcUser u = this.getDetailedUser(nick);
         if (u != null) {
             u.setAway(message);
         }
@@ -587,7 +1099,7 @@ public class DefaultActorTracker implements ActorTracker {
 
     @Override
     public void setUserAway(@Nonnull String nick, boolean away) {
-        IrcUser u = this.trackedUsers.get(nick);
+        IrcUser u = this.getDetailedUser(nick);
         if (u != null) {
             u.setAway(away);
         }
@@ -595,7 +1107,7 @@ public class DefaultActorTracker implements ActorTracker {
 
     @Override
     public void setUserOperString(@Nonnull String nick, @Nonnull String operString) {
-        IrcUser u = this.trackedUsers.get(nick);
+        IrcUser u = this.getDetailedUser(nick);
         if (u != null) {
             u.setOperString(operString);
         }
@@ -603,7 +1115,7 @@ public class DefaultActorTracker implements ActorTracker {
 
     @Override
     public void setUserRealName(@Nonnull String nick, @Nonnull String realName) {
-        IrcUser u = this.trackedUsers.get(nick);
+        IrcUser u = this.getDetailedUser(nick);
         if (u != null) {
             u.setRealName(realName);
         }
@@ -611,7 +1123,7 @@ public class DefaultActorTracker implements ActorTracker {
 
     @Override
     public void setUserServer(@Nonnull String nick, @Nonnull String server) {
-        IrcUser u = this.trackedUsers.get(nick);
+        IrcUser u = this.getDetailedUser(nick);
         if (u != null) {
             u.setServer(server);
         }
@@ -681,8 +1193,10 @@ public class DefaultActorTracker implements ActorTracker {
     @Override
     public void trackUserNickChange(@Nonnull String oldNick, @Nonnull String newNick) {
         IrcUser user = this.trackedUsers.remove(oldNick);
-        user.setNick(newNick);
-        this.trackedUsers.put(newNick, user);
+        if (user != null) { // Not tracked if only sharing channels tracked without users
+            user.setNick(newNick);
+            this.trackedUsers.put(newNick, user);
+        }
         this.trackedChannels.values().forEach(channel -> channel.trackUserNick(oldNick, newNick));
     }
 
@@ -712,6 +1226,7 @@ public class DefaultActorTracker implements ActorTracker {
     public void unTrackChannel(@Nonnull String channel) {
         IrcChannel ch = this.trackedChannels.remove(channel);
         if (ch != null) {
+            ch.modes.keySet().forEach(nick -> this.fireDelta(Delta.Type.MEMBER_REMOVED, ch.getName(), nick, null, null));
             ch.setTracked(false);
         }
     }
@@ -736,8 +1251,8 @@ public class DefaultActorTracker implements ActorTracker {
      * @param nick nickname
      */
     private void checkUserForTracking(@Nonnull String nick) {
-        if (!this.client.getServerInfo().getCaseMapping().areEqualIgnoringCase(nick, this.client.getNick())
-                && this.trackedChannels.values().stream().noneMatch(channel -> channel.modes.containsKey(nick))) {
+        if (!this.isSelf(nick)
+                && this.trackedChannels.values().stream().noneMatch(channel -> channel.level.isTrackingUsers() && channel.modes.containsKey(nick))) {
             IrcUser removed = this.trackedUsers.remove(nick);
             if (removed != null) {
                 removed.markStale();
@@ -745,6 +1260,47 @@ public class DefaultActorTracker implements ActorTracker {
         }
     }
 
+    /**
+     * Gets a tracked user if their details (account, away status, real
+     * name, server) are tracked, which requires sharing a channel tracked
+     * at a level tracking details.
+     *
+     * @param nick nickname
+     * @return user if tracked with details
+     */
+    @Nullable
+    private IrcUser getDetailedUser(@Nonnull String nick) {
+        IrcUser user = this.trackedUsers.get(nick);
+        if ((user == null) || (this.trackingLevel.isTrackingDetails() && this.channelTrackingLevels.isEmpty()) || this.isSelf(nick)) {
+            return user;
+        }
+        for (IrcChannel channel : this.trackedChannels.values()) {
+            if (channel.level.isTrackingDetails() && channel.modes.containsKey(nick)) {
+                return user;
+            }
+        }
+        return null;
+    }
+
+    private void fireDelta(@Nonnull Delta.Type type, @Nonnull String channel, @Nullable String nick, @Nullable String value, @Nullable ModeStatus<ChannelMode> mode) {
+        long version = this.version.incrementAndGet();
+        if (this.changeListeners.isEmpty()) {
+            return;
+        }
+        Delta delta = new IrcDelta(version, type, channel, nick, value, mode);
+        for (Consumer<Delta> listener : this.changeListeners) {
+            try {
+                listener.accept(delta);
+            } catch (Exception e) {
+                this.client.getExceptionListener().queue(e);
+            }
+        }
+    }
+
+    private boolean isSelf(@Nonnull String nick) {
+        return this.client.getServerInfo().getCaseMapping().areEqualIgnoringCase(nick, this.client.getNick());
+    }
+
     private void staleUser(String nick) {
         IrcUser user = this.trackedUsers.get(nick);
         if (user != null) {
@@ -29,8 +29,10 @@ import net.engio.mbassy.bus.config.Feature;
 import net.engio.mbassy.bus.error.IPublicationErrorHandler;
 import net.engio.mbassy.bus.error.PublicationError;
 import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.subscription.Subscription;
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.event.client.ClientConnectionEndedEvent;
+import org.kitteh.irc.client.library.event.helper.ChannelEvent;
 import org.kitteh.irc.client.library.event.helper.ClientEvent;
 import org.kitteh.irc.client.library.exception.KittehEventException;
 import org.kitteh.irc.client.library.exception.KittehNagException;
@@ -42,21 +44,36 @@ import org.kitteh.irc.client.library.feature.filter.FilterProcessor;
 import org.kitteh.irc.client.library.feature.filter.FilteringSubscriptionFactory;
 import org.kitteh.irc.client.library.feature.filter.NumericFilter;
 import org.kitteh.irc.client.library.feature.filter.ToSelfOnly;
+import org.kitteh.irc.client.library.feature.lane.EventLane;
+import org.kitteh.irc.client.library.util.CIKeyMap;
+import org.kitteh.irc.client.library.util.CISet;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Default implementation of {@link EventManager}.
+ * <p>
+ * Handlers of channel-scoped listeners are looked up by channel and run in
+ * order of priority among themselves, together at the default priority.
+ * Likewise, handlers of listeners registered onto an {@link EventLane} are
+ * queued together at the default priority.
  */
 public class DefaultEventManager implements EventManager {
     /**
@@ -95,10 +112,64 @@ public class DefaultEventManager implements EventManager {
         }
     }
 
-    private final MBassador<Object> bus;
+    private static final class Bus extends MBassador<Object> {
+        private Bus(@Nonnull BusConfiguration configuration) {
+            super(configuration);
+        }
+
+        @Nonnull
+        private Collection<Subscription> getSubscriptions(@Nonnull Class<?> eventClass) {
+            return this.getSubscriptionsByMessageType(eventClass);
+        }
+    }
+
+    private final class ChannelRouter {
+        @Handler
+        public void route(ChannelEvent event) {
+            HandlerIndex index = DefaultEventManager.this.channelHandlers.get(event.getChannel().getName());
+            if (index != null) {
+                for (HandlerIndex.Subscriber subscriber : index.getSubscribers(event.getClass())) {
+                    DefaultEventManager.this.invoke(subscriber, event);
+                }
+            }
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).toString();
+        }
+    }
+
+    private final class LaneRouter {
+        @Handler
+        public void route(Object event) {
+            for (HandlerIndex.Subscriber subscriber : DefaultEventManager.this.laneHandlers.getSubscribers(event.getClass())) {
+                DefaultEventManager.this.invoke(subscriber, event);
+            }
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).toString();
+        }
+    }
+
+    private final Bus bus;
     private final Client client;
     private final Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters = new ConcurrentHashMap<>();
+    private final Map<String, EventLane> lanes = new ConcurrentHashMap<>();
     private final Set<Object> listeners = new HashSet<>();
+    private final Map<Object, Set<String>> channelListeners = new HashMap<>();
+    private final Map<Class<?>, Boolean> subscribed = new ConcurrentHashMap<>();
+    private final CIKeyMap<HandlerIndex> channelHandlers;
+    private final ChannelRouter channelRouter = new ChannelRouter();
+    private final Set<Object> laneListeners = new HashSet<>();
+    private final HandlerIndex laneHandlers = new HandlerIndex();
+    private final LaneRouter laneRouter = new LaneRouter();
+    @Nullable
+    private ExecutorService executor;
 
     /**
      * Constructs the event manager.
@@ -107,12 +178,13 @@ public class DefaultEventManager implements EventManager {
      */
     public DefaultEventManager(@Nonnull Client client) {
         BusConfiguration configuration = new BusConfiguration()
-                .addFeature(Feature.SyncPubSub.Default().setSubscriptionFactory(new FilteringSubscriptionFactory(this.filters)))
+                .addFeature(Feature.SyncPubSub.Default().setSubscriptionFactory(new FilteringSubscriptionFactory(this.filters, this.lanes)))
                 .addFeature(Feature.AsynchronousHandlerInvocation.Default())
                 .addFeature(Feature.AsynchronousMessageDispatch.Default())
                 .addPublicationErrorHandler(new Exceptional(client));
-        this.bus = new MBassador<>(configuration);
+        this.bus = new Bus(configuration);
         this.client = client;
+        this.channelHandlers = new CIKeyMap<>(client);
         // Defaults!
         this.registerAnnotationFilter(CommandFilter.class, new CommandFilter.Processor());
         this.registerAnnotationFilter(EchoMessage.class, new EchoMessage.Processor());
@@ -134,7 +206,10 @@ public class DefaultEventManager implements EventManager {
     @Nonnull
     @Override
     public synchronized Set<Object> getRegisteredEventListeners() {
-        return new HashSet<>(this.listeners);
+        Set<Object> listeners = new HashSet<>(this.listeners);
+        listeners.addAll(this.channelListeners.keySet());
+        listeners.addAll(this.laneListeners);
+        return listeners;
     }
 
     @Nonnull
@@ -143,6 +218,30 @@ public class DefaultEventManager implements EventManager {
         return Collections.unmodifiableMap(new HashMap<>(this.filters));
     }
 
+    @Nonnull
+    @Override
+    public Map<String, EventLane> getEventLanes() {
+        return Collections.unmodifiableMap(new HashMap<>(this.lanes));
+    }
+
+    @Override
+    public boolean hasSubscribers(@Nonnull Class<?> eventClass) {
+        Sanity.nullCheck(eventClass, "Event class cannot be null");
+        Boolean subscribed = this.subscribed.get(eventClass);
+        if (subscribed == null) {
+            synchronized (this) { // Not racing a registration clearing the cache
+                subscribed = this.subscribed.computeIfAbsent(eventClass, this::findSubscribers);
+            }
+        }
+        return subscribed;
+    }
+
+    @Override
+    public void registerEventLane(@Nonnull EventLane lane) {
+        Sanity.nullCheck(lane, "Lane cannot be null");
+        this.lanes.put(lane.getName(), lane);
+    }
+
     @Override
     public <A extends Annotation> void registerAnnotationFilter(Class<A> annotationClass, FilterProcessor<?, A> filterProcessor) {
         this.filters.put(annotationClass, filterProcessor);
@@ -151,15 +250,88 @@ public class DefaultEventManager implements EventManager {
     @Override
     public synchronized void registerEventListener(@Nonnull Object listener) {
         Sanity.nullCheck(listener, "Listener cannot be null");
+        for (Class<?> clazz = listener.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                HandlerIndex.getLane(method, this.lanes, null); // Fail on an unknown lane before subscribing
+            }
+        }
         this.listeners.add(listener);
         this.bus.subscribe(listener);
+        this.subscribed.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException for a null listener or lane, or a
+     * listener using MBassador filters, conditions or invocations
+     */
+    @Override
+    public synchronized void registerEventListener(@Nonnull Object listener, @Nonnull EventLane lane) {
+        Sanity.nullCheck(listener, "Listener cannot be null");
+        Sanity.nullCheck(lane, "Lane cannot be null");
+        if (this.laneListeners.contains(listener)) {
+            return;
+        }
+        List<HandlerIndex.Subscriber> subscribers = HandlerIndex.createSubscribers(listener, this.filters, this.lanes, lane);
+        if (this.laneHandlers.isEmpty()) {
+            this.bus.subscribe(this.laneRouter);
+        }
+        this.laneListeners.add(listener);
+        this.laneHandlers.add(subscribers);
+        this.subscribed.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException for a null channel or listener, or a
+     * listener using MBassador filters, conditions or invocations
+     */
+    @Override
+    public synchronized void registerChannelEventListener(@Nonnull String channel, @Nonnull Object listener) {
+        Sanity.nullCheck(channel, "Channel cannot be null");
+        Sanity.nullCheck(listener, "Listener cannot be null");
+        Set<String> channels = this.channelListeners.get(listener);
+        if ((channels != null) && channels.contains(channel)) {
+            return;
+        }
+        List<HandlerIndex.Subscriber> subscribers = HandlerIndex.createSubscribers(listener, this.filters, this.lanes, null);
+        if (this.channelHandlers.isEmpty()) {
+            this.bus.subscribe(this.channelRouter);
+        }
+        this.channelListeners.computeIfAbsent(listener, key -> new CISet(this.client)).add(channel);
+        this.channelHandlers.computeIfAbsent(channel, key -> new HandlerIndex()).add(subscribers);
+        this.subscribed.clear();
     }
 
     @Override
     public synchronized void unregisterEventListener(@Nonnull Object listener) {
         Sanity.nullCheck(listener, "Listener cannot be null");
+        this.subscribed.clear();
         this.listeners.remove(listener);
         this.bus.unsubscribe(listener);
+        if (this.laneListeners.remove(listener)) {
+            this.laneHandlers.remove(listener);
+            if (this.laneHandlers.isEmpty()) {
+                this.bus.unsubscribe(this.laneRouter);
+            }
+        }
+        Set<String> channels = this.channelListeners.remove(listener);
+        if (channels != null) {
+            for (String channel : channels) {
+                HandlerIndex index = this.channelHandlers.get(channel);
+                if (index != null) {
+                    index.remove(listener);
+                    if (index.isEmpty()) {
+                        this.channelHandlers.remove(channel);
+                    }
+                }
+            }
+            if (this.channelHandlers.isEmpty()) {
+                this.bus.unsubscribe(this.channelRouter);
+            }
+        }
     }
 
     /**
@@ -171,6 +343,63 @@ public class DefaultEventManager implements EventManager {
     public void onShutdown(ClientConnectionEndedEvent event) {
         if (!event.canAttemptReconnect()) {
             this.bus.shutdown();
+            synchronized (this) {
+                if (this.executor != null) {
+                    this.executor.shutdown();
+                }
+            }
+        }
+    }
+
+    private boolean findSubscribers(@Nonnull Class<?> eventClass) {
+        for (Subscription subscription : this.bus.getSubscriptions(eventClass)) {
+            if (subscription.size() == 0) {
+                continue;
+            }
+            if (subscription.belongsTo(ChannelRouter.class)) {
+                if (this.channelHandlers.values().stream().anyMatch(index -> index.getSubscribers(eventClass).length > 0)) {
+                    return true;
+                }
+            } else if (subscription.belongsTo(LaneRouter.class)) {
+                if (this.laneHandlers.getSubscribers(eventClass).length > 0) {
+                    return true;
+                }
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void invoke(@Nonnull HandlerIndex.Subscriber subscriber, @Nonnull Object event) {
+        if (!subscriber.accepts(this.client, event)) {
+            return;
+        }
+        EventLane lane = subscriber.getLane();
+        if (lane != null) {
+            lane.submit(EventLane.getOrderKey(event), () -> subscriber.invoke(this.client, event));
+            return;
+        }
+        if (!subscriber.isAsync()) {
+            subscriber.invoke(this.client, event);
+            return;
+        }
+        ExecutorService executor;
+        synchronized (this) {
+            if (this.executor == null) {
+                String name = "KICL Event Handler (" + this.client.getName() + ')';
+                this.executor = Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            executor = this.executor;
+        }
+        try {
+            executor.execute(() -> subscriber.invoke(this.client, event));
+        } catch (RejectedExecutionException ignored) {
+            // Shut down
         }
     }
 
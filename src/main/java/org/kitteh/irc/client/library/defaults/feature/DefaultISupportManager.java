@@ -34,6 +34,7 @@ import org.kitteh.irc.client.library.defaults.element.isupport.DefaultISupportMo
 import org.kitteh.irc.client.library.defaults.element.isupport.DefaultISupportNetwork;
 import org.kitteh.irc.client.library.defaults.element.isupport.DefaultISupportNickLen;
 import org.kitteh.irc.client.library.defaults.element.isupport.DefaultISupportPrefix;
+import org.kitteh.irc.client.library.defaults.element.isupport.DefaultISupportTargMax;
 import org.kitteh.irc.client.library.defaults.element.isupport.DefaultISupportTopicLen;
 import org.kitteh.irc.client.library.defaults.element.isupport.DefaultISupportWhoX;
 import org.kitteh.irc.client.library.element.ISupportParameter;
@@ -66,6 +67,7 @@ public class DefaultISupportManager extends AbstractNameValueProcessor<ISupportP
         this.registerParameter(ISupportParameter.Network.NAME, DefaultISupportNetwork::new);
         this.registerParameter(ISupportParameter.NickLen.NAME, DefaultISupportNickLen::new);
         this.registerParameter(ISupportParameter.Prefix.NAME, DefaultISupportPrefix::new);
+        this.registerParameter(ISupportParameter.TargMax.NAME, DefaultISupportTargMax::new);
         this.registerParameter(ISupportParameter.TopicLen.NAME, DefaultISupportTopicLen::new);
         this.registerParameter(ISupportParameter.WhoX.NAME, DefaultISupportWhoX::new);
     }
@@ -0,0 +1,314 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.defaults.feature;
+
+import net.engio.mbassy.listener.Handler;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.event.client.ClientConnectionEndedEvent;
+import org.kitteh.irc.client.library.event.helper.ChannelEvent;
+import org.kitteh.irc.client.library.event.helper.ClientEvent;
+import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.filter.CommandFilter;
+import org.kitteh.irc.client.library.feature.filter.EchoMessage;
+import org.kitteh.irc.client.library.feature.filter.FilterProcessor;
+import org.kitteh.irc.client.library.feature.filter.NumericFilter;
+import org.kitteh.irc.client.library.feature.filter.ToSelfOnly;
+import org.kitteh.irc.client.library.feature.lane.EventLane;
+import org.kitteh.irc.client.library.util.CIKeyMap;
+import org.kitteh.irc.client.library.util.CISet;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An {@link EventManager} dispatching events directly, without MBassador.
+ * <p>
+ * Handlers are kept in a {@link HandlerIndex}, bound once at registration
+ * to generated invokers and cached per event class, so calling an event
+ * is a map lookup and a loop over handlers. Handlers of channel-scoped
+ * listeners are merged in by priority.
+ * <p>
+ * {@link Handler} priority, {@link Handler#rejectSubtypes()}, {@link
+ * Handler#enabled()} and asynchronous {@link Handler#delivery()} behave as
+ * with the {@link DefaultEventManager}, as do the annotation filters.
+ * Handlers of equal priority run in the order registered. Handlers on an
+ * {@link EventLane} are queued in priority order. MBassador's own
+ * filters, conditions and invocations are not supported, and listeners
+ * using them are rejected. Select this manager when building a client:
+ * <pre>
+ * {@code builder.eventManager(DirectEventManager::new);}
+ * </pre>
+ */
+public class DirectEventManager implements EventManager {
+    private final Client client;
+    private final Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters = new ConcurrentHashMap<>();
+    private final Map<String, EventLane> lanes = new ConcurrentHashMap<>();
+    private final Set<Object> listeners = new HashSet<>();
+    private final HandlerIndex handlers = new HandlerIndex();
+    private final Map<Object, Set<String>> channelListeners = new HashMap<>();
+    private final Map<Class<?>, Boolean> subscribed = new ConcurrentHashMap<>();
+    private final CIKeyMap<HandlerIndex> channelHandlers;
+    @Nullable
+    private ExecutorService executor;
+
+    /**
+     * Constructs the event manager.
+     *
+     * @param client client for which this manager will operate
+     */
+    public DirectEventManager(@Nonnull Client client) {
+        this.client = Sanity.nullCheck(client, "Client cannot be null");
+        this.channelHandlers = new CIKeyMap<>(client);
+        this.registerAnnotationFilter(CommandFilter.class, new CommandFilter.Processor());
+        this.registerAnnotationFilter(EchoMessage.class, new EchoMessage.Processor());
+        this.registerAnnotationFilter(NumericFilter.class, new NumericFilter.Processor());
+        this.registerAnnotationFilter(ToSelfOnly.class, new ToSelfOnly.Processor());
+
+        this.registerEventListener(this);
+    }
+
+    @Override
+    public void callEvent(@Nonnull Object event) {
+        Sanity.nullCheck(event, "Event cannot be null");
+        if (event instanceof ClientEvent) {
+            Sanity.truthiness(((ClientEvent) event).getClient() == this.client, "Event cannot be from another client!");
+        }
+        HandlerIndex.Subscriber[] subscribers = this.handlers.getSubscribers(event.getClass());
+        HandlerIndex channel = ((event instanceof ChannelEvent) && !this.channelHandlers.isEmpty()) ? this.channelHandlers.get(((ChannelEvent) event).getChannel().getName()) : null;
+        if (channel == null) {
+            for (HandlerIndex.Subscriber subscriber : subscribers) {
+                this.invoke(subscriber, event);
+            }
+            return;
+        }
+        // Merge the two lists, each sorted by priority
+        HandlerIndex.Subscriber[] channelSubscribers = channel.getSubscribers(event.getClass());
+        int i = 0;
+        int j = 0;
+        while ((i < subscribers.length) || (j < channelSubscribers.length)) {
+            if ((j == channelSubscribers.length) || ((i < subscribers.length) && (subscribers[i].getPriority() >= channelSubscribers[j].getPriority()))) {
+                this.invoke(subscribers[i++], event);
+            } else {
+                this.invoke(channelSubscribers[j++], event);
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public synchronized Set<Object> getRegisteredEventListeners() {
+        Set<Object> listeners = new HashSet<>(this.listeners);
+        listeners.addAll(this.channelListeners.keySet());
+        return listeners;
+    }
+
+    @Nonnull
+    @Override
+    public Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> getAnnotationFilters() {
+        return Collections.unmodifiableMap(new HashMap<>(this.filters));
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, EventLane> getEventLanes() {
+        return Collections.unmodifiableMap(new HashMap<>(this.lanes));
+    }
+
+    @Override
+    public boolean hasSubscribers(@Nonnull Class<?> eventClass) {
+        Sanity.nullCheck(eventClass, "Event class cannot be null");
+        Boolean subscribed = this.subscribed.get(eventClass);
+        if (subscribed == null) {
+            synchronized (this) { // Not racing a registration clearing the cache
+                subscribed = this.subscribed.computeIfAbsent(eventClass, this::findSubscribers);
+            }
+        }
+        return subscribed;
+    }
+
+    @Override
+    public void registerEventLane(@Nonnull EventLane lane) {
+        Sanity.nullCheck(lane, "Lane cannot be null");
+        this.lanes.put(lane.getName(), lane);
+    }
+
+    @Override
+    public <A extends Annotation> void registerAnnotationFilter(Class<A> annotationClass, FilterProcessor<?, A> filterProcessor) {
+        this.filters.put(annotationClass, filterProcessor);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException for a null listener or one using
+     * unsupported MBassador features
+     */
+    @Override
+    public synchronized void registerEventListener(@Nonnull Object listener) {
+        Sanity.nullCheck(listener, "Listener cannot be null");
+        this.register(listener, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException for a null listener or lane, or a
+     * listener using unsupported MBassador features
+     */
+    @Override
+    public synchronized void registerEventListener(@Nonnull Object listener, @Nonnull EventLane lane) {
+        Sanity.nullCheck(listener, "Listener cannot be null");
+        Sanity.nullCheck(lane, "Lane cannot be null");
+        this.register(listener, lane);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException for a null channel or listener, or a
+     * listener using unsupported MBassador features
+     */
+    @Override
+    public synchronized void registerChannelEventListener(@Nonnull String channel, @Nonnull Object listener) {
+        Sanity.nullCheck(channel, "Channel cannot be null");
+        Sanity.nullCheck(listener, "Listener cannot be null");
+        Set<String> channels = this.channelListeners.computeIfAbsent(listener, key -> new CISet(this.client));
+        if (channels.contains(channel)) {
+            return;
+        }
+        List<HandlerIndex.Subscriber> subscribers;
+        try {
+            subscribers = HandlerIndex.createSubscribers(listener, this.filters, this.lanes, null);
+        } catch (IllegalArgumentException e) {
+            if (channels.isEmpty()) {
+                this.channelListeners.remove(listener);
+            }
+            throw e;
+        }
+        channels.add(channel);
+        this.channelHandlers.computeIfAbsent(channel, key -> new HandlerIndex()).add(subscribers);
+        this.subscribed.clear();
+    }
+
+    @Override
+    public synchronized void unregisterEventListener(@Nonnull Object listener) {
+        Sanity.nullCheck(listener, "Listener cannot be null");
+        this.subscribed.clear();
+        if (this.listeners.remove(listener)) {
+            this.handlers.remove(listener);
+        }
+        Set<String> channels = this.channelListeners.remove(listener);
+        if (channels != null) {
+            for (String channel : channels) {
+                HandlerIndex index = this.channelHandlers.get(channel);
+                if (index != null) {
+                    index.remove(listener);
+                    if (index.isEmpty()) {
+                        this.channelHandlers.remove(channel);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Just the manager listening for shutdown, don't worry about it.
+     *
+     * @param event event of doom
+     */
+    @Handler(priority = Integer.MIN_VALUE)
+    public void onShutdown(ClientConnectionEndedEvent event) {
+        if (!event.canAttemptReconnect()) {
+            synchronized (this) {
+                if (this.executor != null) {
+                    this.executor.shutdown();
+                }
+            }
+        }
+    }
+
+    private void register(@Nonnull Object listener, @Nullable EventLane lane) {
+        if (this.listeners.contains(listener)) {
+            return;
+        }
+        this.handlers.add(HandlerIndex.createSubscribers(listener, this.filters, this.lanes, lane));
+        this.listeners.add(listener);
+        this.subscribed.clear();
+    }
+
+    private boolean findSubscribers(@Nonnull Class<?> eventClass) {
+        return (this.handlers.getSubscribers(eventClass).length > 0) || this.channelHandlers.values().stream().anyMatch(index -> index.getSubscribers(eventClass).length > 0);
+    }
+
+    private void invoke(@Nonnull HandlerIndex.Subscriber subscriber, @Nonnull Object event) {
+        if (!subscriber.accepts(this.client, event)) {
+            return;
+        }
+        EventLane lane = subscriber.getLane();
+        if (lane != null) {
+            lane.submit(EventLane.getOrderKey(event), () -> subscriber.invoke(this.client, event));
+            return;
+        }
+        if (!subscriber.isAsync()) {
+            subscriber.invoke(this.client, event);
+            return;
+        }
+        ExecutorService executor;
+        synchronized (this) {
+            if (this.executor == null) {
+                String name = "KICL Event Handler (" + this.client.getName() + ')';
+                this.executor = Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            executor = this.executor;
+        }
+        try {
+            executor.execute(() -> subscriber.invoke(this.client, event));
+        } catch (RejectedExecutionException ignored) {
+            // Shut down
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("client", this.client).toString();
+    }
+}
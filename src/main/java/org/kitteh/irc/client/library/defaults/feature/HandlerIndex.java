@@ -0,0 +1,376 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.defaults.feature;
+
+import net.engio.mbassy.dispatch.ReflectiveHandlerInvocation;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Invoke;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.exception.KittehEventException;
+import org.kitteh.irc.client.library.exception.KittehNagException;
+import org.kitteh.irc.client.library.exception.KittehServerMessageException;
+import org.kitteh.irc.client.library.feature.filter.FilterProcessor;
+import org.kitteh.irc.client.library.feature.lane.EventLane;
+import org.kitteh.irc.client.library.feature.lane.Lane;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of {@link Handler} methods by the event classes they handle,
+ * used by the event managers.
+ * <p>
+ * Each handler method is bound once, when its listener is added, to an
+ * invoker generated through {@link LambdaMetafactory} where the method is
+ * public and visible to this library, and to a {@link MethodHandle}
+ * otherwise. The handlers for each event class, across its supertypes and
+ * sorted by priority, are resolved on first use and cached until a
+ * listener is added or removed. Handlers of equal priority keep the order
+ * in which they were added.
+ */
+public class HandlerIndex {
+    @FunctionalInterface
+    private interface Invoker {
+        void invoke(@Nonnull Object listener, @Nonnull Object event) throws Throwable;
+    }
+
+    /**
+     * A handler method bound to its listener.
+     */
+    public static final class Subscriber {
+        private final Object listener;
+        private final Method method;
+        private final Class<?> eventType;
+        private final int priority;
+        private final boolean rejectSubtypes;
+        private final boolean async;
+        private final Invoker invoker;
+        private final FilterProcessor<?, ?>[] filters;
+        private final Annotation[][] filterAnnotations;
+        @Nullable
+        private final EventLane lane;
+
+        private Subscriber(@Nonnull Object listener, @Nonnull Method method, @Nonnull Handler handler, @Nonnull Invoker invoker, @Nonnull FilterProcessor<?, ?>[] filters, @Nonnull Annotation[][] filterAnnotations, @Nullable EventLane lane) {
+            this.listener = listener;
+            this.method = method;
+            this.eventType = method.getParameterTypes()[0];
+            this.priority = handler.priority();
+            this.rejectSubtypes = handler.rejectSubtypes();
+            this.async = handler.delivery() == Invoke.Asynchronously;
+            this.invoker = invoker;
+            this.filters = filters;
+            this.filterAnnotations = filterAnnotations;
+            this.lane = lane;
+        }
+
+        /**
+         * Gets the listener.
+         *
+         * @return listener
+         */
+        @Nonnull
+        public Object getListener() {
+            return this.listener;
+        }
+
+        /**
+         * Gets the handler priority, higher running first.
+         *
+         * @return priority
+         */
+        public int getPriority() {
+            return this.priority;
+        }
+
+        /**
+         * Gets if the handler is to be invoked asynchronously.
+         *
+         * @return true if asynchronous
+         */
+        public boolean isAsync() {
+            return this.async;
+        }
+
+        /**
+         * Gets the lane the handler runs on.
+         *
+         * @return lane, or null to run on the calling thread or
+         * asynchronously as the handler specifies
+         */
+        @Nullable
+        public EventLane getLane() {
+            return this.lane;
+        }
+
+        /**
+         * Gets if the handler's annotation filters accept an event, sending
+         * any exception thrown to the client's exception listener.
+         *
+         * @param client client whose exception listener is used
+         * @param event event
+         * @return true if accepted
+         */
+        @SuppressWarnings("unchecked")
+        public boolean accepts(@Nonnull Client client, @Nonnull Object event) {
+            try {
+                for (int i = 0; i < this.filters.length; i++) {
+                    if (!((FilterProcessor<Object, Annotation>) this.filters[i]).accepts(event, this.filterAnnotations[i])) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (RuntimeException e) {
+                client.getExceptionListener().queue(new KittehEventException(e));
+                return false;
+            }
+        }
+
+        /**
+         * Invokes the handler, sending any exception thrown to the client's
+         * exception listener.
+         *
+         * @param client client whose exception listener is used
+         * @param event event
+         */
+        public void invoke(@Nonnull Client client, @Nonnull Object event) {
+            try {
+                this.invoker.invoke(this.listener, event);
+            } catch (KittehServerMessageException | KittehNagException e) {
+                client.getExceptionListener().queue(e);
+            } catch (Throwable thrown) {
+                client.getExceptionListener().queue(new KittehEventException(thrown));
+            }
+        }
+
+        private boolean handles(@Nonnull Class<?> eventClass) {
+            return this.rejectSubtypes ? (this.eventType == eventClass) : this.eventType.isAssignableFrom(eventClass);
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("method", this.method).add("priority", this.priority).toString();
+        }
+    }
+
+    private static final class State {
+        private final List<Subscriber> subscribers;
+        private final Map<Class<?>, Subscriber[]> cache = new ConcurrentHashMap<>();
+
+        private State(@Nonnull List<Subscriber> subscribers) {
+            this.subscribers = subscribers;
+        }
+    }
+
+    private static final Subscriber[] EMPTY = new Subscriber[0];
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * Finds and binds the handler methods of a listener, including those
+     * declared by its superclasses and not overridden.
+     *
+     * @param listener listener
+     * @param filters annotation filters to apply to the handlers
+     * @param lanes lanes by name, for handlers annotated with {@link Lane}
+     * @param lane lane for handlers not annotated, or null for none
+     * @return handlers of the listener
+     * @throws IllegalArgumentException if a handler does not have exactly
+     * one parameter, cannot be accessed, names an unknown lane, or uses
+     * MBassador filters, conditions or invocations
+     */
+    @Nonnull
+    public static List<Subscriber> createSubscribers(@Nonnull Object listener, @Nonnull Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters, @Nonnull Map<String, EventLane> lanes, @Nullable EventLane lane) {
+        Sanity.nullCheck(listener, "Listener cannot be null");
+        List<Subscriber> subscribers = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Class<?> clazz = listener.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                // A method overridden by a subclass is only a handler if annotated there
+                if (Modifier.isStatic(method.getModifiers()) || method.isBridge() || !seen.add(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+                    continue;
+                }
+                Handler handler = method.getAnnotation(Handler.class);
+                if ((handler == null) || !handler.enabled()) {
+                    continue;
+                }
+                Sanity.truthiness(method.getParameterCount() == 1, "Handler must have one parameter: " + method);
+                Sanity.truthiness((handler.filters().length == 0) && handler.condition().isEmpty() && (handler.invocation() == ReflectiveHandlerInvocation.class), "MBassador filters, conditions and invocations are not supported: " + method);
+                List<FilterProcessor<?, ?>> processors = new ArrayList<>();
+                List<Annotation[]> annotations = new ArrayList<>();
+                for (Map.Entry<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> entry : filters.entrySet()) {
+                    Annotation[] found = method.getAnnotationsByType(entry.getKey());
+                    if (found.length > 0) {
+                        processors.add(entry.getValue());
+                        annotations.add(found);
+                    }
+                }
+                subscribers.add(new Subscriber(listener, method, handler, createInvoker(method), processors.toArray(new FilterProcessor<?, ?>[processors.size()]), annotations.toArray(new Annotation[annotations.size()][]), getLane(method, lanes, lane)));
+            }
+        }
+        return subscribers;
+    }
+
+    /**
+     * Gets the lane a handler method names with {@link Lane}.
+     *
+     * @param method handler method
+     * @param lanes lanes by name
+     * @param lane lane if the method is not annotated, or null for none
+     * @return lane, or null for none
+     * @throws IllegalArgumentException if the lane named is unknown
+     */
+    @Nullable
+    public static EventLane getLane(@Nonnull Method method, @Nonnull Map<String, EventLane> lanes, @Nullable EventLane lane) {
+        Lane annotation = method.getAnnotation(Lane.class);
+        if (annotation == null) {
+            return lane;
+        }
+        EventLane named = lanes.get(annotation.value());
+        Sanity.truthiness(named != null, "Unknown lane '" + annotation.value() + "': " + method);
+        return named;
+    }
+
+    @Nonnull
+    private static Invoker createInvoker(@Nonnull Method method) {
+        MethodHandle handle;
+        try {
+            method.setAccessible(true);
+            handle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("Cannot access handler: " + method, e);
+        }
+        if (isVisible(method.getDeclaringClass()) && isVisible(method.getParameterTypes()[0]) && Modifier.isPublic(method.getModifiers())) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "invoke", MethodType.methodType(Invoker.class), INVOKER_TYPE, handle, MethodType.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0]));
+                return (Invoker) site.getTarget().invokeExact();
+            } catch (Throwable thrown) {
+                // Fall back to the method handle
+            }
+        }
+        MethodHandle invoker = handle.asType(INVOKER_TYPE);
+        return (listener, event) -> {
+            invoker.invokeExact(listener, event); // As a statement, so typed as returning void
+        };
+    }
+
+    private static boolean isVisible(@Nonnull Class<?> clazz) {
+        for (Class<?> current = clazz; current != null; current = current.getEnclosingClass()) {
+            if (!Modifier.isPublic(current.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            // A generated invoker lives with this class, so must see the same class
+            return Class.forName(clazz.getName(), false, HandlerIndex.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private volatile State state = new State(Collections.emptyList());
+
+    /**
+     * Adds handlers.
+     *
+     * @param subscribers handlers to add
+     */
+    public synchronized void add(@Nonnull Collection<Subscriber> subscribers) {
+        List<Subscriber> list = new ArrayList<>(this.state.subscribers);
+        list.addAll(subscribers);
+        list.sort(Comparator.comparingInt(Subscriber::getPriority).reversed()); // Stable, keeping the order added
+        this.state = new State(list);
+    }
+
+    /**
+     * Removes the handlers of a listener.
+     *
+     * @param listener listener
+     * @return true if any handlers were removed
+     */
+    public synchronized boolean remove(@Nonnull Object listener) {
+        List<Subscriber> list = new ArrayList<>(this.state.subscribers);
+        if (!list.removeIf(subscriber -> subscriber.listener.equals(listener))) {
+            return false;
+        }
+        this.state = new State(list);
+        return true;
+    }
+
+    /**
+     * Gets the handlers of an event class, highest priority first.
+     *
+     * @param eventClass event class
+     * @return handlers, not to be modified
+     */
+    @Nonnull
+    public Subscriber[] getSubscribers(@Nonnull Class<?> eventClass) {
+        State state = this.state;
+        Subscriber[] subscribers = state.cache.get(eventClass);
+        if (subscribers == null) {
+            // Racing threads resolve the same list, so no need to lock
+            subscribers = state.subscribers.stream().filter(subscriber -> subscriber.handles(eventClass)).toArray(Subscriber[]::new);
+            if (subscribers.length == 0) {
+                subscribers = EMPTY;
+            }
+            state.cache.put(eventClass, subscribers);
+        }
+        return subscribers;
+    }
+
+    /**
+     * Gets if no handlers are indexed.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return this.state.subscribers.isEmpty();
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("subscribers", this.state.subscribers.size()).toString();
+    }
+}
@@ -35,6 +35,7 @@ import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.event.channel.ChannelModeInfoListEvent;
 import org.kitteh.irc.client.library.event.channel.ChannelUsersUpdatedEvent;
 import org.kitteh.irc.client.library.event.channel.RequestedChannelJoinCompleteEvent;
+import org.kitteh.irc.client.library.feature.CaseMapping;
 import org.kitteh.irc.client.library.util.Sanity;
 
 import javax.annotation.Nonnull;
@@ -42,6 +43,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.SortedSet;
+import java.util.stream.Collectors;
 
 /**
  * Represents an IRC channel.
@@ -126,6 +128,41 @@ public interface Channel extends MessageReceiver, Staleable {
     @Nonnull
     Optional<List<ModeInfo>> getModeInfoList(@Nonnull ChannelMode mode);
 
+    /**
+     * Gets the tracked mode info for the channel whose masks match the
+     * given nick!user@host, such as the bans affecting a user.
+     *
+     * @param mode type A mode to check
+     * @param target string to match, typically nick!user@host
+     * @return matching mode info if tracked, empty if not tracked
+     * @throws IllegalArgumentException for null or non-type-A mode, or null
+     * target
+     * @see #setModeInfoTracking(ChannelMode, boolean)
+     */
+    @Nonnull
+    default Optional<List<ModeInfo>> getModeInfoMatches(@Nonnull ChannelMode mode, @Nonnull String target) {
+        Sanity.nullCheck(mode, "Mode cannot be null");
+        Sanity.nullCheck(target, "Target cannot be null");
+        Sanity.truthiness(mode.getType() == ChannelMode.Type.A_MASK, "Mode type must be A, found " + mode.getType());
+        CaseMapping caseMapping = this.getClient().getServerInfo().getCaseMapping();
+        return this.getModeInfoList(mode).map(list -> list.stream().filter(modeInfo -> modeInfo.getMask().matches(caseMapping, target)).collect(Collectors.toList()));
+    }
+
+    /**
+     * Gets the tracked mode info for the channel whose masks match the
+     * given user, such as the bans affecting the user.
+     *
+     * @param mode type A mode to check
+     * @param user user to match
+     * @return matching mode info if tracked, empty if not tracked
+     * @throws IllegalArgumentException for null or non-type-A mode, or null
+     * user
+     */
+    @Nonnull
+    default Optional<List<ModeInfo>> getModeInfoMatches(@Nonnull ChannelMode mode, @Nonnull User user) {
+        return this.getModeInfoMatches(mode, Sanity.nullCheck(user, "User cannot be null").getName());
+    }
+
     /**
      * Gets the channel's current known modes.
      *
@@ -178,6 +215,18 @@ public interface Channel extends MessageReceiver, Staleable {
     @Nonnull
     List<User> getUsers();
 
+    /**
+     * Gets the number of users known to be in the channel. This count is
+     * available even when the tracker is not retaining the nicknames or
+     * users themselves.
+     *
+     * @return number of users in the channel, zero if not tracked
+     * @see org.kitteh.irc.client.library.feature.ActorTracker.TrackingLevel
+     */
+    default int getUserCount() {
+        return this.getNicknames().size();
+    }
+
     /**
      * Gets the user modes of a given nickname in the channel.
      *
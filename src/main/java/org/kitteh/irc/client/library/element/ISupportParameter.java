@@ -25,9 +25,11 @@ package org.kitteh.irc.client.library.element;
 
 import org.kitteh.irc.client.library.element.mode.ChannelMode;
 import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+import org.kitteh.irc.client.library.util.Sanity;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
@@ -186,6 +188,36 @@ public interface ISupportParameter extends ClientLinked {
         List<ChannelUserMode> getModes();
     }
 
+    /**
+     * Represents the maximum number of targets allowed per command.
+     */
+    interface TargMax extends ISupportParameter {
+        /**
+         * Parameter name.
+         */
+        String NAME = "TARGMAX";
+
+        /**
+         * Gets the target limits. Commands listed without a limit map to
+         * {@link Integer#MAX_VALUE}.
+         *
+         * @return limits by upper case command
+         */
+        @Nonnull
+        Map<String, Integer> getLimits();
+
+        /**
+         * Gets the target limit of a command.
+         *
+         * @param command command
+         * @return limit if the command is listed
+         */
+        @Nonnull
+        default Optional<Integer> getLimit(@Nonnull String command) {
+            return Optional.ofNullable(this.getLimits().get(Sanity.nullCheck(command, "Command cannot be null").toUpperCase(Locale.ENGLISH)));
+        }
+    }
+
     /**
      * Represents support for WHOX.
      */
@@ -28,11 +28,14 @@ import org.kitteh.irc.client.library.command.ChannelModeCommand;
 import org.kitteh.irc.client.library.element.Channel;
 import org.kitteh.irc.client.library.element.ClientLinked;
 import org.kitteh.irc.client.library.util.Mask;
+import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.time.DateTimeException;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -69,6 +72,34 @@ public interface ModeInfo extends ClientLinked {
             this.mode = mode;
         }
 
+        /**
+         * Constructs the mode info from a list reply, such as RPL_BANLIST,
+         * whose parameters are the client's nick, the channel, the mask and
+         * optionally the creator and creation time.
+         *
+         * @param client the client
+         * @param channel channel
+         * @param mode mode
+         * @param parameters reply parameters
+         * @param offset number of extra parameters before the mask, such
+         * as the mode in some quiet list replies
+         * @return the mode info
+         * @throws IllegalArgumentException if the reply is too short
+         */
+        @Nonnull
+        public static DefaultModeInfo fromReply(@Nonnull Client client, @Nonnull Channel channel, @Nonnull ChannelMode mode, @Nonnull List<String> parameters, int offset) {
+            Sanity.truthiness(Sanity.nullCheck(parameters, "Parameters cannot be null").size() >= (3 + offset), "Reply too short");
+            String creator = (parameters.size() > (3 + offset)) ? parameters.get(3 + offset) : null;
+            Instant creationTime = null;
+            if (parameters.size() > (4 + offset)) {
+                try {
+                    creationTime = Instant.ofEpochSecond(Integer.parseInt(parameters.get(4 + offset)));
+                } catch (NumberFormatException | DateTimeException ignored) {
+                }
+            }
+            return new DefaultModeInfo(client, channel, mode, parameters.get(2 + offset), creator, creationTime);
+        }
+
         @Nonnull
         @Override
         public Optional<String> getCreator() {
@@ -30,19 +30,237 @@ import org.kitteh.irc.client.library.element.User;
 import org.kitteh.irc.client.library.element.mode.ChannelMode;
 import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
 import org.kitteh.irc.client.library.element.mode.ModeInfo;
+import org.kitteh.irc.client.library.element.mode.ModeStatus;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.util.Resettable;
+import org.kitteh.irc.client.library.util.Sanity;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Tracker of users and channels, provider of all actors.
+ * <p>
+ * Tracking is updated by the client's input thread. Snapshots such as
+ * {@link #getTrackedChannel(String)} are safe to request from any thread
+ * and do not block that writer.
  */
 public interface ActorTracker extends Resettable {
+    /**
+     * A single structural change to a tracked channel, delivered to change
+     * listeners in the order it was applied.
+     *
+     * @see #addChangeListener(Consumer)
+     */
+    interface Delta {
+        /**
+         * Type of change.
+         */
+        enum Type {
+            /**
+             * The channel is now tracked.
+             */
+            CHANNEL_TRACKED,
+            /**
+             * The channel is no longer tracked.
+             */
+            CHANNEL_UNTRACKED,
+            /**
+             * A member, see {@link #getNick()}, joined or was listed.
+             */
+            MEMBER_ADDED,
+            /**
+             * A member, see {@link #getNick()}, left, or was dropped as the
+             * channel stopped being tracked.
+             */
+            MEMBER_REMOVED,
+            /**
+             * A member, see {@link #getNick()}, is now known by the nick
+             * given by {@link #getValue()}.
+             */
+            MEMBER_NICK_CHANGED,
+            /**
+             * A member, see {@link #getNick()}, gained or lost the prefix
+             * given by {@link #getMode()}.
+             */
+            PREFIX_CHANGED,
+            /**
+             * The topic was set to {@link #getValue()}, or who set it and
+             * when was learned.
+             */
+            TOPIC_SET,
+            /**
+             * A channel mode, see {@link #getMode()}, was set or unset.
+             */
+            MODE_CHANGED,
+            /**
+             * The entry list of a type A mode, such as bans, changed. The
+             * {@link #getMode()} status adds or removes one entry given by
+             * its parameter, or has no parameter if the whole list was
+             * replaced.
+             */
+            MODE_INFO_CHANGED
+        }
+
+        /**
+         * Gets the tracker version following this change.
+         *
+         * @return version, greater than that of any earlier change
+         * @see #getVersion()
+         */
+        long getVersion();
+
+        /**
+         * Gets the type of change.
+         *
+         * @return type
+         */
+        @Nonnull
+        Type getType();
+
+        /**
+         * Gets the name of the changed channel.
+         *
+         * @return channel name
+         */
+        @Nonnull
+        String getChannel();
+
+        /**
+         * Gets the affected member's nick, for member and prefix changes.
+         *
+         * @return nick if applicable
+         */
+        @Nonnull
+        Optional<String> getNick();
+
+        /**
+         * Gets the new topic or new nick, for topic and nick changes.
+         *
+         * @return value if applicable
+         */
+        @Nonnull
+        Optional<String> getValue();
+
+        /**
+         * Gets the changed mode, for prefix, mode and mode info changes.
+         *
+         * @return mode status if applicable
+         */
+        @Nonnull
+        Optional<ModeStatus<ChannelMode>> getMode();
+    }
+
+    /**
+     * How much information is retained about a tracked channel and its
+     * members. Lower levels skip the corresponding bookkeeping, automatic
+     * queries and snapshot work, while events continue to fire with
+     * reduced data.
+     */
+    enum TrackingLevel {
+        /**
+         * Tracks everything: membership, users and their prefixes, user
+         * details (account, away status, real name, server) and mode info
+         * lists. Queries WHO and MODE on join.
+         */
+        FULL(true, true, true),
+        /**
+         * Tracks membership, users and their prefixes. No WHO query is made
+         * and neither user details nor mode info lists are retained.
+         */
+        MEMBERS_ONLY(true, true, false),
+        /**
+         * Tracks only which nicknames are present, for an accurate user
+         * count. No users, prefixes, user details or mode info lists are
+         * retained.
+         */
+        COUNT_ONLY(true, false, false),
+        /**
+         * Tracks only the channel itself, its topic and its modes.
+         */
+        NONE(false, false, false);
+
+        private final boolean details;
+        private final boolean membership;
+        private final boolean users;
+
+        TrackingLevel(boolean membership, boolean users, boolean details) {
+            this.details = details;
+            this.membership = membership;
+            this.users = users;
+        }
+
+        /**
+         * Gets if user details, mode info lists and WHO queries are handled
+         * at this level.
+         *
+         * @return true if details are tracked
+         */
+        public boolean isTrackingDetails() {
+            return this.details;
+        }
+
+        /**
+         * Gets if the nicknames present in the channel are tracked at this
+         * level.
+         *
+         * @return true if membership is tracked
+         */
+        public boolean isTrackingMembership() {
+            return this.membership;
+        }
+
+        /**
+         * Gets if users and their channel prefixes are tracked at this
+         * level.
+         *
+         * @return true if users are tracked
+         */
+        public boolean isTrackingUsers() {
+            return this.users;
+        }
+    }
+
+    /**
+     * Adds a listener for structural changes to tracked channels. Listeners
+     * are called on the client's input thread as each change is applied, so
+     * they should return quickly. Changing a channel's tracking level is
+     * not reported as individual changes; resynchronize from a snapshot
+     * after doing so. Trackers without a change feed ignore listeners.
+     *
+     * @param listener listener to add
+     * @throws IllegalArgumentException if listener is null
+     */
+    default void addChangeListener(@Nonnull Consumer<Delta> listener) {
+        Sanity.nullCheck(listener, "Listener cannot be null");
+    }
+
+    /**
+     * Removes a change listener.
+     *
+     * @param listener listener to remove
+     * @throws IllegalArgumentException if listener is null
+     * @see #addChangeListener(Consumer)
+     */
+    default void removeChangeListener(@Nonnull Consumer<Delta> listener) {
+        Sanity.nullCheck(listener, "Listener cannot be null");
+    }
+
+    /**
+     * Gets the version of the most recent structural change, which can be
+     * recorded alongside snapshots to pick up the change feed from there.
+     *
+     * @return current version, always 0 for trackers without a change feed
+     * @see Delta#getVersion()
+     */
+    default long getVersion() {
+        return 0;
+    }
+
     /**
      * Gets an Actor based on the name provided.
      * <p>
@@ -81,6 +299,29 @@ public interface ActorTracker extends Resettable {
     @Nonnull
     Optional<User> getTrackedUser(@Nonnull String nick);
 
+    /**
+     * Gets the tracking level applied to channels without a specific level
+     * set. Defaults to {@link TrackingLevel#FULL}.
+     *
+     * @return default tracking level
+     */
+    @Nonnull
+    default TrackingLevel getTrackingLevel() {
+        return TrackingLevel.FULL;
+    }
+
+    /**
+     * Gets the tracking level for a given channel.
+     *
+     * @param channel channel name
+     * @return the channel's tracking level, or the default if not set
+     */
+    @Nonnull
+    default TrackingLevel getTrackingLevel(@Nonnull String channel) {
+        Sanity.nullCheck(channel, "Channel cannot be null");
+        return this.getTrackingLevel();
+    }
+
     /**
      * Gets if the given staleable object is considered stale by the tracker.
      *
@@ -130,6 +371,30 @@ public interface ActorTracker extends Resettable {
      */
     void setQueryChannelInformation(boolean query);
 
+    /**
+     * Sets the tracking level for channels without a specific level set.
+     * Best set prior to joining channels, as data not tracked under a
+     * lower level is not retroactively acquired. Trackers only supporting
+     * full tracking ignore this.
+     *
+     * @param level default tracking level
+     */
+    default void setTrackingLevel(@Nonnull TrackingLevel level) {
+        Sanity.nullCheck(level, "Level cannot be null");
+    }
+
+    /**
+     * Sets the tracking level for a given channel. Best set prior to
+     * joining the channel, as data not tracked under a lower level is not
+     * retroactively acquired.
+     *
+     * @param channel channel name
+     * @param level tracking level, or null to use the default
+     */
+    default void setTrackingLevel(@Nonnull String channel, @Nullable TrackingLevel level) {
+        Sanity.nullCheck(channel, "Channel cannot be null");
+    }
+
     /**
      * Sets the account for a tracked user.
      *
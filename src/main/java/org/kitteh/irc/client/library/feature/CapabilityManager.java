@@ -34,6 +34,7 @@ import org.kitteh.irc.client.library.event.user.UserHostnameChangeEvent;
 import org.kitteh.irc.client.library.event.user.UserUserStringChangeEvent;
 import org.kitteh.irc.client.library.feature.auth.SaslEcdsaNist256PChallenge;
 import org.kitteh.irc.client.library.feature.auth.SaslPlain;
+import org.kitteh.irc.client.library.feature.query.QueryTracker;
 import org.kitteh.irc.client.library.util.Resettable;
 import org.kitteh.irc.client.library.util.RiskyBusiness;
 import org.kitteh.irc.client.library.util.Sanity;
@@ -81,6 +82,13 @@ public interface CapabilityManager {
          */
         public static final String AWAY_NOTIFY = "away-notify";
 
+        /**
+         * Batches of related messages, used to group labeled responses.
+         *
+         * @see QueryTracker
+         */
+        public static final String BATCH = "batch";
+
         /**
          * Capability change notification. Implicitly enabled by the server
          * when "CAP LS 302" (or higher version) is sent and therefore it
@@ -107,6 +115,14 @@ public interface CapabilityManager {
          */
         public static final transient String INVITE_NOTIFY = "invite-notify";
 
+        /**
+         * Labels echoed on responses to labeled commands, allowing queries
+         * to be pipelined.
+         *
+         * @see QueryTracker
+         */
+        public static final String LABELED_RESPONSE = "labeled-response";
+
         /**
          * Multiple prefixes sent in NAMES and WHO output.
          *
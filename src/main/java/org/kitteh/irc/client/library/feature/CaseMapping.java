@@ -82,11 +82,52 @@ public enum CaseMapping {
      * @return true if equal ignoring case using this case mapping
      */
     public boolean areEqualIgnoringCase(@Nonnull String one, @Nonnull String two) {
-        return this.toLowerCase(one).equals(this.toLowerCase(two));
+        Sanity.nullCheck(one, "Input cannot be null");
+        Sanity.nullCheck(two, "Input cannot be null");
+        if (one.length() != two.length()) {
+            return false;
+        }
+        for (int i = 0; i < one.length(); i++) {
+            char a = one.charAt(i);
+            char b = two.charAt(i);
+            if ((a != b) && (this.toLowerCase(a) != this.toLowerCase(b))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
-     * Converts a given String to lowercase per spec.
+     * Gets the hash code of a given String as if lowercased using this case
+     * mapping, without lowercasing it. Equal to {@code
+     * toLowerCase(input).hashCode()}.
+     *
+     * @param input string to hash
+     * @return case insensitive hash code
+     * @throws IllegalArgumentException if input is null
+     */
+    public int hashCodeIgnoringCase(@Nonnull String input) {
+        Sanity.nullCheck(input, "Input cannot be null");
+        int hash = 0;
+        for (int i = 0; i < input.length(); i++) {
+            hash = (31 * hash) + this.toLowerCase(input.charAt(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Converts a given character to lowercase per spec.
+     *
+     * @param c character to be lowercased
+     * @return lowercased character
+     */
+    public char toLowerCase(char c) {
+        return ((c >= 'A') && (c <= this.upperbound)) ? (char) (c + 32) : c;
+    }
+
+    /**
+     * Converts a given String to lowercase per spec. Returns the input
+     * itself if it is already lowercase.
      *
      * @param input string to be lowercased
      * @return lowercased string
@@ -95,12 +136,16 @@ public enum CaseMapping {
     @Nonnull
     public String toLowerCase(@Nonnull String input) {
         Sanity.nullCheck(input, "Input cannot be null");
+        int first = 0;
+        while ((first < input.length()) && (this.toLowerCase(input.charAt(first)) == input.charAt(first))) {
+            first++;
+        }
+        if (first == input.length()) {
+            return input;
+        }
         char[] arr = input.toCharArray();
-        for (int i = 0; i < arr.length; i++) {
-            char c = arr[i];
-            if ((c >= 'A') && (c <= this.upperbound)) {
-                arr[i] += (char) 32;
-            }
+        for (int i = first; i < arr.length; i++) {
+            arr[i] = this.toLowerCase(arr[i]);
         }
         return new String(arr);
     }
@@ -25,10 +25,14 @@ package org.kitteh.irc.client.library.feature;
 
 import net.engio.mbassy.listener.Handler;
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.event.helper.ChannelEvent;
 import org.kitteh.irc.client.library.feature.filter.FilterProcessor;
+import org.kitteh.irc.client.library.feature.lane.EventLane;
+import org.kitteh.irc.client.library.feature.lane.Lane;
 
 import javax.annotation.Nonnull;
 import java.lang.annotation.Annotation;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
@@ -61,6 +65,31 @@ public interface EventManager {
     @Nonnull
     Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> getAnnotationFilters();
 
+    /**
+     * Gets a map of all registered event lanes.
+     *
+     * @return a map of lane names to lanes, empty by default
+     */
+    @Nonnull
+    default Map<String, EventLane> getEventLanes() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Gets if any registered handler, including those of the library
+     * itself, would receive an event of the given class. Annotation filters
+     * are not considered. Useful for skipping the creation of events no one
+     * would hear.
+     *
+     * @param eventClass class of the event
+     * @return true if the event has at least one subscriber, or by default
+     * always true
+     * @throws IllegalArgumentException for a null class
+     */
+    default boolean hasSubscribers(@Nonnull Class<?> eventClass) {
+        return true;
+    }
+
     /**
      * Registers an annotation to be used in filtering events if present on
      * a handler method. Annotations are only processed on listeners
@@ -73,6 +102,21 @@ public interface EventManager {
      */
     <A extends Annotation> void registerAnnotationFilter(Class<A> annotationClass, FilterProcessor<?, A> filterProcessor);
 
+    /**
+     * Registers an event lane, for use by handlers annotated with {@link
+     * Lane}. As with annotation filters, lanes are only found for listeners
+     * registered after they are added. Registering a lane with the name of
+     * another replaces it for listeners registered afterward.
+     *
+     * @param lane lane to register
+     * @throws IllegalArgumentException for a null lane
+     * @throws UnsupportedOperationException if the manager does not support
+     * lanes, as by default
+     */
+    default void registerEventLane(@Nonnull EventLane lane) {
+        throw new UnsupportedOperationException("Event lanes not supported by " + this.getClass().getName());
+    }
+
     /**
      * Registers annotated with {@link Handler} with sync invocation,
      * provided they have a single parameter. This parameter is the event.
@@ -82,6 +126,38 @@ public interface EventManager {
      */
     void registerEventListener(@Nonnull Object listener);
 
+    /**
+     * Registers a listener whose handlers all run on an event lane, apart
+     * from any annotated with {@link Lane} naming another.
+     *
+     * @param listener listener in which to register events
+     * @param lane lane to run the handlers on
+     * @throws IllegalArgumentException for a null listener or lane
+     * @throws UnsupportedOperationException if the manager does not support
+     * lanes, as by default
+     */
+    default void registerEventListener(@Nonnull Object listener, @Nonnull EventLane lane) {
+        throw new UnsupportedOperationException("Event lanes not supported by " + this.getClass().getName());
+    }
+
+    /**
+     * Registers a listener to receive only the events of one channel, those
+     * implementing {@link ChannelEvent} whose channel has the given name
+     * under the server's case mapping. Events are routed by looking up the
+     * channel, so a listener per channel costs no more per event than one
+     * listener overall. A listener can be registered for several channels,
+     * and {@link #unregisterEventListener(Object)} removes it from all.
+     *
+     * @param channel name of the channel
+     * @param listener listener in which to register events
+     * @throws IllegalArgumentException for a null channel or listener
+     * @throws UnsupportedOperationException if the manager does not support
+     * channel-scoped listeners, as by default
+     */
+    default void registerChannelEventListener(@Nonnull String channel, @Nonnull Object listener) {
+        throw new UnsupportedOperationException("Channel-scoped listeners not supported by " + this.getClass().getName());
+    }
+
     /**
      * Unregisters a listener.
      *
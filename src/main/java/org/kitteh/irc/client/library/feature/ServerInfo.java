@@ -248,6 +248,21 @@ public interface ServerInfo {
         return optional.map(ISupportParameter.IntegerParameter::getInteger).orElse(-1);
     }
 
+    /**
+     * Gets the number of targets a command may be sent to at once, per the
+     * TARGMAX ISUPPORT parameter. Commands the server has not listed, or
+     * any command when the server has not sent TARGMAX, are limited to
+     * one target.
+     *
+     * @param command command, such as PRIVMSG
+     * @return target limit
+     */
+    default int getTargetLimit(@Nonnull String command) {
+        Sanity.nullCheck(command, "Command cannot be null");
+        Optional<ISupportParameter.TargMax> optional = this.getISupportParameter(ISupportParameter.TargMax.NAME, ISupportParameter.TargMax.class);
+        return optional.flatMap(targMax -> targMax.getLimit(command)).map(limit -> Math.max(1, limit)).orElse(1);
+    }
+
     /**
      * Gets the user modes available. If the server has not provided
      * information on user modes, defaults are used and returned here.
@@ -24,6 +24,7 @@
 package org.kitteh.irc.client.library.feature.auth.element;
 
 import org.kitteh.irc.client.library.feature.auth.AuthProtocol;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.kitteh.irc.client.library.util.Sanity;
 
 import javax.annotation.Nonnull;
@@ -39,7 +40,7 @@ public interface NickReclamation extends AuthProtocol {
      */
     default void ghostNick(@Nonnull String nick) {
         Sanity.safeMessageCheck(nick, "Nick");
-        this.getClient().sendRawLine("NickServ :GHOST " + nick);
+        this.getClient().sendRawLine("NickServ :GHOST " + nick, MessageSendingQueue.Priority.CONTROL);
     }
 
     /**
@@ -49,6 +50,6 @@ public interface NickReclamation extends AuthProtocol {
      */
     default void regainNick(@Nonnull String nick) {
         Sanity.safeMessageCheck(nick, "Nick");
-        this.getClient().sendRawLine("NickServ :REGAIN " + nick);
+        this.getClient().sendRawLine("NickServ :REGAIN " + nick, MessageSendingQueue.Priority.CONTROL);
     }
 }
@@ -30,12 +30,15 @@ import net.engio.mbassy.dispatch.IHandlerInvocation;
 import net.engio.mbassy.dispatch.IMessageDispatcher;
 import net.engio.mbassy.subscription.SubscriptionContext;
 import net.engio.mbassy.subscription.SubscriptionFactory;
+import org.kitteh.irc.client.library.feature.lane.EventLane;
+import org.kitteh.irc.client.library.feature.lane.Lane;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -44,6 +47,7 @@ import java.util.Map;
  */
 public class FilteringSubscriptionFactory extends SubscriptionFactory {
     private final Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters;
+    private final Map<String, EventLane> lanes;
 
     /**
      * Constructs the filter factory.
@@ -51,12 +55,32 @@ public class FilteringSubscriptionFactory extends SubscriptionFactory {
      * @param filters the filters
      */
     public FilteringSubscriptionFactory(@Nonnull Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters) {
+        this(filters, Collections.emptyMap());
+    }
+
+    /**
+     * Constructs the filter factory, also placing handlers annotated with
+     * {@link Lane} on their lanes.
+     *
+     * @param filters the filters
+     * @param lanes the lanes, by name
+     */
+    public FilteringSubscriptionFactory(@Nonnull Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters, @Nonnull Map<String, EventLane> lanes) {
         this.filters = Sanity.nullCheck(filters, "filters");
+        this.lanes = Sanity.nullCheck(lanes, "lanes");
     }
 
     @Override
     protected IMessageDispatcher buildDispatcher(SubscriptionContext context, IHandlerInvocation invocation) throws MessageBusException {
         IMessageDispatcher dispatcher = super.buildDispatcher(context, invocation);
+        Lane lane = context.getHandler().getMethod().getAnnotation(Lane.class);
+        if (lane != null) {
+            EventLane eventLane = this.lanes.get(lane.value());
+            if (eventLane == null) {
+                throw new MessageBusException("Unknown lane '" + lane.value() + "': " + context.getHandler().getMethod());
+            }
+            dispatcher = new LaneMessageDispatcher(dispatcher, eventLane);
+        }
         List<FilterProcessorWrapper> filterWrappers = new ArrayList<>();
         for (Map.Entry<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> entry : this.filters.entrySet()) {
             Annotation[] annotations = context.getHandler().getMethod().getAnnotationsByType(entry.getKey());
@@ -70,6 +94,21 @@ public class FilteringSubscriptionFactory extends SubscriptionFactory {
         return dispatcher;
     }
 
+    private final class LaneMessageDispatcher extends DelegatingMessageDispatcher {
+        private final EventLane lane;
+
+        private LaneMessageDispatcher(IMessageDispatcher dispatcher, EventLane lane) {
+            super(dispatcher);
+            this.lane = lane;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes") // Raw as declared by IMessageDispatcher
+        public void dispatch(MessagePublication publication, Object message, Iterable listeners) {
+            this.lane.submit(EventLane.getOrderKey(message), () -> this.getDelegate().dispatch(publication, message, listeners));
+        }
+    }
+
     private final class FilteredMessageDispatcher extends DelegatingMessageDispatcher {
         private final FilterProcessorWrapper[] filters;
 
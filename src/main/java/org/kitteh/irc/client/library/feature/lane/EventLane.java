@@ -0,0 +1,346 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.lane;
+
+import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.event.helper.ActorEvent;
+import org.kitteh.irc.client.library.event.helper.ChannelEvent;
+import org.kitteh.irc.client.library.event.helper.ClientEvent;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A lane running event handlers asynchronously, so a slow handler holds up
+ * only its lane and not the processing of input.
+ * <p>
+ * Events wait in a bounded queue, with an {@link OverflowPolicy} deciding
+ * what happens when it is full. Events sharing an order key, by default
+ * those of the same channel or else the same user, are handled one at a
+ * time in the order called, while events with different keys may be
+ * handled in parallel if the lane has more than one thread.
+ * <p>
+ * Handlers are placed on a lane with the {@link Lane} annotation or when
+ * registering their listener, for example:
+ * <pre>
+ * {@code EventLane database = new EventLane("Database", 2, 1000, EventLane.OverflowPolicy.DROP_OLDEST);
+ * client.getEventManager().registerEventListener(new DatabaseListener(), database);}
+ * </pre>
+ * A lane can serve several clients, and runs until {@link #shutdown()}.
+ */
+public class EventLane {
+    /**
+     * What to do with an event arriving when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait for room, holding up the thread calling the event. A handler
+         * calling events onto its own full lane would wait forever.
+         */
+        BLOCK,
+        /**
+         * Handle the event on the thread calling it, ignoring the order of
+         * events already waiting.
+         */
+        CALLER_RUNS,
+        /**
+         * Drop the arriving event.
+         */
+        DROP_NEWEST,
+        /**
+         * Drop the event that has waited longest.
+         */
+        DROP_OLDEST
+    }
+
+    private static final class Entry {
+        private final Object key;
+        private final Runnable task;
+
+        private Entry(@Nullable Object key, @Nonnull Runnable task) {
+            this.key = key;
+            this.task = task;
+        }
+    }
+
+    private static final int BATCH = 32;
+
+    /**
+     * Gets the default order key of an event: the case-mapped channel name
+     * for a {@link ChannelEvent}, the case-mapped nick for an event caused
+     * by a {@link User}, and otherwise null, ordering the event with all
+     * others without a key.
+     *
+     * @param event event
+     * @return order key
+     */
+    @Nullable
+    public static Object getOrderKey(@Nonnull Object event) {
+        if (event instanceof ChannelEvent) {
+            return ((ChannelEvent) event).getClient().getServerInfo().getCaseMapping().toLowerCase(((ChannelEvent) event).getChannel().getName());
+        }
+        if ((event instanceof ActorEvent) && (((ActorEvent<?>) event).getActor() instanceof User)) {
+            return ((ClientEvent) event).getClient().getServerInfo().getCaseMapping().toLowerCase(((User) ((ActorEvent<?>) event).getActor()).getNick());
+        }
+        return null;
+    }
+
+    private final String name;
+    private final Executor executor;
+    @Nullable
+    private final ExecutorService ownedExecutor;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final Map<Object, ArrayDeque<Entry>> queues = new HashMap<>();
+    private final Set<Entry> waiting = new LinkedHashSet<>();
+    private long dropped;
+    private boolean shutdown;
+
+    /**
+     * Constructs a lane with its own daemon threads.
+     *
+     * @param name name of the lane, used by {@link Lane}
+     * @param threads number of threads
+     * @param capacity most events waiting before the policy applies
+     * @param policy what to do with events arriving when full
+     * @throws IllegalArgumentException for a null name or policy, or
+     * threads or capacity not positive
+     */
+    public EventLane(@Nonnull String name, int threads, int capacity, @Nonnull OverflowPolicy policy) {
+        this(name, createExecutor(name, threads), capacity, policy, true);
+    }
+
+    /**
+     * Constructs a lane running on an executor, which is not shut down with
+     * the lane.
+     *
+     * @param name name of the lane, used by {@link Lane}
+     * @param executor executor to run handlers
+     * @param capacity most events waiting before the policy applies
+     * @param policy what to do with events arriving when full
+     * @throws IllegalArgumentException for a null name, executor or policy,
+     * or capacity not positive
+     */
+    public EventLane(@Nonnull String name, @Nonnull Executor executor, int capacity, @Nonnull OverflowPolicy policy) {
+        this(name, executor, capacity, policy, false);
+    }
+
+    private EventLane(@Nonnull String name, @Nonnull Executor executor, int capacity, @Nonnull OverflowPolicy policy, boolean owned) {
+        this.name = Sanity.nullCheck(name, "Name cannot be null");
+        this.executor = Sanity.nullCheck(executor, "Executor cannot be null");
+        Sanity.truthiness(capacity > 0, "Capacity must be positive");
+        this.capacity = capacity;
+        this.policy = Sanity.nullCheck(policy, "Policy cannot be null");
+        this.ownedExecutor = owned ? (ExecutorService) executor : null;
+    }
+
+    @Nonnull
+    private static ExecutorService createExecutor(@Nonnull String name, int threads) {
+        Sanity.nullCheck(name, "Name cannot be null");
+        Sanity.truthiness(threads > 0, "Threads must be positive");
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "KICL Event Lane " + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the name of the lane.
+     *
+     * @return lane name
+     */
+    @Nonnull
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the most events waiting before the overflow policy applies.
+     *
+     * @return capacity
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Gets what happens to events arriving when the lane is full.
+     *
+     * @return overflow policy
+     */
+    @Nonnull
+    public OverflowPolicy getOverflowPolicy() {
+        return this.policy;
+    }
+
+    /**
+     * Gets the number of events waiting, not counting those being handled.
+     *
+     * @return queue depth
+     */
+    public synchronized int getDepth() {
+        return this.waiting.size();
+    }
+
+    /**
+     * Gets the number of events dropped because the lane was full or shut
+     * down.
+     *
+     * @return dropped count
+     */
+    public synchronized long getDroppedCount() {
+        return this.dropped;
+    }
+
+    /**
+     * Queues a handler to run after all others queued with the same key.
+     *
+     * @param key order key, or null
+     * @param task handler to run, expected not to throw
+     * @throws IllegalArgumentException for a null task
+     */
+    public void submit(@Nullable Object key, @Nonnull Runnable task) {
+        Sanity.nullCheck(task, "Task cannot be null");
+        Entry entry = new Entry(key, task);
+        boolean start;
+        synchronized (this) {
+            while (!this.shutdown && (this.waiting.size() >= this.capacity)) {
+                if (this.policy == OverflowPolicy.BLOCK) {
+                    try {
+                        this.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        this.dropped++;
+                        return;
+                    }
+                } else if (this.policy == OverflowPolicy.DROP_OLDEST) {
+                    Iterator<Entry> iterator = this.waiting.iterator();
+                    Entry oldest = iterator.next();
+                    iterator.remove();
+                    // Nothing older shares its key, so it heads its queue
+                    this.queues.get(oldest.key).poll();
+                    this.dropped++;
+                } else {
+                    break;
+                }
+            }
+            if (this.shutdown || ((this.policy == OverflowPolicy.DROP_NEWEST) && (this.waiting.size() >= this.capacity))) {
+                this.dropped++;
+                return;
+            }
+            if (this.waiting.size() >= this.capacity) { // CALLER_RUNS
+                start = false;
+                entry = null;
+            } else {
+                ArrayDeque<Entry> queue = this.queues.get(key);
+                start = queue == null;
+                if (start) {
+                    queue = new ArrayDeque<>();
+                    this.queues.put(key, queue);
+                }
+                queue.add(entry);
+                this.waiting.add(entry);
+            }
+        }
+        if (entry == null) {
+            task.run();
+        } else if (start) {
+            this.start(key);
+        }
+    }
+
+    /**
+     * Stops the lane, dropping waiting events and shutting down its threads
+     * if it created them. Events being handled run to completion.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            this.shutdown = true;
+            this.dropped += this.waiting.size();
+            this.waiting.clear();
+            this.queues.values().forEach(ArrayDeque::clear);
+            this.notifyAll();
+        }
+        if (this.ownedExecutor != null) {
+            this.ownedExecutor.shutdown();
+        }
+    }
+
+    private void start(@Nullable Object key) {
+        try {
+            this.executor.execute(() -> this.drain(key));
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                ArrayDeque<Entry> queue = this.queues.remove(key);
+                if (queue != null) {
+                    this.waiting.removeAll(queue);
+                    this.dropped += queue.size();
+                    this.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void drain(@Nullable Object key) {
+        for (int i = 0; i < BATCH; i++) {
+            Entry entry;
+            synchronized (this) {
+                ArrayDeque<Entry> queue = this.queues.get(key);
+                entry = queue.poll();
+                if (entry == null) {
+                    this.queues.remove(key);
+                    return;
+                }
+                this.waiting.remove(entry);
+                this.notifyAll();
+            }
+            try {
+                entry.task.run();
+            } catch (Throwable thrown) {
+                // Handlers report their own exceptions
+            }
+        }
+        // Yield the thread to other keys, keeping this key's place in order
+        this.start(key);
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("name", this.name).add("capacity", this.capacity).add("policy", this.policy).add("depth", this.getDepth()).toString();
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.query;
+
+import io.netty.util.Timeout;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.MessageTag;
+import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
+import org.kitteh.irc.client.library.feature.CapabilityManager;
+import org.kitteh.irc.client.library.feature.sending.TimerSender;
+import org.kitteh.irc.client.library.util.Resettable;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sends queries and completes a future with their replies.
+ * <p>
+ * With the IRCv3 labeled-response capability enabled, each query is sent
+ * with a unique label which the server repeats on the reply, or on the
+ * batch wrapping several replies. Any number of queries can then be waiting
+ * at once, their replies told apart by label.
+ * <p>
+ * Without labels, queries are sent one at a time. The numerics listed as
+ * replies or ends are collected until one of the ends arrives, after which
+ * the next query is sent. Replies to the same query sent by other means
+ * meanwhile cannot be told apart.
+ * <p>
+ * Futures complete on the client's input thread, so lengthy work should
+ * be moved elsewhere. Queries failing to complete in time, counted from
+ * when they are sent, or waiting when the connection is lost, complete
+ * exceptionally.
+ */
+public class QueryTracker implements Resettable {
+    /**
+     * The default number of milliseconds to wait for a query to complete.
+     */
+    public static final long DEFAULT_TIMEOUT = 30000;
+
+    private static final String BATCH_TYPE = "labeled-response";
+
+    private final class Query {
+        private final String line;
+        private final Set<Integer> replies;
+        private final Set<Integer> ends;
+        private final CompletableFuture<List<ClientReceiveServerMessageEvent>> future = new CompletableFuture<>();
+        private final List<ClientReceiveServerMessageEvent> collected = new ArrayList<>();
+        @Nullable
+        private String label;
+        @Nullable
+        private String batch;
+        @Nullable
+        private Timeout timeout;
+        private boolean done;
+
+        private Query(@Nonnull String line, @Nonnull Set<Integer> replies, @Nonnull Set<Integer> ends) {
+            this.line = line;
+            this.replies = replies;
+            this.ends = ends;
+        }
+    }
+
+    private final Client client;
+    private final Map<String, Query> labeled = new HashMap<>();
+    private final Map<String, Query> batches = new HashMap<>();
+    private final ArrayDeque<Query> unlabeled = new ArrayDeque<>();
+    private volatile long timeout = DEFAULT_TIMEOUT;
+    private long labelCount;
+
+    /**
+     * Creates a tracker.
+     *
+     * @param client client sending the queries
+     */
+    public QueryTracker(@Nonnull Client client) {
+        this.client = Sanity.nullCheck(client, "Client cannot be null");
+    }
+
+    /**
+     * Gets the number of milliseconds to wait for a query to complete.
+     *
+     * @return timeout in milliseconds
+     */
+    public long getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Sets the number of milliseconds to wait for a query to complete,
+     * applying to queries sent afterward.
+     *
+     * @param timeout timeout in milliseconds
+     * @throws IllegalArgumentException if timeout is not positive
+     */
+    public void setTimeout(long timeout) {
+        Sanity.truthiness(timeout > 0, "Timeout must be positive");
+        this.timeout = timeout;
+    }
+
+    /**
+     * Gets if queries are currently sent with labels.
+     *
+     * @return true if the labeled-response capability is enabled
+     */
+    public boolean isLabeling() {
+        return this.client.getCapabilityManager().getCapability(CapabilityManager.Defaults.LABELED_RESPONSE).isPresent();
+    }
+
+    /**
+     * Gets the number of queries not yet complete.
+     *
+     * @return number of waiting queries
+     */
+    public synchronized int getPendingCount() {
+        return this.labeled.size() + this.unlabeled.size();
+    }
+
+    /**
+     * Sends a query. The reply and end numerics are only used if the
+     * server does not support labels, where they must cover every numeric
+     * the server may reply with, including errors.
+     *
+     * @param line query line
+     * @param replies numerics collected as replies
+     * @param ends numerics completing the query, also collected
+     * @return future completed with the replies, excluding any batch
+     * start and end lines
+     * @throws IllegalArgumentException for null or unsafe line, or no ends
+     */
+    @Nonnull
+    public CompletableFuture<List<ClientReceiveServerMessageEvent>> query(@Nonnull String line, @Nonnull Collection<Integer> replies, @Nonnull Collection<Integer> ends) {
+        Sanity.safeMessageCheck(line, "Query");
+        Sanity.nullCheck(replies, "Replies cannot be null");
+        Sanity.nullCheck(ends, "Ends cannot be null");
+        Sanity.truthiness(!ends.isEmpty(), "Ends cannot be empty");
+        Query query = new Query(line, new HashSet<>(replies), new HashSet<>(ends));
+        String toSend = null;
+        synchronized (this) {
+            if (this.isLabeling()) {
+                query.label = Long.toString(++this.labelCount, 36);
+                this.labeled.put(query.label, query);
+                toSend = (line.charAt(0) == '@') ? ("@label=" + query.label + ';' + line.substring(1)) : ("@label=" + query.label + ' ' + line);
+            } else {
+                this.unlabeled.add(query);
+                if (this.unlabeled.size() == 1) {
+                    toSend = line;
+                }
+            }
+        }
+        if (toSend != null) {
+            this.send(query, toSend);
+        }
+        return query.future;
+    }
+
+    /**
+     * Processes a message received from the server, collecting it if it
+     * is a reply to a waiting query.
+     *
+     * @param event received message
+     */
+    public void handle(@Nonnull ClientReceiveServerMessageEvent event) {
+        Query completed = null;
+        Query next = null;
+        synchronized (this) {
+            if (this.labeled.isEmpty() && this.unlabeled.isEmpty()) {
+                return;
+            }
+            String label = null;
+            String batch = null;
+            for (MessageTag tag : event.getMessageTags()) {
+                if ("label".equals(tag.getName())) {
+                    label = tag.getValue().orElse(null);
+                } else if ("batch".equals(tag.getName())) {
+                    batch = tag.getValue().orElse(null);
+                }
+            }
+            List<String> parameters = event.getParameters();
+            if ("BATCH".equals(event.getCommand()) && !parameters.isEmpty() && (parameters.get(0).length() > 1)) {
+                String reference = parameters.get(0).substring(1);
+                if (parameters.get(0).charAt(0) == '-') {
+                    Query query = this.batches.remove(reference);
+                    if ((query != null) && reference.equals(query.batch)) {
+                        completed = query;
+                    }
+                } else if (parameters.get(0).charAt(0) == '+') {
+                    Query query = (label != null) ? this.labeled.get(label) : ((batch != null) ? this.batches.get(batch) : null);
+                    if (query != null) {
+                        this.batches.put(reference, query);
+                        if ((label != null) && (parameters.size() > 1) && BATCH_TYPE.equals(parameters.get(1))) {
+                            query.batch = reference;
+                        }
+                    }
+                }
+            } else if (label != null) {
+                Query query = this.labeled.get(label);
+                if (query != null) {
+                    if (!"ACK".equals(event.getCommand())) {
+                        query.collected.add(event);
+                    }
+                    completed = query;
+                }
+            } else if (batch != null) {
+                Query query = this.batches.get(batch);
+                if (query != null) {
+                    query.collected.add(event);
+                }
+            } else if (!this.unlabeled.isEmpty()) {
+                Integer numeric = this.getNumeric(event.getCommand());
+                Query query = this.unlabeled.peek();
+                if ((numeric != null) && (query.replies.contains(numeric) || query.ends.contains(numeric))) {
+                    query.collected.add(event);
+                    if (query.ends.contains(numeric)) {
+                        completed = query;
+                    }
+                }
+            }
+            if (completed != null) {
+                next = this.remove(completed);
+            }
+        }
+        if (completed != null) {
+            if (completed.timeout != null) {
+                completed.timeout.cancel();
+            }
+            completed.future.complete(Collections.unmodifiableList(completed.collected));
+        }
+        if (next != null) {
+            this.send(next, next.line);
+        }
+    }
+
+    @Override
+    public void reset() {
+        List<Query> lost;
+        synchronized (this) {
+            lost = new ArrayList<>(this.labeled.values());
+            lost.addAll(this.unlabeled);
+            lost.forEach(query -> query.done = true);
+            this.labeled.clear();
+            this.unlabeled.clear();
+            this.batches.clear();
+        }
+        IllegalStateException exception = new IllegalStateException("Connection lost before reply");
+        for (Query query : lost) {
+            if (query.timeout != null) {
+                query.timeout.cancel();
+            }
+            query.future.completeExceptionally(exception);
+        }
+    }
+
+    private void send(@Nonnull Query query, @Nonnull String line) {
+        synchronized (this) {
+            if (query.done) {
+                return;
+            }
+            // Timed from here, so unlabeled queries waiting their turn aren't failed early
+            query.timeout = TimerSender.getSharedTimer().newTimeout(timeout -> this.fail(query, new TimeoutException("No reply to " + query.line)), this.timeout, TimeUnit.MILLISECONDS);
+        }
+        try {
+            this.client.sendRawLine(line);
+        } catch (Exception e) {
+            this.fail(query, e);
+        }
+    }
+
+    private void fail(@Nonnull Query query, @Nonnull Throwable throwable) {
+        Query next;
+        synchronized (this) {
+            if (query.done) {
+                return;
+            }
+            next = this.remove(query);
+        }
+        if (query.timeout != null) {
+            query.timeout.cancel();
+        }
+        query.future.completeExceptionally(throwable);
+        if (next != null) {
+            this.send(next, next.line);
+        }
+    }
+
+    /**
+     * Stops tracking a query. Call while holding the lock.
+     *
+     * @param query query to remove
+     * @return the next unlabeled query to send, if removing the one
+     * currently sent
+     */
+    @Nullable
+    private Query remove(@Nonnull Query query) {
+        query.done = true;
+        if (query.label != null) {
+            this.labeled.remove(query.label);
+            this.batches.values().removeIf(batchQuery -> batchQuery == query);
+            return null;
+        }
+        boolean current = this.unlabeled.peek() == query;
+        for (Iterator<Query> iterator = this.unlabeled.iterator(); iterator.hasNext(); ) {
+            if (iterator.next() == query) {
+                iterator.remove();
+                break;
+            }
+        }
+        return current ? this.unlabeled.peek() : null;
+    }
+
+    @Nullable
+    private Integer getNumeric(@Nonnull String command) {
+        if ((command.length() != 3) || !Character.isDigit(command.charAt(0)) || !Character.isDigit(command.charAt(1)) || !Character.isDigit(command.charAt(2))) {
+            return null;
+        }
+        return Integer.parseInt(command);
+    }
+
+    @Nonnull
+    @Override
+    public synchronized String toString() {
+        return new ToStringer(this).add("client", this.client).add("labeled", this.labeled.size()).add("unlabeled", this.unlabeled.size()).toString();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import java.util.function.LongSupplier;
+
+/**
+ * A sending rate adjusted by additive increase and multiplicative decrease.
+ * While messages are waiting and nothing signals trouble, every message
+ * sent raises the rate so that it climbs by a fixed amount per second of
+ * sending. When the server signals throttling, the rate is cut by a
+ * factor, after which further signals are ignored and the rate held for a
+ * while, as one burst of sending tends to draw several signals at once.
+ * The rate always stays within its bounds.
+ *
+ * @see AdaptiveRateSender
+ */
+public class AdaptiveRate {
+    /**
+     * The default factor the rate is multiplied by when throttled.
+     */
+    public static final double DEFAULT_DECREASE_FACTOR = 0.5;
+    /**
+     * The default number of milliseconds the rate is held after a decrease.
+     */
+    public static final long DEFAULT_HOLD = 5000;
+
+    private final double minimum;
+    private final double maximum;
+    private final double increasePerSecond;
+    private final double decreaseFactor;
+    private final long hold;
+    private final LongSupplier clock;
+    private volatile double rate;
+    private long last;
+    private long holdUntil;
+    private long decreases;
+
+    /**
+     * Constructs a rate starting at the minimum, using the default decrease
+     * factor and hold time.
+     *
+     * @param minimum lowest rate, in messages per second
+     * @param maximum highest rate, in messages per second
+     * @param increasePerSecond messages per second the rate climbs for each
+     * second of sending without trouble
+     * @throws IllegalArgumentException if the bounds are not positive or
+     * out of order, or the increase is negative
+     */
+    public AdaptiveRate(double minimum, double maximum, double increasePerSecond) {
+        this(minimum, minimum, maximum, increasePerSecond, DEFAULT_DECREASE_FACTOR, DEFAULT_HOLD, () -> System.nanoTime() / 1_000_000);
+    }
+
+    /**
+     * Constructs a rate.
+     *
+     * @param initial starting rate, in messages per second
+     * @param minimum lowest rate, in messages per second
+     * @param maximum highest rate, in messages per second
+     * @param increasePerSecond messages per second the rate climbs for each
+     * second of sending without trouble
+     * @param decreaseFactor factor, between 0 and 1, the rate is multiplied
+     * by when throttled
+     * @param holdMillis milliseconds to hold the rate after a decrease
+     * @param clock source of the current time, in milliseconds
+     * @throws IllegalArgumentException if the bounds are not positive or
+     * out of order, the initial rate is out of bounds, the increase or hold
+     * is negative, the factor is out of range, or clock is null
+     */
+    public AdaptiveRate(double initial, double minimum, double maximum, double increasePerSecond, double decreaseFactor, long holdMillis, @Nonnull LongSupplier clock) {
+        Sanity.truthiness(minimum > 0, "Minimum must be positive");
+        Sanity.truthiness(maximum >= minimum, "Maximum cannot be below minimum");
+        Sanity.truthiness((initial >= minimum) && (initial <= maximum), "Initial rate must be within bounds");
+        Sanity.truthiness(increasePerSecond >= 0, "Increase cannot be negative");
+        Sanity.truthiness((decreaseFactor > 0) && (decreaseFactor < 1), "Decrease factor must be between 0 and 1");
+        Sanity.truthiness(holdMillis >= 0, "Hold cannot be negative");
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.increasePerSecond = increasePerSecond;
+        this.decreaseFactor = decreaseFactor;
+        this.hold = holdMillis;
+        this.clock = Sanity.nullCheck(clock, "Clock cannot be null");
+        this.rate = initial;
+        this.last = clock.getAsLong() - this.getInterval();
+    }
+
+    /**
+     * Gets the rate currently in effect.
+     *
+     * @return messages per second
+     */
+    public double getRate() {
+        return this.rate;
+    }
+
+    /**
+     * Gets the lowest rate.
+     *
+     * @return messages per second
+     */
+    public double getMinimum() {
+        return this.minimum;
+    }
+
+    /**
+     * Gets the highest rate.
+     *
+     * @return messages per second
+     */
+    public double getMaximum() {
+        return this.maximum;
+    }
+
+    /**
+     * Gets the number of times the rate has been decreased.
+     *
+     * @return decrease count
+     */
+    public synchronized long getDecreaseCount() {
+        return this.decreases;
+    }
+
+    /**
+     * Reserves the time to send one message. The time is taken whether or
+     * not the message is then sent.
+     *
+     * @param backlogged true if more messages are waiting behind this one,
+     * allowing the rate to climb
+     * @return milliseconds to wait before sending, zero to send now
+     */
+    public long reserve(boolean backlogged) {
+        long now = this.clock.getAsLong();
+        long time;
+        synchronized (this) {
+            time = Math.max(now, this.last + this.getInterval());
+            this.last = time;
+            // Climbing only under load keeps an idle client from claiming a rate it never tested
+            if (backlogged && (time >= this.holdUntil)) {
+                this.rate = Math.min(this.maximum, this.rate + (this.increasePerSecond / this.rate));
+            }
+        }
+        return time - now;
+    }
+
+    /**
+     * Signals the server throttling, decreasing the rate unless recently
+     * decreased.
+     *
+     * @return true if the rate was decreased
+     */
+    public boolean throttle() {
+        long now = this.clock.getAsLong();
+        synchronized (this) {
+            if (now < this.holdUntil) {
+                return false;
+            }
+            this.rate = Math.max(this.minimum, this.rate * this.decreaseFactor);
+            this.holdUntil = now + this.hold;
+            this.decreases++;
+            return true;
+        }
+    }
+
+    private long getInterval() {
+        return (long) (1000 / this.rate);
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("rate", this.rate).add("minimum", this.minimum).add("maximum", this.maximum).toString();
+    }
+}
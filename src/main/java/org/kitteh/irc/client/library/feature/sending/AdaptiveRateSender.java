@@ -0,0 +1,209 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import net.engio.mbassy.listener.Handler;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.Server;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.feature.filter.CommandFilter;
+import org.kitteh.irc.client.library.feature.filter.NumericFilter;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.function.Function;
+
+/**
+ * A {@link QueueProcessingThreadSender} pacing messages at an {@link
+ * AdaptiveRate}, slowing down when the server signals throttling and
+ * speeding back up while sending goes smoothly. Signals of throttling
+ * are:
+ * <ul>
+ * <li>the round trip of the client's keepalive PING exceeding the lag
+ * threshold, as servers often delay a flooding client's lines silently</li>
+ * <li>RPL_TRYAGAIN (263) and ERR_TARGETTOOFAST (439)</li>
+ * <li>server notices mentioning flooding or throttling</li>
+ * <li>an ERROR mentioning flooding, such as an Excess Flood disconnect,
+ * so the rate is lower after reconnecting</li>
+ * </ul>
+ * The rate only climbs while messages are waiting behind the one being
+ * sent.
+ */
+public class AdaptiveRateSender extends QueueProcessingThreadSender {
+    /**
+     * The default keepalive round trip, in milliseconds, above which the
+     * rate is decreased.
+     */
+    public static final long DEFAULT_LAG_THRESHOLD = 5000;
+
+    @SuppressWarnings("JavaDoc")
+    protected class Listener {
+        @CommandFilter("PONG")
+        @Handler
+        public void pong(ClientReceiveCommandEvent event) {
+            long sent = AdaptiveRateSender.this.pingSent;
+            if (sent < 0) {
+                return;
+            }
+            AdaptiveRateSender.this.pingSent = -1;
+            long lag = (System.nanoTime() / 1_000_000) - sent;
+            AdaptiveRateSender.this.lag = lag;
+            if (lag > AdaptiveRateSender.this.lagThreshold) {
+                AdaptiveRateSender.this.rate.throttle();
+            }
+        }
+
+        @NumericFilter(263)
+        @NumericFilter(439)
+        @Handler
+        public void tooFast(ClientReceiveNumericEvent event) {
+            AdaptiveRateSender.this.rate.throttle();
+        }
+
+        @CommandFilter("NOTICE")
+        @CommandFilter("ERROR")
+        @Handler
+        public void notice(ClientReceiveCommandEvent event) {
+            // ERROR usually comes without a source
+            boolean fromServer = (event.getActor() instanceof Server) || "ERROR".equals(event.getCommand());
+            if (fromServer && !event.getParameters().isEmpty() && isFloodMessage(event.getParameters().get(event.getParameters().size() - 1))) {
+                AdaptiveRateSender.this.rate.throttle();
+            }
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).toString();
+        }
+    }
+
+    /**
+     * Gets a sender supplier with a rate starting at the minimum.
+     *
+     * @param minimum lowest rate, in messages per second
+     * @param maximum highest rate, in messages per second
+     * @param increasePerSecond messages per second the rate climbs for each
+     * second of sending without trouble
+     * @return supplier
+     * @throws IllegalArgumentException if the bounds are not positive or
+     * out of order, or the increase is negative
+     */
+    public static Function<Client.WithManagement, AdaptiveRateSender> getSupplier(double minimum, double maximum, double increasePerSecond) {
+        new AdaptiveRate(minimum, maximum, increasePerSecond); // Fail now, not when connecting
+        return client -> new AdaptiveRateSender(client, "AdaptiveRate", new AdaptiveRate(minimum, maximum, increasePerSecond));
+    }
+
+    private static boolean isFloodMessage(@Nonnull String message) {
+        String lower = message.toLowerCase(Locale.ENGLISH);
+        return lower.contains("flood") || lower.contains("throttl") || lower.contains("too fast");
+    }
+
+    private final AdaptiveRate rate;
+    private final Listener listener = new Listener();
+    private volatile long lagThreshold = DEFAULT_LAG_THRESHOLD;
+    private volatile long pingSent = -1;
+    private volatile long lag = -1;
+
+    /**
+     * Constructs the sending queue, listening to the client's events for
+     * signs of throttling until shut down.
+     *
+     * @param client the client
+     * @param name name of this sending queue
+     * @param rate rate to pace messages by
+     */
+    public AdaptiveRateSender(@Nonnull Client client, @Nonnull String name, @Nonnull AdaptiveRate rate) {
+        super(client, name);
+        this.rate = Sanity.nullCheck(rate, "Rate cannot be null");
+        client.getEventManager().registerEventListener(this.listener);
+    }
+
+    /**
+     * Gets the rate pacing this sender.
+     *
+     * @return rate
+     */
+    @Nonnull
+    public AdaptiveRate getRate() {
+        return this.rate;
+    }
+
+    /**
+     * Gets the round trip of the last answered keepalive PING.
+     *
+     * @return lag in milliseconds, or -1 if not yet measured
+     */
+    public long getLag() {
+        return this.lag;
+    }
+
+    /**
+     * Gets the keepalive round trip above which the rate is decreased.
+     *
+     * @return threshold in milliseconds
+     */
+    public long getLagThreshold() {
+        return this.lagThreshold;
+    }
+
+    /**
+     * Sets the keepalive round trip above which the rate is decreased.
+     *
+     * @param lagThreshold threshold in milliseconds
+     * @throws IllegalArgumentException if threshold is not positive
+     */
+    public void setLagThreshold(long lagThreshold) {
+        Sanity.truthiness(lagThreshold > 0, "Threshold must be positive");
+        this.lagThreshold = lagThreshold;
+    }
+
+    @Override
+    protected boolean checkReady(@Nonnull String message) {
+        long wait = this.rate.reserve(this.size() > 0);
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                this.interrupt();
+                return false;
+            }
+        }
+        if (message.startsWith("PING ")) {
+            this.pingSent = System.nanoTime() / 1_000_000;
+        }
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public Queue<String> shutdown() {
+        this.getClient().getEventManager().unregisterEventListener(this.listener);
+        return super.shutdown();
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import io.netty.util.Timeout;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.MessageTag;
+import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
+import org.kitteh.irc.client.library.feature.CapabilityManager;
+import org.kitteh.irc.client.library.util.Resettable;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the delivery of messages sent through it, completing a future for
+ * each once the server has accepted it.
+ * <p>
+ * With the IRCv3 echo-message capability enabled, the server repeats each
+ * message back to the client, and delivery is confirmed by that echo. The
+ * echo is matched by label if labeled-response is also enabled, and
+ * otherwise by target and text. Without echo-message, which is not
+ * requested by default, the future completes unconfirmed once the message
+ * leaves the sending queue.
+ * <p>
+ * Time spent waiting in the sending queue and the round trip from sending
+ * to echo are recorded in histograms, covering every tracked message.
+ * Messages not delivered in time, or waiting when the connection is lost,
+ * complete exceptionally.
+ */
+public class DeliveryTracker implements Resettable {
+    /**
+     * The default number of milliseconds, from queueing, to wait for a
+     * message to be delivered.
+     */
+    public static final long DEFAULT_TIMEOUT = 60000;
+
+    /**
+     * The result of delivering a message.
+     */
+    public static final class Delivery {
+        private final String line;
+        private final long queued;
+        private final long sent;
+        private final long echoed;
+        private final String messageId;
+
+        private Delivery(@Nonnull String line, long queued, long sent, long echoed, @Nullable String messageId) {
+            this.line = line;
+            this.queued = queued;
+            this.sent = sent;
+            this.echoed = echoed;
+            this.messageId = messageId;
+        }
+
+        /**
+         * Gets the line sent.
+         *
+         * @return line sent
+         */
+        @Nonnull
+        public String getLine() {
+            return this.line;
+        }
+
+        /**
+         * Gets if the server confirmed delivery by echoing the message.
+         *
+         * @return true if confirmed
+         */
+        public boolean isConfirmed() {
+            return this.echoed >= 0;
+        }
+
+        /**
+         * Gets the message ID the server gave the echoed message.
+         *
+         * @return message ID if confirmed and given one
+         */
+        @Nonnull
+        public Optional<String> getMessageId() {
+            return Optional.ofNullable(this.messageId);
+        }
+
+        /**
+         * Gets the time the message waited in the sending queue.
+         *
+         * @return queue wait in milliseconds
+         */
+        public long getQueueWait() {
+            return this.sent - this.queued;
+        }
+
+        /**
+         * Gets the time from sending the message until its echo arrived.
+         *
+         * @return round trip in milliseconds, or -1 if not confirmed
+         */
+        public long getRoundTrip() {
+            return this.isConfirmed() ? (this.echoed - this.sent) : -1;
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("line", this.line).add("queueWait", this.getQueueWait()).add("roundTrip", this.getRoundTrip()).add("messageId", this.messageId).toString();
+        }
+    }
+
+    private final class Pending {
+        private final String line;
+        private final String echo;
+        private final CompletableFuture<Delivery> future = new CompletableFuture<>();
+        private final long queued;
+        @Nullable
+        private String label;
+        private long sent = -1;
+        @Nullable
+        private Timeout timeout;
+
+        private Pending(@Nonnull String line, @Nonnull String echo, long queued) {
+            this.line = line;
+            this.echo = echo;
+            this.queued = queued;
+        }
+    }
+
+    private final Client client;
+    private final LongSupplier clock;
+    private final LatencyHistogram queueWaits = new LatencyHistogram();
+    private final LatencyHistogram roundTrips = new LatencyHistogram();
+    private final Map<String, ArrayDeque<Pending>> queued = new HashMap<>();
+    private final Map<String, ArrayDeque<Pending>> awaitingEcho = new HashMap<>();
+    private final Map<String, Pending> awaitingLabel = new HashMap<>();
+    private volatile long timeout = DEFAULT_TIMEOUT;
+    private volatile boolean empty = true;
+    private long labelCount;
+
+    /**
+     * Creates a tracker using the system's monotonic clock.
+     *
+     * @param client client sending the messages
+     */
+    public DeliveryTracker(@Nonnull Client client) {
+        this(client, () -> System.nanoTime() / 1_000_000);
+    }
+
+    /**
+     * Creates a tracker.
+     *
+     * @param client client sending the messages
+     * @param clock source of the current time, in milliseconds
+     */
+    public DeliveryTracker(@Nonnull Client client, @Nonnull LongSupplier clock) {
+        this.client = Sanity.nullCheck(client, "Client cannot be null");
+        this.clock = Sanity.nullCheck(clock, "Clock cannot be null");
+    }
+
+    /**
+     * Gets the histogram of time tracked messages waited in the sending
+     * queue.
+     *
+     * @return queue wait histogram
+     */
+    @Nonnull
+    public LatencyHistogram getQueueWaits() {
+        return this.queueWaits;
+    }
+
+    /**
+     * Gets the histogram of time from sending tracked messages until their
+     * echo arrived.
+     *
+     * @return round trip histogram
+     */
+    @Nonnull
+    public LatencyHistogram getRoundTrips() {
+        return this.roundTrips;
+    }
+
+    /**
+     * Gets the number of milliseconds, from queueing, to wait for a message
+     * to be delivered.
+     *
+     * @return timeout in milliseconds
+     */
+    public long getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Sets the number of milliseconds, from queueing, to wait for a message
+     * to be delivered, applying to messages sent afterward.
+     *
+     * @param timeout timeout in milliseconds
+     * @throws IllegalArgumentException if timeout is not positive
+     */
+    public void setTimeout(long timeout) {
+        Sanity.truthiness(timeout > 0, "Timeout must be positive");
+        this.timeout = timeout;
+    }
+
+    /**
+     * Gets the number of tracked messages not yet delivered.
+     *
+     * @return number of waiting messages
+     */
+    public synchronized int getPendingCount() {
+        int count = this.awaitingLabel.size();
+        for (ArrayDeque<Pending> pending : this.queued.values()) {
+            count += pending.size();
+        }
+        for (ArrayDeque<Pending> pending : this.awaitingEcho.values()) {
+            count += pending.size();
+        }
+        return count;
+    }
+
+    /**
+     * Sends a tracked message.
+     *
+     * @param target target of the message
+     * @param message message to send, a single line
+     * @return future completed on delivery
+     * @throws IllegalArgumentException for null or unsafe parameters, or
+     * a message too long to send
+     */
+    @Nonnull
+    public CompletableFuture<Delivery> sendMessage(@Nonnull String target, @Nonnull String message) {
+        return this.send("PRIVMSG", target, message);
+    }
+
+    /**
+     * Sends a tracked notice.
+     *
+     * @param target target of the notice
+     * @param message notice to send, a single line
+     * @return future completed on delivery
+     * @throws IllegalArgumentException for null or unsafe parameters, or
+     * a notice too long to send
+     */
+    @Nonnull
+    public CompletableFuture<Delivery> sendNotice(@Nonnull String target, @Nonnull String message) {
+        return this.send("NOTICE", target, message);
+    }
+
+    @Nonnull
+    private CompletableFuture<Delivery> send(@Nonnull String command, @Nonnull String target, @Nonnull String message) {
+        Sanity.safeMessageCheck(target, "Target");
+        Sanity.safeMessageCheck(message);
+        Sanity.truthiness(target.indexOf(' ') == -1, "Target cannot have spaces");
+        String line = command + ' ' + target + " :" + message;
+        Pending pending;
+        synchronized (this) {
+            if (this.isEchoing() && this.client.getCapabilityManager().getCapability(CapabilityManager.Defaults.LABELED_RESPONSE).isPresent()) {
+                String label = "d" + Long.toString(++this.labelCount, 36);
+                pending = new Pending("@label=" + label + ' ' + line, this.getEchoKey(command, target, message), this.clock.getAsLong());
+                pending.label = label;
+            } else {
+                pending = new Pending(line, this.getEchoKey(command, target, message), this.clock.getAsLong());
+            }
+            this.queued.computeIfAbsent(pending.line, key -> new ArrayDeque<>()).add(pending);
+            this.empty = false;
+            Pending timed = pending;
+            pending.timeout = TimerSender.getSharedTimer().newTimeout(timeout -> this.fail(timed, new TimeoutException("Not delivered: " + line)), this.timeout, TimeUnit.MILLISECONDS);
+        }
+        try {
+            this.client.sendRawLine(pending.line);
+        } catch (IllegalArgumentException e) {
+            this.fail(pending, e);
+            throw e;
+        }
+        return pending.future;
+    }
+
+    /**
+     * Notes a line leaving the sending queue, to be called for every line
+     * sent from the queue.
+     *
+     * @param line line sent
+     */
+    public void sent(@Nonnull String line) {
+        if (this.empty) {
+            return;
+        }
+        Pending pending;
+        boolean echoing = this.isEchoing();
+        synchronized (this) {
+            ArrayDeque<Pending> candidates = this.queued.get(line);
+            pending = (candidates == null) ? null : candidates.poll();
+            if (pending == null) {
+                return;
+            }
+            if (candidates.isEmpty()) {
+                this.queued.remove(line);
+            }
+            pending.sent = this.clock.getAsLong();
+            this.queueWaits.record(pending.sent - pending.queued);
+            if (echoing) {
+                if (pending.label != null) {
+                    this.awaitingLabel.put(pending.label, pending);
+                } else {
+                    this.awaitingEcho.computeIfAbsent(pending.echo, key -> new ArrayDeque<>()).add(pending);
+                }
+                pending = null;
+            } else {
+                this.updateEmpty();
+            }
+        }
+        if (pending != null) {
+            this.complete(pending, -1, null);
+        }
+    }
+
+    /**
+     * Processes a message received from the server, confirming delivery if
+     * it is the echo of a tracked message.
+     *
+     * @param event received message
+     */
+    public void handle(@Nonnull ClientReceiveServerMessageEvent event) {
+        if (this.empty || !(event.getActor() instanceof User) || (event.getParameters().size() < 2) || !("PRIVMSG".equals(event.getCommand()) || "NOTICE".equals(event.getCommand()))) {
+            return;
+        }
+        if (!this.client.getServerInfo().getCaseMapping().areEqualIgnoringCase(((User) event.getActor()).getNick(), this.client.getNick())) {
+            return;
+        }
+        String label = null;
+        String messageId = null;
+        for (MessageTag tag : event.getMessageTags()) {
+            if ("label".equals(tag.getName())) {
+                label = tag.getValue().orElse(null);
+            } else if ("msgid".equals(tag.getName()) || "draft/msgid".equals(tag.getName())) {
+                messageId = tag.getValue().orElse(null);
+            }
+        }
+        Pending pending;
+        synchronized (this) {
+            if (label != null) {
+                pending = this.awaitingLabel.remove(label);
+            } else {
+                String key = this.getEchoKey(event.getCommand(), event.getParameters().get(0), event.getParameters().get(1));
+                ArrayDeque<Pending> candidates = this.awaitingEcho.get(key);
+                pending = (candidates == null) ? null : candidates.poll();
+                if ((candidates != null) && candidates.isEmpty()) {
+                    this.awaitingEcho.remove(key);
+                }
+            }
+            if (pending == null) {
+                return;
+            }
+            this.updateEmpty();
+        }
+        long echoed = this.clock.getAsLong();
+        this.roundTrips.record(echoed - pending.sent);
+        this.complete(pending, echoed, messageId);
+    }
+
+    @Override
+    public void reset() {
+        List<Pending> lost = new ArrayList<>(this.awaitingLabel.size());
+        synchronized (this) {
+            // Lines still queued are kept, as the queue survives reconnecting
+            lost.addAll(this.awaitingLabel.values());
+            this.awaitingEcho.values().forEach(lost::addAll);
+            this.awaitingLabel.clear();
+            this.awaitingEcho.clear();
+            this.updateEmpty();
+        }
+        IllegalStateException exception = new IllegalStateException("Connection lost before delivery");
+        for (Pending pending : lost) {
+            if (pending.timeout != null) {
+                pending.timeout.cancel();
+            }
+            pending.future.completeExceptionally(exception);
+        }
+    }
+
+    private boolean isEchoing() {
+        return this.client.getCapabilityManager().getCapability(CapabilityManager.Defaults.ECHO_MESSAGE).isPresent();
+    }
+
+    @Nonnull
+    private String getEchoKey(@Nonnull String command, @Nonnull String target, @Nonnull String message) {
+        return command + ' ' + this.client.getServerInfo().getCaseMapping().toLowerCase(target) + ' ' + message;
+    }
+
+    private void complete(@Nonnull Pending pending, long echoed, @Nullable String messageId) {
+        if (pending.timeout != null) {
+            pending.timeout.cancel();
+        }
+        pending.future.complete(new Delivery(pending.line, pending.queued, pending.sent, echoed, messageId));
+    }
+
+    private void fail(@Nonnull Pending pending, @Nonnull Exception exception) {
+        synchronized (this) {
+            boolean removed = this.remove(this.queued, pending.line, pending) || this.remove(this.awaitingEcho, pending.echo, pending) || ((pending.label != null) && this.awaitingLabel.remove(pending.label, pending));
+            if (!removed) {
+                return;
+            }
+            this.updateEmpty();
+        }
+        if (pending.timeout != null) {
+            pending.timeout.cancel();
+        }
+        pending.future.completeExceptionally(exception);
+    }
+
+    private boolean remove(@Nonnull Map<String, ArrayDeque<Pending>> map, @Nonnull String key, @Nonnull Pending pending) {
+        ArrayDeque<Pending> candidates = map.get(key);
+        if ((candidates == null) || !candidates.removeIf(candidate -> candidate == pending)) {
+            return false;
+        }
+        if (candidates.isEmpty()) {
+            map.remove(key);
+        }
+        return true;
+    }
+
+    private void updateEmpty() {
+        this.empty = this.queued.isEmpty() && this.awaitingEcho.isEmpty() && this.awaitingLabel.isEmpty();
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("client", this.client).add("queueWaits", this.queueWaits).add("roundTrips", this.roundTrips).toString();
+    }
+}
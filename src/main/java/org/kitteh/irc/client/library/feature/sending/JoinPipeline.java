@@ -0,0 +1,421 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import io.netty.util.Timer;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.ISupportParameter;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.util.Pair;
+import org.kitteh.irc.client.library.util.Resettable;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.StringUtil;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches and paces channel joins. Channels requested close together are
+ * packed into comma separated JOIN lines, keyed channels first so keys
+ * line up, and the lines are released under a join budget separate from
+ * the sending queue's own rate limit. The MODE and WHO queries sent after
+ * joining are likewise spread out under a query budget, rather than all
+ * arriving at once after a mass join.
+ * <p>
+ * Lines are handed to {@link Client#sendRawLine(String)} and so remain
+ * subject to the {@link MessageSendingQueue}. Pacing is driven by a
+ * {@link Timer}, by default {@link TimerSender#getSharedTimer()}.
+ */
+public class JoinPipeline implements Resettable {
+    /**
+     * Default join budget burst, in JOIN lines.
+     */
+    public static final double DEFAULT_JOIN_CAPACITY = 4;
+    /**
+     * Default join budget refill, in JOIN lines per second.
+     */
+    public static final double DEFAULT_JOIN_REFILL_PER_SECOND = 0.5;
+    /**
+     * Default query budget burst, in queries.
+     */
+    public static final double DEFAULT_QUERY_CAPACITY = 10;
+    /**
+     * Default query budget refill, in queries per second.
+     */
+    public static final double DEFAULT_QUERY_REFILL_PER_SECOND = 1;
+
+    private static final int MAXIMUM_LINE_LENGTH = 510;
+
+    private final Client.WithManagement client;
+    private final Timer timer;
+    private final TokenBucket joinBucket;
+    private final TokenBucket queryBucket;
+    private final List<Pair<String, String>> pendingChannels = new ArrayList<>();
+    private final Queue<String> joinLines = new ArrayDeque<>();
+    private final Set<String> queries = new LinkedHashSet<>();
+    private boolean joinsScheduled;
+    private boolean queriesScheduled;
+
+    /**
+     * Constructs a pipeline with the default budgets on the shared timer.
+     *
+     * @param client client sending the joins
+     */
+    public JoinPipeline(@Nonnull Client.WithManagement client) {
+        this(client, TimerSender.getSharedTimer(), new TokenBucket(DEFAULT_JOIN_CAPACITY, DEFAULT_JOIN_REFILL_PER_SECOND), new TokenBucket(DEFAULT_QUERY_CAPACITY, DEFAULT_QUERY_REFILL_PER_SECOND));
+    }
+
+    /**
+     * Constructs a pipeline.
+     *
+     * @param client client sending the joins
+     * @param timer timer driving the pacing
+     * @param joinBucket budget for JOIN lines, each costing one token
+     * @param queryBucket budget for follow-up queries, each costing one
+     * token
+     */
+    public JoinPipeline(@Nonnull Client.WithManagement client, @Nonnull Timer timer, @Nonnull TokenBucket joinBucket, @Nonnull TokenBucket queryBucket) {
+        this.client = Sanity.nullCheck(client, "Client cannot be null");
+        this.timer = Sanity.nullCheck(timer, "Timer cannot be null");
+        this.joinBucket = Sanity.nullCheck(joinBucket, "Join bucket cannot be null");
+        this.queryBucket = Sanity.nullCheck(queryBucket, "Query bucket cannot be null");
+    }
+
+    /**
+     * Queues a channel to join, to be batched with others queued at about
+     * the same time.
+     *
+     * @param channel channel name
+     * @param key channel key, or null for none
+     * @throws IllegalArgumentException if channel is null, or channel or
+     * key contains a space or comma
+     */
+    public void join(@Nonnull String channel, @Nullable String key) {
+        this.join(Collections.singletonList(Pair.of(channel, key)));
+    }
+
+    /**
+     * Queues channels to join, packed together. If no earlier JOIN lines
+     * are waiting on the join budget, those the budget allows are handed
+     * to the client before returning, so messages sent to the channels
+     * afterward follow their JOIN. The rest are paced.
+     *
+     * @param channels channel names and keys, with null for no key
+     * @throws IllegalArgumentException if channels is null, or any channel
+     * is null, or any channel or key contains a space or comma
+     */
+    public void join(@Nonnull Collection<Pair<String, String>> channels) {
+        Sanity.nullCheck(channels, "Channels cannot be null");
+        for (Pair<String, String> pair : channels) {
+            String channel = pair.getLeft();
+            String key = pair.getRight();
+            Sanity.safeMessageCheck(channel, "Channel");
+            Sanity.truthiness((channel.indexOf(' ') == -1) && (channel.indexOf(',') == -1), "Channel cannot contain spaces or commas");
+            if (key != null) {
+                Sanity.safeMessageCheck(key, "Key");
+                Sanity.truthiness(!key.isEmpty() && (key.indexOf(' ') == -1) && (key.indexOf(',') == -1), "Key cannot be empty or contain spaces or commas");
+            }
+        }
+        synchronized (this.pendingChannels) {
+            this.pendingChannels.addAll(channels);
+            if (this.joinsScheduled) {
+                return;
+            }
+            this.joinsScheduled = true;
+        }
+        this.releaseJoins();
+    }
+
+    /**
+     * Removes a channel not yet sent, whether waiting to be packed or
+     * already packed into a waiting JOIN line.
+     *
+     * @param channel channel name
+     * @return true if the channel was waiting and is no longer
+     */
+    public boolean cancel(@Nonnull String channel) {
+        Sanity.nullCheck(channel, "Channel cannot be null");
+        CaseMapping caseMapping = this.client.getServerInfo().getCaseMapping();
+        synchronized (this.pendingChannels) {
+            boolean removed = this.pendingChannels.removeIf(pending -> caseMapping.areEqualIgnoringCase(channel, pending.getLeft()));
+            List<String> lines = new ArrayList<>(this.joinLines.size());
+            for (String line : this.joinLines) {
+                String stripped = strip(line, channel, caseMapping);
+                removed |= stripped != line;
+                if (stripped != null) {
+                    lines.add(stripped);
+                }
+            }
+            this.joinLines.clear();
+            this.joinLines.addAll(lines);
+            return removed;
+        }
+    }
+
+    /**
+     * Removes a channel, and its key if it has one, from a packed JOIN
+     * line.
+     *
+     * @param line JOIN line
+     * @param channel channel to remove
+     * @param caseMapping case mapping comparing channel names
+     * @return the same line if the channel isn't named, the line without
+     * it, or null if no channels remain
+     */
+    @Nullable
+    private static String strip(@Nonnull String line, @Nonnull String channel, @Nonnull CaseMapping caseMapping) {
+        String[] parts = line.split(" ");
+        List<String> names = new ArrayList<>(Arrays.asList(parts[1].split(",")));
+        List<String> keys = (parts.length > 2) ? new ArrayList<>(Arrays.asList(parts[2].split(","))) : new ArrayList<>();
+        boolean found = false;
+        for (int i = names.size() - 1; i >= 0; i--) {
+            if (caseMapping.areEqualIgnoringCase(channel, names.get(i))) {
+                names.remove(i);
+                if (i < keys.size()) {
+                    keys.remove(i); // Keyed channels come first, so keys line up
+                }
+                found = true;
+            }
+        }
+        if (!found) {
+            return line;
+        }
+        return names.isEmpty() ? null : ("JOIN " + String.join(",", names) + (keys.isEmpty() ? "" : (" " + String.join(",", keys))));
+    }
+
+    /**
+     * Queues a query following a join, such as MODE or WHO, to be sent
+     * once the query budget allows. Queries already waiting are not
+     * queued twice.
+     *
+     * @param query query line
+     */
+    public void query(@Nonnull String query) {
+        Sanity.safeMessageCheck(query, "Query");
+        synchronized (this.queries) {
+            if (this.queries.add(query) && !this.queriesScheduled) {
+                this.queriesScheduled = true;
+                this.timer.newTimeout(timeout -> this.releaseQueries(), 0, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Drops all waiting channels, JOIN lines and queries, which belong to
+     * the lost connection.
+     */
+    @Override
+    public void reset() {
+        synchronized (this.pendingChannels) {
+            this.pendingChannels.clear();
+            this.joinLines.clear();
+        }
+        synchronized (this.queries) {
+            this.queries.clear();
+        }
+    }
+
+    /**
+     * Gets the number of channels waiting to be packed into JOIN lines.
+     *
+     * @return pending channels
+     */
+    public int getPendingChannels() {
+        synchronized (this.pendingChannels) {
+            return this.pendingChannels.size();
+        }
+    }
+
+    /**
+     * Gets the number of packed JOIN lines waiting to be sent.
+     *
+     * @return pending lines
+     */
+    public int getPendingJoinLines() {
+        synchronized (this.pendingChannels) {
+            return this.joinLines.size();
+        }
+    }
+
+    /**
+     * Gets the number of queries waiting to be sent.
+     *
+     * @return pending queries
+     */
+    public int getPendingQueries() {
+        synchronized (this.queries) {
+            return this.queries.size();
+        }
+    }
+
+    /**
+     * Packs channels into JOIN lines. Keyed channels are placed first so
+     * the keys match up with them.
+     *
+     * @param channels channel names and keys, with null for no key
+     * @param maximumChannels most channels per line
+     * @param maximumLength most bytes of UTF-8 per line
+     * @return JOIN lines
+     */
+    @Nonnull
+    public static List<String> pack(@Nonnull Collection<Pair<String, String>> channels, int maximumChannels, int maximumLength) {
+        List<Pair<String, String>> ordered = new ArrayList<>(channels.size());
+        for (Pair<String, String> channel : channels) {
+            if (channel.getRight() != null) {
+                ordered.add(channel);
+            }
+        }
+        for (Pair<String, String> channel : channels) {
+            if (channel.getRight() == null) {
+                ordered.add(channel);
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        StringBuilder names = new StringBuilder();
+        StringBuilder keys = new StringBuilder();
+        int namesLength = 0;
+        int keysLength = 0;
+        int count = 0;
+        for (Pair<String, String> channel : ordered) {
+            String key = channel.getRight();
+            int nameLength = StringUtil.getUtf8Length(channel.getLeft());
+            int keyLength = (key == null) ? 0 : StringUtil.getUtf8Length(key);
+            // JOIN, space, names, then space and keys, plus a comma or space before the additions
+            int length = 5 + namesLength + ((keysLength == 0) ? 0 : (keysLength + 1)) + 1 + nameLength + ((key == null) ? 0 : (keyLength + 1));
+            if ((count > 0) && ((count >= maximumChannels) || (length > maximumLength))) {
+                lines.add(toLine(names, keys));
+                names.setLength(0);
+                keys.setLength(0);
+                namesLength = 0;
+                keysLength = 0;
+                count = 0;
+            }
+            if (count > 0) {
+                names.append(',');
+            }
+            names.append(channel.getLeft());
+            namesLength += nameLength + ((count > 0) ? 1 : 0);
+            if (key != null) {
+                if (keys.length() > 0) {
+                    keys.append(',');
+                    keysLength++;
+                }
+                keys.append(key);
+                keysLength += keyLength;
+            }
+            count++;
+        }
+        if (count > 0) {
+            lines.add(toLine(names, keys));
+        }
+        return lines;
+    }
+
+    @Nonnull
+    private static String toLine(@Nonnull StringBuilder names, @Nonnull StringBuilder keys) {
+        return "JOIN " + names + ((keys.length() == 0) ? "" : (" " + keys));
+    }
+
+    /**
+     * Gets the most channels to name in one JOIN line: the TARGMAX limit
+     * for JOIN if advertised. CHANLIMIT caps the channels a client may be
+     * in altogether, not per line, so is left to the server to enforce.
+     *
+     * @return channels per line
+     */
+    private int getMaximumChannels() {
+        int maximum = this.client.getServerInfo().getISupportParameter(ISupportParameter.TargMax.NAME, ISupportParameter.TargMax.class)
+                .flatMap(targMax -> targMax.getLimit("JOIN")).orElse(Integer.MAX_VALUE);
+        return Math.max(1, maximum);
+    }
+
+    private void releaseJoins() {
+        List<String> send = new ArrayList<>();
+        synchronized (this.pendingChannels) {
+            long wait = 0;
+            // Channels are packed only once a line can go, so those queued while waiting share lines
+            while (!(this.joinLines.isEmpty() && this.pendingChannels.isEmpty()) && ((wait = this.joinBucket.tryTake(1)) == 0)) {
+                if (this.joinLines.isEmpty()) {
+                    this.joinLines.addAll(pack(this.pendingChannels, this.getMaximumChannels(), MAXIMUM_LINE_LENGTH));
+                    this.pendingChannels.clear();
+                }
+                send.add(this.joinLines.poll());
+            }
+            if (this.joinLines.isEmpty() && this.pendingChannels.isEmpty()) {
+                this.joinsScheduled = false;
+            } else {
+                this.timer.newTimeout(timeout -> this.releaseJoins(), wait, TimeUnit.MILLISECONDS);
+            }
+        }
+        send.forEach(line -> this.send(line, false));
+    }
+
+    private void releaseQueries() {
+        List<String> send = new ArrayList<>();
+        synchronized (this.queries) {
+            long wait = 0;
+            Iterator<String> iterator = this.queries.iterator();
+            while (iterator.hasNext() && ((wait = this.queryBucket.tryTake(1)) == 0)) {
+                send.add(iterator.next());
+                iterator.remove();
+            }
+            if (this.queries.isEmpty()) {
+                this.queriesScheduled = false;
+            } else {
+                this.timer.newTimeout(timeout -> this.releaseQueries(), wait, TimeUnit.MILLISECONDS);
+            }
+        }
+        send.forEach(query -> this.send(query, true));
+    }
+
+    private void send(@Nonnull String line, boolean query) {
+        try {
+            if (query) {
+                this.client.sendRawLineAvoidingDuplication(line, MessageSendingQueue.Priority.BULK);
+            } else {
+                this.client.sendRawLine(line);
+            }
+        } catch (Exception e) {
+            this.client.getExceptionListener().queue(e);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("client", this.client).add("joinBucket", this.joinBucket).add("queryBucket", this.queryBucket).toString();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe histogram of latencies in milliseconds. Latencies are
+ * counted in buckets doubling in width, the first holding zero and each
+ * following bucket {@code n} holding latencies from {@code 2^(n-1)} up to
+ * but excluding {@code 2^n}, so percentiles are accurate to within a
+ * factor of two. Recording takes constant time and no lock.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param millis latency in milliseconds, negative values counted as
+     * zero
+     */
+    public void record(long millis) {
+        long latency = Math.max(0, millis);
+        this.buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(latency));
+        this.count.incrementAndGet();
+        this.total.addAndGet(latency);
+        this.max.accumulateAndGet(latency, Math::max);
+    }
+
+    /**
+     * Gets the number of latencies recorded.
+     *
+     * @return count
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Gets the highest latency recorded.
+     *
+     * @return maximum in milliseconds, or zero if none recorded
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Gets the mean latency recorded.
+     *
+     * @return mean in milliseconds, or zero if none recorded
+     */
+    public double getMean() {
+        long count = this.count.get();
+        return (count == 0) ? 0 : ((double) this.total.get() / count);
+    }
+
+    /**
+     * Gets an upper bound for the latency below which the given share of
+     * recorded latencies fall, such as 0.99 for the 99th percentile.
+     *
+     * @param percentile share between 0 and 1
+     * @return upper bound in milliseconds, never above the maximum, or zero
+     * if none recorded
+     * @throws IllegalArgumentException if percentile is out of range
+     */
+    public long getPercentile(double percentile) {
+        Sanity.truthiness((percentile >= 0) && (percentile <= 1), "Percentile must be between 0 and 1");
+        long count = this.count.get();
+        if (count == 0) {
+            return 0;
+        }
+        long needed = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= needed) {
+                long upper = (i == 0) ? 0 : ((i == (BUCKETS - 1)) ? Long.MAX_VALUE : ((1L << i) - 1));
+                return Math.min(upper, this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    /**
+     * Clears all recorded latencies.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.buckets.set(i, 0);
+        }
+        this.count.set(0);
+        this.total.set(0);
+        this.max.set(0);
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("count", this.getCount()).add("mean", this.getMean()).add("p50", this.getPercentile(0.5)).add("p99", this.getPercentile(0.99)).add("max", this.getMax()).toString();
+    }
+}
@@ -23,15 +23,66 @@
  */
 package org.kitteh.irc.client.library.feature.sending;
 
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.util.Sanity;
+
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * A queue for sending messages.
  */
 public interface MessageSendingQueue {
+    /**
+     * Priority of a queued message. Queues supporting priorities send from
+     * each lane in proportion to its weight, so busy lower lanes still
+     * progress while higher lanes are served sooner. Rate limiting applies
+     * to all lanes alike.
+     */
+    enum Priority {
+        /**
+         * Connection upkeep and authentication, such as PING and services
+         * identification.
+         */
+        CONTROL(8),
+        /**
+         * Channel moderation, such as KICK and MODE.
+         */
+        MODERATION(4),
+        /**
+         * Ordinary messages and commands. The default.
+         */
+        INTERACTIVE(2),
+        /**
+         * Large or background output, such as multi-line pastes and
+         * automatic WHO and MODE queries.
+         */
+        BULK(1);
+
+        private final int weight;
+
+        Priority(int weight) {
+            this.weight = weight;
+        }
+
+        /**
+         * Gets the relative share of sending given to this priority while
+         * other priorities also have messages waiting.
+         *
+         * @return weight
+         */
+        public int getWeight() {
+            return this.weight;
+        }
+    }
+
     /**
      * Starts sending messages to the given consumer.
      *
@@ -55,6 +106,28 @@ public interface MessageSendingQueue {
     @Nonnull
     Optional<Consumer<String>> getConsumer();
 
+    /**
+     * Gets the total UTF-8 length of the messages not yet sent, not counting
+     * line endings.
+     *
+     * @return bytes waiting, by default 0
+     */
+    default long getPendingBytes() {
+        return 0;
+    }
+
+    /**
+     * Gets the number of PRIVMSG and NOTICE messages not yet sent for each
+     * target.
+     *
+     * @return lower case targets mapped to their waiting message count, by
+     * default empty
+     */
+    @Nonnull
+    default Map<String, Integer> getTargetCounts() {
+        return Collections.emptyMap();
+    }
+
     /**
      * Pauses message sending.
      */
@@ -67,6 +140,77 @@ public interface MessageSendingQueue {
      */
     void queue(@Nonnull String message);
 
+    /**
+     * Queues a given message with a priority. Queues without priority
+     * support queue it as any other message.
+     *
+     * @param message the message to queue
+     * @param priority priority of the message
+     */
+    default void queue(@Nonnull String message, @Nonnull Priority priority) {
+        this.queue(message);
+    }
+
+    /**
+     * Removes all messages not yet sent which match a filter.
+     *
+     * @param filter filter returning true for messages to remove
+     * @return number of messages removed, by default 0 as nothing is
+     * removed
+     */
+    default int removeIf(@Nonnull Predicate<String> filter) {
+        return 0;
+    }
+
+    /**
+     * Removes all PRIVMSG and NOTICE messages not yet sent to a given
+     * target, such as a channel the client has left. Messages sent to
+     * several targets at once are queued again for the others.
+     *
+     * @param target target whose messages are removed
+     * @param caseMapping case mapping for comparing targets
+     * @return number of messages removed
+     */
+    default int removeTarget(@Nonnull String target, @Nonnull CaseMapping caseMapping) {
+        Sanity.nullCheck(target, "Target cannot be null");
+        Sanity.nullCheck(caseMapping, "Case mapping cannot be null");
+        List<String> remaining = new ArrayList<>();
+        int removed = this.removeIf(message -> {
+            int start = PriorityLaneQueue.getTargetStart(message);
+            if (start < 0) {
+                return false;
+            }
+            int end = message.indexOf(' ', start);
+            if (end < 0) {
+                end = message.length();
+            }
+            StringBuilder others = new StringBuilder();
+            boolean found = false;
+            for (String name : message.substring(start, end).split(",")) {
+                if (caseMapping.areEqualIgnoringCase(name, target)) {
+                    found = true;
+                } else if (!name.isEmpty()) {
+                    others.append((others.length() == 0) ? "" : ",").append(name);
+                }
+            }
+            if (found && (others.length() > 0)) {
+                remaining.add(message.substring(0, start) + others + message.substring(end));
+            }
+            return found;
+        });
+        remaining.forEach(this::queue);
+        return removed;
+    }
+
+    /**
+     * Gets the number of messages not yet sent.
+     *
+     * @return number of waiting messages, by default 0
+     */
+    default int size() {
+        return 0;
+    }
+
     /**
      * Closes down shop, interrupts all threads. No further messages.
      *
@@ -74,4 +218,17 @@ public interface MessageSendingQueue {
      */
     @Nonnull
     Queue<String> shutdown();
+
+    /**
+     * Shuts down as {@link #shutdown()} does, keeping the priority of each
+     * unsent message so a replacement queue can take them over. By default
+     * all messages are given the priority of {@link #queue(String)},
+     * {@link Priority#INTERACTIVE}.
+     *
+     * @return unsent messages by priority
+     */
+    @Nonnull
+    default Map<Priority, List<String>> shutdownByPriority() {
+        return Collections.singletonMap(Priority.INTERACTIVE, new ArrayList<>(this.shutdown()));
+    }
 }
@@ -0,0 +1,583 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.util.Pair;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.StringUtil;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe queue of messages split into {@link
+ * MessageSendingQueue.Priority} lanes. Lanes with messages waiting are
+ * drained by smooth weighted round robin: each lane is served in proportion
+ * to its weight, interleaved rather than in bursts, and a lane with nothing
+ * waiting accrues no credit. Within a lane, order is first in first out.
+ * <p>
+ * With {@link #enableTargetFairness(int) target fairness} enabled, PRIVMSG
+ * and NOTICE lines in each lane are grouped by target and the targets are
+ * served in turn, so one busy channel cannot hold back the others. Each
+ * target keeps at most a set number of lines waiting, dropping its oldest
+ * when full. Other lines form one more group of their own, never dropped.
+ * Targets are compared under the given {@link CaseMapping}, by default
+ * {@link CaseMapping#ASCII}.
+ * <p>
+ * A count of each distinct waiting line is kept alongside the lanes, so
+ * {@link #contains(Object)} takes constant time however long the queue.
+ * The UTF-8 length of all waiting lines is kept too, and any waiting lines
+ * can be {@link #removeMatching(Predicate) removed} at once.
+ * <p>
+ * Iteration visits lanes from highest to lowest priority, and targets in
+ * their current turn order, working on a read-only snapshot.
+ */
+public class PriorityLaneQueue extends AbstractQueue<String> {
+    private static final MessageSendingQueue.Priority[] PRIORITIES = MessageSendingQueue.Priority.values();
+    private static final String UNTARGETED = "";
+
+    private static final class Lane {
+        private final Map<String, ArrayDeque<String>> groups = new HashMap<>();
+        private final ArrayDeque<String> turns = new ArrayDeque<>();
+        private int credit;
+        private int size;
+
+        @Nonnull
+        private ArrayDeque<String> getGroup(@Nonnull String key) {
+            ArrayDeque<String> group = this.groups.get(key);
+            if (group == null) {
+                group = new ArrayDeque<>();
+                this.groups.put(key, group);
+                this.turns.add(key);
+            }
+            return group;
+        }
+
+        @Nullable
+        private String peek() {
+            String key = this.turns.peek();
+            return (key == null) ? null : this.groups.get(key).peek();
+        }
+
+        @Nullable
+        private String poll() {
+            String key = this.turns.poll();
+            if (key == null) {
+                return null;
+            }
+            ArrayDeque<String> group = this.groups.get(key);
+            String message = group.poll();
+            if (group.isEmpty()) {
+                this.groups.remove(key);
+            } else {
+                this.turns.add(key);
+            }
+            this.size--;
+            return message;
+        }
+
+        private boolean remove(@Nullable Object o) {
+            for (Iterator<String> keys = this.turns.iterator(); keys.hasNext(); ) {
+                String key = keys.next();
+                ArrayDeque<String> group = this.groups.get(key);
+                if (group.remove(o)) {
+                    if (group.isEmpty()) {
+                        this.groups.remove(key);
+                        keys.remove();
+                    }
+                    this.size--;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void removeMatching(@Nonnull Predicate<? super String> filter, @Nonnull Consumer<String> removed) {
+            for (Iterator<String> keys = this.turns.iterator(); keys.hasNext(); ) {
+                String key = keys.next();
+                ArrayDeque<String> group = this.groups.get(key);
+                for (Iterator<String> messages = group.iterator(); messages.hasNext(); ) {
+                    String message = messages.next();
+                    if (filter.test(message)) {
+                        messages.remove();
+                        this.size--;
+                        removed.accept(message);
+                    }
+                }
+                if (group.isEmpty()) {
+                    this.groups.remove(key);
+                    keys.remove();
+                }
+            }
+        }
+
+        private void clear() {
+            this.groups.clear();
+            this.turns.clear();
+            this.credit = 0;
+            this.size = 0;
+        }
+
+        private void addTo(@Nonnull List<String> list) {
+            for (String key : this.turns) {
+                list.addAll(this.groups.get(key));
+            }
+        }
+    }
+
+    private final Lane[] lanes = new Lane[PRIORITIES.length];
+    private final Map<String, Integer> waiting = new HashMap<>();
+    private final MessageSendingQueue.Priority defaultPriority;
+    private final Supplier<CaseMapping> caseMapping;
+    private int maximumPerTarget;
+    private long dropped;
+    private long bytes;
+    private int size;
+
+    /**
+     * Creates a queue placing messages without a stated priority in the
+     * {@link MessageSendingQueue.Priority#INTERACTIVE} lane.
+     */
+    public PriorityLaneQueue() {
+        this(MessageSendingQueue.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Creates a queue.
+     *
+     * @param defaultPriority lane for messages without a stated priority
+     */
+    public PriorityLaneQueue(@Nonnull MessageSendingQueue.Priority defaultPriority) {
+        this(defaultPriority, () -> CaseMapping.ASCII);
+    }
+
+    /**
+     * Creates a queue comparing targets under a case mapping which may
+     * change, such as that of the server connected to.
+     *
+     * @param defaultPriority lane for messages without a stated priority
+     * @param caseMapping supplier of the case mapping for comparing targets
+     */
+    public PriorityLaneQueue(@Nonnull MessageSendingQueue.Priority defaultPriority, @Nonnull Supplier<CaseMapping> caseMapping) {
+        this.defaultPriority = Sanity.nullCheck(defaultPriority, "Default priority cannot be null");
+        this.caseMapping = Sanity.nullCheck(caseMapping, "Case mapping cannot be null");
+        for (int i = 0; i < this.lanes.length; i++) {
+            this.lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * Enables serving PRIVMSG and NOTICE targets in turn within each lane,
+     * regrouping any messages already waiting.
+     *
+     * @param maximumPerTarget most lines a single target may have waiting
+     * in a lane before its oldest are dropped
+     * @throws IllegalArgumentException if maximum is less than one
+     */
+    public synchronized void enableTargetFairness(int maximumPerTarget) {
+        Sanity.truthiness(maximumPerTarget > 0, "Maximum per target must be at least one");
+        this.regroup(maximumPerTarget);
+    }
+
+    /**
+     * Disables target fairness, returning each lane to first in first out
+     * in the current turn order.
+     */
+    public synchronized void disableTargetFairness() {
+        this.regroup(0);
+    }
+
+    /**
+     * Gets the most lines a single target may have waiting in a lane.
+     *
+     * @return maximum per target, or zero if target fairness is disabled
+     */
+    public synchronized int getMaximumPerTarget() {
+        return this.maximumPerTarget;
+    }
+
+    /**
+     * Gets the number of messages dropped because their target had too
+     * many lines waiting.
+     *
+     * @return dropped message count
+     */
+    public synchronized long getDroppedCount() {
+        return this.dropped;
+    }
+
+    @Override
+    public boolean offer(@Nonnull String message) {
+        return this.offer(message, this.defaultPriority);
+    }
+
+    /**
+     * Adds a message to the lane of the given priority. With target
+     * fairness enabled, this may drop the oldest waiting line for the same
+     * target.
+     *
+     * @param message message to add
+     * @param priority priority of the message
+     * @return true, always
+     */
+    public synchronized boolean offer(@Nonnull String message, @Nonnull MessageSendingQueue.Priority priority) {
+        Sanity.nullCheck(message, "Message cannot be null");
+        Sanity.nullCheck(priority, "Priority cannot be null");
+        this.add(this.lanes[priority.ordinal()], message);
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public synchronized String poll() {
+        int index = this.selectLane(true);
+        return (index < 0) ? null : this.poll(index);
+    }
+
+    /**
+     * Retrieves and removes the next message as {@link #poll()} does,
+     * along with the priority of the lane it waited in.
+     *
+     * @return message and its priority, or null if empty
+     */
+    @Nullable
+    public synchronized Pair<String, MessageSendingQueue.Priority> pollWithPriority() {
+        int index = this.selectLane(true);
+        return (index < 0) ? null : new Pair<>(this.poll(index), PRIORITIES[index]);
+    }
+
+    /**
+     * Removes all waiting messages, keeping their priorities. Within each
+     * priority, messages are in the order they would have been sent.
+     *
+     * @return waiting messages by priority, from highest to lowest
+     */
+    @Nonnull
+    public synchronized Map<MessageSendingQueue.Priority, List<String>> drain() {
+        Map<MessageSendingQueue.Priority, List<String>> drained = new EnumMap<>(MessageSendingQueue.Priority.class);
+        for (int i = 0; i < this.lanes.length; i++) {
+            List<String> messages = new ArrayList<>(this.lanes[i].size);
+            String message;
+            while ((message = this.lanes[i].poll()) != null) {
+                messages.add(message);
+            }
+            if (!messages.isEmpty()) {
+                drained.put(PRIORITIES[i], messages);
+            }
+        }
+        this.clear();
+        return drained;
+    }
+
+    @Nonnull
+    private String poll(int index) {
+        Lane lane = this.lanes[index];
+        String message = lane.poll();
+        this.untrack(message);
+        this.size--;
+        if (lane.size == 0) {
+            lane.credit = 0;
+        }
+        return message;
+    }
+
+    @Nullable
+    @Override
+    public synchronized String peek() {
+        int index = this.selectLane(false);
+        return (index < 0) ? null : this.lanes[index].peek();
+    }
+
+    @Override
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the number of messages waiting in a given lane.
+     *
+     * @param priority lane priority
+     * @return number of messages waiting
+     */
+    public synchronized int size(@Nonnull MessageSendingQueue.Priority priority) {
+        return this.lanes[Sanity.nullCheck(priority, "Priority cannot be null").ordinal()].size;
+    }
+
+    /**
+     * Gets the total UTF-8 length of all waiting messages, not counting
+     * line endings.
+     *
+     * @return bytes waiting
+     */
+    public synchronized long getPendingBytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Gets the number of PRIVMSG and NOTICE lines waiting for each target.
+     *
+     * @return targets, lowercased by the case mapping, mapped to their
+     * waiting line count
+     */
+    @Nonnull
+    public synchronized Map<String, Integer> getTargetCounts() {
+        CaseMapping caseMapping = this.getCaseMapping();
+        Map<String, Integer> counts = new HashMap<>();
+        for (Lane lane : this.lanes) {
+            for (ArrayDeque<String> group : lane.groups.values()) {
+                for (String message : group) {
+                    String target = getTarget(message, caseMapping);
+                    if (target != null) {
+                        counts.merge(target, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Removes all waiting messages matching a filter.
+     *
+     * @param filter filter returning true for messages to remove
+     * @return number of messages removed
+     */
+    public synchronized int removeMatching(@Nonnull Predicate<? super String> filter) {
+        Sanity.nullCheck(filter, "Filter cannot be null");
+        int before = this.size;
+        for (Lane lane : this.lanes) {
+            lane.removeMatching(filter, message -> {
+                this.untrack(message);
+                this.size--;
+            });
+            if (lane.size == 0) {
+                lane.credit = 0;
+            }
+        }
+        return before - this.size;
+    }
+
+    @Override
+    public boolean removeIf(@Nonnull Predicate<? super String> filter) {
+        return this.removeMatching(filter) > 0;
+    }
+
+    @Override
+    public synchronized boolean contains(@Nullable Object o) {
+        return this.waiting.containsKey(o);
+    }
+
+    @Override
+    public synchronized boolean remove(@Nullable Object o) {
+        if (!this.waiting.containsKey(o)) {
+            return false;
+        }
+        for (Lane lane : this.lanes) {
+            if (lane.remove(o)) {
+                this.untrack((String) o);
+                this.size--;
+                if (lane.size == 0) {
+                    lane.credit = 0;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (Lane lane : this.lanes) {
+            lane.clear();
+        }
+        this.waiting.clear();
+        this.bytes = 0;
+        this.size = 0;
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<String> iterator() {
+        List<String> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(this.size);
+            for (Lane lane : this.lanes) {
+                lane.addTo(snapshot);
+            }
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    private void add(@Nonnull Lane lane, @Nonnull String message) {
+        String target = (this.maximumPerTarget > 0) ? getTarget(message, this.getCaseMapping()) : null;
+        ArrayDeque<String> group = lane.getGroup((target == null) ? UNTARGETED : target);
+        if ((target != null) && (group.size() >= this.maximumPerTarget)) {
+            this.untrack(group.poll());
+            lane.size--;
+            this.size--;
+            this.dropped++;
+        }
+        group.add(message);
+        this.waiting.merge(message, 1, Integer::sum);
+        this.bytes += StringUtil.getUtf8Length(message);
+        lane.size++;
+        this.size++;
+    }
+
+    private void untrack(@Nonnull String message) {
+        this.bytes -= StringUtil.getUtf8Length(message);
+        this.waiting.computeIfPresent(message, (key, count) -> (count == 1) ? null : (count - 1));
+    }
+
+    /**
+     * Gets the case mapping currently used for comparing targets.
+     *
+     * @return case mapping
+     */
+    @Nonnull
+    public CaseMapping getCaseMapping() {
+        return this.caseMapping.get();
+    }
+
+    private void regroup(int maximumPerTarget) {
+        this.maximumPerTarget = maximumPerTarget;
+        for (Lane lane : this.lanes) {
+            List<String> messages = new ArrayList<>(lane.size);
+            lane.addTo(messages);
+            int credit = lane.credit;
+            this.size -= lane.size;
+            lane.clear();
+            lane.credit = credit;
+            messages.forEach(this::untrack);
+            for (String message : messages) {
+                this.add(lane, message);
+            }
+        }
+    }
+
+    /**
+     * Gets the target of a PRIVMSG or NOTICE line, skipping any message
+     * tags.
+     *
+     * @param line line to be sent
+     * @param caseMapping case mapping to lowercase the target with
+     * @return lower case target, or null if not a PRIVMSG or NOTICE
+     */
+    @Nullable
+    static String getTarget(@Nonnull String line, @Nonnull CaseMapping caseMapping) {
+        int start = getTargetStart(line);
+        if (start < 0) {
+            return null;
+        }
+        int end = line.indexOf(' ', start);
+        String target = line.substring(start, (end < 0) ? line.length() : end);
+        return target.isEmpty() ? null : caseMapping.toLowerCase(target);
+    }
+
+    /**
+     * Gets where the target list of a PRIVMSG or NOTICE line starts,
+     * skipping any message tags.
+     *
+     * @param line line to be sent
+     * @return index of the targets, or -1 if not a PRIVMSG or NOTICE
+     */
+    static int getTargetStart(@Nonnull String line) {
+        int start = 0;
+        if (line.startsWith("@")) {
+            start = line.indexOf(' ') + 1;
+            if (start == 0) {
+                return -1;
+            }
+        }
+        while ((start < line.length()) && (line.charAt(start) == ' ')) {
+            start++;
+        }
+        int end = line.indexOf(' ', start);
+        if (end < 0) {
+            return -1;
+        }
+        int length = end - start;
+        if (!((length == 7) && line.regionMatches(true, start, "PRIVMSG", 0, 7)) && !((length == 6) && line.regionMatches(true, start, "NOTICE", 0, 6))) {
+            return -1;
+        }
+        return end + 1;
+    }
+
+    /**
+     * Picks the next lane to serve. Every waiting lane earns its weight and
+     * the richest lane is served, paying back the total earned.
+     *
+     * @param commit true to keep the credit changes, false to only look
+     * @return lane index, or -1 if all lanes are empty
+     */
+    private int selectLane(boolean commit) {
+        int selected = -1;
+        int selectedCredit = 0;
+        int total = 0;
+        for (int i = 0; i < this.lanes.length; i++) {
+            Lane lane = this.lanes[i];
+            if (lane.size == 0) {
+                continue;
+            }
+            int weight = PRIORITIES[i].getWeight();
+            int laneCredit = lane.credit + weight;
+            if (commit) {
+                lane.credit = laneCredit;
+            }
+            total += weight;
+            if ((selected < 0) || (laneCredit > selectedCredit)) {
+                selected = i;
+                selectedCredit = laneCredit;
+            }
+        }
+        if (commit && (selected >= 0)) {
+            this.lanes[selected].credit -= total;
+        }
+        return selected;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized String toString() {
+        ToStringer stringer = new ToStringer(this);
+        for (MessageSendingQueue.Priority priority : PRIORITIES) {
+            stringer.add(priority.name(), this.lanes[priority.ordinal()].size);
+        }
+        return stringer.add("maximumPerTarget", this.maximumPerTarget).add("bytes", this.bytes).add("dropped", this.dropped).toString();
+    }
+}
@@ -28,15 +28,31 @@ import org.kitteh.irc.client.library.util.QueueProcessingThread;
 import org.kitteh.irc.client.library.util.Sanity;
 
 import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * A {@link MessageSendingQueue} using {@link QueueProcessingThread}.
+ * Messages wait in a {@link PriorityLaneQueue}, so the lane of the next
+ * message is chosen before {@link #checkReady(String)} applies any delay.
+ * Target fairness can be enabled when building the client, for example:
+ * <pre>
+ * {@code builder.messageSendingQueueSupplier(client -> {
+ *     SingleDelaySender sender = new SingleDelaySender(client, "Scheduled", 1200);
+ *     sender.enableTargetFairness(20);
+ *     return sender;
+ * });}
+ * </pre>
+ * A message already taken from the queue, such as one waiting out a delay
+ * in {@link #checkReady(String)}, can no longer be removed or counted.
  */
 public class QueueProcessingThreadSender extends QueueProcessingThread<String> implements MessageSendingQueue {
     private final Client client;
+    private final PriorityLaneQueue lanes;
     private Consumer<String> consumer = string -> {
     };
     private final Object sendingLock = new Object();
@@ -49,8 +65,13 @@ public class QueueProcessingThreadSender extends QueueProcessingThread<String> i
      * @param name name of this sending queue
      */
     public QueueProcessingThreadSender(@Nonnull Client client, @Nonnull String name) {
-        super("KICL " + Sanity.nullCheck(name, "Name cannot be null") + " Sending Queue (" + Sanity.nullCheck(client, "Client cannot be null").getName() + ')');
+        this(client, name, new PriorityLaneQueue(Priority.INTERACTIVE, () -> client.getServerInfo().getCaseMapping()));
+    }
+
+    private QueueProcessingThreadSender(@Nonnull Client client, @Nonnull String name, @Nonnull PriorityLaneQueue lanes) {
+        super("KICL " + Sanity.nullCheck(name, "Name cannot be null") + " Sending Queue (" + Sanity.nullCheck(client, "Client cannot be null").getName() + ')', lanes);
         this.client = client;
+        this.lanes = lanes;
     }
 
     @Override
@@ -96,6 +117,75 @@ public class QueueProcessingThreadSender extends QueueProcessingThread<String> i
         return this.client;
     }
 
+    @Override
+    public void queue(@Nonnull String message, @Nonnull Priority priority) {
+        Sanity.nullCheck(message, "Message cannot be null");
+        Sanity.nullCheck(priority, "Priority cannot be null");
+        this.addToQueue(() -> this.lanes.offer(message, priority));
+    }
+
+    /**
+     * Enables serving PRIVMSG and NOTICE targets in turn within each
+     * priority, so one busy target cannot hold back the others.
+     *
+     * @param maximumPerTarget most lines a single target may have waiting
+     * per priority before its oldest are dropped
+     * @throws IllegalArgumentException if maximum is less than one
+     * @see PriorityLaneQueue#enableTargetFairness(int)
+     */
+    public void enableTargetFairness(int maximumPerTarget) {
+        this.lanes.enableTargetFairness(maximumPerTarget);
+    }
+
+    /**
+     * Disables target fairness, returning to first in first out sending
+     * within each priority.
+     */
+    public void disableTargetFairness() {
+        this.lanes.disableTargetFairness();
+    }
+
+    /**
+     * Gets the number of messages dropped because their target had too
+     * many lines waiting.
+     *
+     * @return dropped message count
+     */
+    public long getDroppedCount() {
+        return this.lanes.getDroppedCount();
+    }
+
+    /**
+     * Gets the number of messages waiting with a given priority.
+     *
+     * @param priority priority
+     * @return number of waiting messages
+     */
+    public int getQueueSize(@Nonnull Priority priority) {
+        return this.lanes.size(priority);
+    }
+
+    @Override
+    public long getPendingBytes() {
+        return this.lanes.getPendingBytes();
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, Integer> getTargetCounts() {
+        return this.lanes.getTargetCounts();
+    }
+
+    @Override
+    public int removeIf(@Nonnull Predicate<String> filter) {
+        return this.lanes.removeMatching(filter);
+    }
+
+    @Override
+    public int size() {
+        return this.lanes.size();
+    }
+
     @Override
     public void beginSending(@Nonnull Consumer<String> consumer) {
         Sanity.nullCheck(consumer, "Consumer cannot be null");
@@ -128,4 +218,11 @@ public class QueueProcessingThreadSender extends QueueProcessingThread<String> i
             return this.getQueue();
         }
     }
+
+    @Nonnull
+    @Override
+    public Map<Priority, List<String>> shutdownByPriority() {
+        this.shutdown();
+        return this.lanes.drain();
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.util.Sanity;
+
+import javax.annotation.Nonnull;
+import java.util.function.Function;
+
+/**
+ * A {@link QueueProcessingThreadSender} waiting on a {@link
+ * SharedRateLimit}, which may be shared with other clients. For example,
+ * to hold several connections of one account to a single budget:
+ * <pre>
+ * {@code SharedRateLimit limit = new SharedRateLimit(20, 30000);
+ * builder.messageSendingQueueSupplier(SharedLimitSender.getSupplier(limit));}
+ * </pre>
+ */
+public class SharedLimitSender extends QueueProcessingThreadSender {
+    /**
+     * Gets a supplier of senders sharing a limit.
+     *
+     * @param limit limit to share
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, SharedLimitSender> getSupplier(@Nonnull SharedRateLimit limit) {
+        Sanity.nullCheck(limit, "Limit cannot be null");
+        return client -> new SharedLimitSender(client, "SharedLimit", limit);
+    }
+
+    private final SharedRateLimit limit;
+
+    /**
+     * Constructs the sending queue.
+     *
+     * @param client the client
+     * @param name name of this sending queue
+     * @param limit limit to wait on
+     */
+    public SharedLimitSender(@Nonnull Client client, @Nonnull String name, @Nonnull SharedRateLimit limit) {
+        super(client, name);
+        this.limit = Sanity.nullCheck(limit, "Limit cannot be null");
+    }
+
+    /**
+     * Gets the limit this sender waits on.
+     *
+     * @return limit
+     */
+    @Nonnull
+    public SharedRateLimit getLimit() {
+        return this.limit;
+    }
+
+    @Override
+    protected boolean checkReady(@Nonnull String message) {
+        long wait = this.limit.reserve();
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                this.interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * A limit of a number of messages per time window, shareable by the
+ * sending queues of several clients. Servers such as Twitch enforce their
+ * limits per account or per address rather than per connection, so
+ * clients sharing one should share a limit too.
+ * <p>
+ * Senders reserve a slot for each message just before sending it and wait
+ * until the slot's time. Slots are handed out in the order reserved, and as
+ * each sender reserves only for the message it is about to send, every
+ * client with messages waiting gets its turn. The lock is held only to
+ * claim a slot, never while waiting.
+ *
+ * @see SharedLimitSender
+ */
+public class SharedRateLimit {
+    private final int count;
+    private final long window;
+    private final LongSupplier clock;
+    private final long[] slots;
+    private int index;
+
+    /**
+     * Constructs a limit using the system's monotonic clock.
+     *
+     * @param count number of messages allowed per window
+     * @param windowMillis window length, in milliseconds
+     * @throws IllegalArgumentException if count or window is not positive
+     */
+    public SharedRateLimit(int count, long windowMillis) {
+        this(count, windowMillis, () -> System.nanoTime() / 1_000_000);
+    }
+
+    /**
+     * Constructs a limit.
+     *
+     * @param count number of messages allowed per window
+     * @param windowMillis window length, in milliseconds
+     * @param clock source of the current time, in milliseconds
+     * @throws IllegalArgumentException if count or window is not positive,
+     * or clock is null
+     */
+    public SharedRateLimit(int count, long windowMillis, @Nonnull LongSupplier clock) {
+        Sanity.truthiness(count > 0, "Count must be positive");
+        Sanity.truthiness(windowMillis > 0, "Window must be positive");
+        this.count = count;
+        this.window = windowMillis;
+        this.clock = Sanity.nullCheck(clock, "Clock cannot be null");
+        this.slots = new long[count];
+        Arrays.fill(this.slots, clock.getAsLong() - windowMillis);
+    }
+
+    /**
+     * Gets the number of messages allowed per window.
+     *
+     * @return message count
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     * Gets the window length.
+     *
+     * @return window length, in milliseconds
+     */
+    public long getWindowMillis() {
+        return this.window;
+    }
+
+    /**
+     * Reserves a slot for sending one message. The slot is taken whether
+     * or not the message is then sent.
+     *
+     * @return milliseconds to wait before sending, zero to send now
+     */
+    public long reserve() {
+        long now = this.clock.getAsLong();
+        long time;
+        synchronized (this.slots) {
+            // The slot being replaced is that of the message sent count messages ago
+            time = Math.max(now, this.slots[this.index] + this.window);
+            this.slots[this.index] = time;
+            if (++this.index == this.slots.length) {
+                this.index = 0;
+            }
+        }
+        return time - now;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("count", this.count).add("windowMillis", this.window).toString();
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.util.Pair;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.StringUtil;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A {@link MessageSendingQueue} pacing messages with a {@link TokenBucket}
+ * and driven by a {@link Timer}. Unlike the {@link
+ * QueueProcessingThreadSender} family, no thread sleeps or holds a lock
+ * while waiting for the next message to be allowed: a timeout is scheduled
+ * instead, so many clients can share the timer's single thread.
+ * <p>
+ * Messages wait in a {@link PriorityLaneQueue}, with priorities and
+ * optional target fairness as for other senders. A message taken from the
+ * queue but not yet allowed is held until sent. It is not counted by
+ * {@link #contains(String)}, but is otherwise treated as still waiting: it
+ * is counted by {@link #size()} and can be removed.
+ */
+public class TimerSender implements MessageSendingQueue {
+    private static final long TICK_MILLIS = 10;
+
+    private static volatile Timer sharedTimer;
+
+    /**
+     * Gets the timer shared by senders not given their own, creating it if
+     * needed. Its thread is a daemon and ticks every 10 milliseconds.
+     *
+     * @return shared timer
+     */
+    @Nonnull
+    public static Timer getSharedTimer() {
+        Timer timer = sharedTimer;
+        if (timer == null) {
+            synchronized (TimerSender.class) {
+                timer = sharedTimer;
+                if (timer == null) {
+                    timer = new HashedWheelTimer(runnable -> {
+                        Thread thread = new Thread(runnable, "KICL Sending Timer");
+                        thread.setDaemon(true);
+                        return thread;
+                    }, TICK_MILLIS, TimeUnit.MILLISECONDS);
+                    sharedTimer = timer;
+                }
+            }
+        }
+        return timer;
+    }
+
+    /**
+     * Gets a sender supplier using a preset and the shared timer.
+     *
+     * @param preset preset to use
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, TimerSender> getSupplier(@Nonnull TokenBucketSender.Preset preset) {
+        Sanity.nullCheck(preset, "Preset cannot be null");
+        return client -> new TimerSender(client, new TokenBucket(preset.getCapacity(), preset.getRefillPerSecond()), preset.getCost());
+    }
+
+    /**
+     * Gets a sender supplier using the shared timer, where every line
+     * costs one token.
+     *
+     * @param capacity number of lines that can be sent in a burst
+     * @param refillPerSecond lines regained per second
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, TimerSender> getSupplier(double capacity, double refillPerSecond) {
+        return getSupplier(capacity, refillPerSecond, line -> 1);
+    }
+
+    /**
+     * Gets a sender supplier using the shared timer.
+     *
+     * @param capacity burst size, in cost units
+     * @param refillPerSecond cost units regained per second
+     * @param cost function calculating the cost of a line
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, TimerSender> getSupplier(double capacity, double refillPerSecond, @Nonnull ToDoubleFunction<String> cost) {
+        Sanity.nullCheck(cost, "Cost cannot be null");
+        return client -> new TimerSender(client, new TokenBucket(capacity, refillPerSecond), cost);
+    }
+
+    private final Client client;
+    private final Timer timer;
+    private final TokenBucket bucket;
+    private final ToDoubleFunction<String> cost;
+    private final PriorityLaneQueue lanes;
+    private final Object lock = new Object();
+    private volatile Consumer<String> consumer;
+    private boolean sending;
+    private boolean shutdown;
+    private boolean scheduled;
+    private String next;
+    private Priority nextPriority;
+    private Timeout timeout;
+
+    /**
+     * Constructs the sending queue on the shared timer.
+     *
+     * @param client the client
+     * @param bucket bucket limiting sending
+     * @param cost function calculating the cost of a line
+     */
+    public TimerSender(@Nonnull Client client, @Nonnull TokenBucket bucket, @Nonnull ToDoubleFunction<String> cost) {
+        this(client, getSharedTimer(), bucket, cost);
+    }
+
+    /**
+     * Constructs the sending queue.
+     *
+     * @param client the client
+     * @param timer timer driving sending
+     * @param bucket bucket limiting sending
+     * @param cost function calculating the cost of a line
+     */
+    public TimerSender(@Nonnull Client client, @Nonnull Timer timer, @Nonnull TokenBucket bucket, @Nonnull ToDoubleFunction<String> cost) {
+        this.client = Sanity.nullCheck(client, "Client cannot be null");
+        this.timer = Sanity.nullCheck(timer, "Timer cannot be null");
+        this.bucket = Sanity.nullCheck(bucket, "Bucket cannot be null");
+        this.cost = Sanity.nullCheck(cost, "Cost cannot be null");
+        this.lanes = new PriorityLaneQueue(Priority.INTERACTIVE, () -> client.getServerInfo().getCaseMapping());
+    }
+
+    /**
+     * Gets the bucket limiting sending.
+     *
+     * @return bucket
+     */
+    @Nonnull
+    public TokenBucket getBucket() {
+        return this.bucket;
+    }
+
+    /**
+     * Enables serving PRIVMSG and NOTICE targets in turn within each
+     * priority.
+     *
+     * @param maximumPerTarget most lines a single target may have waiting
+     * per priority before its oldest are dropped
+     * @throws IllegalArgumentException if maximum is less than one
+     * @see PriorityLaneQueue#enableTargetFairness(int)
+     */
+    public void enableTargetFairness(int maximumPerTarget) {
+        this.lanes.enableTargetFairness(maximumPerTarget);
+    }
+
+    /**
+     * Disables target fairness.
+     */
+    public void disableTargetFairness() {
+        this.lanes.disableTargetFairness();
+    }
+
+    /**
+     * Gets the number of messages dropped because their target had too
+     * many lines waiting.
+     *
+     * @return dropped message count
+     */
+    public long getDroppedCount() {
+        return this.lanes.getDroppedCount();
+    }
+
+    /**
+     * Gets the number of messages waiting with a given priority.
+     *
+     * @param priority priority
+     * @return number of waiting messages
+     */
+    public int getQueueSize(@Nonnull Priority priority) {
+        return this.lanes.size(priority);
+    }
+
+    @Override
+    public void beginSending(@Nonnull Consumer<String> consumer) {
+        Sanity.nullCheck(consumer, "Consumer cannot be null");
+        synchronized (this.lock) {
+            this.consumer = consumer;
+            this.sending = true;
+            this.schedule(0);
+        }
+    }
+
+    @Override
+    public boolean contains(@Nonnull String message) {
+        return this.lanes.contains(Sanity.nullCheck(message, "Message cannot be null"));
+    }
+
+    @Nonnull
+    @Override
+    public Optional<Consumer<String>> getConsumer() {
+        return Optional.ofNullable(this.consumer);
+    }
+
+    @Override
+    public long getPendingBytes() {
+        synchronized (this.lock) {
+            return this.lanes.getPendingBytes() + ((this.next == null) ? 0 : StringUtil.getUtf8Length(this.next));
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, Integer> getTargetCounts() {
+        synchronized (this.lock) {
+            Map<String, Integer> counts = this.lanes.getTargetCounts();
+            String target = (this.next == null) ? null : PriorityLaneQueue.getTarget(this.next, this.lanes.getCaseMapping());
+            if (target != null) {
+                counts.merge(target, 1, Integer::sum);
+            }
+            return counts;
+        }
+    }
+
+    @Override
+    public int removeIf(@Nonnull Predicate<String> filter) {
+        Sanity.nullCheck(filter, "Filter cannot be null");
+        synchronized (this.lock) {
+            int removed = this.lanes.removeMatching(filter);
+            if ((this.next != null) && filter.test(this.next)) {
+                this.next = null;
+                removed++;
+            }
+            return removed;
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (this.lock) {
+            return this.lanes.size() + ((this.next == null) ? 0 : 1);
+        }
+    }
+
+    @Override
+    public void pause() {
+        synchronized (this.lock) {
+            this.sending = false;
+        }
+    }
+
+    @Override
+    public void queue(@Nonnull String message) {
+        this.queue(message, Priority.INTERACTIVE);
+    }
+
+    @Override
+    public void queue(@Nonnull String message, @Nonnull Priority priority) {
+        Sanity.nullCheck(message, "Message cannot be null");
+        Sanity.nullCheck(priority, "Priority cannot be null");
+        this.lanes.offer(message, priority);
+        synchronized (this.lock) {
+            this.schedule(0);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Queue<String> shutdown() {
+        Queue<String> remaining = new ArrayDeque<>();
+        Pair<String, Priority> held = this.stop();
+        if (held != null) {
+            remaining.add(held.getLeft());
+        }
+        String message;
+        while ((message = this.lanes.poll()) != null) {
+            remaining.add(message);
+        }
+        return remaining;
+    }
+
+    @Nonnull
+    @Override
+    public Map<Priority, List<String>> shutdownByPriority() {
+        Pair<String, Priority> held = this.stop();
+        Map<Priority, List<String>> remaining = this.lanes.drain();
+        if (held != null) {
+            remaining.computeIfAbsent(held.getRight(), priority -> new ArrayList<>()).add(0, held.getLeft());
+        }
+        return remaining;
+    }
+
+    /**
+     * Stops sending.
+     *
+     * @return the message held waiting to be allowed, with its priority,
+     * if any
+     */
+    @Nullable
+    private Pair<String, Priority> stop() {
+        synchronized (this.lock) {
+            this.shutdown = true;
+            this.sending = false;
+            if (this.timeout != null) {
+                this.timeout.cancel();
+                this.timeout = null;
+            }
+            this.scheduled = false;
+            Pair<String, Priority> held = (this.next == null) ? null : new Pair<>(this.next, this.nextPriority);
+            this.next = null;
+            return held;
+        }
+    }
+
+    /**
+     * Schedules a drain unless one is already pending or sending is
+     * stopped. Call while holding the lock.
+     *
+     * @param delay milliseconds to wait
+     */
+    private void schedule(long delay) {
+        if (this.sending && !this.shutdown && !this.scheduled) {
+            this.scheduled = true;
+            this.timeout = this.timer.newTimeout(timeout -> this.drain(), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends as many messages as the bucket allows, then schedules itself
+     * for when the next one is allowed. Only one drain is scheduled or
+     * running at a time.
+     */
+    private void drain() {
+        while (true) {
+            String message;
+            Consumer<String> target;
+            synchronized (this.lock) {
+                this.timeout = null;
+                if (this.sending && !this.shutdown && (this.next == null)) {
+                    Pair<String, Priority> polled = this.lanes.pollWithPriority();
+                    if (polled != null) {
+                        this.next = polled.getLeft();
+                        this.nextPriority = polled.getRight();
+                    }
+                }
+                if (!this.sending || this.shutdown || (this.next == null)) {
+                    this.scheduled = false;
+                    return;
+                }
+                long wait = this.bucket.tryTake(this.cost.applyAsDouble(this.next));
+                if (wait > 0) {
+                    this.timeout = this.timer.newTimeout(timeout -> this.drain(), wait, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                message = this.next;
+                this.next = null;
+                target = this.consumer;
+            }
+            try {
+                target.accept(message);
+            } catch (Exception e) {
+                this.client.getExceptionListener().queue(e);
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("client", this.client).add("bucket", this.bucket).add("lanes", this.lanes).toString();
+    }
+}
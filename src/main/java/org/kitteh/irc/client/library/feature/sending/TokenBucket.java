@@ -0,0 +1,138 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket, as used by servers to limit how fast clients may send.
+ * The bucket starts full, holds at most its capacity in tokens and refills
+ * at a steady rate. Sending costs tokens, so a full bucket allows a burst
+ * after which sending is paced by the refill rate.
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double refillPerMillisecond;
+    private final LongSupplier clock;
+    private double tokens;
+    private long last;
+
+    /**
+     * Constructs a full token bucket using the system's monotonic clock.
+     *
+     * @param capacity maximum number of tokens, the burst size
+     * @param refillPerSecond tokens regained per second
+     * @throws IllegalArgumentException if capacity or refill rate is not
+     * positive
+     */
+    public TokenBucket(double capacity, double refillPerSecond) {
+        this(capacity, refillPerSecond, () -> System.nanoTime() / 1_000_000);
+    }
+
+    /**
+     * Constructs a full token bucket.
+     *
+     * @param capacity maximum number of tokens, the burst size
+     * @param refillPerSecond tokens regained per second
+     * @param clock source of the current time, in milliseconds
+     * @throws IllegalArgumentException if capacity or refill rate is not
+     * positive, or clock is null
+     */
+    public TokenBucket(double capacity, double refillPerSecond, @Nonnull LongSupplier clock) {
+        Sanity.truthiness(capacity > 0, "Capacity must be positive");
+        Sanity.truthiness(refillPerSecond > 0, "Refill rate must be positive");
+        this.capacity = capacity;
+        this.refillPerMillisecond = refillPerSecond / 1000;
+        this.clock = Sanity.nullCheck(clock, "Clock cannot be null");
+        this.tokens = capacity;
+        this.last = clock.getAsLong();
+    }
+
+    /**
+     * Gets the maximum number of tokens.
+     *
+     * @return capacity
+     */
+    public double getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Gets the number of tokens regained per second.
+     *
+     * @return refill rate
+     */
+    public double getRefillPerSecond() {
+        return this.refillPerMillisecond * 1000;
+    }
+
+    /**
+     * Gets the number of tokens currently available, which is negative
+     * while paying off a cost larger than the capacity.
+     *
+     * @return available tokens
+     */
+    public synchronized double getTokens() {
+        this.refill();
+        return this.tokens;
+    }
+
+    /**
+     * Attempts to take tokens from the bucket. A cost larger than the
+     * capacity is taken once the bucket is full, leaving it in debt.
+     *
+     * @param cost number of tokens to take
+     * @return zero if the tokens were taken, otherwise the number of
+     * milliseconds to wait before there will be enough tokens
+     * @throws IllegalArgumentException if cost is negative
+     */
+    public synchronized long tryTake(double cost) {
+        Sanity.truthiness(cost >= 0, "Cost cannot be negative");
+        this.refill();
+        double needed = Math.min(cost, this.capacity);
+        if (this.tokens >= needed) {
+            this.tokens -= cost;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((needed - this.tokens) / this.refillPerMillisecond));
+    }
+
+    private void refill() {
+        long now = this.clock.getAsLong();
+        if (now > this.last) {
+            this.tokens = Math.min(this.capacity, this.tokens + ((now - this.last) * this.refillPerMillisecond));
+            this.last = now;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("capacity", this.capacity).add("refillPerSecond", this.getRefillPerSecond()).add("tokens", this.getTokens()).toString();
+    }
+}
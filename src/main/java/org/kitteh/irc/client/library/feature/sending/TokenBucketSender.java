@@ -0,0 +1,249 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.StringUtil;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A {@link QueueProcessingThreadSender} pacing messages with a {@link
+ * TokenBucket}, allowing a burst of messages before slowing down to a
+ * steady rate. The cost of each message can depend on its command and
+ * length, matching how many servers apply flood control.
+ */
+public class TokenBucketSender extends QueueProcessingThreadSender {
+    /**
+     * Flood control settings approximating common server software. These
+     * err on the side of caution and are not a substitute for the limits
+     * a particular network documents.
+     */
+    public enum Preset {
+        /**
+         * Hybrid, ratbox, charybdis and solanum: roughly 10 seconds of
+         * allowance with each line costing 2 seconds.
+         */
+        HYBRID(5, 0.5, line -> 1),
+        /**
+         * InspIRCd: roughly 10 seconds of allowance with each command
+         * costing a second and heavier commands costing more.
+         */
+        INSPIRCD(10, 1, perCommand(1, heavyCommands(2))),
+        /**
+         * UnrealIRCd: roughly 10 seconds of allowance with each line
+         * costing a second plus a second per 120 bytes.
+         */
+        UNREALIRCD(10, 1, perByte(1, 1.0 / 120));
+
+        private final double capacity;
+        private final double refillPerSecond;
+        private final ToDoubleFunction<String> cost;
+
+        Preset(double capacity, double refillPerSecond, @Nonnull ToDoubleFunction<String> cost) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+            this.cost = cost;
+        }
+
+        /**
+         * Gets the burst size, in cost units.
+         *
+         * @return capacity
+         */
+        public double getCapacity() {
+            return this.capacity;
+        }
+
+        /**
+         * Gets the cost units regained per second.
+         *
+         * @return refill rate
+         */
+        public double getRefillPerSecond() {
+            return this.refillPerSecond;
+        }
+
+        /**
+         * Gets the function calculating the cost of a line.
+         *
+         * @return cost function
+         */
+        @Nonnull
+        public ToDoubleFunction<String> getCost() {
+            return this.cost;
+        }
+    }
+
+    /**
+     * Gets a sender supplier using a preset.
+     *
+     * @param preset preset to use
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, TokenBucketSender> getSupplier(@Nonnull Preset preset) {
+        Sanity.nullCheck(preset, "Preset cannot be null");
+        return client -> new TokenBucketSender(client, "TokenBucket " + preset.name(), preset.getCapacity(), preset.getRefillPerSecond(), preset.getCost());
+    }
+
+    /**
+     * Gets a sender supplier where every line costs one token.
+     *
+     * @param capacity number of lines that can be sent in a burst
+     * @param refillPerSecond lines regained per second
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, TokenBucketSender> getSupplier(double capacity, double refillPerSecond) {
+        return getSupplier(capacity, refillPerSecond, line -> 1);
+    }
+
+    /**
+     * Gets a sender supplier.
+     *
+     * @param capacity burst size, in cost units
+     * @param refillPerSecond cost units regained per second
+     * @param cost function calculating the cost of a line
+     * @return supplier
+     */
+    public static Function<Client.WithManagement, TokenBucketSender> getSupplier(double capacity, double refillPerSecond, @Nonnull ToDoubleFunction<String> cost) {
+        Sanity.nullCheck(cost, "Cost cannot be null");
+        return client -> new TokenBucketSender(client, "TokenBucket " + capacity + '/' + refillPerSecond, capacity, refillPerSecond, cost);
+    }
+
+    /**
+     * Gets a cost function charging by command.
+     *
+     * @param defaultCost cost of commands not otherwise specified
+     * @param costs costs by upper case command
+     * @return cost function
+     */
+    @Nonnull
+    public static ToDoubleFunction<String> perCommand(double defaultCost, @Nonnull Map<String, Double> costs) {
+        Map<String, Double> map = new HashMap<>(Sanity.nullCheck(costs, "Costs cannot be null"));
+        return line -> map.getOrDefault(getCommand(line), defaultCost);
+    }
+
+    /**
+     * Gets a cost function charging per line and per byte sent.
+     *
+     * @param perLine cost of every line
+     * @param perByte additional cost per byte of the line, as UTF-8
+     * @return cost function
+     */
+    @Nonnull
+    public static ToDoubleFunction<String> perByte(double perLine, double perByte) {
+        return line -> perLine + (perByte * StringUtil.getUtf8Length(line));
+    }
+
+    /**
+     * Gets the command of a line, skipping any message tags.
+     *
+     * @param line line to be sent
+     * @return upper case command, or an empty string if none
+     */
+    @Nonnull
+    public static String getCommand(@Nonnull String line) {
+        int start = 0;
+        if (line.startsWith("@")) {
+            start = line.indexOf(' ') + 1;
+            if (start == 0) {
+                return "";
+            }
+        }
+        while ((start < line.length()) && (line.charAt(start) == ' ')) {
+            start++;
+        }
+        int end = line.indexOf(' ', start);
+        return line.substring(start, (end < 0) ? line.length() : end).toUpperCase(Locale.ENGLISH);
+    }
+
+    private static Map<String, Double> heavyCommands(double cost) {
+        Map<String, Double> costs = new HashMap<>();
+        for (String command : new String[]{"INVITE", "JOIN", "LIST", "NAMES", "NICK", "WHO", "WHOIS", "WHOWAS"}) {
+            costs.put(command, cost);
+        }
+        return costs;
+    }
+
+    private final TokenBucket bucket;
+    private final ToDoubleFunction<String> cost;
+
+    /**
+     * Constructs the sending queue.
+     *
+     * @param client the client
+     * @param name name of this sending queue
+     * @param capacity burst size, in cost units
+     * @param refillPerSecond cost units regained per second
+     * @param cost function calculating the cost of a line
+     */
+    public TokenBucketSender(@Nonnull Client client, @Nonnull String name, double capacity, double refillPerSecond, @Nonnull ToDoubleFunction<String> cost) {
+        this(client, name, new TokenBucket(capacity, refillPerSecond), cost);
+    }
+
+    /**
+     * Constructs the sending queue around an existing bucket.
+     *
+     * @param client the client
+     * @param name name of this sending queue
+     * @param bucket bucket limiting sending
+     * @param cost function calculating the cost of a line
+     */
+    public TokenBucketSender(@Nonnull Client client, @Nonnull String name, @Nonnull TokenBucket bucket, @Nonnull ToDoubleFunction<String> cost) {
+        super(client, name);
+        this.bucket = Sanity.nullCheck(bucket, "Bucket cannot be null");
+        this.cost = Sanity.nullCheck(cost, "Cost cannot be null");
+    }
+
+    /**
+     * Gets the bucket limiting sending.
+     *
+     * @return bucket
+     */
+    @Nonnull
+    public TokenBucket getBucket() {
+        return this.bucket;
+    }
+
+    @Override
+    protected boolean checkReady(@Nonnull String message) {
+        double cost = this.cost.applyAsDouble(message);
+        long wait;
+        while ((wait = this.bucket.tryTake(cost)) > 0) {
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                this.interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
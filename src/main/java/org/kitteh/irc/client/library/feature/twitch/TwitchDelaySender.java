@@ -25,14 +25,20 @@ package org.kitteh.irc.client.library.feature.twitch;
 
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.feature.sending.QueueProcessingThreadSender;
+import org.kitteh.irc.client.library.feature.sending.SharedLimitSender;
+import org.kitteh.irc.client.library.feature.sending.SharedRateLimit;
+import org.kitteh.irc.client.library.util.Sanity;
 
 import javax.annotation.Nonnull;
 import java.util.function.Function;
 
 /**
- * A {@link QueueProcessingThreadSender} using a single set delay.
+ * A {@link QueueProcessingThreadSender} keeping to Twitch's limit of
+ * commands per 30 seconds. Twitch counts commands per account, so clients
+ * connecting with the same account should share a limit from {@link
+ * #createSharedLimit(boolean)}.
  */
-public class TwitchDelaySender extends QueueProcessingThreadSender {
+public class TwitchDelaySender extends SharedLimitSender {
     /**
      * Number of commands per 30 seconds if only sending to channels in which
      * the client is moderator or operator.
@@ -44,6 +50,19 @@ public class TwitchDelaySender extends QueueProcessingThreadSender {
      */
     public static final int NON_MOD_OP_PER_THIRTY_SECONDS = 20;
 
+    /**
+     * Creates a limit to be shared by all clients of one account.
+     *
+     * @param modOrOpOnly true if will only ever send to channels in which
+     * the clients are moderator or operator
+     * @return new limit
+     * @see #getSharedSupplier(SharedRateLimit)
+     */
+    @Nonnull
+    public static SharedRateLimit createSharedLimit(boolean modOrOpOnly) {
+        return new SharedRateLimit(modOrOpOnly ? MOD_OP_PER_THIRTY_SECONDS : NON_MOD_OP_PER_THIRTY_SECONDS, 30000);
+    }
+
     /**
      * Gets a supplier.
      *
@@ -66,6 +85,18 @@ public class TwitchDelaySender extends QueueProcessingThreadSender {
                 modOrOpOnly ? MOD_OP_PER_THIRTY_SECONDS : NON_MOD_OP_PER_THIRTY_SECONDS);
     }
 
+    /**
+     * Gets a supplier of senders sharing a limit across clients.
+     *
+     * @param limit limit shared by all clients of one account
+     * @return supplier
+     * @see #createSharedLimit(boolean)
+     */
+    public static Function<Client.WithManagement, TwitchDelaySender> getSharedSupplier(@Nonnull SharedRateLimit limit) {
+        Sanity.nullCheck(limit, "Limit cannot be null");
+        return client -> new TwitchDelaySender(client, "TwitchDelay Shared", limit);
+    }
+
     /**
      * Constructs the sending queue.
      *
@@ -74,33 +105,17 @@ public class TwitchDelaySender extends QueueProcessingThreadSender {
      * @param perThirtySeconds messages per thirty seconds
      */
     public TwitchDelaySender(@Nonnull Client client, @Nonnull String name, int perThirtySeconds) {
-        super(client, name);
-        this.timestamps = new long[perThirtySeconds];
+        this(client, name, new SharedRateLimit(perThirtySeconds, 30000));
     }
 
-    private int currentIndex = 0;
-    private final long[] timestamps;
-
-    @Override
-    protected boolean checkReady(@Nonnull String message) {
-        long now;
-        long remaining;
-        do {
-            now = System.currentTimeMillis();
-            remaining = 30000 - (now - this.timestamps[this.currentIndex]);
-            if (remaining > 0) {
-                try {
-                    Thread.sleep(remaining);
-                } catch (InterruptedException e) {
-                    this.interrupt();
-                    return false;
-                }
-            }
-        } while (remaining > 0);
-        this.timestamps[this.currentIndex++] = now;
-        if (this.currentIndex >= this.timestamps.length) {
-            this.currentIndex = 0;
-        }
-        return true;
+    /**
+     * Constructs the sending queue.
+     *
+     * @param client the client
+     * @param name name of this sending queue
+     * @param limit limit, which may be shared with other clients
+     */
+    public TwitchDelaySender(@Nonnull Client client, @Nonnull String name, @Nonnull SharedRateLimit limit) {
+        super(client, name, limit);
     }
 }
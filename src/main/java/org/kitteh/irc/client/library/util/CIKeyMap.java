@@ -28,21 +28,110 @@ import org.kitteh.irc.client.library.feature.CaseMapping;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.AbstractCollection;
 import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * A thread-safe hash map with case insensitive keys tied to {@link Client}'s
  * {@link CaseMapping}. Note that some methods do not behave like all maps.
+ * <p>
+ * Reads do not lock. Should the case mapping change, the map is rebuilt
+ * once under the new mapping and swapped in. Writes hold the same lock as
+ * the rebuild, so none can land in a map already copied.
  */
 public class CIKeyMap<Value> implements Map<String, Value> {
+    private final class State {
+        private final CaseMapping caseMapping;
+        private final Map<String, Pair<String, Value>> map = new ConcurrentHashMap<>();
+
+        private State(@Nonnull CaseMapping caseMapping) {
+            this.caseMapping = caseMapping;
+        }
+    }
+
+    private final class View<Type> extends AbstractCollection<Type> {
+        private final Function<Pair<String, Value>, Type> function;
+
+        private View(@Nonnull Function<Pair<String, Value>, Type> function) {
+            this.function = function;
+        }
+
+        @Nonnull
+        @Override
+        public Iterator<Type> iterator() {
+            return CIKeyMap.this.iterator(this.function);
+        }
+
+        @Override
+        public int size() {
+            return CIKeyMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            CIKeyMap.this.clear();
+        }
+    }
+
+    private final class KeySet extends AbstractSet<String> {
+        @Nonnull
+        @Override
+        public Iterator<String> iterator() {
+            return CIKeyMap.this.iterator(Pair::getLeft);
+        }
+
+        @Override
+        public int size() {
+            return CIKeyMap.this.size();
+        }
+
+        @Override
+        public boolean contains(@Nullable Object o) {
+            return CIKeyMap.this.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(@Nullable Object o) {
+            return CIKeyMap.this.removePair(o) != null;
+        }
+
+        @Override
+        public void clear() {
+            CIKeyMap.this.clear();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, Value>> {
+        @Nonnull
+        @Override
+        public Iterator<Entry<String, Value>> iterator() {
+            return CIKeyMap.this.iterator(pair -> new AbstractMap.SimpleImmutableEntry<>(pair.getLeft(), pair.getRight()));
+        }
+
+        @Override
+        public int size() {
+            return CIKeyMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            CIKeyMap.this.clear();
+        }
+    }
+
     private final Client client;
-    private CaseMapping lastCaseMapping;
-    private final Map<String, Pair<String, Value>> map = new ConcurrentHashMap<>();
+    private volatile State state;
+    private final Set<String> keySet = new KeySet();
+    private final Collection<Value> values = new View<>(Pair::getRight);
+    private final Set<Entry<String, Value>> entrySet = new EntrySet();
 
     /**
      * Constructs a map tied to a client.
@@ -61,35 +150,80 @@ public class CIKeyMap<Value> implements Map<String, Value> {
      * @return lower cased input
      */
     @Nonnull
-    protected final synchronized String toLowerCase(@Nonnull String input) {
+    protected final String toLowerCase(@Nonnull String input) {
+        return this.getState().caseMapping.toLowerCase(input);
+    }
+
+    @Nonnull
+    private State getState() {
         CaseMapping caseMapping = this.client.getServerInfo().getCaseMapping();
-        if (caseMapping != this.lastCaseMapping) {
-            Set<Entry<String, Value>> entrySet = this.entrySet();
-            this.lastCaseMapping = caseMapping;
-            this.map.clear();
-            entrySet.forEach(entry -> this.put(entry.getKey(), entry.getValue()));
+        State state = this.state;
+        if ((state != null) && (state.caseMapping == caseMapping)) {
+            return state;
+        }
+        synchronized (this) {
+            state = this.state;
+            if ((state == null) || (state.caseMapping != caseMapping)) {
+                State newState = new State(caseMapping);
+                if (state != null) {
+                    state.map.values().forEach(pair -> newState.map.put(caseMapping.toLowerCase(pair.getLeft()), pair));
+                }
+                this.state = state = newState;
+            }
+            return state;
         }
-        return caseMapping.toLowerCase(input);
+    }
+
+    @Nonnull
+    private <Type> Iterator<Type> iterator(@Nonnull Function<Pair<String, Value>, Type> function) {
+        State state = this.getState();
+        Iterator<Pair<String, Value>> iterator = state.map.values().iterator();
+        return new Iterator<Type>() {
+            @Nullable
+            private Pair<String, Value> last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Type next() {
+                this.last = iterator.next();
+                return function.apply(this.last);
+            }
+
+            @Override
+            public void remove() {
+                Sanity.truthiness(this.last != null, "No element to remove");
+                CIKeyMap.this.removePair(this.last.getLeft());
+                this.last = null;
+            }
+        };
     }
 
     @Override
     public int size() {
-        return this.map.size();
+        return this.getState().map.size();
     }
 
     @Override
     public boolean isEmpty() {
-        return this.map.isEmpty();
+        return this.getState().map.isEmpty();
     }
 
     @Override
     public boolean containsKey(@Nullable Object key) {
-        return (key instanceof String) && this.map.containsKey(this.toLowerCase((String) key));
+        if (key instanceof String) {
+            State state = this.getState();
+            return state.map.containsKey(state.caseMapping.toLowerCase((String) key));
+        }
+        return false;
     }
 
     @Override
     public boolean containsValue(@Nullable Object value) {
-        for (Pair<String, Value> pair : this.map.values()) {
+        for (Pair<String, Value> pair : this.getState().map.values()) {
             if ((value == null) ? (pair.getRight() == null) : value.equals(pair.getRight())) {
                 return true;
             }
@@ -101,7 +235,8 @@ public class CIKeyMap<Value> implements Map<String, Value> {
     @Override
     public Value get(@Nullable Object key) {
         if (key instanceof String) {
-            Pair<String, Value> pair = this.map.get(this.toLowerCase((String) key));
+            State state = this.getState();
+            Pair<String, Value> pair = state.map.get(state.caseMapping.toLowerCase((String) key));
             return (pair == null) ? null : pair.getRight();
         }
         return null;
@@ -111,18 +246,30 @@ public class CIKeyMap<Value> implements Map<String, Value> {
     @Override
     public Value put(@Nonnull String key, @Nullable Value value) {
         Sanity.nullCheck(key, "Key cannot be null");
-        Pair<String, Value> pair = this.map.put(this.toLowerCase(key), new Pair<>(key, value));
+        Pair<String, Value> pair;
+        synchronized (this) {
+            State state = this.getState();
+            pair = state.map.put(state.caseMapping.toLowerCase(key), new Pair<>(key, value));
+        }
         return (pair == null) ? null : pair.getRight();
     }
 
     @Nullable
     @Override
     public Value remove(@Nullable Object key) {
-        if (key instanceof String) {
-            Pair<String, Value> pair = this.map.remove(this.toLowerCase((String) key));
-            return (pair == null) ? null : pair.getRight();
+        Pair<String, Value> pair = this.removePair(key);
+        return (pair == null) ? null : pair.getRight();
+    }
+
+    @Nullable
+    private Pair<String, Value> removePair(@Nullable Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        synchronized (this) {
+            State state = this.getState();
+            return state.map.remove(state.caseMapping.toLowerCase((String) key));
         }
-        return null;
     }
 
     @Override
@@ -132,46 +279,47 @@ public class CIKeyMap<Value> implements Map<String, Value> {
     }
 
     @Override
-    public void clear() {
-        this.map.clear();
+    public synchronized void clear() {
+        this.getState().map.clear();
     }
 
     /**
-     * Gets an UNCHANGING representation of the keys.
+     * Gets a live view of the keys, with case insensitive lookups.
      *
      * @return set of keys
      */
     @Nonnull
     @Override
     public Set<String> keySet() {
-        return this.map.values().stream().map(Pair::getLeft).collect(Collectors.toSet());
+        return this.keySet;
     }
 
     /**
-     * Gets an UNCHANGING representation of the values.
+     * Gets a live view of the values.
      *
-     * @return list of values
+     * @return collection of values
      */
     @Nonnull
     @Override
     public Collection<Value> values() {
-        return this.map.values().stream().map(Pair::getRight).collect(Collectors.toList());
+        return this.values;
     }
 
     /**
-     * Gets an UNCHANGING representation of the entries.
+     * Gets a live view of the entries. The entries themselves cannot be
+     * modified.
      *
      * @return set of entries
      */
     @Nonnull
     @Override
     public Set<Entry<String, Value>> entrySet() {
-        return this.map.values().stream().map(pair -> new AbstractMap.SimpleImmutableEntry<>(pair.getLeft(), pair.getRight())).collect(Collectors.toSet());
+        return this.entrySet;
     }
 
     @Nonnull
     @Override
     public String toString() {
-        return new ToStringer(this).add("client", this.client).add("map", this.map.values().stream().collect(Collectors.toMap(Pair::getLeft, Pair::getRight))).toString();
+        return new ToStringer(this).add("client", this.client).add("map", this.getState().map.values().stream().collect(Collectors.toMap(Pair::getLeft, Pair::getRight))).toString();
     }
 }
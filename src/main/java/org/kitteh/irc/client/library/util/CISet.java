@@ -29,7 +29,6 @@ import org.kitteh.irc.client.library.feature.CaseMapping;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -39,11 +38,23 @@ import java.util.stream.Collectors;
 /**
  * A thread-safe set with case insensitivity tied to {@link Client}'s {@link
  * CaseMapping}.
+ * <p>
+ * Reads do not lock. Should the case mapping change, the set is rebuilt
+ * once under the new mapping and swapped in. Writes hold the same lock as
+ * the rebuild, so none can land in a set already copied.
  */
 public class CISet implements Set<String> {
+    private static final class State {
+        private final CaseMapping caseMapping;
+        private final Map<String, String> map = new ConcurrentHashMap<>();
+
+        private State(@Nonnull CaseMapping caseMapping) {
+            this.caseMapping = caseMapping;
+        }
+    }
+
     private final Client client;
-    private CaseMapping lastCaseMapping;
-    private final Map<String, String> map = new ConcurrentHashMap<>();
+    private volatile State state;
 
     /**
      * Constructs a set tied to a client.
@@ -61,60 +72,86 @@ public class CISet implements Set<String> {
      * @param input input to convert
      * @return lower cased input
      */
-    protected final synchronized String toLowerCase(@Nonnull String input) {
+    protected final String toLowerCase(@Nonnull String input) {
+        return this.getState().caseMapping.toLowerCase(input);
+    }
+
+    @Nonnull
+    private State getState() {
         CaseMapping caseMapping = this.client.getServerInfo().getCaseMapping();
-        if (caseMapping != this.lastCaseMapping) {
-            Set<String> set = new HashSet<>(this.map.values());
-            this.lastCaseMapping = caseMapping;
-            this.map.clear();
-            set.forEach(this::add);
+        State state = this.state;
+        if ((state != null) && (state.caseMapping == caseMapping)) {
+            return state;
+        }
+        synchronized (this) {
+            state = this.state;
+            if ((state == null) || (state.caseMapping != caseMapping)) {
+                State newState = new State(caseMapping);
+                if (state != null) {
+                    state.map.values().forEach(value -> newState.map.put(caseMapping.toLowerCase(value), value));
+                }
+                this.state = state = newState;
+            }
+            return state;
         }
-        return caseMapping.toLowerCase(input);
     }
 
     @Override
     public int size() {
-        return this.map.size();
+        return this.getState().map.size();
     }
 
     @Override
     public boolean isEmpty() {
-        return this.map.isEmpty();
+        return this.getState().map.isEmpty();
     }
 
     @Override
     public boolean contains(@Nullable Object o) {
-        return (o instanceof String) && this.map.containsKey(this.toLowerCase((String) o));
+        if (o instanceof String) {
+            State state = this.getState();
+            return state.map.containsKey(state.caseMapping.toLowerCase((String) o));
+        }
+        return false;
     }
 
     @Nonnull
     @Override
     public Iterator<String> iterator() {
-        return this.map.values().iterator();
+        return this.getState().map.values().iterator();
     }
 
     @Nonnull
     @Override
     public Object[] toArray() {
-        return this.map.values().toArray();
+        return this.getState().map.values().toArray();
     }
 
     @Nonnull
     @Override
     public <T> T[] toArray(@Nonnull T[] a) {
-        return this.map.values().toArray(a);
+        return this.getState().map.values().toArray(a);
     }
 
     @Override
     public boolean add(@Nonnull String s) {
         Sanity.nullCheck(s, "String cannot be null");
-        this.map.put(this.toLowerCase(s), s);
+        synchronized (this) {
+            State state = this.getState();
+            state.map.put(state.caseMapping.toLowerCase(s), s);
+        }
         return true;
     }
 
     @Override
     public boolean remove(@Nullable Object o) {
-        return (o instanceof String) && (this.map.remove(this.toLowerCase((String) o)) != null);
+        if (!(o instanceof String)) {
+            return false;
+        }
+        synchronized (this) {
+            State state = this.getState();
+            return state.map.remove(state.caseMapping.toLowerCase((String) o)) != null;
+        }
     }
 
     @Override
@@ -136,25 +173,27 @@ public class CISet implements Set<String> {
     }
 
     @Override
-    public boolean retainAll(@Nonnull Collection<?> c) {
+    public synchronized boolean retainAll(@Nonnull Collection<?> c) {
         Sanity.nullCheck(c, "Collection cannot be null");
-        return this.map.keySet().retainAll(c.stream().filter(i -> i instanceof String).map(i -> (String) i).map(this::toLowerCase).collect(Collectors.toSet()));
+        State state = this.getState();
+        return state.map.keySet().retainAll(c.stream().filter(i -> i instanceof String).map(i -> state.caseMapping.toLowerCase((String) i)).collect(Collectors.toSet()));
     }
 
     @Override
-    public boolean removeAll(@Nonnull Collection<?> c) {
+    public synchronized boolean removeAll(@Nonnull Collection<?> c) {
         Sanity.nullCheck(c, "Collection cannot be null");
-        return this.map.keySet().removeAll(c.stream().filter(i -> i instanceof String).map(i -> (String) i).map(this::toLowerCase).collect(Collectors.toSet()));
+        State state = this.getState();
+        return state.map.keySet().removeAll(c.stream().filter(i -> i instanceof String).map(i -> state.caseMapping.toLowerCase((String) i)).collect(Collectors.toSet()));
     }
 
     @Override
-    public void clear() {
-        this.map.clear();
+    public synchronized void clear() {
+        this.getState().map.clear();
     }
 
     @Nonnull
     @Override
     public String toString() {
-        return new ToStringer(this).add("client", this.client).add("set", this.map.values()).toString();
+        return new ToStringer(this).add("client", this.client).add("set", this.getState().map.values()).toString();
     }
 }
@@ -35,47 +35,149 @@ import java.util.List;
 @FunctionalInterface
 public interface Cutter {
     /**
-     * Cuts by words, unless word is too long.
+     * Cuts by words, unless word is too long. Size is measured in chars.
+     * Surrogate pairs and color codes are never cut apart, so a piece may
+     * exceed the size only if a single one of them does.
      */
     class DefaultWordCutter implements Cutter {
+        private static final char HEX_COLOR_CHAR = '\u0004';
+
         @Nonnull
         @Override
         public List<String> split(@Nonnull String message, @Nonnegative int size) {
             Sanity.nullCheck(message, "Message cannot be null");
             Sanity.truthiness(size > 0, "Size must be positive");
             List<String> list = new ArrayList<>();
-            if (message.length() <= size) {
+            int length = message.length();
+            if (this.measure(message, 0, length) <= size) {
                 list.add(message);
                 return list;
             }
-            StringBuilder builder = new StringBuilder(size);
-            for (String word : message.split(" ")) {
-                if ((builder.length() + word.length() + ((builder.length() == 0) ? 0 : 1)) > size) {
-                    if ((word.length() > size) && ((builder.length() + 1) < size)) {
-                        if (builder.length() > 0) {
-                            builder.append(' ');
+            int lineStart = -1;
+            int lineEnd = 0;
+            int lineSize = 0;
+            int index = 0;
+            while (index < length) {
+                if (message.charAt(index) == ' ') {
+                    index++;
+                    continue;
+                }
+                int wordEnd = message.indexOf(' ', index);
+                if (wordEnd < 0) {
+                    wordEnd = length;
+                }
+                int separator = (lineStart < 0) ? 0 : this.measure(message, lineEnd, index); // Spaces kept between words
+                int wordSize = this.measure(message, index, wordEnd);
+                if ((lineSize + separator + wordSize) <= size) {
+                    if (lineStart < 0) {
+                        lineStart = index;
+                    }
+                    lineEnd = wordEnd;
+                    lineSize += separator + wordSize;
+                    index = wordEnd;
+                    continue;
+                }
+                if ((wordSize > size) && ((lineSize + separator) < size)) {
+                    // Word won't fit any line, so fill this one with as much as fits
+                    int cut = index;
+                    int cutSize = lineSize + separator;
+                    while (cut < wordEnd) {
+                        int unitEnd = getUnitEnd(message, cut, wordEnd);
+                        int unitSize = this.measure(message, cut, unitEnd);
+                        if ((cutSize + unitSize) > size) {
+                            break;
                         }
-                        int cut = size - builder.length();
-                        builder.append(word.substring(0, cut));
-                        word = word.substring(cut);
+                        cut = unitEnd;
+                        cutSize += unitSize;
                     }
-                    list.add(builder.toString().trim());
-                    builder.setLength(0);
-                    while (word.length() > size) {
-                        list.add(word.substring(0, size));
-                        word = word.substring(size);
+                    if ((cut == index) && (lineStart < 0)) {
+                        cut = getUnitEnd(message, index, wordEnd);
+                    }
+                    if (cut > index) {
+                        list.add(message.substring((lineStart < 0) ? index : lineStart, cut));
+                        index = cut;
+                        lineStart = -1;
+                        lineSize = 0;
+                        continue;
                     }
                 }
-                if (builder.length() > 0) {
-                    builder.append(' ');
-                }
-                builder.append(word);
+                list.add(message.substring(lineStart, lineEnd));
+                lineStart = -1;
+                lineSize = 0;
             }
-            if (builder.length() > 0) {
-                list.add(builder.toString().trim());
+            if (lineStart >= 0) {
+                list.add(message.substring(lineStart, lineEnd));
             }
             return list;
         }
+
+        /**
+         * Measures part of a message.
+         *
+         * @param message message
+         * @param start index of the first char to measure
+         * @param end index after the last char to measure
+         * @return size of the part, here its number of chars
+         */
+        protected int measure(@Nonnull String message, int start, int end) {
+            return end - start;
+        }
+
+        /**
+         * Gets the end of the smallest piece that must not be cut apart:
+         * a surrogate pair, a color code with its colors, or a single char.
+         *
+         * @param message message
+         * @param start index of the piece
+         * @param limit index the piece cannot extend past
+         * @return index after the piece
+         */
+        private static int getUnitEnd(@Nonnull String message, int start, int limit) {
+            char c = message.charAt(start);
+            int end = start + 1;
+            if (Character.isHighSurrogate(c)) {
+                return ((end < limit) && Character.isLowSurrogate(message.charAt(end))) ? (end + 1) : end;
+            }
+            if (c == Format.COLOR_CHAR) {
+                end = skipDigits(message, end, limit, 2, false);
+                if ((end > (start + 1)) && (end < (limit - 1)) && (message.charAt(end) == ',') && isDigit(message.charAt(end + 1), false)) {
+                    end = skipDigits(message, end + 1, limit, 2, false);
+                }
+            } else if (c == HEX_COLOR_CHAR) {
+                if (skipDigits(message, end, limit, 6, true) == (end + 6)) {
+                    end += 6;
+                    if ((end < limit) && (message.charAt(end) == ',') && (skipDigits(message, end + 1, limit, 6, true) == (end + 7))) {
+                        end += 7;
+                    }
+                }
+            }
+            return end;
+        }
+
+        private static int skipDigits(@Nonnull String message, int index, int limit, int maximum, boolean hex) {
+            int end = index;
+            while ((end < limit) && ((end - index) < maximum) && isDigit(message.charAt(end), hex)) {
+                end++;
+            }
+            return end;
+        }
+
+        private static boolean isDigit(char c, boolean hex) {
+            return ((c >= '0') && (c <= '9')) || (hex && (((c >= 'a') && (c <= 'f')) || ((c >= 'A') && (c <= 'F'))));
+        }
+    }
+
+    /**
+     * Cuts by words, unless word is too long, measuring size in bytes of
+     * UTF-8 as sent to the server rather than in chars. Like {@link
+     * DefaultWordCutter}, it never cuts apart surrogate pairs or color
+     * codes.
+     */
+    class Utf8WordCutter extends DefaultWordCutter {
+        @Override
+        protected int measure(@Nonnull String message, int start, int end) {
+            return StringUtil.getUtf8Length(message, start, end);
+        }
     }
 
     /**
@@ -24,11 +24,18 @@
 package org.kitteh.irc.client.library.util;
 
 import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.feature.CaseMapping;
 
 import javax.annotation.Nonnull;
+import java.util.Arrays;
 
 /**
  * Represents a mask that can match a {@link User}.
+ * <p>
+ * Masks are matched as IRC globs: {@code *} matches any number of
+ * characters, {@code ?} matches exactly one character, and a backslash
+ * escapes a following {@code *}, {@code ?} or backslash. Comparison is case
+ * insensitive per the {@link CaseMapping} in use.
  */
 public class Mask {
     /**
@@ -42,7 +49,21 @@ public class Mask {
         return new Mask(Sanity.nullCheck(string, "String cannot be null"));
     }
 
+    private static final class Compiled {
+        private final CaseMapping caseMapping;
+        private final int[] pattern;
+
+        private Compiled(@Nonnull CaseMapping caseMapping, @Nonnull int[] pattern) {
+            this.caseMapping = caseMapping;
+            this.pattern = pattern;
+        }
+    }
+
+    static final int ANY = -1;
+    static final int ONE = -2;
+
     private final String string;
+    private volatile Compiled compiled;
 
     private Mask(@Nonnull String string) {
         this.string = string;
@@ -58,6 +79,99 @@ public class Mask {
         return this.string;
     }
 
+    /**
+     * Gets if this mask matches the given user, using the case mapping of
+     * the user's client.
+     *
+     * @param user user to match
+     * @return true if the user's nick!user@host matches
+     * @throws IllegalArgumentException if user is null
+     */
+    public boolean matches(@Nonnull User user) {
+        Sanity.nullCheck(user, "User cannot be null");
+        return this.matches(user.getClient().getServerInfo().getCaseMapping(), user.getName());
+    }
+
+    /**
+     * Gets if this mask matches the given string.
+     *
+     * @param caseMapping case mapping to compare with
+     * @param string string to match, typically nick!user@host
+     * @return true if the string matches
+     * @throws IllegalArgumentException if either argument is null
+     */
+    public boolean matches(@Nonnull CaseMapping caseMapping, @Nonnull String string) {
+        Sanity.nullCheck(caseMapping, "Case mapping cannot be null");
+        Sanity.nullCheck(string, "String cannot be null");
+        return matches(this.compile(caseMapping), caseMapping, string);
+    }
+
+    /**
+     * Compiles this mask into lowercased characters, with {@link #ANY} and
+     * {@link #ONE} for wildcards. The result is cached for the most recently
+     * used case mapping.
+     *
+     * @param caseMapping case mapping to lowercase with
+     * @return compiled pattern, not to be modified
+     */
+    @Nonnull
+    int[] compile(@Nonnull CaseMapping caseMapping) {
+        Compiled compiled = this.compiled;
+        if ((compiled != null) && (compiled.caseMapping == caseMapping)) {
+            return compiled.pattern;
+        }
+        int[] pattern = new int[this.string.length()];
+        int length = 0;
+        for (int i = 0; i < this.string.length(); i++) {
+            char c = this.string.charAt(i);
+            if ((c == '\\') && ((i + 1) < this.string.length())) {
+                char next = this.string.charAt(i + 1);
+                if ((next == '*') || (next == '?') || (next == '\\')) {
+                    pattern[length++] = next;
+                    i++;
+                    continue;
+                }
+            }
+            if (c == '*') {
+                if ((length == 0) || (pattern[length - 1] != ANY)) { // Collapse runs of *
+                    pattern[length++] = ANY;
+                }
+            } else if (c == '?') {
+                pattern[length++] = ONE;
+            } else {
+                pattern[length++] = caseMapping.toLowerCase(c);
+            }
+        }
+        pattern = Arrays.copyOf(pattern, length);
+        this.compiled = new Compiled(caseMapping, pattern);
+        return pattern;
+    }
+
+    static boolean matches(@Nonnull int[] pattern, @Nonnull CaseMapping caseMapping, @Nonnull String string) {
+        int p = 0;
+        int s = 0;
+        int star = -1;
+        int mark = 0;
+        while (s < string.length()) {
+            if ((p < pattern.length) && ((pattern[p] == ONE) || (pattern[p] == caseMapping.toLowerCase(string.charAt(s))))) {
+                p++;
+                s++;
+            } else if ((p < pattern.length) && (pattern[p] == ANY)) {
+                star = p++;
+                mark = s;
+            } else if (star >= 0) {
+                p = star + 1;
+                s = ++mark;
+            } else {
+                return false;
+            }
+        }
+        while ((p < pattern.length) && (pattern[p] == ANY)) {
+            p++;
+        }
+        return p == pattern.length;
+    }
+
     @Override
     public int hashCode() {
         return (2 * this.string.hashCode()) + 5;
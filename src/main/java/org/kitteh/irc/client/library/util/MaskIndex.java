@@ -0,0 +1,198 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.util;
+
+import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A thread-safe collection of {@link Mask}s, each with an associated value,
+ * that can quickly find every mask matching a given nick!user@host.
+ * <p>
+ * Masks are indexed by the literal text following their last wildcard, such
+ * as the host in {@code *!*@host.example}, in a trie read from the end of
+ * the string. A lookup walks the target once from its end and only fully
+ * matches the masks whose literal ending fits, so the cost grows with the
+ * number of plausible matches rather than the number of masks.
+ *
+ * @param <Value> type of value associated with each mask
+ */
+public class MaskIndex<Value> {
+    private static final class Entry<Value> {
+        private final int[] pattern;
+        private final Value value;
+        private final long order;
+
+        private Entry(@Nonnull int[] pattern, @Nonnull Value value, long order) {
+            this.pattern = pattern;
+            this.value = value;
+            this.order = order;
+        }
+    }
+
+    private static final class Node<Value> {
+        private final Map<Character, Node<Value>> children = new HashMap<>();
+        private final Map<String, Entry<Value>> entries = new LinkedHashMap<>();
+    }
+
+    private final CaseMapping caseMapping;
+    private final Map<String, Node<Value>> nodes = new HashMap<>();
+    private final Node<Value> root = new Node<>();
+    private long order;
+
+    /**
+     * Constructs an empty index.
+     *
+     * @param caseMapping case mapping used to compare masks and targets
+     */
+    public MaskIndex(@Nonnull CaseMapping caseMapping) {
+        this.caseMapping = Sanity.nullCheck(caseMapping, "Case mapping cannot be null");
+    }
+
+    /**
+     * Gets the case mapping used by this index.
+     *
+     * @return case mapping
+     */
+    @Nonnull
+    public CaseMapping getCaseMapping() {
+        return this.caseMapping;
+    }
+
+    /**
+     * Adds a mask, replacing the value of any mask equal to it ignoring
+     * case.
+     *
+     * @param mask mask to add
+     * @param value value to return when the mask matches
+     * @return the previous value for this mask, if any
+     * @throws IllegalArgumentException if either argument is null
+     */
+    @Nullable
+    public synchronized Value put(@Nonnull Mask mask, @Nonnull Value value) {
+        Sanity.nullCheck(mask, "Mask cannot be null");
+        Sanity.nullCheck(value, "Value cannot be null");
+        int[] pattern = mask.compile(this.caseMapping);
+        Node<Value> node = this.root;
+        for (int i = pattern.length - 1; (i >= 0) && (pattern[i] >= 0); i--) {
+            node = node.children.computeIfAbsent((char) pattern[i], character -> new Node<>());
+        }
+        String key = this.caseMapping.toLowerCase(mask.asString());
+        Entry<Value> previous = node.entries.get(key);
+        node.entries.put(key, new Entry<>(pattern, value, (previous == null) ? this.order++ : previous.order));
+        this.nodes.put(key, node);
+        return (previous == null) ? null : previous.value;
+    }
+
+    /**
+     * Removes a mask, or any mask equal to it ignoring case.
+     *
+     * @param mask mask to remove
+     * @return the removed value, if any
+     * @throws IllegalArgumentException if mask is null
+     */
+    @Nullable
+    public synchronized Value remove(@Nonnull Mask mask) {
+        Sanity.nullCheck(mask, "Mask cannot be null");
+        String key = this.caseMapping.toLowerCase(mask.asString());
+        Node<Value> node = this.nodes.remove(key);
+        if (node == null) {
+            return null;
+        }
+        return node.entries.remove(key).value;
+    }
+
+    /**
+     * Gets the number of masks in this index.
+     *
+     * @return number of masks
+     */
+    public synchronized int size() {
+        return this.nodes.size();
+    }
+
+    /**
+     * Gets the values of all masks matching the given user.
+     *
+     * @param user user to match
+     * @return matching values, in the order their masks were added
+     * @throws IllegalArgumentException if user is null
+     */
+    @Nonnull
+    public List<Value> getMatches(@Nonnull User user) {
+        return this.getMatches(Sanity.nullCheck(user, "User cannot be null").getName());
+    }
+
+    /**
+     * Gets the values of all masks matching the given string.
+     *
+     * @param string string to match, typically nick!user@host
+     * @return matching values, in the order their masks were added
+     * @throws IllegalArgumentException if string is null
+     */
+    @Nonnull
+    public synchronized List<Value> getMatches(@Nonnull String string) {
+        Sanity.nullCheck(string, "String cannot be null");
+        List<Entry<Value>> matches = new ArrayList<>();
+        Node<Value> node = this.root;
+        int index = string.length();
+        while (node != null) {
+            for (Entry<Value> entry : node.entries.values()) {
+                if (Mask.matches(entry.pattern, this.caseMapping, string)) {
+                    matches.add(entry);
+                }
+            }
+            node = (--index >= 0) ? node.children.get(this.caseMapping.toLowerCase(string.charAt(index))) : null;
+        }
+        List<Value> values = new ArrayList<>(matches.size());
+        matches.stream().sorted(Comparator.comparingLong(entry -> entry.order)).forEach(entry -> values.add(entry.value));
+        return values;
+    }
+
+    /**
+     * Gets if any mask matches the given string.
+     *
+     * @param string string to match, typically nick!user@host
+     * @return true if at least one mask matches
+     * @throws IllegalArgumentException if string is null
+     */
+    public boolean hasMatch(@Nonnull String string) {
+        return !this.getMatches(string).isEmpty();
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("caseMapping", this.caseMapping).add("size", this.size()).toString();
+    }
+}
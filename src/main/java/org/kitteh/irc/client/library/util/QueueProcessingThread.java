@@ -34,7 +34,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  * @param <Type> type of items queued
  */
 public abstract class QueueProcessingThread<Type> extends Thread {
-    private final Queue<Type> queue = new ConcurrentLinkedQueue<>();
+    private final Queue<Type> queue;
 
     /**
      * Creates a thread and starts itself.
@@ -42,6 +42,18 @@ public abstract class QueueProcessingThread<Type> extends Thread {
      * @param name name of the thread
      */
     protected QueueProcessingThread(@Nonnull String name) {
+        this(name, new ConcurrentLinkedQueue<>());
+    }
+
+    /**
+     * Creates a thread processing a given queue and starts itself. The
+     * queue must be thread-safe.
+     *
+     * @param name name of the thread
+     * @param queue queue to process
+     */
+    protected QueueProcessingThread(@Nonnull String name, @Nonnull Queue<Type> queue) {
+        this.queue = Sanity.nullCheck(queue, "Queue cannot be null");
         this.setName(name);
         this.start();
     }
@@ -50,8 +62,10 @@ public abstract class QueueProcessingThread<Type> extends Thread {
     public void run() {
         dance:
         while (!this.isInterrupted()) {
+            Type element;
             synchronized (this.queue) {
-                while (this.queue.isEmpty()) {
+                // Poll while still holding the lock, as items may be removed by other threads
+                while ((element = this.queue.poll()) == null) {
                     try {
                         this.queue.wait();
                     } catch (InterruptedException e) {
@@ -59,7 +73,7 @@ public abstract class QueueProcessingThread<Type> extends Thread {
                     }
                 }
             }
-            this.processElement(this.queue.poll());
+            this.processElement(element);
         }
         this.interrupt();
         this.cleanup(this.queue);
@@ -108,8 +122,18 @@ public abstract class QueueProcessingThread<Type> extends Thread {
      */
     public void queue(@Nonnull Type item) {
         Sanity.nullCheck(item, "Item cannot be null");
+        this.addToQueue(() -> this.queue.add(item));
+    }
+
+    /**
+     * Runs an addition to the queue and wakes up processing, for queues
+     * offering more ways to add than {@link Queue#add}.
+     *
+     * @param addition addition to run
+     */
+    protected final void addToQueue(@Nonnull Runnable addition) {
         synchronized (this.queue) {
-            this.queue.add(item);
+            addition.run();
             this.queue.notify();
         }
     }
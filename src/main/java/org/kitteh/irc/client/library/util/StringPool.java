@@ -0,0 +1,113 @@
+/*
+ * * Copyright (C) 2013-2018 Matt Baxter https://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.util;
+
+import javax.annotation.Nonnull;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A thread-safe, bounded pool for deduplicating frequently repeated strings
+ * such as hostnames, user strings, server names and real names. Entries are
+ * weakly referenced, so a pooled string is forgotten once nothing else uses
+ * it. Once the pool is full, new strings are returned as-is until space
+ * frees up.
+ * <p>
+ * A single pool may be shared between several clients, for example all
+ * clients connected to the same network.
+ */
+public class StringPool {
+    /**
+     * Default maximum number of pooled strings.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 65536;
+
+    private final Map<String, WeakReference<String>> pool = new WeakHashMap<>();
+    private final int maximumSize;
+
+    /**
+     * Constructs a pool holding up to {@link #DEFAULT_MAXIMUM_SIZE} strings.
+     */
+    public StringPool() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Constructs a pool.
+     *
+     * @param maximumSize maximum number of strings to pool
+     * @throws IllegalArgumentException if maximum size is not positive
+     */
+    public StringPool(int maximumSize) {
+        Sanity.truthiness(maximumSize > 0, "Maximum size must be positive");
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Gets the pooled instance equal to the given string, pooling the given
+     * string if there is none and the pool has room.
+     *
+     * @param string string to deduplicate
+     * @return the pooled instance, or the given string if not pooled
+     * @throws IllegalArgumentException if string is null
+     */
+    @Nonnull
+    public synchronized String intern(@Nonnull String string) {
+        Sanity.nullCheck(string, "String cannot be null");
+        WeakReference<String> reference = this.pool.get(string);
+        String pooled = (reference == null) ? null : reference.get();
+        if (pooled != null) {
+            return pooled;
+        }
+        if (this.pool.size() < this.maximumSize) {
+            this.pool.put(string, new WeakReference<>(string));
+        }
+        return string;
+    }
+
+    /**
+     * Gets the maximum number of pooled strings.
+     *
+     * @return maximum size
+     */
+    public int getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    /**
+     * Gets the number of strings currently pooled.
+     *
+     * @return pool size
+     */
+    public synchronized int size() {
+        return this.pool.size();
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("size", this.size()).add("maximumSize", this.maximumSize).toString();
+    }
+}
@@ -83,6 +83,56 @@ public final class StringUtil {
         return StringUtil.combineSplit(split, start, split.length - start, " ");
     }
 
+    /**
+     * Gets the length of a string when encoded as UTF-8, without encoding
+     * it. A surrogate pair counts four bytes, and an unpaired surrogate one,
+     * as it is replaced when encoded.
+     *
+     * @param input string to measure
+     * @return length in bytes
+     * @throws IllegalArgumentException if input is null
+     */
+    public static int getUtf8Length(@Nonnull CharSequence input) {
+        Sanity.nullCheck(input, "Input cannot be null");
+        return StringUtil.getUtf8Length(input, 0, input.length());
+    }
+
+    /**
+     * Gets the length of part of a string when encoded as UTF-8, without
+     * encoding it.
+     *
+     * @param input string to measure
+     * @param start index of the first char to measure
+     * @param end index after the last char to measure
+     * @return length in bytes
+     * @throws IllegalArgumentException if input is null
+     * @throws IndexOutOfBoundsException if start or end is out of range
+     * @see #getUtf8Length(CharSequence)
+     */
+    public static int getUtf8Length(@Nonnull CharSequence input, int start, int end) {
+        Sanity.nullCheck(input, "Input cannot be null");
+        if ((start < 0) || (end > input.length()) || (start > end)) {
+            throw new IndexOutOfBoundsException("Invalid range " + start + " to " + end + " of length " + input.length());
+        }
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && ((i + 1) < end) && Character.isLowSurrogate(input.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
     /**
      * Turns a message into a rainbow.
      *
@@ -42,6 +42,28 @@ public class CaseMappingTest {
         for (Map.Entry<CaseMapping, Pair<String, String>> entry : test.entrySet()) {
             Assert.assertEquals("Incorrect lowercasing", entry.getKey().toLowerCase(entry.getValue().getLeft()), entry.getValue().getRight());
             Assert.assertTrue("Incorrect equalsIgnoreCase", entry.getKey().areEqualIgnoringCase(entry.getValue().getLeft(), entry.getValue().getRight()));
+            Assert.assertEquals("Incorrect hashCodeIgnoringCase", entry.getValue().getRight().hashCode(), entry.getKey().hashCodeIgnoringCase(entry.getValue().getLeft()));
         }
     }
+
+    /**
+     * Tests comparisons and the lowercase fast path.
+     */
+    @Test
+    public void comparison() {
+        String lower = "kitteh{cat}";
+        Assert.assertSame(lower, CaseMapping.RFC1459.toLowerCase(lower));
+        Assert.assertTrue(CaseMapping.RFC1459.areEqualIgnoringCase("Kitteh[Cat]", lower));
+        Assert.assertFalse(CaseMapping.ASCII.areEqualIgnoringCase("Kitteh[Cat]", lower));
+        Assert.assertFalse(CaseMapping.ASCII.areEqualIgnoringCase("Kitteh", "Kitten"));
+        Assert.assertFalse(CaseMapping.ASCII.areEqualIgnoringCase("Kitteh", "Kittehs"));
+    }
+
+    /**
+     * Tests comparing with null.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void comparisonNull() {
+        CaseMapping.ASCII.areEqualIgnoringCase("Kitteh", null);
+    }
 }
@@ -20,6 +20,9 @@ import org.kitteh.irc.client.library.feature.MessageTagManager;
 import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.kitteh.irc.client.library.feature.defaultmessage.DefaultMessageMap;
 import org.kitteh.irc.client.library.feature.defaultmessage.SimpleDefaultMessageMap;
+import org.kitteh.irc.client.library.feature.query.QueryTracker;
+import org.kitteh.irc.client.library.feature.sending.DeliveryTracker;
+import org.kitteh.irc.client.library.feature.sending.JoinPipeline;
 import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.kitteh.irc.client.library.feature.sts.StsMachine;
 import org.kitteh.irc.client.library.feature.sts.StsStorageManager;
@@ -40,6 +43,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class FakeClient implements Client.WithManagement {
     private final AuthManager authManager = new DefaultAuthManager(this);
@@ -156,6 +160,12 @@ public class FakeClient implements Client.WithManagement {
         return new HashSet<>();
     }
 
+    @Nonnull
+    @Override
+    public JoinPipeline getJoinPipeline() {
+        return new JoinPipeline(this);
+    }
+
     @Nonnull
     @Override
     public DefaultISupportManager getISupportManager() {
@@ -305,6 +315,12 @@ public class FakeClient implements Client.WithManagement {
         return this.defaultMessageMap;
     }
 
+    @Nonnull
+    @Override
+    public DeliveryTracker getDeliveryTracker() {
+        return new DeliveryTracker(this);
+    }
+
     @Nonnull
     @Override
     public EventManager getEventManager() {
@@ -335,6 +351,12 @@ public class FakeClient implements Client.WithManagement {
         return null;
     }
 
+    @Nonnull
+    @Override
+    public QueryTracker getQueryTracker() {
+        return new QueryTracker(this);
+    }
+
     @Override
     public void setNick(@Nonnull String nick) {
 
@@ -378,6 +400,16 @@ public class FakeClient implements Client.WithManagement {
 
     }
 
+    @Override
+    public int removeQueuedLines(@Nonnull Predicate<String> filter) {
+        return 0;
+    }
+
+    @Override
+    public int removeQueuedMessages(@Nonnull String target) {
+        return 0;
+    }
+
     @Override
     public void sendCtcpMessage(@Nonnull String target, @Nonnull String message) {
 
@@ -403,6 +435,11 @@ public class FakeClient implements Client.WithManagement {
 
     }
 
+    @Override
+    public void sendMessage(@Nonnull Collection<? extends MessageReceiver> targets, @Nonnull String message) {
+
+    }
+
     @Override
     public void sendNotice(@Nonnull String target, @Nonnull String message) {
 
@@ -413,6 +450,11 @@ public class FakeClient implements Client.WithManagement {
 
     }
 
+    @Override
+    public void sendNotice(@Nonnull Collection<? extends MessageReceiver> targets, @Nonnull String message) {
+
+    }
+
     @Override
     public void sendMultiLineMessage(@Nonnull String target, @Nonnull String message, @Nonnull Cutter cutter) {
 
@@ -428,11 +470,21 @@ public class FakeClient implements Client.WithManagement {
 
     }
 
+    @Override
+    public void sendRawLine(@Nonnull String message, @Nonnull MessageSendingQueue.Priority priority) {
+
+    }
+
     @Override
     public void sendRawLineAvoidingDuplication(@Nonnull String message) {
 
     }
 
+    @Override
+    public void sendRawLineAvoidingDuplication(@Nonnull String message, @Nonnull MessageSendingQueue.Priority priority) {
+
+    }
+
     @Override
     public void sendRawLineImmediately(@Nonnull String message) {
 
@@ -3,6 +3,7 @@ package org.kitteh.irc.client.library.command;
 import org.junit.Assert;
 import org.junit.Test;
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.mockito.Mockito;
 
 /**
@@ -21,7 +22,7 @@ public class AwayCommandTest {
         AwayCommand awayCommand = new AwayCommand(client);
         awayCommand.execute();
 
-        Mockito.verify(client, Mockito.times(1)).sendRawLine("AWAY");
+        Mockito.verify(client, Mockito.times(1)).sendRawLine("AWAY", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -36,7 +37,7 @@ public class AwayCommandTest {
         awayCommand.message(null);
         awayCommand.execute();
 
-        Mockito.verify(client, Mockito.times(1)).sendRawLine("AWAY");
+        Mockito.verify(client, Mockito.times(1)).sendRawLine("AWAY", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -51,7 +52,7 @@ public class AwayCommandTest {
         awayCommand.messageRemove();
         awayCommand.execute();
 
-        Mockito.verify(client, Mockito.times(1)).sendRawLine("AWAY");
+        Mockito.verify(client, Mockito.times(1)).sendRawLine("AWAY", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -79,6 +80,6 @@ public class AwayCommandTest {
         awayCommand.message(MESSAGE);
         awayCommand.execute();
 
-        Mockito.verify(client, Mockito.times(1)).sendRawLine("AWAY :" + MESSAGE);
+        Mockito.verify(client, Mockito.times(1)).sendRawLine("AWAY :" + MESSAGE, MessageSendingQueue.Priority.INTERACTIVE);
     }
 }
@@ -9,12 +9,23 @@ import org.kitteh.irc.client.library.element.ISupportParameter;
 import org.kitteh.irc.client.library.element.User;
 import org.kitteh.irc.client.library.element.mode.ChannelMode;
 import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+import org.kitteh.irc.client.library.element.mode.ModeInfo;
+import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
+import org.kitteh.irc.client.library.feature.CapabilityManager;
+import org.kitteh.irc.client.library.feature.CaseMapping;
 import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.kitteh.irc.client.library.feature.query.QueryTracker;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @see ChannelModeCommand
@@ -43,7 +54,7 @@ public class ChannelModeCommandTest {
     public void testWithNoModeChanges() {
         ChannelModeCommand sut = new ChannelModeCommand(this.client, CHANNEL);
         sut.execute();
-        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL);
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL, MessageSendingQueue.Priority.MODERATION);
 
         Assert.assertFalse(sut.toString().isEmpty());
     }
@@ -54,7 +65,7 @@ public class ChannelModeCommandTest {
         ChannelMode mode = this.getChannelMode('A', this.client, ChannelMode.Type.A_MASK);
         sut.add(true, mode);
         sut.execute();
-        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +A");
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +A", MessageSendingQueue.Priority.MODERATION);
     }
 
     @Test
@@ -66,7 +77,7 @@ public class ChannelModeCommandTest {
         sut.add(true, this.getChannelMode('D', this.client, ChannelMode.Type.D_PARAMETER_NEVER));
         sut.execute();
         InOrder inOrder = Mockito.inOrder(this.client, this.client);
-        inOrder.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +ABCD");
+        inOrder.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +ABCD", MessageSendingQueue.Priority.MODERATION);
     }
 
     @Test
@@ -78,7 +89,7 @@ public class ChannelModeCommandTest {
         sut.add(true, this.getChannelMode('D', this.client, ChannelMode.Type.D_PARAMETER_NEVER));
         sut.execute();
         InOrder inOrder = Mockito.inOrder(this.client, this.client);
-        inOrder.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +ABCD hi there kitten");
+        inOrder.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +ABCD hi there kitten", MessageSendingQueue.Priority.MODERATION);
     }
 
     @Test
@@ -90,8 +101,8 @@ public class ChannelModeCommandTest {
         sut.add(true, this.getChannelMode('D', this.client, ChannelMode.Type.B_PARAMETER_ALWAYS), "meow");
         sut.execute();
         InOrder inOrder = Mockito.inOrder(this.client, this.client);
-        inOrder.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +ABC hi there kitten");
-        inOrder.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +D meow");
+        inOrder.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +ABC hi there kitten", MessageSendingQueue.Priority.MODERATION);
+        inOrder.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +D meow", MessageSendingQueue.Priority.MODERATION);
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -109,7 +120,7 @@ public class ChannelModeCommandTest {
         sut.add(true, modeA);
         sut.add(false, modeB);
         sut.execute();
-        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +A-B");
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +A-B", MessageSendingQueue.Priority.MODERATION);
     }
 
     @Test
@@ -120,7 +131,7 @@ public class ChannelModeCommandTest {
         sut.add(true, modeA);
         sut.add(true, modeB, "test");
         sut.execute();
-        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +AB test");
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +AB test", MessageSendingQueue.Priority.MODERATION);
     }
 
     @Test
@@ -129,7 +140,7 @@ public class ChannelModeCommandTest {
         ChannelMode mode = this.getChannelMode('A', this.client, ChannelMode.Type.B_PARAMETER_ALWAYS);
         sut.add(true, mode, "foo");
         sut.execute();
-        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +A foo");
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +A foo", MessageSendingQueue.Priority.MODERATION);
     }
 
     @Test
@@ -143,7 +154,7 @@ public class ChannelModeCommandTest {
         ChannelUserMode mode = this.getChannelUserMode('A', this.client, ChannelMode.Type.B_PARAMETER_ALWAYS);
         sut.add(true, mode, userMock);
         sut.execute();
-        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +A kitteh");
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " +A kitteh", MessageSendingQueue.Priority.MODERATION);
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -162,7 +173,41 @@ public class ChannelModeCommandTest {
         ChannelMode mode = this.getChannelMode('A', this.client, ChannelMode.Type.B_PARAMETER_ALWAYS);
         sut.add(false, mode, "foo");
         sut.execute();
-        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " -A foo");
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("MODE " + CHANNEL + " -A foo", MessageSendingQueue.Priority.MODERATION);
+    }
+
+    /**
+     * Tests querying the ban list, ignoring replies about other channels.
+     *
+     * @throws Exception if the future fails
+     */
+    @Test
+    public void testQueryList() throws Exception {
+        Mockito.when(this.client.getCapabilityManager()).thenReturn(Mockito.mock(CapabilityManager.class));
+        Mockito.when(this.client.getServerInfo().getCaseMapping()).thenReturn(CaseMapping.RFC1459);
+        QueryTracker tracker = new QueryTracker(this.client);
+        Mockito.when(this.client.getQueryTracker()).thenReturn(tracker);
+        ChannelMode ban = this.getChannelMode('b', this.client, ChannelMode.Type.A_MASK);
+
+        CompletableFuture<Optional<List<ModeInfo>>> future = new ChannelModeCommand(this.client, CHANNEL).queryList(ban);
+        Mockito.verify(this.client).sendRawLine("MODE " + CHANNEL + " b");
+        tracker.handle(this.reply("367", "me", CHANNEL, "*!*@kitteh.org", "Kitteh", "1500000000"));
+        tracker.handle(this.reply("367", "me", "#other", "*!*@example.org"));
+        tracker.handle(this.reply("368", "me", CHANNEL, "End of channel ban list"));
+
+        List<ModeInfo> infos = future.get().orElseThrow(AssertionError::new);
+        Assert.assertEquals(1, infos.size());
+        Assert.assertEquals("*!*@kitteh.org", infos.get(0).getMask().asString());
+        Assert.assertEquals(Optional.of("Kitteh"), infos.get(0).getCreator());
+        Assert.assertEquals(Optional.of(Instant.ofEpochSecond(1500000000)), infos.get(0).getCreationTime());
+    }
+
+    private ClientReceiveServerMessageEvent reply(String command, String... parameters) {
+        ClientReceiveServerMessageEvent event = Mockito.mock(ClientReceiveServerMessageEvent.class);
+        Mockito.when(event.getMessageTags()).thenReturn(Collections.emptyList());
+        Mockito.when(event.getCommand()).thenReturn(command);
+        Mockito.when(event.getParameters()).thenReturn(Arrays.asList(parameters));
+        return event;
     }
 
     private ChannelMode getChannelMode(char c, Client client, ChannelMode.Type type) {
@@ -7,6 +7,7 @@ import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.element.User;
 import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.kitteh.irc.client.library.feature.defaultmessage.SimpleDefaultMessageMap;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.mockito.Mockito;
 
 /**
@@ -44,7 +45,7 @@ public class KickCommandTest {
         command.target(USER);
         command.execute();
 
-        Mockito.verify(this.client).sendRawLine("KICK " + CHANNEL + ' ' + USER);
+        Mockito.verify(this.client).sendRawLine("KICK " + CHANNEL + ' ' + USER, MessageSendingQueue.Priority.MODERATION);
     }
 
     /**
@@ -58,7 +59,7 @@ public class KickCommandTest {
         command.reason(null);
         command.execute();
 
-        Mockito.verify(this.client).sendRawLine("KICK " + CHANNEL + ' ' + USER);
+        Mockito.verify(this.client).sendRawLine("KICK " + CHANNEL + ' ' + USER, MessageSendingQueue.Priority.MODERATION);
     }
 
     /**
@@ -73,7 +74,7 @@ public class KickCommandTest {
         command.reason(REASON);
         command.execute();
 
-        Mockito.verify(this.client).sendRawLine("KICK " + CHANNEL + ' ' + USER + " :" + REASON);
+        Mockito.verify(this.client).sendRawLine("KICK " + CHANNEL + ' ' + USER + " :" + REASON, MessageSendingQueue.Priority.MODERATION);
     }
 
     /**
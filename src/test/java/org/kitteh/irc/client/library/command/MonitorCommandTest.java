@@ -2,6 +2,7 @@ package org.kitteh.irc.client.library.command;
 
 import org.junit.Test;
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.mockito.Mockito;
 
 import java.util.Arrays;
@@ -26,7 +27,7 @@ public class MonitorCommandTest {
         command.target("meow", "purr", "purr");
         command.execute();
 
-        Mockito.verify(ircClient).sendRawLine("MONITOR + meow,purr");
+        Mockito.verify(ircClient).sendRawLine("MONITOR + meow,purr", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -41,7 +42,7 @@ public class MonitorCommandTest {
         command.target(Arrays.asList("meow", "purr", "meow"));
         command.execute();
 
-        Mockito.verify(ircClient).sendRawLine("MONITOR + meow,purr");
+        Mockito.verify(ircClient).sendRawLine("MONITOR + meow,purr", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -56,7 +57,7 @@ public class MonitorCommandTest {
         command.target("meow", "purr");
         command.execute();
 
-        Mockito.verify(ircClient).sendRawLine("MONITOR - meow,purr");
+        Mockito.verify(ircClient).sendRawLine("MONITOR - meow,purr", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -122,7 +123,7 @@ public class MonitorCommandTest {
         command.target("irrelevant");
         command.execute();
 
-        Mockito.verify(ircClient).sendRawLine("MONITOR C");
+        Mockito.verify(ircClient).sendRawLine("MONITOR C", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -137,7 +138,7 @@ public class MonitorCommandTest {
         command.target("irrelevant");
         command.execute();
 
-        Mockito.verify(ircClient).sendRawLine("MONITOR L");
+        Mockito.verify(ircClient).sendRawLine("MONITOR L", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -151,7 +152,7 @@ public class MonitorCommandTest {
         command.action(MonitorCommand.Action.STATUS_OUTPUT_ALL);
         command.execute();
 
-        Mockito.verify(ircClient).sendRawLine("MONITOR S");
+        Mockito.verify(ircClient).sendRawLine("MONITOR S", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -178,7 +179,7 @@ public class MonitorCommandTest {
         command.target(list);
         command.execute();
 
-        Mockito.verify(ircClientMock, Mockito.times(2)).sendRawLine(Mockito.anyString());
+        Mockito.verify(ircClientMock, Mockito.times(2)).sendRawLine(Mockito.anyString(), Mockito.any());
     }
 
     /**
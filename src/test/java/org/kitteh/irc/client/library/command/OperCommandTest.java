@@ -3,6 +3,7 @@ package org.kitteh.irc.client.library.command;
 import org.junit.Assert;
 import org.junit.Test;
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.mockito.Mockito;
 
 /**
@@ -24,7 +25,7 @@ public class OperCommandTest {
         command.password(PASSWORD);
         command.execute();
 
-        Mockito.verify(client).sendRawLine("OPER " + USER + ' ' + PASSWORD);
+        Mockito.verify(client).sendRawLine("OPER " + USER + ' ' + PASSWORD, MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -5,8 +5,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import java.util.function.Predicate;
+
 /**
  * Tests TopicCommand.
  */
@@ -35,7 +39,7 @@ public class TopicCommandTest {
         TopicCommand topicCommand = new TopicCommand(this.client, CHANNEL);
         topicCommand.execute();
 
-        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("TOPIC " + CHANNEL);
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("TOPIC " + CHANNEL, MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -48,7 +52,7 @@ public class TopicCommandTest {
         topicCommand.query();
         topicCommand.execute();
 
-        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("TOPIC " + CHANNEL);
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("TOPIC " + CHANNEL, MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -61,7 +65,7 @@ public class TopicCommandTest {
         topicCommand.topic(null);
         topicCommand.execute();
 
-        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("TOPIC " + CHANNEL);
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("TOPIC " + CHANNEL, MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -85,6 +89,27 @@ public class TopicCommandTest {
         topicCommand.topic(TOPIC);
         topicCommand.execute();
 
-        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("TOPIC " + CHANNEL + " :" + TOPIC);
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLine("TOPIC " + CHANNEL + " :" + TOPIC, MessageSendingQueue.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Tests cancelling the lines the command queued.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCancel() {
+        TopicCommand topicCommand = new TopicCommand(this.client, CHANNEL);
+        Assert.assertEquals(0, topicCommand.cancel());
+        topicCommand.execute();
+        ArgumentCaptor<String> line = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(this.client).sendRawLine(line.capture(), Mockito.eq(MessageSendingQueue.Priority.INTERACTIVE));
+        Mockito.when(this.client.removeQueuedLines(Mockito.any())).thenReturn(1);
+
+        Assert.assertEquals(1, topicCommand.cancel());
+        ArgumentCaptor<Predicate<String>> filter = ArgumentCaptor.forClass((Class) Predicate.class);
+        Mockito.verify(this.client).removeQueuedLines(filter.capture());
+        Assert.assertTrue(filter.getValue().test(line.getValue()));
+        Assert.assertFalse(filter.getValue().test(new String(line.getValue())));
+        Assert.assertEquals(0, topicCommand.cancel());
     }
 }
@@ -4,6 +4,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.element.mode.UserMode;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
 
@@ -22,7 +23,7 @@ public class UserModeCommandTest {
 
         UserModeCommand sut = new UserModeCommand(clientMock);
         sut.execute();
-        Mockito.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER);
+        Mockito.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER, MessageSendingQueue.Priority.INTERACTIVE);
 
         Assert.assertFalse(sut.toString().isEmpty());
     }
@@ -36,7 +37,7 @@ public class UserModeCommandTest {
         UserMode mode = this.getUserMode('A', clientMock);
         sut.add(true, mode);
         sut.execute();
-        Mockito.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER + " +A");
+        Mockito.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER + " +A", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     @Test
@@ -51,7 +52,7 @@ public class UserModeCommandTest {
         sut.add(true, this.getUserMode('D', clientMock));
         sut.execute();
         InOrder inOrder = Mockito.inOrder(clientMock, clientMock);
-        inOrder.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER + " +ABCD");
+        inOrder.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER + " +ABCD", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -75,7 +76,7 @@ public class UserModeCommandTest {
         sut.add(true, modeA);
         sut.add(false, modeB);
         sut.execute();
-        Mockito.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER + " +A-B");
+        Mockito.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER + " +A-B", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     @Test
@@ -89,7 +90,7 @@ public class UserModeCommandTest {
         sut.add(true, modeA);
         sut.add(true, modeB, "test");
         sut.execute();
-        Mockito.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER + " +AB test");
+        Mockito.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER + " +AB test", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     @Test
@@ -101,7 +102,7 @@ public class UserModeCommandTest {
         UserMode mode = this.getUserMode('A', clientMock);
         sut.add(true, mode, "foo");
         sut.execute();
-        Mockito.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER + " +A foo");
+        Mockito.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER + " +A foo", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     @Test
@@ -113,7 +114,7 @@ public class UserModeCommandTest {
         UserMode mode = this.getUserMode('A', clientMock);
         sut.add(false, mode, "foo");
         sut.execute();
-        Mockito.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER + " -A foo");
+        Mockito.verify(clientMock, Mockito.times(1)).sendRawLine("MODE " + USER + " -A foo", MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     private UserMode getUserMode(char c, Client client) {
@@ -3,6 +3,7 @@ package org.kitteh.irc.client.library.command;
 import org.junit.Assert;
 import org.junit.Test;
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.mockito.Mockito;
 
 /**
@@ -22,7 +23,7 @@ public class WallopsCommandTest {
         command.message(MESSAGE);
         command.execute();
 
-        Mockito.verify(client).sendRawLine("WALLOPS :" + MESSAGE);
+        Mockito.verify(client).sendRawLine("WALLOPS :" + MESSAGE, MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -3,8 +3,20 @@ package org.kitteh.irc.client.library.command;
 import org.junit.Assert;
 import org.junit.Test;
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.WhoisData;
+import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
+import org.kitteh.irc.client.library.feature.CapabilityManager;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.kitteh.irc.client.library.feature.query.QueryTracker;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
 import org.mockito.Mockito;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Tests TopicCommand.
  */
@@ -23,7 +35,7 @@ public class WhoisCommandTest {
         whoisCommand.target(TARGET);
         whoisCommand.execute();
 
-        Mockito.verify(client, Mockito.times(1)).sendRawLine("WHOIS " + TARGET);
+        Mockito.verify(client, Mockito.times(1)).sendRawLine("WHOIS " + TARGET, MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -49,7 +61,7 @@ public class WhoisCommandTest {
         whoisCommand.server(SERVER);
         whoisCommand.execute();
 
-        Mockito.verify(client, Mockito.times(1)).sendRawLine("WHOIS " + SERVER + ' ' + TARGET);
+        Mockito.verify(client, Mockito.times(1)).sendRawLine("WHOIS " + SERVER + ' ' + TARGET, MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -65,7 +77,7 @@ public class WhoisCommandTest {
         whoisCommand.server(null);
         whoisCommand.execute();
 
-        Mockito.verify(client, Mockito.times(1)).sendRawLine("WHOIS " + TARGET);
+        Mockito.verify(client, Mockito.times(1)).sendRawLine("WHOIS " + TARGET, MessageSendingQueue.Priority.INTERACTIVE);
     }
 
     /**
@@ -80,4 +92,61 @@ public class WhoisCommandTest {
 
         Assert.assertTrue(whoisCommand.toString().contains(TARGET));
     }
+
+    /**
+     * Tests querying and building the reply, ignoring replies for others.
+     *
+     * @throws Exception if the future fails
+     */
+    @Test
+    public void testQuery() throws Exception {
+        Client client = this.queryClient();
+        QueryTracker tracker = client.getQueryTracker();
+
+        CompletableFuture<Optional<WhoisData>> future = new WhoisCommand(client).target(TARGET).query();
+        Mockito.verify(client).sendRawLine("WHOIS " + TARGET);
+        tracker.handle(this.reply("311", "me", "kitteh", "meow", "kitteh.org", "*", "Kitteh"));
+        tracker.handle(this.reply("311", "me", "Someone", "else", "example.org", "*", "Else"));
+        tracker.handle(this.reply("330", "me", "Kitteh", "kitteh", "is logged in as"));
+        tracker.handle(this.reply("318", "me", "Kitteh", "End of /WHOIS list."));
+
+        WhoisData data = future.get().orElseThrow(AssertionError::new);
+        Assert.assertEquals("kitteh", data.getNick());
+        Assert.assertEquals("kitteh.org", data.getHost());
+        Assert.assertEquals(Optional.of("kitteh"), data.getAccount());
+    }
+
+    /**
+     * Tests querying for a user who isn't there.
+     *
+     * @throws Exception if the future fails
+     */
+    @Test
+    public void testQueryNoSuchNick() throws Exception {
+        Client client = this.queryClient();
+        QueryTracker tracker = client.getQueryTracker();
+
+        CompletableFuture<Optional<WhoisData>> future = new WhoisCommand(client).target(TARGET).query();
+        tracker.handle(this.reply("402", "me", TARGET, "No such server"));
+        Assert.assertFalse(future.get().isPresent());
+    }
+
+    private Client queryClient() {
+        Client client = Mockito.mock(Client.class);
+        Mockito.when(client.getCapabilityManager()).thenReturn(Mockito.mock(CapabilityManager.class));
+        ServerInfo serverInfo = Mockito.mock(ServerInfo.class);
+        Mockito.when(serverInfo.getCaseMapping()).thenReturn(CaseMapping.RFC1459);
+        Mockito.when(client.getServerInfo()).thenReturn(serverInfo);
+        QueryTracker tracker = new QueryTracker(client);
+        Mockito.when(client.getQueryTracker()).thenReturn(tracker);
+        return client;
+    }
+
+    private ClientReceiveServerMessageEvent reply(String command, String... parameters) {
+        ClientReceiveServerMessageEvent event = Mockito.mock(ClientReceiveServerMessageEvent.class);
+        Mockito.when(event.getMessageTags()).thenReturn(Collections.emptyList());
+        Mockito.when(event.getCommand()).thenReturn(command);
+        Mockito.when(event.getParameters()).thenReturn(Arrays.asList(parameters));
+        return event;
+    }
 }
@@ -0,0 +1,175 @@
+package org.kitteh.irc.client.library.defaults;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.MessageReceiver;
+import org.kitteh.irc.client.library.feature.sending.MessageSendingQueue;
+import org.mockito.Mockito;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Tests the DefaultClient's message sending.
+ */
+public class DefaultClientTest {
+    private final List<String> sent = new ArrayList<>();
+    private Client.WithManagement client;
+
+    /**
+     * Builds a client recording its scheduled messages.
+     */
+    @Before
+    public void before() {
+        this.client = (Client.WithManagement) Client.builder().messageSendingQueueSupplier(client -> new RecordingQueue()).build();
+    }
+
+    /**
+     * Shuts the client down.
+     */
+    @After
+    public void after() {
+        this.client.shutdown();
+    }
+
+    /**
+     * Tests that targets are sent one per line without TARGMAX.
+     */
+    @Test
+    public void testMultipleTargetsWithoutTargMax() {
+        this.client.sendMessage(this.targets("#a", "#b"), "meow");
+        Assert.assertEquals(Arrays.asList("PRIVMSG #a :meow", "PRIVMSG #b :meow"), this.sent);
+    }
+
+    /**
+     * Tests that targets are packed up to the TARGMAX limit.
+     */
+    @Test
+    public void testMultipleTargetsWithTargMax() {
+        this.client.getServerInfo().addISupportParameter(this.client.getISupportManager().createParameter("TARGMAX=PRIVMSG:2,NOTICE:"));
+        this.client.sendMessage(this.targets("#a", "#b", "#c"), "meow");
+        this.client.sendNotice(this.targets("#a", "#b", "#c"), "purr");
+        Assert.assertEquals(Arrays.asList("PRIVMSG #a,#b :meow", "PRIVMSG #c :meow", "NOTICE #a,#b,#c :purr"), this.sent);
+    }
+
+    /**
+     * Tests that targets are split to keep lines within length.
+     */
+    @Test
+    public void testMultipleTargetsLineLength() {
+        this.client.getServerInfo().addISupportParameter(this.client.getISupportManager().createParameter("TARGMAX=PRIVMSG:"));
+        StringBuilder message = new StringBuilder();
+        while (message.length() < 370) {
+            message.append('m');
+        }
+        this.client.sendMessage(this.targets("#aaaaaaaaaaaaaaaaaaaa", "#bbbbbbbbbbbbbbbbbbbb", "#c"), message.toString());
+        Assert.assertEquals(2, this.sent.size());
+        Assert.assertTrue(this.sent.get(0).startsWith("PRIVMSG #aaaaaaaaaaaaaaaaaaaa :"));
+        Assert.assertTrue(this.sent.get(1).startsWith("PRIVMSG #bbbbbbbbbbbbbbbbbbbb,#c :"));
+    }
+
+    /**
+     * Tests removing waiting messages for a target.
+     */
+    @Test
+    public void testRemoveQueuedMessages() {
+        this.client.sendMessage("#a", "1");
+        this.client.sendMessage("#b", "2");
+        this.client.sendNotice("#A", "3");
+        this.client.sendRawLine("MODE #a");
+        Assert.assertEquals(2, this.client.removeQueuedMessages("#a"));
+        Assert.assertEquals(Arrays.asList("PRIVMSG #b :2", "MODE #a"), this.sent);
+        Assert.assertEquals(1, this.client.removeQueuedLines(line -> line.startsWith("MODE")));
+        Assert.assertEquals(Collections.singletonList("PRIVMSG #b :2"), this.sent);
+    }
+
+    /**
+     * Tests removing a target from messages packed for several targets,
+     * comparing targets by the server's case mapping.
+     */
+    @Test
+    public void testRemoveQueuedMessagesPacked() {
+        this.client.getServerInfo().addISupportParameter(this.client.getISupportManager().createParameter("TARGMAX=PRIVMSG:3"));
+        this.client.sendMessage(this.targets("#a[", "#b"), "meow");
+        this.client.sendMessage(this.targets("#A{"), "purr");
+        Assert.assertEquals(2, this.client.removeQueuedMessages("#a{"));
+        Assert.assertEquals(Collections.singletonList("PRIVMSG #b :meow"), this.sent);
+    }
+
+    private List<MessageReceiver> targets(String... names) {
+        List<MessageReceiver> targets = new ArrayList<>();
+        for (String name : names) {
+            MessageReceiver receiver = Mockito.mock(MessageReceiver.class);
+            Mockito.when(receiver.getMessagingName()).thenReturn(name);
+            targets.add(receiver);
+        }
+        return targets;
+    }
+
+    private class RecordingQueue implements MessageSendingQueue {
+        @Override
+        public void beginSending(@Nonnull Consumer<String> consumer) {
+        }
+
+        @Override
+        public boolean contains(@Nonnull String message) {
+            return DefaultClientTest.this.sent.contains(message);
+        }
+
+        @Nonnull
+        @Override
+        public Optional<Consumer<String>> getConsumer() {
+            return Optional.empty();
+        }
+
+        @Override
+        public long getPendingBytes() {
+            return DefaultClientTest.this.sent.stream().mapToLong(String::length).sum();
+        }
+
+        @Nonnull
+        @Override
+        public Map<String, Integer> getTargetCounts() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void pause() {
+        }
+
+        @Override
+        public int removeIf(@Nonnull Predicate<String> filter) {
+            int before = DefaultClientTest.this.sent.size();
+            DefaultClientTest.this.sent.removeIf(filter);
+            return before - DefaultClientTest.this.sent.size();
+        }
+
+        @Override
+        public int size() {
+            return DefaultClientTest.this.sent.size();
+        }
+
+        @Override
+        public void queue(@Nonnull String message) {
+            DefaultClientTest.this.sent.add(message);
+        }
+
+        @Nonnull
+        @Override
+        public Queue<String> shutdown() {
+            return new ArrayDeque<>();
+        }
+    }
+}
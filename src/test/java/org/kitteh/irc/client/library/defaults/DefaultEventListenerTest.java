@@ -1,5 +1,7 @@
 package org.kitteh.irc.client.library.defaults;
 
+import net.engio.mbassy.listener.Handler;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.kitteh.irc.client.library.Client;
@@ -10,10 +12,14 @@ import org.kitteh.irc.client.library.defaults.feature.DefaultISupportManager;
 import org.kitteh.irc.client.library.defaults.feature.DefaultServerInfo;
 import org.kitteh.irc.client.library.element.Actor;
 import org.kitteh.irc.client.library.element.ISupportParameter;
+import org.kitteh.irc.client.library.event.channel.ChannelKickEvent;
 import org.kitteh.irc.client.library.event.client.ClientNegotiationCompleteEvent;
 import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
 import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.event.user.PrivateMessageEvent;
+import org.kitteh.irc.client.library.event.user.UserNickChangeEvent;
 import org.kitteh.irc.client.library.event.user.WallopsEvent;
+import org.kitteh.irc.client.library.event.user.WhoisEvent;
 import org.kitteh.irc.client.library.exception.KittehServerMessageException;
 import org.kitteh.irc.client.library.feature.ActorTracker;
 import org.kitteh.irc.client.library.feature.CaseMapping;
@@ -24,6 +30,7 @@ import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.function.Function;
@@ -151,6 +158,20 @@ public class DefaultEventListenerTest {
         Mockito.verify(this.exceptionListener, Mockito.times(1)).queue(Mockito.argThat(this.exception(KittehServerMessageException.class, "Nickname missing; can't confirm")));
     }
 
+    /**
+     * Tests a WHOIS reply cut off by a lost connection not being carried
+     * into the next connection.
+     */
+    @Test
+    public void test1WelcomeDropsWhois() {
+        Mockito.when(this.client.getNick()).thenReturn("Kitteh");
+        Mockito.when(this.client.getActorTracker()).thenReturn(this.actorTracker);
+        this.fireLine(":irc.network 311 Kitteh Cat meow cat.example * :Cat");
+        this.fireLine(":irc.network 001 Kitteh :Welcome to the CatNet Internet Relay Chat Network Kitteh");
+        this.fireLine(":irc.network 318 Kitteh Cat :End of /WHOIS list.");
+        Mockito.verify(this.eventManager, Mockito.times(1)).callEvent(Mockito.argThat(this.match(WhoisEvent.class, event -> "Cat".equals(event.getWhoisData().getNick()) && (event.getWhoisData().getUserString() == null))));
+    }
+
     /**
      * Tests numeric 4.
      */
@@ -217,6 +238,71 @@ public class DefaultEventListenerTest {
         Mockito.verify(this.eventManager, Mockito.times(1)).callEvent(Mockito.argThat(this.match(WallopsEvent.class))); // TODO test message and sender
     }
 
+    /**
+     * Tests a private message fired when subscribed.
+     */
+    @Test
+    public void testPRIVMSG() {
+        Mockito.when(this.client.getActorTracker()).thenReturn(this.actorTracker);
+        Mockito.when(this.client.getNick()).thenReturn("Kitteh");
+        this.eventManager.registerEventListener(new Object() {
+            @Handler
+            public void message(PrivateMessageEvent event) {
+            }
+        });
+        this.fireLine(":Kitteh!~meow@kitteh.org PRIVMSG Kitteh :Meow");
+        Mockito.verify(this.eventManager, Mockito.times(1)).callEvent(Mockito.argThat(this.match(PrivateMessageEvent.class, event -> event.getMessage().equals("Meow"))));
+    }
+
+    /**
+     * Tests no message event built without subscribers.
+     */
+    @Test
+    public void testPRIVMSGUnsubscribed() {
+        this.fireLine(":Kitteh!~meow@kitteh.org PRIVMSG Kitteh :Meow");
+        Mockito.verify(this.eventManager, Mockito.never()).callEvent(Mockito.argThat(this.match(PrivateMessageEvent.class)));
+        Mockito.verify(this.client, Mockito.never()).getActorTracker();
+    }
+
+    /**
+     * Tests a KICK from a channel tracked without users.
+     */
+    @Test
+    public void testKICKCountOnly() {
+        this.trackCountOnly();
+        this.fireLine(":x!y@z KICK #c victim");
+        Assert.assertEquals(0, this.actorTracker.getTrackedChannel("#c").get().getUserCount());
+        Mockito.verify(this.eventManager, Mockito.times(1)).callEvent(Mockito.argThat(this.match(ChannelKickEvent.class, event -> event.getTarget().getNick().equals("victim"))));
+        Mockito.verify(this.exceptionListener, Mockito.never()).queue(Mockito.any());
+    }
+
+    /**
+     * Tests a NICK of a user only sharing a channel tracked without users.
+     */
+    @Test
+    public void testNICKCountOnly() {
+        this.trackCountOnly();
+        this.eventManager.registerEventListener(new Object() {
+            @Handler
+            public void nick(UserNickChangeEvent event) {
+            }
+        });
+        this.fireLine(":victim!y@z NICK purr");
+        Mockito.verify(this.eventManager, Mockito.times(1)).callEvent(Mockito.argThat(this.match(UserNickChangeEvent.class, event -> event.getNewUser().getNick().equals("purr"))));
+        this.fireLine(":x!y@z KICK #c purr");
+        Assert.assertEquals(0, this.actorTracker.getTrackedChannel("#c").get().getUserCount());
+        Mockito.verify(this.exceptionListener, Mockito.never()).queue(Mockito.any());
+    }
+
+    private void trackCountOnly() {
+        Mockito.when(this.client.getActorTracker()).thenReturn(this.actorTracker);
+        Mockito.when(this.client.getNick()).thenReturn("Kitteh");
+        this.actorTracker.setTrackingLevel(ActorTracker.TrackingLevel.COUNT_ONLY);
+        this.actorTracker.trackChannel("#c");
+        this.actorTracker.trackChannelNick("#c", "victim", Collections.emptySet());
+        Assert.assertEquals(1, this.actorTracker.getTrackedChannel("#c").get().getUserCount());
+    }
+
     @Test
     public void testWALLOPSFail() {
         this.fireLine(":irc.network WALLOPS");
@@ -0,0 +1,329 @@
+package org.kitteh.irc.client.library.defaults.feature;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.element.mode.ChannelMode;
+import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+import org.kitteh.irc.client.library.element.mode.ModeInfo;
+import org.kitteh.irc.client.library.element.mode.ModeStatus;
+import org.kitteh.irc.client.library.element.mode.ModeStatusList;
+import org.kitteh.irc.client.library.feature.ActorTracker;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.kitteh.irc.client.library.util.StringPool;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Tests the DefaultActorTracker.
+ */
+public class DefaultActorTrackerTest {
+    private Client.WithManagement client;
+    private DefaultActorTracker tracker;
+
+    /**
+     * Sets up a tracker on a mock client.
+     */
+    @Before
+    public void before() {
+        this.client = Mockito.mock(Client.WithManagement.class, Mockito.withSettings().stubOnly());
+        ServerInfo.WithManagement serverInfo = Mockito.mock(ServerInfo.WithManagement.class, Mockito.withSettings().stubOnly());
+        Mockito.when(this.client.getServerInfo()).thenReturn(serverInfo);
+        Mockito.when(this.client.getNick()).thenReturn("Kitteh");
+        Mockito.when(serverInfo.getCaseMapping()).thenReturn(CaseMapping.ASCII);
+        this.tracker = new DefaultActorTracker(this.client);
+        this.tracker.setQueryChannelInformation(false);
+    }
+
+    /**
+     * Tests the default, full, level.
+     */
+    @Test
+    public void testFull() {
+        this.join("#cats");
+        this.tracker.setUserAccount("Cat", "CatAccount");
+        Channel channel = this.tracker.getTrackedChannel("#cats").get();
+        Assert.assertEquals(ActorTracker.TrackingLevel.FULL, this.tracker.getTrackingLevel("#cats"));
+        Assert.assertEquals(2, channel.getUserCount());
+        Assert.assertEquals(2, channel.getNicknames().size());
+        Assert.assertEquals("CatAccount", this.tracker.getTrackedUser("Cat").get().getAccount().orElse(null));
+    }
+
+    /**
+     * Tests members only tracking.
+     */
+    @Test
+    public void testMembersOnly() {
+        this.tracker.setTrackingLevel("#cats", ActorTracker.TrackingLevel.MEMBERS_ONLY);
+        this.join("#cats");
+        this.tracker.setUserAccount("Cat", "CatAccount");
+        Channel channel = this.tracker.getTrackedChannel("#CATS").get();
+        Assert.assertEquals(2, channel.getUserCount());
+        Assert.assertEquals(2, channel.getUsers().size());
+        Assert.assertTrue(this.tracker.getTrackedUser("Cat").isPresent());
+        Assert.assertFalse(this.tracker.getTrackedUser("Cat").get().getAccount().isPresent());
+    }
+
+    /**
+     * Tests count only tracking.
+     */
+    @Test
+    public void testCountOnly() {
+        this.tracker.setTrackingLevel(ActorTracker.TrackingLevel.COUNT_ONLY);
+        this.join("#cats");
+        Channel channel = this.tracker.getTrackedChannel("#cats").get();
+        Assert.assertEquals(2, channel.getUserCount());
+        Assert.assertTrue(channel.getNicknames().isEmpty());
+        Assert.assertFalse(this.tracker.getTrackedUser("Cat").isPresent());
+        Assert.assertTrue(this.tracker.getTrackedUser("Kitteh").isPresent());
+
+        this.tracker.trackUserPart("#cats", "cat");
+        Assert.assertEquals(1, this.tracker.getTrackedChannel("#cats").get().getUserCount());
+    }
+
+    /**
+     * Tests no membership tracking.
+     */
+    @Test
+    public void testNone() {
+        this.tracker.setTrackingLevel(ActorTracker.TrackingLevel.NONE);
+        this.join("#cats");
+        Channel channel = this.tracker.getTrackedChannel("#cats").get();
+        Assert.assertEquals(0, channel.getUserCount());
+        Assert.assertTrue(channel.getUsers().isEmpty());
+    }
+
+    /**
+     * Tests lowering the level of an already tracked channel.
+     */
+    @Test
+    public void testDowngrade() {
+        this.join("#cats");
+        Assert.assertTrue(this.tracker.getTrackedUser("Cat").isPresent());
+        this.tracker.setTrackingLevel("#cats", ActorTracker.TrackingLevel.COUNT_ONLY);
+        Channel channel = this.tracker.getTrackedChannel("#cats").get();
+        Assert.assertEquals(2, channel.getUserCount());
+        Assert.assertFalse(this.tracker.getTrackedUser("Cat").isPresent());
+        this.tracker.setTrackingLevel("#cats", null);
+        Assert.assertEquals(ActorTracker.TrackingLevel.FULL, this.tracker.getTrackingLevel("#cats"));
+    }
+
+    /**
+     * Tests reading snapshots from several threads while the tracker is
+     * being written to.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testConcurrentReads() throws InterruptedException {
+        this.join("#cats");
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        int readers = 4;
+        CountDownLatch done = new CountDownLatch(readers);
+        for (int i = 0; i < readers; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        Channel channel = this.tracker.getTrackedChannel("#cats").get();
+                        Assert.assertEquals(channel.getUserCount(), channel.getNicknames().size());
+                        channel.getUsers().forEach(user -> Assert.assertTrue(user.getChannels().size() <= 1));
+                        channel.getTopic().getValue();
+                        this.tracker.getTrackedUser("Cat");
+                    }
+                } catch (Throwable thrown) {
+                    failures.add(thrown);
+                } finally {
+                    done.countDown();
+                }
+            });
+            reader.setDaemon(true);
+            reader.start();
+        }
+        for (int i = 0; i < 2000; i++) {
+            String nick = "Kitten" + (i % 10);
+            this.tracker.trackChannelUser("#cats", (User) this.tracker.getActor(nick + "!purr@cat.example"), Collections.emptySet());
+            this.tracker.setChannelTopic("#cats", "Topic " + i);
+            this.tracker.setUserAccount(nick, "Account" + i);
+            this.tracker.trackUserPart("#cats", nick);
+        }
+        running.set(false);
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(failures.toString(), failures.isEmpty());
+        Channel channel = this.tracker.getTrackedChannel("#cats").get();
+        Assert.assertEquals(2, channel.getUserCount());
+        Assert.assertEquals("Topic 1999", channel.getTopic().getValue().orElse(null));
+        Assert.assertFalse(this.tracker.getTrackedUser("Kitten9").isPresent());
+    }
+
+    /**
+     * Tests that snapshots taken while a channel is being written to are
+     * never torn, by renaming a member back and forth, which briefly
+     * removes them before adding them back.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testSnapshotsNotTorn() throws InterruptedException {
+        this.join("#cats");
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; running.get(); i++) {
+                    this.tracker.trackUserNickChange(((i % 2) == 0) ? "Cat" : "Kitten", ((i % 2) == 0) ? "Kitten" : "Cat");
+                }
+            } catch (Throwable thrown) {
+                failures.add(thrown);
+            } finally {
+                done.countDown();
+            }
+        });
+        writer.setDaemon(true);
+        writer.start();
+        try {
+            for (int i = 0; i < 100000; i++) {
+                Channel channel = this.tracker.getTrackedChannel("#cats").get();
+                Assert.assertEquals(2, channel.getUserCount());
+                Assert.assertEquals(2, channel.getNicknames().size());
+            }
+        } finally {
+            running.set(false);
+        }
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(failures.toString(), failures.isEmpty());
+    }
+
+    /**
+     * Tests user details being shared through a pool.
+     */
+    @Test
+    public void testStringPool() {
+        StringPool pool = new StringPool();
+        DefaultActorTracker other = new DefaultActorTracker(this.client, pool);
+        this.tracker = new DefaultActorTracker(this.client, pool);
+        this.tracker.trackUser((User) this.tracker.getActor("Cat!meow@" + new String("cat.example")));
+        other.trackUser((User) other.getActor("Kitten!purr@" + new String("cat.example")));
+        Assert.assertSame(this.tracker.getTrackedUser("Cat").get().getHost(), other.getTrackedUser("Kitten").get().getHost());
+    }
+
+    /**
+     * Tests adding and removing mode info.
+     */
+    @Test
+    public void testModeInfo() {
+        Mockito.when(this.client.getServerInfo().isValidChannel("#cats")).thenReturn(true);
+        ChannelMode ban = Mockito.mock(ChannelMode.class);
+        Mockito.when(ban.getChar()).thenReturn('b');
+        Mockito.when(ban.getClient()).thenReturn(this.client);
+        Mockito.when(ban.getType()).thenReturn(ChannelMode.Type.A_MASK);
+        this.join("#cats");
+        this.tracker.trackChannelMode("#cats", ban, true);
+        Channel channel = this.tracker.getTrackedChannel("#cats").get();
+        Assert.assertTrue(channel.getModeInfoList(ban).get().isEmpty());
+
+        this.tracker.trackChannelModeInfo("#cats", true, new ModeInfo.DefaultModeInfo(this.client, channel, ban, "*!*@one.example", null, null));
+        this.tracker.trackChannelModeInfo("#cats", true, new ModeInfo.DefaultModeInfo(this.client, channel, ban, "*!*@two.example", null, null));
+        this.tracker.trackChannelModeInfo("#cats", true, new ModeInfo.DefaultModeInfo(this.client, channel, ban, "*!*@three.example", null, null));
+        List<ModeInfo> list = this.tracker.getTrackedChannel("#cats").get().getModeInfoList(ban).get();
+        Assert.assertEquals(3, list.size());
+        Assert.assertEquals("*!*@one.example", list.get(0).getMask().asString());
+
+        this.tracker.setChannelTopic("#cats", "Meow");
+        channel = this.tracker.getTrackedChannel("#cats").get();
+        Assert.assertSame(list, channel.getModeInfoList(ban).get());
+        List<ModeInfo> matches = channel.getModeInfoMatches(ban, "Cat!meow@TWO.example").get();
+        Assert.assertEquals(1, matches.size());
+        Assert.assertEquals("*!*@two.example", matches.get(0).getMask().asString());
+
+        this.tracker.trackChannelModeInfo("#cats", false, new ModeInfo.DefaultModeInfo(this.client, channel, ban, "*!*@TWO.example", null, null));
+        list = this.tracker.getTrackedChannel("#cats").get().getModeInfoList(ban).get();
+        Assert.assertEquals(2, list.size());
+        Assert.assertEquals("*!*@three.example", list.get(1).getMask().asString());
+    }
+
+    /**
+     * Tests the change feed.
+     */
+    @Test
+    public void testChangeFeed() {
+        List<ActorTracker.Delta> deltas = new ArrayList<>();
+        this.tracker.addChangeListener(deltas::add);
+        ChannelUserMode op = Mockito.mock(ChannelUserMode.class);
+        Mockito.when(op.getChar()).thenReturn('o');
+        this.join("#cats");
+        this.tracker.updateChannelModes("#cats", ModeStatusList.of(new ModeStatus<ChannelMode>(true, op, "Cat")));
+        this.tracker.setChannelTopic("#cats", "Meow");
+        this.tracker.trackUserNickChange("Cat", "Kitten");
+        this.tracker.trackUserPart("#cats", "Kitten");
+        this.tracker.trackUserPart("#cats", "Kitten");
+
+        Assert.assertEquals(Arrays.asList(ActorTracker.Delta.Type.CHANNEL_TRACKED, ActorTracker.Delta.Type.MEMBER_ADDED,
+                ActorTracker.Delta.Type.MEMBER_ADDED, ActorTracker.Delta.Type.PREFIX_CHANGED, ActorTracker.Delta.Type.TOPIC_SET,
+                ActorTracker.Delta.Type.MEMBER_NICK_CHANGED, ActorTracker.Delta.Type.MEMBER_REMOVED),
+                deltas.stream().map(ActorTracker.Delta::getType).collect(Collectors.toList()));
+        for (int i = 1; i < deltas.size(); i++) {
+            Assert.assertTrue(deltas.get(i).getVersion() > deltas.get(i - 1).getVersion());
+        }
+        Assert.assertEquals(deltas.get(deltas.size() - 1).getVersion(), this.tracker.getVersion());
+        Assert.assertEquals("Cat", deltas.get(3).getNick().orElse(null));
+        Assert.assertSame(op, deltas.get(3).getMode().get().getMode());
+        Assert.assertEquals("Meow", deltas.get(4).getValue().orElse(null));
+        Assert.assertEquals("Kitten", deltas.get(5).getValue().orElse(null));
+    }
+
+    /**
+     * Tests the change feed for topic info, mode info lists and dropping a
+     * channel's members on untracking.
+     */
+    @Test
+    public void testChangeFeedDetails() {
+        Mockito.when(this.client.getServerInfo().isValidChannel("#cats")).thenReturn(true);
+        ChannelMode ban = Mockito.mock(ChannelMode.class);
+        Mockito.when(ban.getChar()).thenReturn('b');
+        Mockito.when(ban.getClient()).thenReturn(this.client);
+        Mockito.when(ban.getType()).thenReturn(ChannelMode.Type.A_MASK);
+        Mockito.when(this.client.getServerInfo().getChannelMode('b')).thenReturn(Optional.of(ban));
+        this.join("#cats");
+        this.tracker.trackChannelMode("#cats", ban, true);
+        Channel channel = this.tracker.getTrackedChannel("#cats").get();
+        List<ActorTracker.Delta> deltas = new ArrayList<>();
+        this.tracker.addChangeListener(deltas::add);
+        this.tracker.setChannelTopic("#cats", "Meow");
+        this.tracker.setChannelTopicInfo("#cats", 1500000000000L, this.tracker.getActor("Cat!meow@cat.example"));
+        this.tracker.setChannelModeInfoList("#cats", 'b', Collections.emptyList());
+        this.tracker.trackChannelModeInfo("#cats", true, new ModeInfo.DefaultModeInfo(this.client, channel, ban, "*!*@one.example", null, null));
+        this.tracker.unTrackChannel("#cats");
+
+        Assert.assertEquals(Arrays.asList(ActorTracker.Delta.Type.TOPIC_SET, ActorTracker.Delta.Type.TOPIC_SET,
+                ActorTracker.Delta.Type.MODE_INFO_CHANGED, ActorTracker.Delta.Type.MODE_INFO_CHANGED,
+                ActorTracker.Delta.Type.MEMBER_REMOVED, ActorTracker.Delta.Type.MEMBER_REMOVED, ActorTracker.Delta.Type.CHANNEL_UNTRACKED),
+                deltas.stream().map(ActorTracker.Delta::getType).collect(Collectors.toList()));
+        Assert.assertEquals("Meow", deltas.get(1).getValue().orElse(null));
+        Assert.assertFalse(deltas.get(2).getMode().get().getParameter().isPresent());
+        Assert.assertEquals("*!*@one.example", deltas.get(3).getMode().get().getParameter().orElse(null));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("Kitteh", "Cat")), deltas.subList(4, 6).stream().map(delta -> delta.getNick().orElse(null)).collect(Collectors.toSet()));
+    }
+
+    private void join(String channel) {
+        this.tracker.trackChannel(channel);
+        this.tracker.trackChannelUser(channel, (User) this.tracker.getActor("Kitteh!kitteh@kitteh.org"), Collections.emptySet());
+        this.tracker.trackChannelUser(channel, (User) this.tracker.getActor("Cat!meow@cat.example"), Collections.emptySet());
+    }
+}
@@ -0,0 +1,247 @@
+package org.kitteh.irc.client.library.defaults.feature;
+
+import net.engio.mbassy.listener.Handler;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.FakeClient;
+import org.kitteh.irc.client.library.defaults.element.DefaultActor;
+import org.kitteh.irc.client.library.defaults.element.DefaultServerMessage;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.event.helper.ChannelEvent;
+import org.kitteh.irc.client.library.exception.KittehEventException;
+import org.kitteh.irc.client.library.feature.filter.NumericFilter;
+import org.kitteh.irc.client.library.feature.lane.EventLane;
+import org.kitteh.irc.client.library.feature.lane.Lane;
+import org.kitteh.irc.client.library.util.Listener;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Tests the DirectEventManager.
+ */
+public class DirectEventManagerTest {
+    /**
+     * A listener with public handlers.
+     */
+    public static class PublicListener {
+        private final List<String> calls = new ArrayList<>();
+
+        /**
+         * Handles everything, last.
+         *
+         * @param event event
+         */
+        @Handler(priority = -1)
+        public void any(Object event) {
+            this.calls.add("any");
+        }
+
+        /**
+         * Handles strings, first.
+         *
+         * @param event event
+         */
+        @Handler(priority = 5)
+        public void string(String event) {
+            this.calls.add("string " + event);
+        }
+
+        /**
+         * Handles char sequences but not subtypes.
+         *
+         * @param event event
+         */
+        @Handler(rejectSubtypes = true)
+        public void sequence(CharSequence event) {
+            this.calls.add("sequence");
+        }
+    }
+
+    private final List<String> calls = new ArrayList<>();
+
+    /**
+     * Tests priority order, subtype handling, and handlers declared on
+     * both public and private methods.
+     */
+    @Test
+    public void testDispatch() {
+        DirectEventManager manager = new DirectEventManager(new FakeClient());
+        PublicListener listener = new PublicListener();
+        manager.registerEventListener(listener);
+        manager.registerEventListener(this);
+        manager.callEvent("meow");
+        Assert.assertEquals(Arrays.asList("string meow", "any"), listener.calls);
+        Assert.assertEquals(Collections.singletonList("private meow"), this.calls);
+
+        manager.unregisterEventListener(this);
+        manager.callEvent(new StringBuilder("purr"));
+        Assert.assertEquals(Arrays.asList("string meow", "any", "any"), listener.calls);
+        Assert.assertEquals(1, this.calls.size());
+        Assert.assertEquals(2, manager.getRegisteredEventListeners().size());
+    }
+
+    /**
+     * Tests annotation filters.
+     */
+    @Test
+    public void testFilter() {
+        FakeClient client = new FakeClient();
+        DirectEventManager manager = new DirectEventManager(client);
+        manager.registerEventListener(this);
+        DefaultActor actor = new DefaultActor(client, "test");
+        manager.callEvent(new ClientReceiveNumericEvent(client, new DefaultServerMessage.NumericCommand(200, "", Collections.emptyList()), actor, "", 200, Collections.emptyList()));
+        manager.callEvent(new ClientReceiveNumericEvent(client, new DefaultServerMessage.NumericCommand(300, "", Collections.emptyList()), actor, "", 300, Collections.emptyList()));
+        Assert.assertEquals(Collections.singletonList("numeric 200"), this.calls);
+    }
+
+    /**
+     * Tests handler exceptions reaching the exception listener without
+     * stopping other handlers.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testException() {
+        Client client = Mockito.mock(Client.class);
+        Listener<Exception> exceptions = Mockito.mock(Listener.class);
+        Mockito.when(client.getExceptionListener()).thenReturn(exceptions);
+        DirectEventManager manager = new DirectEventManager(client);
+        PublicListener listener = new PublicListener();
+        manager.registerEventListener(new Object() {
+            @Handler(priority = 10)
+            public void fail(String event) {
+                throw new IllegalStateException(event);
+            }
+        });
+        manager.registerEventListener(listener);
+        manager.callEvent("hiss");
+        Mockito.verify(exceptions).queue(Mockito.any(KittehEventException.class));
+        Assert.assertEquals(Arrays.asList("string hiss", "any"), listener.calls);
+    }
+
+    /**
+     * Tests channel-scoped listeners only receiving their channel's events,
+     * merged with other handlers by priority.
+     */
+    @Test
+    public void testChannel() {
+        FakeClient client = new FakeClient();
+        DirectEventManager manager = new DirectEventManager(client);
+        List<String> calls = new ArrayList<>();
+        Object kitteh = new Object() {
+            @Handler(priority = 1)
+            public void channel(ChannelEvent event) {
+                calls.add("kitteh " + event.getChannel().getName());
+            }
+        };
+        Object global = new Object() {
+            @Handler(priority = 2)
+            public void first(ChannelEvent event) {
+                calls.add("first");
+            }
+
+            @Handler
+            public void last(ChannelEvent event) {
+                calls.add("last");
+            }
+        };
+        manager.registerChannelEventListener("#Kitteh", kitteh);
+        manager.registerChannelEventListener("#meow", kitteh);
+        manager.registerEventListener(global);
+        manager.callEvent(this.channelEvent(client, "#kitteh"));
+        manager.callEvent(this.channelEvent(client, "#other"));
+        Assert.assertEquals(Arrays.asList("first", "kitteh #kitteh", "last", "first", "last"), calls);
+
+        manager.unregisterEventListener(kitteh);
+        calls.clear();
+        manager.callEvent(this.channelEvent(client, "#meow"));
+        Assert.assertEquals(Arrays.asList("first", "last"), calls);
+    }
+
+    /**
+     * Tests lane handlers queued by key while others run directly.
+     */
+    @Test
+    public void testLane() {
+        FakeClient client = new FakeClient();
+        DirectEventManager manager = new DirectEventManager(client);
+        Queue<Runnable> executor = new LinkedList<>();
+        EventLane lane = new EventLane("Slow", executor::add, 10, EventLane.OverflowPolicy.DROP_NEWEST);
+        manager.registerEventLane(lane);
+        List<String> calls = new ArrayList<>();
+        manager.registerEventListener(new Object() {
+            @Handler
+            @Lane("Slow")
+            public void slow(ChannelEvent event) {
+                calls.add("slow " + event.getChannel().getName());
+            }
+
+            @Handler
+            public void fast(ChannelEvent event) {
+                calls.add("fast " + event.getChannel().getName());
+            }
+        });
+        manager.callEvent(this.channelEvent(client, "#kitteh"));
+        manager.callEvent(this.channelEvent(client, "#meow"));
+        manager.callEvent(this.channelEvent(client, "#KITTEH"));
+        Assert.assertEquals(Arrays.asList("fast #kitteh", "fast #meow", "fast #KITTEH"), calls);
+        Assert.assertEquals(3, lane.getDepth());
+        Assert.assertEquals(2, executor.size());
+        calls.clear();
+        Runnable runnable;
+        while ((runnable = executor.poll()) != null) {
+            runnable.run();
+        }
+        Assert.assertEquals(Arrays.asList("slow #kitteh", "slow #KITTEH", "slow #meow"), calls);
+    }
+
+    /**
+     * Tests subscriber lookup following registration.
+     */
+    @Test
+    public void testHasSubscribers() {
+        FakeClient client = new FakeClient();
+        DirectEventManager manager = new DirectEventManager(client);
+        Assert.assertFalse(manager.hasSubscribers(String.class));
+        PublicListener listener = new PublicListener();
+        manager.registerEventListener(listener);
+        Assert.assertTrue(manager.hasSubscribers(String.class));
+        manager.unregisterEventListener(listener);
+        Assert.assertFalse(manager.hasSubscribers(String.class));
+        Assert.assertFalse(manager.hasSubscribers(ChannelEvent.class));
+        manager.registerChannelEventListener("#kitteh", new Object() {
+            @Handler
+            public void channel(ChannelEvent event) {
+            }
+        });
+        Assert.assertTrue(manager.hasSubscribers(ChannelEvent.class));
+        Assert.assertFalse(manager.hasSubscribers(String.class));
+    }
+
+    private ChannelEvent channelEvent(Client client, String name) {
+        Channel channel = Mockito.mock(Channel.class);
+        Mockito.when(channel.getName()).thenReturn(name);
+        ChannelEvent event = Mockito.mock(ChannelEvent.class);
+        Mockito.when(event.getClient()).thenReturn(client);
+        Mockito.when(event.getChannel()).thenReturn(channel);
+        return event;
+    }
+
+    @Handler
+    private void privateString(String event) {
+        this.calls.add("private " + event);
+    }
+
+    @Handler
+    @NumericFilter(200)
+    private void numeric(ClientReceiveNumericEvent event) {
+        this.calls.add("numeric " + event.getNumeric());
+    }
+}
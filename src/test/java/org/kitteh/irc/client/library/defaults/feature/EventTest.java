@@ -3,8 +3,21 @@ package org.kitteh.irc.client.library.defaults.feature;
 import net.engio.mbassy.listener.Handler;
 import org.junit.Assert;
 import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.FakeClient;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.event.helper.ChannelEvent;
 import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.lane.EventLane;
+import org.kitteh.irc.client.library.feature.lane.Lane;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
 
 /**
  * Confirm an event listener can be registered and an event fired.
@@ -27,6 +40,117 @@ public class EventTest {
         Assert.assertTrue("Failed to register and fire an event", event.success);
     }
 
+    /**
+     * Tests a channel-scoped listener only receiving its channel's events.
+     */
+    @Test
+    public void testChannelEventRegistration() {
+        FakeClient fakeClient = new FakeClient();
+        EventManager manager = fakeClient.getEventManager();
+        List<String> channels = new ArrayList<>();
+        manager.registerChannelEventListener("#Kitteh", new Object() {
+            @Handler
+            public void channel(ChannelEvent event) {
+                channels.add(event.getChannel().getName());
+            }
+        });
+        manager.callEvent(this.channelEvent(fakeClient, "#kitteh"));
+        manager.callEvent(this.channelEvent(fakeClient, "#other"));
+        Assert.assertEquals(Collections.singletonList("#kitteh"), channels);
+    }
+
+    /**
+     * Tests handlers placed on a lane by annotation or registration only
+     * running on the lane.
+     */
+    @Test
+    public void testEventLane() {
+        FakeClient fakeClient = new FakeClient();
+        EventManager manager = fakeClient.getEventManager();
+        Queue<Runnable> executor = new LinkedList<>();
+        manager.registerEventLane(new EventLane("Slow", executor::add, 10, EventLane.OverflowPolicy.BLOCK));
+        List<String> calls = new ArrayList<>();
+        manager.registerEventListener(new Object() {
+            @Handler
+            @Lane("Slow")
+            public void slow(String event) {
+                calls.add("annotated " + event);
+            }
+
+            @Handler
+            public void fast(String event) {
+                calls.add("fast " + event);
+            }
+        });
+        manager.registerEventListener(new Object() {
+            @Handler
+            public void registered(String event) {
+                calls.add("registered " + event);
+            }
+        }, manager.getEventLanes().get("Slow"));
+        manager.callEvent("meow");
+        Assert.assertEquals(Collections.singletonList("fast meow"), calls);
+        Runnable runnable;
+        while ((runnable = executor.poll()) != null) {
+            runnable.run();
+        }
+        Assert.assertEquals(3, calls.size());
+        Assert.assertTrue(calls.containsAll(Arrays.asList("annotated meow", "registered meow")));
+    }
+
+    /**
+     * Tests rejecting a listener naming an unknown lane.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownEventLane() {
+        new FakeClient().getEventManager().registerEventListener(new Object() {
+            @Handler
+            @Lane("Missing")
+            public void slow(String event) {
+            }
+        });
+    }
+
+    /**
+     * Tests subscriber lookup following registration, including channel
+     * and lane listeners.
+     */
+    @Test
+    public void testHasSubscribers() {
+        FakeClient fakeClient = new FakeClient();
+        EventManager manager = fakeClient.getEventManager();
+        Assert.assertFalse(manager.hasSubscribers(Event.class));
+        manager.registerEventListener(this);
+        Assert.assertTrue(manager.hasSubscribers(Event.class));
+        manager.unregisterEventListener(this);
+        Assert.assertFalse(manager.hasSubscribers(Event.class));
+
+        Object channel = new Object() {
+            @Handler
+            public void channel(ChannelEvent event) {
+            }
+        };
+        Assert.assertFalse(manager.hasSubscribers(ChannelEvent.class));
+        manager.registerChannelEventListener("#kitteh", channel);
+        Assert.assertTrue(manager.hasSubscribers(ChannelEvent.class));
+        Assert.assertFalse(manager.hasSubscribers(Event.class));
+        manager.unregisterEventListener(channel);
+        Assert.assertFalse(manager.hasSubscribers(ChannelEvent.class));
+
+        manager.registerEventListener(this, new EventLane("Test", Runnable::run, 1, EventLane.OverflowPolicy.BLOCK));
+        Assert.assertTrue(manager.hasSubscribers(Event.class));
+        Assert.assertFalse(manager.hasSubscribers(ChannelEvent.class));
+    }
+
+    private ChannelEvent channelEvent(Client client, String name) {
+        Channel channel = Mockito.mock(Channel.class);
+        Mockito.when(channel.getName()).thenReturn(name);
+        ChannelEvent event = Mockito.mock(ChannelEvent.class);
+        Mockito.when(event.getClient()).thenReturn(client);
+        Mockito.when(event.getChannel()).thenReturn(channel);
+        return event;
+    }
+
     /**
      * A test method for listening to an event.
      *
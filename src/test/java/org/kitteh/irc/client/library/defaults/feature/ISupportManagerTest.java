@@ -226,6 +226,32 @@ public class ISupportManagerTest {
         this.verifyException(manager);
     }
 
+    /**
+     * Tests targmax.
+     */
+    @Test
+    public void targmax() {
+        DefaultISupportManager manager = this.getManager();
+        ISupportParameter param = manager.createParameter(ISupportParameter.TargMax.NAME + "=privmsg:4,NOTICE:3,JOIN:");
+        Assert.assertTrue(ISupportParameter.TargMax.class.isAssignableFrom(param.getClass()));
+        ISupportParameter.TargMax targMax = (ISupportParameter.TargMax) param;
+        Assert.assertEquals(3, targMax.getLimits().size());
+        Assert.assertEquals(4, targMax.getLimit("PRIVMSG").get().intValue());
+        Assert.assertEquals(3, targMax.getLimit("notice").get().intValue());
+        Assert.assertEquals(Integer.MAX_VALUE, targMax.getLimit("JOIN").get().intValue());
+        Assert.assertFalse(targMax.getLimit("KICK").isPresent());
+    }
+
+    /**
+     * Tests targmax.
+     */
+    @Test
+    public void targmaxFailValueInt() {
+        DefaultISupportManager manager = this.getManager();
+        Assert.assertFalse(ISupportParameter.TargMax.class.isAssignableFrom(manager.createParameter(ISupportParameter.TargMax.NAME + "=PRIVMSG:MEOW").getClass()));
+        this.verifyException(manager);
+    }
+
     /**
      * Tests whox.
      */
@@ -0,0 +1,137 @@
+package org.kitteh.irc.client.library.feature.lane;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Tests the EventLane.
+ */
+public class EventLaneTest {
+    private final Queue<Runnable> executor = new LinkedList<>();
+    private final List<String> handled = new ArrayList<>();
+
+    /**
+     * Tests events of one key handled in order, one at a time, and
+     * different keys handled separately.
+     */
+    @Test
+    public void testOrder() {
+        EventLane lane = new EventLane("Test", this.executor::add, 10, EventLane.OverflowPolicy.BLOCK);
+        this.submit(lane, "#kitteh", "a");
+        this.submit(lane, "#kitteh", "b");
+        this.submit(lane, "#meow", "c");
+        this.submit(lane, "#kitteh", "d");
+        Assert.assertEquals(4, lane.getDepth());
+        Assert.assertEquals(2, this.executor.size());
+        this.run();
+        Assert.assertEquals(Arrays.asList("a", "b", "d", "c"), this.handled);
+        Assert.assertEquals(0, lane.getDepth());
+    }
+
+    /**
+     * Tests dropping arriving events when full.
+     */
+    @Test
+    public void testDropNewest() {
+        EventLane lane = new EventLane("Test", this.executor::add, 2, EventLane.OverflowPolicy.DROP_NEWEST);
+        this.submit(lane, null, "a");
+        this.submit(lane, null, "b");
+        this.submit(lane, null, "c");
+        Assert.assertEquals(2, lane.getDepth());
+        Assert.assertEquals(1, lane.getDroppedCount());
+        this.run();
+        Assert.assertEquals(Arrays.asList("a", "b"), this.handled);
+    }
+
+    /**
+     * Tests dropping the longest waiting event when full, whatever its key.
+     */
+    @Test
+    public void testDropOldest() {
+        EventLane lane = new EventLane("Test", this.executor::add, 2, EventLane.OverflowPolicy.DROP_OLDEST);
+        this.submit(lane, "#kitteh", "a");
+        this.submit(lane, "#meow", "b");
+        this.submit(lane, "#kitteh", "c");
+        this.submit(lane, "#meow", "d");
+        Assert.assertEquals(2, lane.getDepth());
+        Assert.assertEquals(2, lane.getDroppedCount());
+        this.run();
+        Assert.assertEquals(Arrays.asList("c", "d"), this.handled);
+    }
+
+    /**
+     * Tests handling arriving events on the calling thread when full.
+     */
+    @Test
+    public void testCallerRuns() {
+        EventLane lane = new EventLane("Test", this.executor::add, 1, EventLane.OverflowPolicy.CALLER_RUNS);
+        this.submit(lane, null, "a");
+        this.submit(lane, null, "b");
+        Assert.assertEquals(Arrays.asList("b"), this.handled);
+        this.run();
+        Assert.assertEquals(Arrays.asList("b", "a"), this.handled);
+        Assert.assertEquals(0, lane.getDroppedCount());
+    }
+
+    /**
+     * Tests waiting events dropped on shutdown.
+     */
+    @Test
+    public void testShutdown() {
+        EventLane lane = new EventLane("Test", this.executor::add, 5, EventLane.OverflowPolicy.BLOCK);
+        this.submit(lane, null, "a");
+        lane.shutdown();
+        this.submit(lane, null, "b");
+        this.run();
+        Assert.assertTrue(this.handled.isEmpty());
+        Assert.assertEquals(2, lane.getDroppedCount());
+    }
+
+    /**
+     * Tests blocking when full until a thread makes room.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test(timeout = 10000)
+    public void testBlock() throws InterruptedException {
+        EventLane lane = new EventLane("Test", 1, 1, EventLane.OverflowPolicy.BLOCK);
+        List<String> handled = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String value = String.valueOf(i);
+            lane.submit("#kitteh", () -> {
+                synchronized (handled) {
+                    handled.add(value);
+                }
+            });
+        }
+        while (true) {
+            synchronized (handled) {
+                if (handled.size() == 50) {
+                    break;
+                }
+            }
+            Thread.sleep(5);
+        }
+        lane.shutdown();
+        Assert.assertEquals("0", handled.get(0));
+        Assert.assertEquals("49", handled.get(49));
+        Assert.assertEquals(0, lane.getDroppedCount());
+    }
+
+    private void submit(EventLane lane, Object key, String value) {
+        lane.submit(key, () -> this.handled.add(value));
+    }
+
+    private void run() {
+        Runnable runnable;
+        while ((runnable = this.executor.poll()) != null) {
+            runnable.run();
+        }
+    }
+}
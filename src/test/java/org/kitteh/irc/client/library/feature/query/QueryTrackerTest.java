@@ -0,0 +1,164 @@
+package org.kitteh.irc.client.library.feature.query;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.CapabilityState;
+import org.kitteh.irc.client.library.element.MessageTag;
+import org.kitteh.irc.client.library.event.helper.ClientReceiveServerMessageEvent;
+import org.kitteh.irc.client.library.feature.CapabilityManager;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Tests the QueryTracker.
+ */
+public class QueryTrackerTest {
+    private Client client;
+    private CapabilityManager capabilityManager;
+    private QueryTracker tracker;
+
+    /**
+     * Sets up a tracker on a mock client.
+     */
+    @Before
+    public void before() {
+        this.client = Mockito.mock(Client.class);
+        this.capabilityManager = Mockito.mock(CapabilityManager.class);
+        Mockito.when(this.client.getCapabilityManager()).thenReturn(this.capabilityManager);
+        this.tracker = new QueryTracker(this.client);
+    }
+
+    /**
+     * Tests correlating interleaved replies by label, with and without a
+     * batch.
+     *
+     * @throws Exception if the future fails
+     */
+    @Test
+    public void testLabeled() throws Exception {
+        this.enableLabels();
+        CompletableFuture<List<ClientReceiveServerMessageEvent>> first = this.tracker.query("WHOIS kitteh", Collections.singleton(311), Collections.singleton(318));
+        CompletableFuture<List<ClientReceiveServerMessageEvent>> second = this.tracker.query("@meow WHOIS cat", Collections.singleton(311), Collections.singleton(318));
+        Assert.assertEquals(Arrays.asList("@label=1 WHOIS kitteh", "@label=2;meow WHOIS cat"), this.getSent());
+
+        this.tracker.handle(this.event("label=2", "BATCH", "+b1", "labeled-response"));
+        this.tracker.handle(this.event("batch=b1", "311", "me", "cat"));
+        this.tracker.handle(this.event("label=1", "401", "me", "kitteh"));
+        Assert.assertEquals(Collections.singletonList("401"), this.getCommands(first));
+        Assert.assertFalse(second.isDone());
+        this.tracker.handle(this.event(null, "311", "me", "dog"));
+        this.tracker.handle(this.event("batch=b1", "318", "me", "cat"));
+        this.tracker.handle(this.event(null, "BATCH", "-b1"));
+        Assert.assertEquals(Arrays.asList("311", "318"), this.getCommands(second));
+        Assert.assertEquals(0, this.tracker.getPendingCount());
+    }
+
+    /**
+     * Tests an acknowledgement completing a query without replies.
+     *
+     * @throws Exception if the future fails
+     */
+    @Test
+    public void testAck() throws Exception {
+        this.enableLabels();
+        CompletableFuture<List<ClientReceiveServerMessageEvent>> future = this.tracker.query("MODE #kitteh +b", Collections.singleton(367), Collections.singleton(368));
+        this.tracker.handle(this.event("label=1", "ACK"));
+        Assert.assertTrue(future.get().isEmpty());
+    }
+
+    /**
+     * Tests sending queries one at a time without labels.
+     *
+     * @throws Exception if the future fails
+     */
+    @Test
+    public void testUnlabeled() throws Exception {
+        CompletableFuture<List<ClientReceiveServerMessageEvent>> first = this.tracker.query("MODE #a +b", Collections.singleton(367), Collections.singleton(368));
+        CompletableFuture<List<ClientReceiveServerMessageEvent>> second = this.tracker.query("MODE #b +b", Collections.singleton(367), Collections.singleton(368));
+        Assert.assertEquals(Collections.singletonList("MODE #a +b"), this.getSent());
+
+        this.tracker.handle(this.event(null, "367", "me", "#a", "*!*@*"));
+        this.tracker.handle(this.event(null, "PRIVMSG", "#a", "meow"));
+        this.tracker.handle(this.event(null, "368", "me", "#a"));
+        Assert.assertEquals(Arrays.asList("367", "368"), this.getCommands(first));
+        Assert.assertFalse(second.isDone());
+        Assert.assertEquals(Arrays.asList("MODE #a +b", "MODE #b +b"), this.getSent());
+    }
+
+    /**
+     * Tests failing waiting queries when the connection resets.
+     */
+    @Test
+    public void testReset() {
+        CompletableFuture<List<ClientReceiveServerMessageEvent>> future = this.tracker.query("WHOIS kitteh", Collections.singleton(311), Collections.singleton(318));
+        this.tracker.reset();
+        Assert.assertTrue(future.isCompletedExceptionally());
+        Assert.assertEquals(0, this.tracker.getPendingCount());
+    }
+
+    /**
+     * Tests timing unlabeled queries from when they are sent, not from
+     * when they start waiting their turn.
+     *
+     * @throws Exception if interrupted
+     */
+    @Test
+    public void testTimeoutFromSend() throws Exception {
+        this.tracker.setTimeout(300);
+        CompletableFuture<List<ClientReceiveServerMessageEvent>> first = this.tracker.query("WHOIS kitteh", Collections.singleton(311), Collections.singleton(318));
+        CompletableFuture<List<ClientReceiveServerMessageEvent>> second = this.tracker.query("WHOIS cat", Collections.singleton(311), Collections.singleton(318));
+        Thread.sleep(250);
+        this.tracker.handle(this.event(null, "318", "me", "kitteh", "End of /WHOIS list."));
+        Assert.assertTrue(first.isDone());
+        Thread.sleep(150);
+        Assert.assertFalse(second.isDone());
+        try {
+            second.get();
+            Assert.fail("Query should have timed out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    private void enableLabels() {
+        Mockito.when(this.capabilityManager.getCapability(CapabilityManager.Defaults.LABELED_RESPONSE)).thenReturn(Optional.of(Mockito.mock(CapabilityState.class)));
+    }
+
+    private List<String> getSent() {
+        ArgumentCaptor<String> lines = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(this.client, Mockito.atLeast(0)).sendRawLine(lines.capture());
+        return lines.getAllValues();
+    }
+
+    private List<String> getCommands(CompletableFuture<List<ClientReceiveServerMessageEvent>> future) throws ExecutionException, InterruptedException {
+        Assert.assertTrue(future.isDone());
+        return future.get().stream().map(ClientReceiveServerMessageEvent::getCommand).collect(Collectors.toList());
+    }
+
+    private ClientReceiveServerMessageEvent event(String tag, String command, String... parameters) {
+        List<MessageTag> tags = new ArrayList<>();
+        if (tag != null) {
+            MessageTag messageTag = Mockito.mock(MessageTag.class);
+            Mockito.when(messageTag.getName()).thenReturn(tag.substring(0, tag.indexOf('=')));
+            Mockito.when(messageTag.getValue()).thenReturn(Optional.of(tag.substring(tag.indexOf('=') + 1)));
+            tags.add(messageTag);
+        }
+        ClientReceiveServerMessageEvent event = Mockito.mock(ClientReceiveServerMessageEvent.class);
+        Mockito.when(event.getMessageTags()).thenReturn(tags);
+        Mockito.when(event.getCommand()).thenReturn(command);
+        Mockito.when(event.getParameters()).thenReturn(Arrays.asList(parameters));
+        return event;
+    }
+}
@@ -0,0 +1,50 @@
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests the AdaptiveRate.
+ */
+public class AdaptiveRateTest {
+    /**
+     * Tests pacing, climbing under load, and holding after a decrease.
+     */
+    @Test
+    public void testAdjust() {
+        AtomicLong time = new AtomicLong();
+        AdaptiveRate rate = new AdaptiveRate(1, 1, 4, 1, 0.5, 2000, time::get);
+        Assert.assertEquals(0, rate.reserve(true));
+        Assert.assertEquals(2, rate.getRate(), 0.0001);
+        Assert.assertEquals(500, rate.reserve(true));
+        Assert.assertEquals(2.5, rate.getRate(), 0.0001);
+        Assert.assertEquals(900, rate.reserve(false));
+        Assert.assertEquals(2.5, rate.getRate(), 0.0001);
+
+        Assert.assertTrue(rate.throttle());
+        Assert.assertFalse(rate.throttle());
+        Assert.assertEquals(1.25, rate.getRate(), 0.0001);
+        Assert.assertEquals(1, rate.getDecreaseCount());
+        Assert.assertEquals(1700, rate.reserve(true));
+        Assert.assertEquals(1.25, rate.getRate(), 0.0001);
+    }
+
+    /**
+     * Tests the rate staying within its bounds.
+     */
+    @Test
+    public void testBounds() {
+        AtomicLong time = new AtomicLong();
+        AdaptiveRate rate = new AdaptiveRate(1, 1, 4, 10, 0.5, 0, time::get);
+        for (int i = 0; i < 20; i++) {
+            rate.reserve(true);
+        }
+        Assert.assertEquals(4, rate.getRate(), 0.0001);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(rate.throttle());
+        }
+        Assert.assertEquals(1, rate.getRate(), 0.0001);
+    }
+}
@@ -0,0 +1,150 @@
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.CapabilityState;
+import org.kitteh.irc.client.library.element.MessageTag;
+import org.kitteh.irc.client.library.element.ServerMessage;
+import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.feature.CapabilityManager;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests the DeliveryTracker.
+ */
+public class DeliveryTrackerTest {
+    private final AtomicLong time = new AtomicLong();
+    private Client client;
+    private CapabilityManager capabilityManager;
+    private DeliveryTracker tracker;
+
+    /**
+     * Sets up a tracker on a mock client.
+     */
+    @Before
+    public void before() {
+        this.client = Mockito.mock(Client.class);
+        this.capabilityManager = Mockito.mock(CapabilityManager.class);
+        ServerInfo serverInfo = Mockito.mock(ServerInfo.class);
+        Mockito.when(serverInfo.getCaseMapping()).thenReturn(CaseMapping.RFC1459);
+        Mockito.when(this.client.getCapabilityManager()).thenReturn(this.capabilityManager);
+        Mockito.when(this.client.getServerInfo()).thenReturn(serverInfo);
+        Mockito.when(this.client.getNick()).thenReturn("Kitteh");
+        this.tracker = new DeliveryTracker(this.client, this.time::get);
+    }
+
+    /**
+     * Tests completing unconfirmed on sending without echo-message.
+     *
+     * @throws Exception if the future fails
+     */
+    @Test
+    public void testWithoutEcho() throws Exception {
+        CompletableFuture<DeliveryTracker.Delivery> future = this.tracker.sendMessage("#kitteh", "meow");
+        Assert.assertEquals("PRIVMSG #kitteh :meow", this.getSent().get(0));
+        this.time.set(40);
+        this.tracker.sent("PRIVMSG #other :meow");
+        Assert.assertFalse(future.isDone());
+        this.tracker.sent("PRIVMSG #kitteh :meow");
+        Assert.assertFalse(future.get().isConfirmed());
+        Assert.assertEquals(40, future.get().getQueueWait());
+        Assert.assertEquals(1, this.tracker.getQueueWaits().getCount());
+        Assert.assertEquals(0, this.tracker.getPendingCount());
+    }
+
+    /**
+     * Tests confirming by matching the echo's target and text.
+     *
+     * @throws Exception if the future fails
+     */
+    @Test
+    public void testEcho() throws Exception {
+        this.enable(CapabilityManager.Defaults.ECHO_MESSAGE);
+        CompletableFuture<DeliveryTracker.Delivery> future = this.tracker.sendNotice("#Kitteh", "purr");
+        this.time.set(10);
+        this.tracker.sent("NOTICE #Kitteh :purr");
+        Assert.assertFalse(future.isDone());
+        this.time.set(35);
+        this.tracker.handle(this.event("Someone", null, "NOTICE", "#kitteh", "purr"));
+        Assert.assertFalse(future.isDone());
+        this.tracker.handle(this.event("kitteh", "msgid=abc", "NOTICE", "#kitteh", "purr"));
+        Assert.assertTrue(future.get().isConfirmed());
+        Assert.assertEquals(25, future.get().getRoundTrip());
+        Assert.assertEquals("abc", future.get().getMessageId().orElse(null));
+        Assert.assertEquals(25, this.tracker.getRoundTrips().getMax());
+    }
+
+    /**
+     * Tests confirming by label when labeled-response is also enabled.
+     *
+     * @throws Exception if the future fails
+     */
+    @Test
+    public void testLabeled() throws Exception {
+        this.enable(CapabilityManager.Defaults.ECHO_MESSAGE);
+        this.enable(CapabilityManager.Defaults.LABELED_RESPONSE);
+        CompletableFuture<DeliveryTracker.Delivery> first = this.tracker.sendMessage("#kitteh", "meow");
+        CompletableFuture<DeliveryTracker.Delivery> second = this.tracker.sendMessage("#kitteh", "meow");
+        Assert.assertEquals(Arrays.asList("@label=d1 PRIVMSG #kitteh :meow", "@label=d2 PRIVMSG #kitteh :meow"), this.getSent());
+        this.tracker.sent("@label=d1 PRIVMSG #kitteh :meow");
+        this.tracker.sent("@label=d2 PRIVMSG #kitteh :meow");
+        this.tracker.handle(this.event("Kitteh", "label=d2", "PRIVMSG", "#kitteh", "meow"));
+        Assert.assertFalse(first.isDone());
+        Assert.assertTrue(second.get().isConfirmed());
+        Assert.assertEquals(1, this.tracker.getPendingCount());
+    }
+
+    /**
+     * Tests failing messages awaiting echo when the connection resets.
+     */
+    @Test
+    public void testReset() {
+        this.enable(CapabilityManager.Defaults.ECHO_MESSAGE);
+        CompletableFuture<DeliveryTracker.Delivery> sent = this.tracker.sendMessage("#kitteh", "meow");
+        CompletableFuture<DeliveryTracker.Delivery> queued = this.tracker.sendMessage("#kitteh", "purr");
+        this.tracker.sent("PRIVMSG #kitteh :meow");
+        this.tracker.reset();
+        Assert.assertTrue(sent.isCompletedExceptionally());
+        Assert.assertFalse(queued.isDone());
+        Assert.assertEquals(1, this.tracker.getPendingCount());
+    }
+
+    private void enable(String capability) {
+        Mockito.when(this.capabilityManager.getCapability(capability)).thenReturn(Optional.of(Mockito.mock(CapabilityState.class)));
+    }
+
+    private List<String> getSent() {
+        ArgumentCaptor<String> lines = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(this.client, Mockito.atLeast(0)).sendRawLine(lines.capture());
+        return lines.getAllValues();
+    }
+
+    private ClientReceiveCommandEvent event(String nick, String tag, String command, String... parameters) {
+        List<MessageTag> tags = new ArrayList<>();
+        if (tag != null) {
+            MessageTag messageTag = Mockito.mock(MessageTag.class);
+            Mockito.when(messageTag.getName()).thenReturn(tag.substring(0, tag.indexOf('=')));
+            Mockito.when(messageTag.getValue()).thenReturn(Optional.of(tag.substring(tag.indexOf('=') + 1)));
+            tags.add(messageTag);
+        }
+        ServerMessage message = Mockito.mock(ServerMessage.class);
+        Mockito.when(message.getTags()).thenReturn(tags);
+        User user = Mockito.mock(User.class);
+        Mockito.when(user.getNick()).thenReturn(nick);
+        Mockito.when(user.getClient()).thenReturn(this.client);
+        return new ClientReceiveCommandEvent(this.client, message, user, command, Arrays.asList(parameters));
+    }
+}
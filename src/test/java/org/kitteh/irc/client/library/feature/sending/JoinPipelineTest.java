@@ -0,0 +1,150 @@
+package org.kitteh.irc.client.library.feature.sending;
+
+import io.netty.util.HashedWheelTimer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.ISupportParameter;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.kitteh.irc.client.library.util.Pair;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests the JoinPipeline.
+ */
+public class JoinPipelineTest {
+    /**
+     * Tests packing keyed and keyless channels.
+     */
+    @Test
+    public void testPack() {
+        List<Pair<String, String>> channels = Arrays.asList(Pair.of("#a", null), Pair.of("#b", "kb"), Pair.of("#c", null), Pair.of("#d", "kd"));
+        Assert.assertEquals(Collections.singletonList("JOIN #b,#d,#a,#c kb,kd"), JoinPipeline.pack(channels, 10, 510));
+        Assert.assertEquals(Arrays.asList("JOIN #b,#d kb,kd", "JOIN #a,#c"), JoinPipeline.pack(channels, 2, 510));
+        Assert.assertEquals(Arrays.asList("JOIN #b kb", "JOIN #d kd", "JOIN #a,#c"), JoinPipeline.pack(channels, 10, 12));
+    }
+
+    /**
+     * Tests that packed lines stay within the length limit.
+     */
+    @Test
+    public void testPackLength() {
+        List<Pair<String, String>> channels = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            channels.add(Pair.of("#channel" + i, (i % 3 == 0) ? ("key" + i) : null));
+        }
+        List<String> lines = JoinPipeline.pack(channels, Integer.MAX_VALUE, 510);
+        int count = 0;
+        for (String line : lines) {
+            Assert.assertTrue(line.length() <= 510);
+            String[] parts = line.split(" ");
+            int names = parts[1].split(",").length;
+            if (parts.length > 2) {
+                Assert.assertTrue(parts[2].split(",").length <= names);
+            }
+            count += names;
+        }
+        Assert.assertEquals(200, count);
+        Assert.assertTrue(lines.size() < 10);
+    }
+
+    /**
+     * Tests sending the first batch at once, then batching and pacing joins
+     * and queries.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testPacing() throws InterruptedException {
+        Client.WithManagement client = this.getClient(Integer.MAX_VALUE);
+        HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS);
+        try {
+            AtomicLong clock = new AtomicLong();
+            JoinPipeline pipeline = new JoinPipeline(client, timer, new TokenBucket(1, 1, clock::get), new TokenBucket(1, 1, clock::get));
+            pipeline.join("#a", null);
+            Mockito.verify(client).sendRawLine("JOIN #a");
+            pipeline.join("#b", null);
+            pipeline.join("#c", null);
+            pipeline.query("WHO #a");
+            pipeline.query("WHO #a");
+            pipeline.query("WHO #b");
+            Thread.sleep(200);
+            Mockito.verify(client).sendRawLineAvoidingDuplication("WHO #a", MessageSendingQueue.Priority.BULK);
+            Assert.assertEquals(2, pipeline.getPendingChannels());
+            Assert.assertEquals(1, pipeline.getPendingQueries());
+
+            clock.addAndGet(1000);
+            Thread.sleep(1200);
+            Mockito.verify(client).sendRawLine("JOIN #b,#c");
+            Mockito.verify(client).sendRawLineAvoidingDuplication("WHO #b", MessageSendingQueue.Priority.BULK);
+            Mockito.verify(client, Mockito.times(1)).sendRawLineAvoidingDuplication("WHO #a", MessageSendingQueue.Priority.BULK);
+            Assert.assertEquals(0, pipeline.getPendingChannels());
+            Assert.assertEquals(0, pipeline.getPendingJoinLines());
+            Assert.assertEquals(0, pipeline.getPendingQueries());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Tests cancelling channels out of waiting JOIN lines, and resetting.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testCancelAndReset() throws InterruptedException {
+        Client.WithManagement client = this.getClient(2);
+        HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS);
+        try {
+            AtomicLong clock = new AtomicLong();
+            TokenBucket queryBucket = new TokenBucket(1, 1, clock::get);
+            queryBucket.tryTake(1);
+            JoinPipeline pipeline = new JoinPipeline(client, timer, new TokenBucket(1, 1, clock::get), queryBucket);
+            pipeline.join(Arrays.asList(Pair.of("#a", null), Pair.of("#b", null), Pair.of("#c", null), Pair.of("#d", null), Pair.of("#e", null)));
+            Mockito.verify(client).sendRawLine("JOIN #a,#b");
+            Assert.assertEquals(2, pipeline.getPendingJoinLines());
+
+            Assert.assertTrue(pipeline.cancel("#C"));
+            Assert.assertTrue(pipeline.cancel("#e"));
+            Assert.assertFalse(pipeline.cancel("#e"));
+            Assert.assertEquals(1, pipeline.getPendingJoinLines());
+
+            pipeline.join("#f", null);
+            pipeline.query("WHO #f");
+            pipeline.reset();
+            Assert.assertEquals(0, pipeline.getPendingChannels());
+            Assert.assertEquals(0, pipeline.getPendingJoinLines());
+            Assert.assertEquals(0, pipeline.getPendingQueries());
+
+            clock.addAndGet(1000);
+            Thread.sleep(1200);
+            Mockito.verify(client, Mockito.times(1)).sendRawLine(Mockito.anyString());
+            Mockito.verify(client, Mockito.never()).sendRawLineAvoidingDuplication(Mockito.anyString(), Mockito.any());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private Client.WithManagement getClient(int targMax) {
+        Client.WithManagement client = Mockito.mock(Client.WithManagement.class);
+        ServerInfo.WithManagement serverInfo = Mockito.mock(ServerInfo.WithManagement.class);
+        Mockito.when(client.getServerInfo()).thenReturn(serverInfo);
+        Mockito.when(serverInfo.getCaseMapping()).thenReturn(CaseMapping.RFC1459);
+        Mockito.when(serverInfo.getISupportParameter(Mockito.anyString(), Mockito.any())).thenReturn(Optional.empty());
+        if (targMax != Integer.MAX_VALUE) {
+            ISupportParameter.TargMax parameter = Mockito.mock(ISupportParameter.TargMax.class);
+            Mockito.when(parameter.getLimit("JOIN")).thenReturn(Optional.of(targMax));
+            Mockito.when(serverInfo.getISupportParameter(ISupportParameter.TargMax.NAME, ISupportParameter.TargMax.class)).thenReturn(Optional.of(parameter));
+        }
+        return client;
+    }
+}
@@ -0,0 +1,34 @@
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+    /**
+     * Tests count, mean, max, and bucketed percentiles.
+     */
+    @Test
+    public void testRecord() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getPercentile(0.5));
+        for (int i = 0; i < 90; i++) {
+            histogram.record(3);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100);
+        }
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(100, histogram.getMax());
+        Assert.assertEquals(12.7, histogram.getMean(), 0.001);
+        Assert.assertEquals(3, histogram.getPercentile(0.5));
+        Assert.assertEquals(100, histogram.getPercentile(0.99));
+        histogram.record(-5);
+        Assert.assertEquals(0, histogram.getPercentile(0));
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMax());
+    }
+}
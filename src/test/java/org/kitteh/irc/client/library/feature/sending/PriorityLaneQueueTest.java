@@ -0,0 +1,214 @@
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the PriorityLaneQueue.
+ */
+public class PriorityLaneQueueTest {
+    /**
+     * Tests that busy lanes are served in proportion to their weights.
+     */
+    @Test
+    public void testWeightedDraining() {
+        PriorityLaneQueue queue = new PriorityLaneQueue();
+        for (int i = 0; i < 30; i++) {
+            queue.offer("bulk" + i, MessageSendingQueue.Priority.BULK);
+            queue.offer("chat" + i);
+        }
+        int bulk = 0;
+        for (int i = 0; i < 30; i++) {
+            if (queue.poll().startsWith("bulk")) {
+                bulk++;
+            }
+        }
+        Assert.assertEquals(10, bulk);
+        Assert.assertEquals(30, queue.size());
+        Assert.assertEquals(20, queue.size(MessageSendingQueue.Priority.BULK));
+    }
+
+    /**
+     * Tests interleaving, order within a lane, and peeking.
+     */
+    @Test
+    public void testOrder() {
+        PriorityLaneQueue queue = new PriorityLaneQueue();
+        queue.offer("b1", MessageSendingQueue.Priority.BULK);
+        queue.offer("b2", MessageSendingQueue.Priority.BULK);
+        queue.offer("i1");
+        queue.offer("i2");
+        queue.offer("c1", MessageSendingQueue.Priority.CONTROL);
+        Assert.assertEquals(Arrays.asList("c1", "i1", "i2", "b1", "b2"), new ArrayList<>(queue));
+
+        List<String> polled = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            String peeked = queue.peek();
+            String next = queue.poll();
+            Assert.assertEquals(peeked, next);
+            polled.add(next);
+        }
+        Assert.assertEquals(Arrays.asList("c1", "i1", "i2", "b1", "b2"), polled);
+        Assert.assertNull(queue.poll());
+    }
+
+    /**
+     * Tests that an idle lane does not save up credit.
+     */
+    @Test
+    public void testIdleLaneCredit() {
+        PriorityLaneQueue queue = new PriorityLaneQueue();
+        for (int i = 0; i < 10; i++) {
+            queue.offer("bulk" + i, MessageSendingQueue.Priority.BULK);
+        }
+        for (int i = 0; i < 5; i++) {
+            queue.poll();
+        }
+        queue.offer("chat1");
+        queue.offer("chat2");
+        queue.offer("chat3");
+        Assert.assertEquals("chat1", queue.poll());
+        Assert.assertEquals("bulk5", queue.poll());
+        Assert.assertEquals("chat2", queue.poll());
+    }
+
+    /**
+     * Tests removal and containment.
+     */
+    @Test
+    public void testRemove() {
+        PriorityLaneQueue queue = new PriorityLaneQueue();
+        queue.offer("a", MessageSendingQueue.Priority.MODERATION);
+        queue.offer("b");
+        Assert.assertTrue(queue.contains("a"));
+        Assert.assertTrue(queue.remove("a"));
+        Assert.assertFalse(queue.contains("a"));
+        Assert.assertFalse(queue.remove("a"));
+        Assert.assertEquals(1, queue.size());
+        queue.clear();
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Tests serving targets in turn and dropping the oldest lines of a
+     * target with too many waiting.
+     */
+    @Test
+    public void testTargetFairness() {
+        PriorityLaneQueue queue = new PriorityLaneQueue();
+        for (int i = 0; i < 5; i++) {
+            queue.offer("PRIVMSG #busy :" + i);
+        }
+        queue.offer("PRIVMSG #quiet :hi");
+        queue.offer("JOIN #other");
+        queue.enableTargetFairness(3);
+        Assert.assertEquals(2, queue.getDroppedCount());
+        Assert.assertEquals(5, queue.size());
+
+        queue.offer("@label=1 NOTICE #Quiet :there");
+        Assert.assertEquals("PRIVMSG #busy :2", queue.poll());
+        Assert.assertEquals("PRIVMSG #quiet :hi", queue.poll());
+        Assert.assertEquals("JOIN #other", queue.poll());
+        Assert.assertEquals("PRIVMSG #busy :3", queue.poll());
+        Assert.assertEquals("@label=1 NOTICE #Quiet :there", queue.poll());
+        Assert.assertEquals("PRIVMSG #busy :4", queue.poll());
+        Assert.assertTrue(queue.isEmpty());
+
+        queue.disableTargetFairness();
+        for (int i = 0; i < 5; i++) {
+            queue.offer("PRIVMSG #busy :" + i);
+        }
+        Assert.assertEquals(5, queue.size());
+        Assert.assertEquals(2, queue.getDroppedCount());
+    }
+
+    /**
+     * Tests finding the target of a line.
+     */
+    @Test
+    public void testGetTarget() {
+        Assert.assertEquals("#kitteh", PriorityLaneQueue.getTarget("PRIVMSG #Kitteh :meow", CaseMapping.ASCII));
+        Assert.assertEquals("kitteh", PriorityLaneQueue.getTarget("@a=b notice kitteh :meow", CaseMapping.ASCII));
+        Assert.assertNull(PriorityLaneQueue.getTarget("PRIVMSGS #kitteh :meow", CaseMapping.ASCII));
+        Assert.assertNull(PriorityLaneQueue.getTarget("WHO #kitteh", CaseMapping.ASCII));
+        Assert.assertNull(PriorityLaneQueue.getTarget("PING", CaseMapping.ASCII));
+        Assert.assertEquals("#kitteh{}", PriorityLaneQueue.getTarget("PRIVMSG #Kitteh[] :meow", CaseMapping.RFC1459));
+        Assert.assertEquals("#kitteh[]", PriorityLaneQueue.getTarget("PRIVMSG #Kitteh[] :meow", CaseMapping.ASCII));
+    }
+
+    /**
+     * Tests grouping and counting targets under the supplied case mapping.
+     */
+    @Test
+    public void testTargetCaseMapping() {
+        PriorityLaneQueue queue = new PriorityLaneQueue(MessageSendingQueue.Priority.INTERACTIVE, () -> CaseMapping.RFC1459);
+        queue.enableTargetFairness(1);
+        queue.offer("PRIVMSG #cat[s] :1");
+        queue.offer("PRIVMSG #CAT{S} :2");
+        Assert.assertEquals(1, queue.size());
+        Assert.assertEquals(1, queue.getDroppedCount());
+        Assert.assertEquals(Collections.singletonMap("#cat{s}", 1), queue.getTargetCounts());
+    }
+
+    /**
+     * Tests that containment follows duplicates as they leave the queue.
+     */
+    @Test
+    public void testContainsDuplicates() {
+        PriorityLaneQueue queue = new PriorityLaneQueue();
+        queue.offer("WHO #kitteh", MessageSendingQueue.Priority.BULK);
+        queue.offer("WHO #kitteh");
+        queue.offer("PRIVMSG #kitteh :1");
+        queue.offer("PRIVMSG #kitteh :2");
+        queue.offer("PRIVMSG #kitteh :1");
+        queue.enableTargetFairness(2);
+        Assert.assertTrue(queue.contains("PRIVMSG #kitteh :1"));
+        Assert.assertEquals("WHO #kitteh", queue.poll());
+        Assert.assertTrue(queue.contains("WHO #kitteh"));
+        Assert.assertTrue(queue.remove("WHO #kitteh"));
+        Assert.assertFalse(queue.contains("WHO #kitteh"));
+        queue.offer("PRIVMSG #kitteh :3");
+        Assert.assertFalse(queue.contains("PRIVMSG #kitteh :2"));
+        Assert.assertTrue(queue.contains("PRIVMSG #kitteh :1"));
+        queue.clear();
+        Assert.assertFalse(queue.contains("PRIVMSG #kitteh :1"));
+    }
+
+    /**
+     * Tests counting waiting bytes and lines per target, and removing lines
+     * by filter.
+     */
+    @Test
+    public void testRemoveMatching() {
+        PriorityLaneQueue queue = new PriorityLaneQueue();
+        queue.enableTargetFairness(10);
+        queue.offer("PRIVMSG #kitteh :1", MessageSendingQueue.Priority.BULK);
+        queue.offer("PRIVMSG #Kitteh :2");
+        queue.offer("NOTICE #other :\u732b");
+        queue.offer("WHO #kitteh", MessageSendingQueue.Priority.BULK);
+        Assert.assertEquals(("PRIVMSG #kitteh :1PRIVMSG #Kitteh :2NOTICE #other :\u732bWHO #kitteh").getBytes(StandardCharsets.UTF_8).length, queue.getPendingBytes());
+        Map<String, Integer> counts = new HashMap<>();
+        counts.put("#kitteh", 2);
+        counts.put("#other", 1);
+        Assert.assertEquals(counts, queue.getTargetCounts());
+
+        Assert.assertEquals(2, queue.removeMatching(line -> "#kitteh".equals(PriorityLaneQueue.getTarget(line, CaseMapping.ASCII))));
+        Assert.assertFalse(queue.contains("PRIVMSG #kitteh :1"));
+        Assert.assertEquals(2, queue.size());
+        Assert.assertEquals(1, queue.size(MessageSendingQueue.Priority.BULK));
+        Assert.assertEquals(("NOTICE #other :\u732bWHO #kitteh").getBytes(StandardCharsets.UTF_8).length, queue.getPendingBytes());
+        Assert.assertFalse(queue.removeIf(line -> line.startsWith("KICK")));
+        Assert.assertEquals("NOTICE #other :\u732b", queue.poll());
+        Assert.assertEquals("WHO #kitteh", queue.poll());
+        Assert.assertEquals(0, queue.getPendingBytes());
+    }
+}
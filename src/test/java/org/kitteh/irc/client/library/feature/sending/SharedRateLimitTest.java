@@ -0,0 +1,59 @@
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests the SharedRateLimit.
+ */
+public class SharedRateLimitTest {
+    /**
+     * Tests that no more than the count is allowed in any window.
+     */
+    @Test
+    public void testWindow() {
+        AtomicLong clock = new AtomicLong(5000);
+        SharedRateLimit limit = new SharedRateLimit(2, 1000, clock::get);
+        Assert.assertEquals(0, limit.reserve());
+        clock.addAndGet(300);
+        Assert.assertEquals(0, limit.reserve());
+        Assert.assertEquals(700, limit.reserve());
+        Assert.assertEquals(1000, limit.reserve());
+        clock.addAndGet(2000);
+        Assert.assertEquals(0, limit.reserve());
+    }
+
+    /**
+     * Tests that clients reserving at once are given distinct slots.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testShared() throws InterruptedException {
+        SharedRateLimit limit = new SharedRateLimit(10, 100, () -> 0);
+        ConcurrentLinkedQueue<Long> waits = new ConcurrentLinkedQueue<>();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 250; j++) {
+                    waits.add(limit.reserve());
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Map<Long, Integer> counts = new HashMap<>();
+        waits.forEach(wait -> counts.merge(wait, 1, Integer::sum));
+        Assert.assertEquals(100, counts.size());
+        for (long window = 0; window < 100; window++) {
+            Assert.assertEquals(Integer.valueOf(10), counts.get(window * 100));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.kitteh.irc.client.library.feature.sending;
+
+import io.netty.util.HashedWheelTimer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests the TimerSender.
+ */
+public class TimerSenderTest {
+    private HashedWheelTimer timer;
+
+    /**
+     * Starts a timer for the test.
+     */
+    @Before
+    public void before() {
+        this.timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the timer.
+     */
+    @After
+    public void after() {
+        this.timer.stop();
+    }
+
+    /**
+     * Tests bursting, waiting for tokens, and handing back the remainder.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testPacing() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        TimerSender sender = new TimerSender(Mockito.mock(Client.class), this.timer, new TokenBucket(2, 100, clock::get), line -> 1);
+        BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        sender.queue("one");
+        sender.queue("two");
+        sender.queue("three");
+        sender.queue("four");
+        Assert.assertNull(sent.poll(50, TimeUnit.MILLISECONDS));
+
+        sender.beginSending(sent::add);
+        Assert.assertEquals("one", sent.poll(1, TimeUnit.SECONDS));
+        Assert.assertEquals("two", sent.poll(1, TimeUnit.SECONDS));
+        Assert.assertNull(sent.poll(50, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(sender.contains("four"));
+        sender.queue("five", MessageSendingQueue.Priority.CONTROL);
+        Assert.assertEquals(3, sender.size());
+
+        clock.addAndGet(10);
+        Assert.assertEquals("three", sent.poll(1, TimeUnit.SECONDS));
+        Assert.assertNull(sent.poll(50, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(Arrays.asList("five", "four"), new ArrayList<>(sender.shutdown()));
+        clock.addAndGet(1000);
+        sender.queue("six");
+        Assert.assertNull(sent.poll(50, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Tests removing waiting messages, including one held for tokens.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testRemoveIf() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        Client client = Mockito.mock(Client.class);
+        ServerInfo serverInfo = Mockito.mock(ServerInfo.class);
+        Mockito.when(client.getServerInfo()).thenReturn(serverInfo);
+        Mockito.when(serverInfo.getCaseMapping()).thenReturn(CaseMapping.RFC1459);
+        TimerSender sender = new TimerSender(client, this.timer, new TokenBucket(1, 100, clock::get), line -> 1);
+        BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        sender.queue("PRIVMSG #a :one");
+        sender.queue("PRIVMSG #a :two");
+        sender.queue("PRIVMSG #b :three");
+        sender.beginSending(sent::add);
+        Assert.assertEquals("PRIVMSG #a :one", sent.poll(1, TimeUnit.SECONDS));
+        Assert.assertNull(sent.poll(50, TimeUnit.MILLISECONDS));
+        Map<String, Integer> counts = new HashMap<>();
+        counts.put("#a", 1);
+        counts.put("#b", 1);
+        Assert.assertEquals(counts, sender.getTargetCounts());
+        Assert.assertEquals("PRIVMSG #a :twoPRIVMSG #b :three".length(), sender.getPendingBytes());
+
+        Assert.assertEquals(1, sender.removeTarget("#A", CaseMapping.ASCII));
+        Assert.assertEquals(1, sender.size());
+        clock.addAndGet(10);
+        Assert.assertEquals("PRIVMSG #b :three", sent.poll(1, TimeUnit.SECONDS));
+        sender.shutdown();
+    }
+
+    /**
+     * Tests shutting down keeps each unsent message's priority, including
+     * the one held waiting for tokens.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testShutdownByPriority() throws InterruptedException {
+        TimerSender sender = new TimerSender(Mockito.mock(Client.class), this.timer, new TokenBucket(1, 100, () -> 0), line -> 1);
+        Map<String, MessageSendingQueue.Priority> priorities = new HashMap<>();
+        priorities.put("PING :kitteh", MessageSendingQueue.Priority.CONTROL);
+        priorities.put("MODE #a +m", MessageSendingQueue.Priority.MODERATION);
+        priorities.put("PRIVMSG #a :meow", MessageSendingQueue.Priority.INTERACTIVE);
+        priorities.put("WHO #a", MessageSendingQueue.Priority.BULK);
+        priorities.forEach(sender::queue);
+        BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        sender.beginSending(sent::add);
+        String first = sent.poll(1, TimeUnit.SECONDS);
+        Assert.assertNotNull(first);
+        Assert.assertNull(sent.poll(50, TimeUnit.MILLISECONDS));
+
+        Map<String, MessageSendingQueue.Priority> remaining = new HashMap<>();
+        sender.shutdownByPriority().forEach((priority, messages) -> messages.forEach(message -> remaining.put(message, priority)));
+        priorities.remove(first);
+        Assert.assertEquals(priorities, remaining);
+    }
+}
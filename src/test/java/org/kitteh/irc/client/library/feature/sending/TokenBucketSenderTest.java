@@ -0,0 +1,41 @@
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Tests the TokenBucketSender's cost functions.
+ */
+public class TokenBucketSenderTest {
+    /**
+     * Tests command extraction.
+     */
+    @Test
+    public void testGetCommand() {
+        Assert.assertEquals("PRIVMSG", TokenBucketSender.getCommand("privmsg #cats :meow"));
+        Assert.assertEquals("JOIN", TokenBucketSender.getCommand("@label=1 JOIN #cats"));
+        Assert.assertEquals("QUIT", TokenBucketSender.getCommand("QUIT"));
+        Assert.assertEquals("", TokenBucketSender.getCommand("@label=1"));
+    }
+
+    /**
+     * Tests the preset cost functions.
+     */
+    @Test
+    public void testPresetCosts() {
+        ToDoubleFunction<String> inspircd = TokenBucketSender.Preset.INSPIRCD.getCost();
+        Assert.assertEquals(1, inspircd.applyAsDouble("PRIVMSG #cats :meow"), 0.0001);
+        Assert.assertEquals(2, inspircd.applyAsDouble("JOIN #cats"), 0.0001);
+        Assert.assertEquals(2, inspircd.applyAsDouble("who #cats"), 0.0001);
+
+        ToDoubleFunction<String> unreal = TokenBucketSender.Preset.UNREALIRCD.getCost();
+        StringBuilder builder = new StringBuilder("PRIVMSG #cats :");
+        while (builder.length() < 240) {
+            builder.append('a');
+        }
+        Assert.assertEquals(3, unreal.applyAsDouble(builder.toString()), 0.0001);
+        Assert.assertEquals(1 + (2.0 / 120), TokenBucketSender.perByte(1, 1.0 / 120).applyAsDouble("é"), 0.0001);
+    }
+}
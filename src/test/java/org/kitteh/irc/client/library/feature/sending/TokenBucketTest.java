@@ -0,0 +1,53 @@
+package org.kitteh.irc.client.library.feature.sending;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests the TokenBucket.
+ */
+public class TokenBucketTest {
+    /**
+     * Tests bursting and then pacing.
+     */
+    @Test
+    public void testBurstAndRefill() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(5, 0.5, clock::get);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(0, bucket.tryTake(1));
+        }
+        Assert.assertEquals(2000, bucket.tryTake(1));
+        clock.addAndGet(1999);
+        Assert.assertEquals(1, bucket.tryTake(1));
+        clock.addAndGet(1);
+        Assert.assertEquals(0, bucket.tryTake(1));
+
+        clock.addAndGet(60000);
+        Assert.assertEquals(5, bucket.getTokens(), 0.0001);
+    }
+
+    /**
+     * Tests a cost larger than the capacity.
+     */
+    @Test
+    public void testOversizedCost() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(2, 1, clock::get);
+        Assert.assertEquals(0, bucket.tryTake(5));
+        Assert.assertEquals(-3, bucket.getTokens(), 0.0001);
+        Assert.assertEquals(4000, bucket.tryTake(1));
+        clock.addAndGet(5000);
+        Assert.assertEquals(0, bucket.tryTake(5));
+    }
+
+    /**
+     * Tests rejecting a bad capacity.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadCapacity() {
+        new TokenBucket(0, 1);
+    }
+}
@@ -12,11 +12,14 @@ import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Tests the CIKeyMap.
@@ -106,6 +109,70 @@ public class CIKeyMapTest {
         Assert.assertEquals(1, sut.size());
     }
 
+    /**
+     * Tests that views follow the map.
+     */
+    @Test
+    public void testLiveViews() {
+        Client client = this.getMockClientWithCaseMapping(CaseMapping.ASCII);
+        CIKeyMap<String> sut = new CIKeyMap<>(client);
+        Set<String> keys = sut.keySet();
+        Collection<String> values = sut.values();
+        sut.put("Kitten", "meow");
+        Assert.assertTrue(keys.contains("KITTEN"));
+        Assert.assertTrue(values.contains("meow"));
+        Assert.assertEquals(1, sut.entrySet().size());
+
+        Assert.assertTrue(keys.remove("kitten"));
+        Assert.assertTrue(sut.isEmpty());
+        sut.put("Kitten", "meow");
+        values.removeIf("meow"::equals);
+        Assert.assertTrue(sut.isEmpty());
+    }
+
+    /**
+     * Tests rebuilding when the case mapping changes.
+     */
+    @Test
+    public void testCaseMappingChange() {
+        Client client = Mockito.mock(Client.class);
+        Mockito.when(client.getServerInfo()).thenReturn(new StubServerInfo(CaseMapping.ASCII));
+        CIKeyMap<String> sut = new CIKeyMap<>(client);
+        sut.put("[Cat]", "kitten");
+        Assert.assertFalse(sut.containsKey("{cat}"));
+
+        Mockito.when(client.getServerInfo()).thenReturn(new StubServerInfo(CaseMapping.RFC1459));
+        Assert.assertTrue(sut.containsKey("{cat}"));
+        Assert.assertEquals("[Cat]", sut.keySet().iterator().next());
+    }
+
+    /**
+     * Tests writes racing case mapping rebuilds are never lost.
+     *
+     * @throws Exception if interrupted
+     */
+    @Test
+    public void testWritesDuringCaseMappingChange() throws Exception {
+        Client client = Mockito.mock(Client.class);
+        ServerInfo ascii = new StubServerInfo(CaseMapping.ASCII);
+        ServerInfo rfc1459 = new StubServerInfo(CaseMapping.RFC1459);
+        AtomicReference<ServerInfo> serverInfo = new AtomicReference<>(ascii);
+        Mockito.when(client.getServerInfo()).thenAnswer(invocation -> serverInfo.get());
+        CIKeyMap<String> sut = new CIKeyMap<>(client);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                sut.put("key" + i, "meow");
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            serverInfo.set((serverInfo.get() == ascii) ? rfc1459 : ascii);
+            sut.size();
+        }
+        writer.join();
+        Assert.assertEquals(20000, sut.size());
+    }
+
     /**
      * Gets a mock client with a certain casemapping.
      *
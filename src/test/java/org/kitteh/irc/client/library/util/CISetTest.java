@@ -17,6 +17,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Tests CISet.
@@ -92,6 +93,38 @@ public class CISetTest {
         Assert.assertTrue(sut.contains("{cat}"));
     }
 
+    /**
+     * Tests writes racing case mapping rebuilds are never lost.
+     *
+     * @throws Exception if interrupted
+     */
+    @Test
+    public void testWritesDuringCaseMappingChange() throws Exception {
+        Client client = Mockito.mock(Client.class);
+        ServerInfo ascii = new StubServerInfo(CaseMapping.ASCII);
+        ServerInfo rfc1459 = new StubServerInfo(CaseMapping.RFC1459);
+        AtomicReference<ServerInfo> serverInfo = new AtomicReference<>(ascii);
+        Mockito.when(client.getServerInfo()).thenAnswer(invocation -> serverInfo.get());
+        CISet sut = new CISet(client);
+        for (int i = 0; i < 10000; i++) {
+            sut.add("gone" + i);
+        }
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 10000; i++) {
+                sut.add("key" + i);
+                sut.remove("gone" + i);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            serverInfo.set((serverInfo.get() == ascii) ? rfc1459 : ascii);
+            sut.size();
+        }
+        writer.join();
+        Assert.assertEquals(10000, sut.size());
+        Assert.assertTrue(sut.stream().allMatch(key -> key.startsWith("key")));
+    }
+
     /**
      * Gets a mock client with a certain casemapping.
      *
@@ -3,10 +3,12 @@ package org.kitteh.irc.client.library.util;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Tests {@link Cutter.DefaultWordCutter}.
+ * Tests {@link Cutter.DefaultWordCutter} and {@link Cutter.Utf8WordCutter}.
  */
 public class CutterTest {
     /**
@@ -72,4 +74,80 @@ public class CutterTest {
         List<String> output = new Cutter.DefaultWordCutter().split("                     ", 3);
         Assert.assertEquals(0, output.size());
     }
+
+    /**
+     * Tests runs of spaces between words counting toward the size.
+     */
+    @Test
+    public void cutRepeatedSpaces() {
+        List<String> output = new Cutter.DefaultWordCutter().split("aaaa          bbbb cccc dddd", 10);
+        Assert.assertEquals(3, output.size());
+        Assert.assertEquals("aaaa", output.get(0));
+        Assert.assertEquals("bbbb cccc", output.get(1));
+        Assert.assertEquals("dddd", output.get(2));
+        for (String piece : new Cutter.Utf8WordCutter().split("ab          cd efgh ijkl", 8)) {
+            Assert.assertTrue(piece, piece.length() <= 8);
+        }
+    }
+
+    /**
+     * Tests trailing and doubled spaces never pushing a piece over size.
+     */
+    @Test
+    public void cutTrailingSpaces() {
+        List<String> output = new Cutter.DefaultWordCutter().split("meow  purr  hiss     ", 10);
+        Assert.assertEquals(2, output.size());
+        Assert.assertEquals("meow  purr", output.get(0));
+        Assert.assertEquals("hiss", output.get(1));
+    }
+
+    /**
+     * Tests cutting by UTF-8 length.
+     */
+    @Test
+    public void cutUtf8() {
+        List<String> output = new Cutter.Utf8WordCutter().split("h\u00e9 \u4f60\u597d\u4f60\u597d \ud83d\ude00\ud83d\ude00", 7);
+        Assert.assertEquals(Arrays.asList("h\u00e9 \u4f60", "\u597d\u4f60", "\u597d", "\ud83d\ude00", "\ud83d\ude00"), output);
+        output = new Cutter.Utf8WordCutter().split("\ud83d\ude00\ud83d\ude00", 3);
+        Assert.assertEquals(2, output.size());
+        Assert.assertEquals("\ud83d\ude00", output.get(0));
+        Assert.assertEquals("\ud83d\ude00", output.get(1));
+    }
+
+    /**
+     * Tests that color codes are not cut apart.
+     */
+    @Test
+    public void cutColor() {
+        List<String> output = new Cutter.DefaultWordCutter().split("ab\u000304,12cd", 4);
+        Assert.assertEquals("ab", output.get(0));
+        Assert.assertEquals("\u000304,12", output.get(1));
+        Assert.assertEquals("cd", output.get(2));
+        output = new Cutter.DefaultWordCutter().split("a\u0004FF00AAbc", 5);
+        Assert.assertEquals("a", output.get(0));
+        Assert.assertEquals("\u0004FF00AA", output.get(1));
+        Assert.assertEquals("bc", output.get(2));
+    }
+
+    /**
+     * Cuts a very long paste of mixed text, checking every piece fits and
+     * nothing is lost.
+     */
+    @Test
+    public void cutLongPaste() {
+        StringBuilder builder = new StringBuilder();
+        String[] words = {"meow", "\u732b", "\ud83d\udc31", "purr\u0003" + "04red", "hisssssssssssssssssssssssssssssssssssssssssssssssss"};
+        for (int i = 0; i < 200000; i++) {
+            builder.append(words[i % words.length]).append(' ');
+        }
+        String paste = builder.toString();
+        List<String> output = new Cutter.Utf8WordCutter().split(paste, 400);
+        int characters = 0;
+        for (String line : output) {
+            Assert.assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 400);
+            Assert.assertFalse(Character.isHighSurrogate(line.charAt(line.length() - 1)));
+            characters += line.replace(" ", "").length();
+        }
+        Assert.assertEquals(paste.replace(" ", "").length(), characters);
+    }
 }
@@ -0,0 +1,47 @@
+package org.kitteh.irc.client.library.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests the MaskIndex.
+ */
+public class MaskIndexTest {
+    /**
+     * Tests finding matches.
+     */
+    @Test
+    public void testMatches() {
+        MaskIndex<String> index = new MaskIndex<>(CaseMapping.ASCII);
+        index.put(Mask.fromString("*!*@cat.example"), "host");
+        index.put(Mask.fromString("Cat!*@*"), "nick");
+        index.put(Mask.fromString("*!meow@*.example"), "user");
+        index.put(Mask.fromString("*!*@dog.example"), "dog");
+        for (int i = 0; i < 1000; i++) {
+            index.put(Mask.fromString("*!*@host" + i + ".example"), "filler");
+        }
+        Assert.assertEquals(Arrays.asList("host", "nick", "user"), index.getMatches("Cat!meow@CAT.example"));
+        Assert.assertEquals(Collections.singletonList("dog"), index.getMatches("Dog!woof@dog.example"));
+        Assert.assertTrue(index.getMatches("Bird!tweet@bird.example").isEmpty());
+        Assert.assertTrue(index.hasMatch("Bird!tweet@host500.example"));
+    }
+
+    /**
+     * Tests replacing and removing masks ignoring case.
+     */
+    @Test
+    public void testRemove() {
+        MaskIndex<String> index = new MaskIndex<>(CaseMapping.ASCII);
+        Assert.assertNull(index.put(Mask.fromString("*!*@cat.example"), "one"));
+        Assert.assertEquals("one", index.put(Mask.fromString("*!*@CAT.example"), "two"));
+        Assert.assertEquals(1, index.size());
+        Assert.assertEquals("two", index.remove(Mask.fromString("*!*@cat.EXAMPLE")));
+        Assert.assertNull(index.remove(Mask.fromString("*!*@cat.example")));
+        Assert.assertEquals(0, index.size());
+        Assert.assertFalse(index.hasMatch("Cat!meow@cat.example"));
+    }
+}
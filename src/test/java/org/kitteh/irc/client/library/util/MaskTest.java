@@ -0,0 +1,52 @@
+package org.kitteh.irc.client.library.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+
+/**
+ * Tests Mask matching.
+ */
+public class MaskTest {
+    /**
+     * Tests wildcards.
+     */
+    @Test
+    public void testWildcards() {
+        Assert.assertTrue(this.matches("*!*@*.example", "Cat!meow@cat.example"));
+        Assert.assertTrue(this.matches("*", ""));
+        Assert.assertTrue(this.matches("C?t!*", "Cat!meow@cat.example"));
+        Assert.assertTrue(this.matches("*a*a*", "banana"));
+        Assert.assertFalse(this.matches("*!*@*.example", "Cat!meow@cat.example.org"));
+        Assert.assertFalse(this.matches("C?t!*", "Ct!meow@cat.example"));
+        Assert.assertFalse(this.matches("", "Cat"));
+    }
+
+    /**
+     * Tests escaped wildcards.
+     */
+    @Test
+    public void testEscapes() {
+        Assert.assertTrue(this.matches("what\\?", "what?"));
+        Assert.assertFalse(this.matches("what\\?", "whats"));
+        Assert.assertTrue(this.matches("star\\*", "star*"));
+        Assert.assertFalse(this.matches("star\\*", "stars"));
+        Assert.assertTrue(this.matches("back\\\\slash", "back\\slash"));
+        Assert.assertTrue(this.matches("back\\slash", "back\\slash"));
+    }
+
+    /**
+     * Tests case mapping.
+     */
+    @Test
+    public void testCaseMapping() {
+        Mask mask = Mask.fromString("[Cat]!*@*");
+        Assert.assertTrue(mask.matches(CaseMapping.RFC1459, "{cat}!meow@cat.example"));
+        Assert.assertFalse(mask.matches(CaseMapping.ASCII, "{cat}!meow@cat.example"));
+        Assert.assertTrue(mask.matches(CaseMapping.ASCII, "[CAT]!meow@cat.example"));
+    }
+
+    private boolean matches(String mask, String target) {
+        return Mask.fromString(mask).matches(CaseMapping.ASCII, target);
+    }
+}
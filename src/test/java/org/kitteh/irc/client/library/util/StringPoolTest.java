@@ -0,0 +1,52 @@
+package org.kitteh.irc.client.library.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the StringPool.
+ */
+public class StringPoolTest {
+    /**
+     * Tests that equal strings are deduplicated.
+     */
+    @Test
+    public void testIntern() {
+        StringPool pool = new StringPool();
+        String first = new String("cat.example");
+        String second = new String("cat.example");
+        Assert.assertSame(first, pool.intern(first));
+        Assert.assertSame(first, pool.intern(second));
+        Assert.assertEquals(1, pool.size());
+    }
+
+    /**
+     * Tests that a full pool hands back strings unpooled.
+     */
+    @Test
+    public void testBounded() {
+        StringPool pool = new StringPool(1);
+        String first = pool.intern(new String("one"));
+        String two = new String("two");
+        Assert.assertSame(two, pool.intern(two));
+        Assert.assertNotSame(two, pool.intern(new String("two")));
+        Assert.assertSame(first, pool.intern(new String("one")));
+        Assert.assertEquals(1, pool.size());
+    }
+
+    /**
+     * Tests rejecting a non-positive size.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroSize() {
+        new StringPool(0);
+    }
+
+    /**
+     * Tests rejecting null.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNull() {
+        new StringPool().intern(null);
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.Test;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Tests the StringUtil class.
@@ -87,4 +88,15 @@ public class StringUtilTest {
         constructor.setAccessible(true);
         constructor.newInstance();
     }
+
+    /**
+     * Tests measuring UTF-8 length against actual encoding.
+     */
+    @Test
+    public void utf8Length() {
+        for (String string : new String[]{"", "meow", "h\u00e9", "\u732b", "\ud83d\udc31!", "a\ud83d"}) {
+            Assert.assertEquals(string, string.getBytes(StandardCharsets.UTF_8).length, StringUtil.getUtf8Length(string));
+        }
+        Assert.assertEquals(4, StringUtil.getUtf8Length("x\ud83d\udc31x", 1, 3));
+    }
 }